@@ -1,16 +1,49 @@
 package knightswap;
 
+import knightswap.batch.BatchSolver;
+import knightswap.cache.SolutionCache;
+import knightswap.engine.BitboardKnightSwapState;
+import knightswap.engine.KnightSwapBoard;
+import knightswap.engine.PositionNotation;
+import knightswap.engine.PuzzleDefinition;
+import knightswap.graph.StateGraph;
+import knightswap.graph.StateGraphExporter;
+import knightswap.simulation.PlayoutSimulator;
+import knightswap.simulation.PlayoutStatistics;
+import knightswap.solver.CachingSolver;
+import knightswap.solver.LongHashSet;
+import knightswap.solver.OptimalSolutions;
+import knightswap.solver.RouteFinder;
+import knightswap.solver.SearchAbortedException;
+import knightswap.solver.SearchMonitor;
+import knightswap.solver.Solution;
+import knightswap.solver.Solver;
+import knightswap.solver.SolverType;
+import knightswap.solver.TablebaseSolver;
+import knightswap.tablebase.DeadPositionIndex;
+import knightswap.tablebase.PuzzleGenerator;
+import knightswap.tablebase.Tablebase;
 import puzzle.TwoPhaseMoveState;
 import knightswap.utils.Position;
-import puzzle.solver.BreadthFirstSearch;
-import puzzle.solver.Node;
 import org.tinylog.Logger;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.function.Supplier;
 
 /**
  * Provides a command-line interface for solving the KnightSwap puzzle
- * using the Breadth-First Search (BFS) algorithm.
+ * using the Breadth-First Search (BFS) algorithm, or one of the solvers of {@link knightswap.solver}.
  * This class cannot be instantiated.
  */
 public final class ConsoleGame {
@@ -21,49 +54,452 @@ public final class ConsoleGame {
 
     /**
      * The main entry point for the console-based KnightSwap puzzle solver.
-     * Initializes the puzzle, applies a BFS algorithm to find a solution,
-     * and logs the outcome, including the solution path length if found.
+     * Parses the {@link ConsoleOptions}, then runs the mode they select: counting all shortest solutions, generating
+     * puzzles, random playouts, state graph analysis, route finding, batch solving, or by default solving the initial
+     * state with the tablebase or a solver of {@link knightswap.solver}, {@link SolverType#BFS} unless another is
+     * selected.
      *
-     * @param args Command line arguments (not used).
+     * @param args Command line arguments.
      */
     public static void main(String[] args) {
         Logger.info("The KnightSwap game has been started.");
+        ConsoleOptions options;
+        try {
+            options = ConsoleOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            Logger.error("Invalid command line arguments: {}", e.getMessage());
+            return;
+        } catch (IOException e) {
+            Logger.error("Failed to read the puzzle spec: {}", e.getMessage(), e);
+            return;
+        }
+        if (options.offHeap()) {
+            System.setProperty(LongHashSet.OFF_HEAP_PROPERTY, "true");
+        }
 
-        KnightSwapState initialState = new KnightSwapState();
-        Logger.debug("Initial state created:\n{}", initialState);
-
-        BreadthFirstSearch<TwoPhaseMoveState.TwoPhaseMove<Position>> bfsSolver = new BreadthFirstSearch<>();
+        KnightSwapBoard initialState = options.engine().newInitialState(options.definition());
+        Logger.debug("Initial state created with the {} engine:\n{}", options.engine(), initialState);
 
-        Logger.info("Starting Breadth-First Search to solve the puzzle...");
+        if (options.countSolutions()) {
+            countSolutions(initialState, options.solutionsFile(), options.newMonitor());
+        } else if (options.generateCount().isPresent()) {
+            generatePuzzles(options);
+        } else if (options.playouts() > 0) {
+            runPlayouts(initialState, options);
+        } else if (options.graphFile().isPresent() || options.exportFormat().isPresent()) {
+            analyseGraph(initialState, options);
+        } else if (options.routeTarget().isPresent()) {
+            findRoute(options.routeStart().map(KnightSwapBoard.class::cast).orElse(initialState),
+                    options.routeTarget().get(), options.newMonitor());
+        } else if (options.batchSource().isPresent()) {
+            runBatch(options);
+        } else if (options.tablebaseFile().isPresent()) {
+            solveWithTablebase(initialState, options);
+        } else {
+            solve(initialState, options);
+        }
+        Logger.info("KnightSwap puzzle solver application finished.");
+    }
 
-        Optional<Node<TwoPhaseMoveState.TwoPhaseMove<Position>>> solution = bfsSolver.solveAndPrintSolution(initialState);
-        Logger.debug("BFS solution process completed.");
+    /**
+     * Solves the initial state with the selected solver, pruning dead positions and using the solution cache
+     * if the options ask for them.
+     *
+     * @param initialState The {@link KnightSwapBoard} to solve.
+     * @param options The {@link ConsoleOptions} of the run.
+     */
+    private static void solve(KnightSwapBoard initialState, ConsoleOptions options) {
+        SolverType type = options.solverType().orElse(SolverType.BFS);
+        Optional<DeadPositionIndex> deadPositions;
+        try {
+            deadPositions = options.prune() ? Optional.of(DeadPositionIndex.build(options.definition())) : Optional.empty();
+        } catch (IllegalArgumentException e) {
+            Logger.error("Failed to build the dead-position index: {}", e.getMessage());
+            return;
+        }
+        Solver solver;
+        if (type == SolverType.EXTERNAL) {
+            try {
+                solver = options.newExternalSolver(deadPositions);
+            } catch (IllegalArgumentException e) {
+                Logger.error("Invalid external solver settings: {}", e.getMessage());
+                return;
+            }
+        } else {
+            solver = deadPositions.isPresent() ? type.newSolver(deadPositions.get()) : type.newSolver();
+        }
+        if (options.cacheFile().isEmpty()) {
+            solveWith(type.toString(), solver, initialState, options.newMonitor());
+            return;
+        }
+        try (SolutionCache cache = SolutionCache.open(Path.of(options.cacheFile().get()), options.definition(), options.cacheEntries())) {
+            solveWith(type.toString(), new CachingSolver(solver, cache), initialState, options.newMonitor());
+        } catch (IOException | IllegalArgumentException e) {
+            Logger.error("Failed to use the solution cache: {}", e.getMessage(), e);
+        }
+    }
 
-        if (solution.isPresent()) {
-            Node<TwoPhaseMoveState.TwoPhaseMove<Position>> solutionNode = solution.get();
-            int steps = calculatePathLength(solutionNode);
-            Logger.info("Solution found! Number of steps: {}.", steps);
+    /**
+     * Reports the distance of the initial state read from the tablebase, and solves it with the tablebase.
+     *
+     * @param initialState The {@link KnightSwapBoard} to solve.
+     * @param options The {@link ConsoleOptions} of the run, naming the tablebase file.
+     */
+    private static void solveWithTablebase(KnightSwapBoard initialState, ConsoleOptions options) {
+        Tablebase tablebase;
+        try {
+            tablebase = Tablebase.openOrBuild(Path.of(options.tablebaseFile().get()), options.definition());
+        } catch (IOException | IllegalArgumentException e) {
+            Logger.error("Failed to open the tablebase: {}", e.getMessage(), e);
+            return;
+        }
+        int distance = tablebase.distance(initialState);
+        if (distance == Tablebase.UNSOLVABLE) {
+            Logger.info("The tablebase marks the initial state as unsolvable.");
         } else {
+            Logger.info("The initial state is {} moves from the goal.", distance);
+        }
+        solveWith("tablebase", new TablebaseSolver(tablebase), initialState, options.newMonitor());
+    }
+
+    /**
+     * Solves the puzzle with one of the solvers of {@link knightswap.solver}, and prints the states along the solution.
+     *
+     * @param solverName The {@link String} name of the solver, used in the log.
+     * @param solver The {@link Solver} to use.
+     * @param initialState The {@link KnightSwapBoard} to solve.
+     * @param monitor The {@link SearchMonitor} logging the progress and enforcing the limits.
+     */
+    private static void solveWith(String solverName, Solver solver, KnightSwapBoard initialState, SearchMonitor monitor) {
+        Logger.info("Starting the {} solver to solve the puzzle...", solverName);
+        long startTime = System.nanoTime();
+        Optional<Solution> solution;
+        try {
+            solution = solver.solve(new BitboardKnightSwapState(initialState.getDefinition(), initialState), monitor);
+        } catch (SearchAbortedException e) {
+            Logger.warn("The {} solver was stopped ({}) at {}.", solverName, e.getReason(), e.getProgress());
+            return;
+        }
+        long elapsedMillis = (System.nanoTime() - startTime) / 1_000_000;
+
+        if (solution.isEmpty()) {
             Logger.warn("No solution found for the KnightSwap puzzle.");
+            return;
+        }
+        TwoPhaseMoveState<Position> state = initialState.clone();
+        System.out.println(state);
+        for (TwoPhaseMoveState.TwoPhaseMove<Position> move : solution.get().moves()) {
+            state.makeMove(move);
+            System.out.println(state);
+        }
+        Logger.info("Solution found! Number of steps: {}. Nodes expanded: {}. Time: {} ms.",
+                solution.get().length(), solution.get().nodesExpanded(), elapsedMillis);
+    }
+
+    /**
+     * Finds a shortest route between two positions, and prints the states along it.
+     *
+     * @param from The {@link KnightSwapBoard} the route starts from.
+     * @param to The {@link KnightSwapBoard} the route leads to.
+     * @param monitor The {@link SearchMonitor} logging the progress and enforcing the limits.
+     */
+    private static void findRoute(KnightSwapBoard from, KnightSwapBoard to, SearchMonitor monitor) {
+        Logger.info("Searching for a route from {} to {}...", PositionNotation.format(from), PositionNotation.format(to));
+        long startTime = System.nanoTime();
+        Optional<Solution> route;
+        try {
+            route = new RouteFinder().findRoute(from, to, monitor);
+        } catch (SearchAbortedException e) {
+            Logger.warn("The route search was stopped ({}) at {}.", e.getReason(), e.getProgress());
+            return;
+        } catch (IllegalArgumentException e) {
+            Logger.error("Route search failed: {}", e.getMessage());
+            return;
         }
+        long elapsedMillis = (System.nanoTime() - startTime) / 1_000_000;
 
-        Logger.info("KnightSwap puzzle solver application finished.");
+        if (route.isEmpty()) {
+            Logger.warn("The target position cannot be reached from the start position.");
+            return;
+        }
+        TwoPhaseMoveState<Position> state = from.clone();
+        System.out.println(state);
+        for (TwoPhaseMoveState.TwoPhaseMove<Position> move : route.get().moves()) {
+            state.makeMove(move);
+            System.out.println(state);
+        }
+        Logger.info("Route found! Number of steps: {}. Nodes expanded: {}. Time: {} ms.",
+                route.get().length(), route.get().nodesExpanded(), elapsedMillis);
+    }
+
+    /**
+     * Plays the random games asked for by the options from the initial state, and logs their outcomes.
+     *
+     * @param initialState The {@link KnightSwapBoard} every game starts from.
+     * @param options The {@link ConsoleOptions} of the run.
+     */
+    private static void runPlayouts(KnightSwapBoard initialState, ConsoleOptions options) {
+        try {
+            Logger.info("Playing {} random games of at most {} moves with seed {}.",
+                    options.playouts(), options.maxPlayoutLength(), options.seed());
+            reportPlayouts(new PlayoutSimulator().run(initialState, options.playouts(), options.maxPlayoutLength(), options.seed()));
+        } catch (IllegalArgumentException e) {
+            Logger.error("Playouts failed: {}", e.getMessage());
+        }
     }
 
     /**
-     * Calculates the number of steps (moves) from the initial state to the given solution {@link Node}.
-     * This is determined by traversing the parent chain up to the root node.
+     * Logs the outcomes of random playouts, with the range and mean of the lengths of every outcome.
      *
-     * @param node The {@link Node} representing the solution state.
-     * @return The {@code int} number of steps in the solution path.
+     * @param statistics The {@link PlayoutStatistics} to report.
      */
-    private static int calculatePathLength(Node<?> node) {
-        int count = 0;
-        Node<?> current = node;
-        while (current.getParent().isPresent()) {
-            count++;
-            current = current.getParent().get();
-        }
-        return count;
+    private static void reportPlayouts(PlayoutStatistics statistics) {
+        Logger.info("Played {} games in {} ms ({} games/s).", statistics.getGames(), statistics.getElapsedMillis(),
+                Math.round(statistics.getGamesPerSecond()));
+        Logger.info("Solve rate: {}%, dead-end frequency: {}%.", String.format("%.4f", 100 * statistics.getSolveRate()),
+                String.format("%.4f", 100 * statistics.getDeadEndRate()));
+        for (PlayoutStatistics.Outcome outcome : PlayoutStatistics.Outcome.values()) {
+            if (statistics.getCount(outcome) > 0) {
+                Logger.info("{}: {} games, {} to {} moves, mean {}.", outcome, statistics.getCount(outcome),
+                        statistics.getMinLength(outcome), statistics.getMaxLength(outcome),
+                        String.format("%.1f", statistics.getMeanLength(outcome)));
+            }
+        }
+    }
+
+    /**
+     * Generates the random puzzles asked for by the options, from the tablebase file if one is given
+     * or a table built in memory.
+     *
+     * @param options The {@link ConsoleOptions} of the run.
+     */
+    private static void generatePuzzles(ConsoleOptions options) {
+        try {
+            Tablebase tablebase = options.tablebaseFile().isPresent()
+                    ? Tablebase.openOrBuild(Path.of(options.tablebaseFile().get()), options.definition())
+                    : Tablebase.build(options.definition());
+            generatePuzzles(new PuzzleGenerator(tablebase), options.generateCount().get(), options.generateDistance(),
+                    options.seed(), options.outputFile());
+        } catch (IOException | IllegalArgumentException e) {
+            Logger.error("Puzzle generation failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Generates random puzzles and writes them one per line to a file or the standard output.
+     *
+     * @param generator The {@link PuzzleGenerator} of the puzzle variant.
+     * @param count The number of puzzles to generate.
+     * @param distance An {@link Optional} length of their shortest solutions; the largest distance if it is empty.
+     * @param seed The seed of the random draws.
+     * @param outputFile An {@link Optional} name of the output file; the standard output is used if it is empty.
+     * @throws IOException If the output cannot be written.
+     * @throws IllegalArgumentException If {@code count} is negative or no puzzle has the requested distance.
+     */
+    private static void generatePuzzles(PuzzleGenerator generator, int count, Optional<Integer> distance, long seed,
+                                        Optional<String> outputFile) throws IOException {
+        int moves = distance.orElse(generator.getMaxDistance());
+        Logger.info("Generating {} puzzles of {} moves, out of {} positions, with seed {}.",
+                count, moves, generator.getLayerSize(moves), seed);
+        long startTime = System.nanoTime();
+        List<KnightSwapState> puzzles = generator.generate(moves, count, seed);
+        Writer output = outputFile.isPresent()
+                ? Files.newBufferedWriter(Path.of(outputFile.get()))
+                : new BufferedWriter(new OutputStreamWriter(System.out));
+        try {
+            for (KnightSwapState puzzle : puzzles) {
+                output.write(PositionNotation.format(puzzle));
+                output.write(System.lineSeparator());
+            }
+        } finally {
+            if (outputFile.isPresent()) {
+                output.close();
+            } else {
+                output.flush();
+            }
+        }
+        Logger.info("Generated {} puzzles in {} ms.", count, (System.nanoTime() - startTime) / 1_000_000);
+    }
+
+    /**
+     * Analyses the state graph of the variant, opened from the graph file if one is given or enumerated in memory
+     * from the initial state, and exports it if the options ask for it.
+     *
+     * @param initialState The {@link KnightSwapBoard} the graph is enumerated from.
+     * @param options The {@link ConsoleOptions} of the run.
+     */
+    private static void analyseGraph(KnightSwapBoard initialState, ConsoleOptions options) {
+        try {
+            StateGraph graph = options.graphFile().isPresent()
+                    ? StateGraph.openOrBuild(Path.of(options.graphFile().get()), options.definition())
+                    : StateGraph.build(initialState);
+            analyseGraph(graph, initialState, options.exportFormat(), options.outputFile());
+        } catch (IOException | IllegalArgumentException e) {
+            Logger.error("State graph analysis failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Logs the size, strongly connected components and shortest solution of a state graph,
+     * and writes the graph to a file or the standard output if an export format is given.
+     *
+     * @param graph The {@link StateGraph} to analyse.
+     * @param initialState The {@link KnightSwapBoard} whose shortest solution is read from the graph.
+     * @param exportFormat An {@link Optional} {@link StateGraphExporter.Format}; nothing is exported if it is empty.
+     * @param outputFile An {@link Optional} name of the output file; the standard output is used if it is empty.
+     * @throws IOException If the graph cannot be written.
+     */
+    private static void analyseGraph(StateGraph graph, KnightSwapBoard initialState,
+                                     Optional<StateGraphExporter.Format> exportFormat, Optional<String> outputFile) throws IOException {
+        long startTime = System.nanoTime();
+        int[] componentSizes = graph.componentSizes();
+        Logger.info("State graph: {} positions, {} moves, {} strongly connected components (largest {}), found in {} ms.",
+                graph.getVertexCount(), graph.getEdgeCount(), componentSizes.length,
+                componentSizes.length == 0 ? 0 : componentSizes[0], (System.nanoTime() - startTime) / 1_000_000);
+        int start = graph.vertexOf(initialState);
+        if (start == StateGraph.NO_VERTEX) {
+            Logger.warn("The initial state is not a position of the state graph.");
+        } else {
+            Optional<int[]> path = graph.shortestPathToGoal(start);
+            if (path.isPresent()) {
+                Logger.info("The state graph reaches the goal from the initial state in {} moves.", path.get().length);
+            } else {
+                Logger.info("The state graph holds no path from the initial state to the goal.");
+            }
+        }
+        if (exportFormat.isEmpty()) {
+            return;
+        }
+        Writer output = outputFile.isPresent()
+                ? Files.newBufferedWriter(Path.of(outputFile.get()))
+                : new BufferedWriter(new OutputStreamWriter(System.out));
+        try {
+            StateGraphExporter.write(graph, exportFormat.get(), output);
+        } finally {
+            if (outputFile.isPresent()) {
+                output.close();
+            } else {
+                output.flush();
+            }
+        }
+        Logger.info("State graph exported as {}.", exportFormat.get().name().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Solves the batch of positions named by the options, with the tablebase if one is given, otherwise the selected
+     * solver or the bidirectional search, sharing the solution cache if one is given.
+     *
+     * @param options The {@link ConsoleOptions} of the run.
+     */
+    private static void runBatch(ConsoleOptions options) {
+        SolverType batchType = options.solverType().orElse(SolverType.BIDIRECTIONAL);
+        if (options.tablebaseFile().isEmpty() && batchType == SolverType.EXTERNAL) {
+            Logger.error("The external solver cannot run in batch mode, as its workers would share one work directory.");
+            return;
+        }
+        PuzzleDefinition definition = options.definition();
+        SolutionCache cache = null;
+        try {
+            Optional<DeadPositionIndex> deadPositions = options.prune() && options.tablebaseFile().isEmpty()
+                    ? Optional.of(DeadPositionIndex.build(definition)) : Optional.empty();
+            Supplier<Solver> solverFactory = () -> deadPositions.map(batchType::newSolver).orElseGet(batchType::newSolver);
+            if (options.tablebaseFile().isPresent()) {
+                TablebaseSolver tablebaseSolver = new TablebaseSolver(Tablebase.openOrBuild(Path.of(options.tablebaseFile().get()), definition));
+                solverFactory = () -> tablebaseSolver;
+            }
+            if (options.cacheFile().isPresent()) {
+                SolutionCache shared = SolutionCache.open(Path.of(options.cacheFile().get()), definition, options.cacheEntries());
+                cache = shared;
+                Supplier<Solver> uncached = solverFactory;
+                solverFactory = () -> new CachingSolver(uncached.get(), shared);
+            }
+            runBatch(new BatchSolver(definition, solverFactory, options.workers(), options.queueSize(), options.limits()),
+                    options.batchSource().get(), options.outputFile());
+        } catch (IOException | IllegalArgumentException e) {
+            Logger.error("Batch solving failed: {}", e.getMessage(), e);
+        } finally {
+            if (cache != null) {
+                try {
+                    cache.close();
+                } catch (IOException e) {
+                    Logger.error("Failed to close the solution cache: {}", e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs a batch of positions from a file or the standard input, writing the results to a file or the standard output.
+     *
+     * @param batchSolver The {@link BatchSolver} to run.
+     * @param source The {@link String} name of the input file, or {@code -} for the standard input.
+     * @param outputFile An {@link Optional} name of the output file; the standard output is used if it is empty.
+     * @throws IOException If the input cannot be read or the output cannot be written.
+     */
+    private static void runBatch(BatchSolver batchSolver, String source, Optional<String> outputFile) throws IOException {
+        BufferedReader input = source.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in))
+                : Files.newBufferedReader(Path.of(source));
+        Writer output = outputFile.isPresent()
+                ? Files.newBufferedWriter(Path.of(outputFile.get()))
+                : new BufferedWriter(new OutputStreamWriter(System.out));
+        try (input) {
+            batchSolver.run(input, output);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Logger.warn("Batch solving was interrupted.");
+        } finally {
+            if (outputFile.isPresent()) {
+                output.close();
+            } else {
+                output.flush();
+            }
+        }
+    }
+
+    /**
+     * Counts the shortest solutions of the puzzle, and optionally writes them all to a file one per line.
+     * The solutions are streamed, so the file can be far larger than the available memory.
+     *
+     * @param initialState The {@link KnightSwapBoard} to solve.
+     * @param solutionsFile An {@link Optional} file name to write the solutions to.
+     * @param monitor The {@link SearchMonitor} logging the progress and enforcing the limits.
+     */
+    private static void countSolutions(KnightSwapBoard initialState, Optional<String> solutionsFile,
+                                       SearchMonitor monitor) {
+        Logger.info("Counting the shortest solutions of the puzzle...");
+        long startTime = System.nanoTime();
+        OptimalSolutions solutions;
+        try {
+            solutions = OptimalSolutions.of(new BitboardKnightSwapState(initialState.getDefinition(), initialState), monitor);
+        } catch (SearchAbortedException e) {
+            Logger.warn("Counting the solutions was stopped ({}) at {}.", e.getReason(), e.getProgress());
+            return;
+        }
+        long elapsedMillis = (System.nanoTime() - startTime) / 1_000_000;
+        if (!solutions.isSolvable()) {
+            Logger.warn("No solution found for the KnightSwap puzzle.");
+            return;
+        }
+        Logger.info("Shortest solutions: {} of {} moves. Nodes expanded: {}. Time: {} ms.",
+                solutions.getCount(), solutions.getLength(), solutions.getNodesExpanded(), elapsedMillis);
+
+        if (solutionsFile.isPresent()) {
+            long written = 0;
+            try (BufferedWriter writer = Files.newBufferedWriter(Path.of(solutionsFile.get()))) {
+                for (List<TwoPhaseMoveState.TwoPhaseMove<Position>> path : solutions) {
+                    StringJoiner line = new StringJoiner(", ");
+                    for (TwoPhaseMoveState.TwoPhaseMove<Position> move : path) {
+                        line.add(move.from() + " -> " + move.to());
+                    }
+                    writer.write(line.toString());
+                    writer.newLine();
+                    written++;
+                }
+                Logger.info("{} solutions written to {}.", written, solutionsFile.get());
+            } catch (IOException e) {
+                Logger.error("Failed to write the solutions: {}", e.getMessage(), e);
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,176 @@
+package knightswap;
+
+import knightswap.batch.BatchSolver;
+import knightswap.cache.SolutionCache;
+import knightswap.engine.BitboardKnightSwapState;
+import knightswap.engine.EngineType;
+import knightswap.engine.PositionNotation;
+import knightswap.engine.PuzzleDefinition;
+import knightswap.graph.StateGraphExporter;
+import knightswap.simulation.PlayoutSimulator;
+import knightswap.solver.ExternalBfsSolver;
+import knightswap.solver.SearchLimits;
+import knightswap.solver.SearchMonitor;
+import knightswap.solver.SolverType;
+import knightswap.tablebase.DeadPositionIndex;
+import knightswap.utils.CommandLineOptions;
+import org.tinylog.Logger;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * The options of the {@link ConsoleGame}, parsed from its command line.
+ *
+ * @param engine The {@link EngineType} the solution is replayed on and printed from, from {@code --engine}
+ * ({@code array} by default); the solvers search on the bitboard engine either way.
+ * @param definition The {@link PuzzleDefinition} loaded from the JSON spec given by {@code --puzzle},
+ * or the classic puzzle.
+ * @param solverType The {@link SolverType} selected by {@code --solver}, if any.
+ * @param tablebaseFile The tablebase file given by {@code --tablebase}, opened or built first if it does not exist.
+ * @param countSolutions Whether all shortest solutions are counted, with {@code --count-solutions}
+ * or {@code --solutions-file}.
+ * @param solutionsFile The file given by {@code --solutions-file} that every shortest solution is written to.
+ * @param workDirectory The work directory of the external solver, from {@code --work-dir}.
+ * @param memoryBudgetMiB The buffer budget of the external solver in MiB, from {@code --memory-budget},
+ * checked only when that solver is used.
+ * @param prune Whether dead positions are pruned, with {@code --prune}.
+ * @param offHeap Whether the visited sets are allocated outside the heap, with {@code --off-heap}.
+ * @param limits The {@link SearchLimits} from {@code --time-limit <seconds>}, {@code --node-limit <states>}
+ * and {@code --memory-limit <MiB>}.
+ * @param reportInterval The {@link Duration} between progress reports, from {@code --progress-interval <seconds>}.
+ * @param cacheFile The {@link SolutionCache} file given by {@code --cache}.
+ * @param cacheEntries The number of cache entries kept in the heap, from {@code --cache-entries}.
+ * @param batchSource The input of batch mode given by {@code --batch}, {@code -} for the standard input.
+ * @param outputFile The output file given by {@code --output}; the standard output is used if it is empty.
+ * @param workers The number of batch worker threads, from {@code --workers} (one per core by default).
+ * @param queueSize The capacity of the batch queue, from {@code --queue-size}.
+ * @param generateCount The number of random puzzles to generate, from {@code --generate}.
+ * @param generateDistance The length of the shortest solutions of the generated puzzles, from {@code --distance}.
+ * @param seed The seed of the random puzzles and playouts, from {@code --seed} (random by default).
+ * @param playouts The number of random playouts, from {@code --playouts} (none by default).
+ * @param maxPlayoutLength The longest playout, from {@code --max-length}.
+ * @param graphFile The state graph file given by {@code --graph}, enumerated first if it does not exist.
+ * @param exportFormat The {@link StateGraphExporter.Format} selected by {@code --export-graph}, if any.
+ * @param routeStart The position given by {@code --route-from}, in {@link PositionNotation}.
+ * @param routeTarget The position given by {@code --route-to}, in {@link PositionNotation}.
+ */
+record ConsoleOptions(EngineType engine, PuzzleDefinition definition, Optional<SolverType> solverType,
+                      Optional<String> tablebaseFile, boolean countSolutions, Optional<String> solutionsFile,
+                      Path workDirectory, long memoryBudgetMiB, boolean prune, boolean offHeap, SearchLimits limits,
+                      Duration reportInterval, Optional<String> cacheFile, int cacheEntries,
+                      Optional<String> batchSource, Optional<String> outputFile, int workers, int queueSize,
+                      Optional<Integer> generateCount, Optional<Integer> generateDistance, long seed, long playouts,
+                      int maxPlayoutLength, Optional<String> graphFile, Optional<StateGraphExporter.Format> exportFormat,
+                      Optional<BitboardKnightSwapState> routeStart, Optional<BitboardKnightSwapState> routeTarget) {
+    /**
+     * The names of the options accepted on the command line.
+     */
+    private static final Set<String> NAMES = Set.of("engine", "solver", "puzzle", "tablebase", "solutions-file",
+            "count-solutions", "work-dir", "memory-budget", "prune", "off-heap", "time-limit", "node-limit",
+            "memory-limit", "progress-interval", "cache", "cache-entries", "batch", "output", "workers", "queue-size",
+            "generate", "distance", "seed", "playouts", "max-length", "graph", "export-graph", "route-from", "route-to");
+
+    /**
+     * Parses the command line of the {@link ConsoleGame}.
+     *
+     * @param args The command line arguments.
+     * @return The parsed {@code ConsoleOptions}.
+     * @throws IllegalArgumentException If an option is unknown or has an invalid value.
+     * @throws IOException If the puzzle spec cannot be read.
+     */
+    static ConsoleOptions parse(String[] args) throws IOException {
+        CommandLineOptions options = CommandLineOptions.parse(args, NAMES);
+        Optional<String> puzzleFile = options.get("puzzle");
+        PuzzleDefinition definition = puzzleFile.isPresent()
+                ? PuzzleDefinition.load(Path.of(puzzleFile.get())) : PuzzleDefinition.classic();
+        Path workDirectory = options.get("work-dir").map(Path::of).orElse(ExternalBfsSolver.DEFAULT_WORK_DIRECTORY);
+        SearchLimits limits = SearchLimits.unlimited();
+        if (options.has("time-limit")) {
+            limits = limits.withTimeLimit(Duration.ofSeconds(options.getLong("time-limit", 0)));
+        }
+        if (options.has("node-limit")) {
+            limits = limits.withNodeLimit(options.getLong("node-limit", 0));
+        }
+        if (options.has("memory-limit")) {
+            limits = limits.withMemoryLimit(toBytes("memory-limit", options.getLong("memory-limit", 0)));
+        }
+        Duration reportInterval = Duration.ofSeconds(options.getLong("progress-interval", 1));
+        if (reportInterval.isNegative() || reportInterval.isZero()) {
+            throw new IllegalArgumentException("Option --progress-interval must be positive: " + reportInterval.toSeconds());
+        }
+        Optional<String> solutionsFile = options.get("solutions-file");
+        return new ConsoleOptions(
+                EngineType.fromName(options.get("engine", "array")),
+                definition,
+                options.get("solver").map(SolverType::fromName),
+                options.get("tablebase"),
+                options.has("count-solutions") || solutionsFile.isPresent(),
+                solutionsFile,
+                workDirectory,
+                options.getLong("memory-budget", ExternalBfsSolver.DEFAULT_MEMORY_BUDGET >> 20),
+                options.has("prune"),
+                options.has("off-heap"),
+                limits,
+                reportInterval,
+                options.get("cache"),
+                options.getInt("cache-entries", SolutionCache.DEFAULT_MEMORY_ENTRIES),
+                options.get("batch"),
+                options.get("output"),
+                options.getInt("workers", Runtime.getRuntime().availableProcessors()),
+                options.getInt("queue-size", BatchSolver.DEFAULT_QUEUE_CAPACITY),
+                options.has("generate") ? Optional.of(options.getInt("generate", 0)) : Optional.empty(),
+                options.has("distance") ? Optional.of(options.getInt("distance", 0)) : Optional.empty(),
+                options.getLong("seed", new SplittableRandom().nextLong()),
+                options.getLong("playouts", 0),
+                options.getInt("max-length", PlayoutSimulator.DEFAULT_MAX_LENGTH),
+                options.get("graph"),
+                options.get("export-graph").map(StateGraphExporter.Format::fromName),
+                options.get("route-from").map(notation -> PositionNotation.parse(definition, notation)),
+                options.get("route-to").map(notation -> PositionNotation.parse(definition, notation)));
+    }
+
+    /**
+     * Converts a size given in MiB on the command line to bytes.
+     *
+     * @param name The {@link String} name of the option, used in the error message.
+     * @param mebibytes The size in MiB.
+     * @return The size in bytes.
+     * @throws IllegalArgumentException If the size in bytes does not fit in a {@code long}.
+     */
+    static long toBytes(String name, long mebibytes) {
+        try {
+            return Math.multiplyExact(mebibytes, 1L << 20);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Option --" + name + " is out of range: " + mebibytes, e);
+        }
+    }
+
+    /**
+     * Returns the external solver configured by the work directory and memory budget.
+     *
+     * @param deadPositions An {@link Optional} {@link DeadPositionIndex} of positions to prune.
+     * @return A new {@link ExternalBfsSolver}.
+     * @throws IllegalArgumentException If the memory budget is out of range or below
+     * {@link ExternalBfsSolver#MIN_MEMORY_BUDGET}.
+     */
+    ExternalBfsSolver newExternalSolver(Optional<DeadPositionIndex> deadPositions) {
+        long memoryBudget = toBytes("memory-budget", memoryBudgetMiB);
+        return deadPositions.isPresent()
+                ? new ExternalBfsSolver(workDirectory, memoryBudget, deadPositions.get())
+                : new ExternalBfsSolver(workDirectory, memoryBudget);
+    }
+
+    /**
+     * Creates a monitor enforcing the limits and logging the progress of one search.
+     *
+     * @return A new {@link SearchMonitor}.
+     */
+    SearchMonitor newMonitor() {
+        return new SearchMonitor(limits, progress -> Logger.info("Search progress: {}.", progress), reportInterval);
+    }
+}
@@ -7,18 +7,24 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.IntConsumer;
 
+import knightswap.engine.KnightSwapBoard;
+import knightswap.engine.MoveCodec;
+import knightswap.engine.PuzzleDefinition;
+import knightswap.engine.Zobrist;
 import knightswap.utils.PieceType;
 import knightswap.utils.Position;
 
 /**
- * Represents the current state of the Knight Swap puzzle on a 4x3 board.
- * Dark knights ({@code 'D'}) start on row 0, and light knights ({@code 'L'}) start on row 3.
- * The game's goal is to swap their initial positions.
+ * Represents the current state of the Knight Swap puzzle.
+ * On the classic 4x3 board, dark knights ({@code 'D'}) start on row 0, and light knights ({@code 'L'}) start on row 3,
+ * and the game's goal is to swap their initial positions. Other board sizes and layouts can be played
+ * by passing a {@link PuzzleDefinition} to {@link #KnightSwapState(PuzzleDefinition)}.
  * Players (Light then Dark) take turns moving their knights. A move is valid if it's a standard
  * knight's move to an empty square that is not attacked by an opposing knight.
  */
-public class KnightSwapState implements TwoPhaseMoveState<Position> {
+public class KnightSwapState implements KnightSwapBoard {
     static final int[][] knightMoves = {
             {-2, -1}, {-2, 1}, {-1, -2}, {-1, 2},
             {1, -2}, {1, 2}, {2, -1}, {2, 1}
@@ -26,47 +32,104 @@ public class KnightSwapState implements TwoPhaseMoveState<Position> {
 
     /**
      * The board representation, where 'D' is a dark knight, 'L' is a light knight, and '.' is an empty square.
+     * It decides {@link #isSolved()}, {@link #equals(Object)} and {@link #hashCode()}. Direct changes that bypass
+     * {@link #makeMove(TwoPhaseMoveState.TwoPhaseMove)} must be followed by {@link #refreshDerivedState()} before
+     * legal moves are generated or the {@link #zobristKey} is read.
      */
     char[][] board;
 
+    /**
+     * The mask of the squares holding a light knight, bit {@code row * cols + col}, kept in sync with {@link #board}.
+     */
+    private long lightMask;
+
+    /**
+     * The mask of the squares holding a dark knight, kept in sync with {@link #board}.
+     */
+    private long darkMask;
+
     /**
      * The {@link PieceType} of the player whose turn it is to move next.
      */
     private PieceType currentPlayer;
 
+    /**
+     * The puzzle variant being played, which provides the goal layout.
+     */
+    private final PuzzleDefinition definition;
+
+    /**
+     * The {@link Zobrist} key of the board and current player, updated incrementally by every move.
+     */
+    private long zobristKey;
+
     /**
      * Creates a new {@code KnightSwapState} with the initial setup for the Knight Swap puzzle.
      * The board is initialized with dark knights in row 0 and light knights in row 3.
      * The {@link #currentPlayer} is set to {@link PieceType#LIGHT}.
      */
     public KnightSwapState() {
-        this.board = new char[4][3];
-
-        for (int i = 0; i < 4; i++) {
-            Arrays.fill(board[i], '.');
-        }
+        this(PuzzleDefinition.classic());
+    }
 
-        board[0][0] = PieceType.DARK.getSymbol();
-        board[0][1] = PieceType.DARK.getSymbol();
-        board[0][2] = PieceType.DARK.getSymbol();
+    /**
+     * Creates a new {@code KnightSwapState} with the starting layout of the given puzzle variant.
+     * The {@link #currentPlayer} is set to the variant's first player.
+     *
+     * @param definition The {@link PuzzleDefinition} describing the board and its layouts.
+     */
+    public KnightSwapState(PuzzleDefinition definition) {
+        this.definition = definition;
+        this.board = new char[definition.getRows()][definition.getCols()];
 
-        board[3][0] = PieceType.LIGHT.getSymbol();
-        board[3][1] = PieceType.LIGHT.getSymbol();
-        board[3][2] = PieceType.LIGHT.getSymbol();
+        for (int r = 0; r < definition.getRows(); r++) {
+            for (int c = 0; c < definition.getCols(); c++) {
+                board[r][c] = definition.getStartPieceAt(r, c);
+            }
+        }
 
-        this.currentPlayer = PieceType.LIGHT;
+        this.currentPlayer = definition.getFirstPlayer();
+        refreshDerivedState();
         Logger.info("KnightSwap puzzle initial state created. Current player: {}.", currentPlayer);
         Logger.debug("Initial board state:\n{}", this.toString());
     }
 
+    /**
+     * Creates a new {@code KnightSwapState} of the given puzzle variant holding the same position as another board,
+     * including the player to move. This allows starting a game from any position, such as a generated puzzle.
+     *
+     * @param definition The {@link PuzzleDefinition} describing the board and its goal layout.
+     * @param other The {@link KnightSwapBoard} to copy, of the same size as the variant's board.
+     * @throws IllegalArgumentException If the boards differ in size.
+     */
+    public KnightSwapState(PuzzleDefinition definition, KnightSwapBoard other) {
+        if (other.getRows() != definition.getRows() || other.getCols() != definition.getCols()) {
+            throw new IllegalArgumentException("The board must be " + definition.getRows() + "x" + definition.getCols()
+                    + ", not " + other.getRows() + "x" + other.getCols() + ".");
+        }
+        this.definition = definition;
+        this.board = new char[definition.getRows()][definition.getCols()];
+
+        for (int r = 0; r < definition.getRows(); r++) {
+            for (int c = 0; c < definition.getCols(); c++) {
+                board[r][c] = other.getPieceAt(r, c);
+            }
+        }
+
+        this.currentPlayer = other.getCurrentPlayer();
+        refreshDerivedState();
+        Logger.debug("KnightSwap state copied. Current player: {}.", currentPlayer);
+    }
+
     /**
      * Returns the character symbol representing the piece at the specified board position.
      *
-     * @param row The {@code int} row index (0-3).
-     * @param col The {@code int} column index (0-2).
+     * @param row The {@code int} row index (0-3 on the classic board).
+     * @param col The {@code int} column index (0-2 on the classic board).
      * @return The {@code char} symbol of the piece ('D', 'L', or '.').
      * @throws IllegalArgumentException If the provided row or column is out of the board's bounds.
      */
+    @Override
     public char getPieceAt(int row, int col) {
         if (row < 0 || row >= board.length || col < 0 || col >= board[0].length) {
             Logger.error("Attempted to access out of bounds board position: ({}, {}).", row, col);
@@ -83,36 +146,60 @@ public class KnightSwapState implements TwoPhaseMoveState<Position> {
      * @return The {@code char} symbol of the piece ('D', 'L', or '.').
      * @throws IllegalArgumentException If the provided position is out of the board's bounds.
      */
+    @Override
     public char getPieceAt(Position p) {
         return getPieceAt(p.row(), p.col());
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getRows() {
+        return board.length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getCols() {
+        return board[0].length;
+    }
+
     /**
      * {@inheritDoc}
      * Determines if the puzzle has reached its solved state.
-     * The puzzle is solved when all dark knights are in row 3 and all light knights are in row 0.
+     * The puzzle is solved when every square of the board holds the piece of the goal layout of the
+     * {@link PuzzleDefinition}; on the classic board, when all dark knights are in row 3 and all light knights are in row 0.
      *
      * @return {@code true} if the puzzle is solved, {@code false} otherwise.
      */
     @Override
     public boolean isSolved() {
-        boolean darkKnightsAtBottom = (getPieceAt(3, 0) == PieceType.DARK.getSymbol() &&
-                getPieceAt(3, 1) == PieceType.DARK.getSymbol() &&
-                getPieceAt(3, 2) == PieceType.DARK.getSymbol());
-
-        boolean lightKnightsAtTop = (getPieceAt(0, 0) == PieceType.LIGHT.getSymbol() &&
-                getPieceAt(0, 1) == PieceType.LIGHT.getSymbol() &&
-                getPieceAt(0, 2) == PieceType.LIGHT.getSymbol());
-
-        boolean solved = darkKnightsAtBottom && lightKnightsAtTop;
-        Logger.debug("Checking if solved. Result: {}. Dark at bottom: {}, Light at top: {}.", solved, darkKnightsAtBottom, lightKnightsAtTop);
+        boolean solved = true;
+        for (int r = 0; r < board.length && solved; r++) {
+            for (int c = 0; c < board[r].length && solved; c++) {
+                solved = board[r][c] == definition.getGoalPieceAt(r, c);
+            }
+        }
+        Logger.debug("Checking if solved. Result: {}.", solved);
         return solved;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PuzzleDefinition getDefinition() {
+        return definition;
+    }
+
     /**
      * {@inheritDoc}
      * Generates a set of all legal moves available to the {@link #currentPlayer} from the current board state.
-     * Each move is represented as a {@link TwoPhaseMoveState.TwoPhaseMove<Position>} object.
+     * Each move is represented as a {@link TwoPhaseMoveState.TwoPhaseMove<Position>} object,
+     * unpacked from the moves produced by {@link #forEachLegalMove(IntConsumer)}.
      *
      * @return A {@link Set} of {@link TwoPhaseMoveState.TwoPhaseMove<Position>} objects, where each describes a legal move.
      */
@@ -120,35 +207,64 @@ public class KnightSwapState implements TwoPhaseMoveState<Position> {
     public Set<TwoPhaseMoveState.TwoPhaseMove<Position>> getLegalMoves() {
         Set<TwoPhaseMoveState.TwoPhaseMove<Position>> legalMoves = new HashSet<>();
         Logger.debug("Generating legal moves for current player: {}.", currentPlayer);
-        for (int r = 0; r < board.length; r++) {
-            for (int c = 0; c < board[0].length; c++) {
-                Position start = new Position(r, c);
-                char piece = getPieceAt(start);
-
-                if ((currentPlayer == PieceType.LIGHT && piece == PieceType.LIGHT.getSymbol()) ||
-                        (currentPlayer == PieceType.DARK && piece == PieceType.DARK.getSymbol())) {
-
-                    for (int[] move : knightMoves) {
-                        int endR = start.row() + move[0];
-                        int endC = start.col() + move[1];
-
-                        Position end = new Position(endR, endC);
-                        if (end.isValidForBoard(board.length, board[0].length)) {
-                            TwoPhaseMoveState.TwoPhaseMove<Position> twoPhaseMove = new TwoPhaseMoveState.TwoPhaseMove<>(start, end);
-
-                            if (isLegalMove(twoPhaseMove)) {
-                                legalMoves.add(twoPhaseMove);
-                                Logger.trace("Found legal move: {} (from {} to {}).", twoPhaseMove, start, end);
-                            } else {
-                                Logger.trace("Move {} (from {} to {}) is not legal.", twoPhaseMove, start, end);
-                            }
-                        }
-                    }
+        forEachLegalMove(move -> legalMoves.add(MoveCodec.toMove(definition, move)));
+        Logger.debug("Generated {} legal moves for current player {}.", legalMoves.size(), currentPlayer);
+        return legalMoves;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The moves are derived from the knight masks and the knight tables of the {@link PuzzleDefinition},
+     * so neither the board is scanned nor {@link Position} objects are created.
+     *
+     * @param action The {@link IntConsumer} receiving the packed moves.
+     */
+    @Override
+    public void forEachLegalMove(IntConsumer action) {
+        generateMoves(action, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param moves The array receiving the packed moves, starting at index 0.
+     * @return The {@code int} number of moves written.
+     */
+    @Override
+    public int fillLegalMoves(int[] moves) {
+        return generateMoves(null, moves);
+    }
+
+    /**
+     * Generates the legal moves of the {@link #currentPlayer}, packed by {@link MoveCodec},
+     * and passes them to an action or stores them in an array.
+     *
+     * @param action The {@link IntConsumer} receiving the moves, or {@code null} to use {@code moves}.
+     * @param moves The array receiving the moves when {@code action} is {@code null}.
+     * @return The {@code int} number of generated moves.
+     */
+    private int generateMoves(IntConsumer action, int[] moves) {
+        long movers = currentPlayer == PieceType.LIGHT ? lightMask : darkMask;
+        long attackers = currentPlayer == PieceType.LIGHT ? darkMask : lightMask;
+        long free = definition.getBoardMask() & ~(lightMask | darkMask);
+        int count = 0;
+        for (long from = movers; from != 0; from &= from - 1) {
+            int fromSquare = Long.numberOfTrailingZeros(from);
+            for (long to = definition.getKnightMask(fromSquare) & free; to != 0; to &= to - 1) {
+                int toSquare = Long.numberOfTrailingZeros(to);
+                if ((definition.getKnightMask(toSquare) & attackers) != 0) {
+                    continue;
+                }
+                int move = MoveCodec.encode(fromSquare, toSquare);
+                if (action != null) {
+                    action.accept(move);
+                } else {
+                    moves[count] = move;
                 }
+                count++;
             }
         }
-        Logger.debug("Generated {} legal moves for current player {}.", legalMoves.size(), currentPlayer);
-        return legalMoves;
+        return count;
     }
 
     /**
@@ -183,7 +299,7 @@ public class KnightSwapState implements TwoPhaseMoveState<Position> {
      * A move is legal if:
      * <ul>
      * <li>The move object and its positions are not null.</li>
-     * <li>Both the starting and ending positions are within the board bounds (0-3 for row, 0-2 for column).</li>
+     * <li>Both the starting and ending positions are within the board bounds.</li>
      * <li>The starting position contains the {@link #currentPlayer}'s piece.</li>
      * <li>The target square is empty.</li>
      * <li>It is a valid knight's move from start to end.</li>
@@ -285,15 +401,56 @@ public class KnightSwapState implements TwoPhaseMoveState<Position> {
         board[end.row()][end.col()] = piece;
 
         Logger.info("Move successfully made: {} -> {} (Piece: {}).", start, end, piece);
+        int cols = board[0].length;
+        int fromSquare = start.row() * cols + start.col();
+        int toSquare = end.row() * cols + end.col();
+        long delta = (1L << fromSquare) | (1L << toSquare);
+        if (currentPlayer == PieceType.LIGHT) {
+            lightMask ^= delta;
+        } else {
+            darkMask ^= delta;
+        }
+        zobristKey ^= Zobrist.moveDelta(currentPlayer, fromSquare, toSquare);
         currentPlayer = currentPlayer.opponent();
         Logger.debug("Current player switched to {}.", currentPlayer);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long zobristKey() {
+        return zobristKey;
+    }
+
+    /**
+     * Recomputes the knight masks and the {@link #zobristKey} from the board and the current player.
+     * Needed only after the {@link #board} has been modified directly, before legal moves are generated.
+     */
+    void refreshDerivedState() {
+        int cols = board[0].length;
+        long light = 0;
+        long dark = 0;
+        for (int r = 0; r < board.length; r++) {
+            for (int c = 0; c < cols; c++) {
+                if (board[r][c] == PieceType.LIGHT.getSymbol()) {
+                    light |= 1L << (r * cols + c);
+                } else if (board[r][c] == PieceType.DARK.getSymbol()) {
+                    dark |= 1L << (r * cols + c);
+                }
+            }
+        }
+        lightMask = light;
+        darkMask = dark;
+        zobristKey = Zobrist.keyOf(light, dark, currentPlayer);
+    }
+
     /**
      * Returns the {@link PieceType} of the player whose turn it is to make a move.
      *
      * @return The {@link PieceType} of the current player.
      */
+    @Override
     public PieceType getCurrentPlayer() {
         return currentPlayer;
     }
@@ -324,7 +481,7 @@ public class KnightSwapState implements TwoPhaseMoveState<Position> {
     /**
      * {@inheritDoc}
      * Compares this {@code KnightSwapState} object to another object for equality.
-     * Two states are considered equal if their board configurations and current players are identical.
+     * Two states are considered equal if their puzzle variants, board configurations and current players are identical.
      *
      * @param o The {@link Object} to compare with this state.
      * @return {@code true} if the specified object is equal to this state, {@code false} otherwise.
@@ -334,7 +491,8 @@ public class KnightSwapState implements TwoPhaseMoveState<Position> {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         KnightSwapState that = (KnightSwapState) o;
-        boolean isEqual = Arrays.deepEquals(board, that.board) && currentPlayer == that.currentPlayer;
+        boolean isEqual = Arrays.deepEquals(board, that.board) && currentPlayer == that.currentPlayer
+                && definition.equals(that.definition);
         Logger.trace("Comparing states. Result: {}. This hash: {}, Other hash: {}.", isEqual, this.hashCode(), that.hashCode());
         return isEqual;
     }
@@ -0,0 +1,283 @@
+package knightswap.batch;
+
+import com.google.gson.Gson;
+import knightswap.engine.BitboardKnightSwapState;
+import knightswap.engine.PositionNotation;
+import knightswap.engine.PuzzleDefinition;
+import knightswap.solver.SearchAbortedException;
+import knightswap.solver.SearchLimits;
+import knightswap.solver.SearchMonitor;
+import knightswap.solver.Solution;
+import knightswap.solver.Solver;
+import knightswap.utils.Position;
+import org.tinylog.Logger;
+import puzzle.TwoPhaseMoveState;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Solves many start positions of one puzzle variant in a single run.
+ * <p>
+ * The calling thread reads the positions, one per line in {@link PositionNotation}, and hands them to a fixed
+ * number of worker threads through a bounded queue, so at most that many positions wait in memory however long
+ * the input is. Blank lines and lines starting with {@code #} are skipped. Every worker has its own
+ * {@link Solver}, created by a factory, and writes one JSON object per position to the shared output as soon as the
+ * position is done, so the results appear in completion order and carry the number of their input line:
+ * <pre>{@code
+ * {"line":1,"position":"DDD/.../.../LLL L","distance":22,"path":["(3, 0) -> (1, 1)", ...],"nodes":371,"timeMs":4}
+ * }</pre>
+ * The distance is -1, without a path, for positions the solver proves unsolvable. Positions that cannot be parsed, or whose search
+ * reaches a {@link SearchLimits limit}, produce an {@code error} field instead.
+ */
+public class BatchSolver {
+    /**
+     * The default capacity of the queue between the reader and the workers.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    /**
+     * The number of results between two progress messages in the log.
+     */
+    private static final long LOG_INTERVAL = 10_000;
+
+    /**
+     * The task telling a worker that the input is exhausted.
+     */
+    private static final Task END = new Task(-1, "");
+
+    /**
+     * A position read from the input.
+     *
+     * @param line The number of the input line, starting at 1.
+     * @param notation The {@link PositionNotation} of the position.
+     */
+    private record Task(long line, String notation) {
+    }
+
+    /**
+     * One line of the output. Absent values are {@code null} and left out of the JSON.
+     *
+     * @param line The number of the input line.
+     * @param position The position as read, or normalized if it could be parsed.
+     * @param distance The length of a shortest solution, or -1 if there is none.
+     * @param path The moves of the solution.
+     * @param nodes The number of states expanded.
+     * @param timeMs The time spent on the position, in milliseconds.
+     * @param error The reason the position has no result.
+     */
+    private record Result(long line, String position, Integer distance, List<String> path, Long nodes, long timeMs, String error) {
+    }
+
+    /**
+     * The totals of a batch run.
+     *
+     * @param positions The number of positions read.
+     * @param solved The number of positions with a solution.
+     * @param unsolvable The number of positions without a solution.
+     * @param failed The number of positions that could not be parsed or whose search was stopped.
+     * @param elapsedMillis The duration of the run, in milliseconds.
+     */
+    public record Summary(long positions, long solved, long unsolvable, long failed, long elapsedMillis) {
+    }
+
+    /**
+     * The puzzle variant of the positions.
+     */
+    private final PuzzleDefinition definition;
+
+    /**
+     * Creates the solver of every worker.
+     */
+    private final Supplier<Solver> solverFactory;
+
+    /**
+     * The number of worker threads.
+     */
+    private final int workers;
+
+    /**
+     * The capacity of the queue between the reader and the workers.
+     */
+    private final int queueCapacity;
+
+    /**
+     * The limits of every single search.
+     */
+    private final SearchLimits limits;
+
+    /**
+     * The JSON mapper of the results.
+     */
+    private final Gson gson = new Gson();
+
+    /**
+     * Creates a batch solver.
+     *
+     * @param definition The {@link PuzzleDefinition} of the positions.
+     * @param solverFactory The {@link Supplier} creating one {@link Solver} per worker.
+     * @param workers The number of worker threads.
+     * @param queueCapacity The largest number of positions waiting for a worker.
+     * @param limits The {@link SearchLimits} of every single search.
+     * @throws IllegalArgumentException If {@code workers} or {@code queueCapacity} is not positive.
+     */
+    public BatchSolver(PuzzleDefinition definition, Supplier<Solver> solverFactory, int workers, int queueCapacity, SearchLimits limits) {
+        if (workers <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("Workers and queue capacity must be positive: " + workers + ", " + queueCapacity);
+        }
+        this.definition = definition;
+        this.solverFactory = solverFactory;
+        this.workers = workers;
+        this.queueCapacity = queueCapacity;
+        this.limits = limits;
+    }
+
+    /**
+     * Solves every position of the input and writes the results to the output. Neither stream is closed.
+     *
+     * @param input The {@link BufferedReader} supplying one position per line.
+     * @param output The {@link Writer} receiving one JSON line per position.
+     * @return The {@link Summary} of the run.
+     * @throws IOException If the input cannot be read or the output cannot be written.
+     * @throws InterruptedException If the calling thread is interrupted while waiting for the workers.
+     */
+    public Summary run(BufferedReader input, Writer output) throws IOException, InterruptedException {
+        long startTime = System.nanoTime();
+        BlockingQueue<Task> queue = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicLong solved = new AtomicLong();
+        AtomicLong unsolvable = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        AtomicReference<IOException> writeError = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            Thread thread = new Thread(() -> work(queue, output, solved, unsolvable, failed, writeError), "batch-worker-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+        Logger.info("Batch solving with {} workers started.", workers);
+
+        long positions = 0;
+        try {
+            long lineNumber = 0;
+            for (String line = input.readLine(); line != null && writeError.get() == null; line = input.readLine()) {
+                lineNumber++;
+                String trimmed = line.trim();
+                if (!trimmed.isEmpty() && !trimmed.startsWith("#")) {
+                    queue.put(new Task(lineNumber, trimmed));
+                    positions++;
+                }
+            }
+        } finally {
+            for (int i = 0; i < workers; i++) {
+                queue.put(END);
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+        if (writeError.get() != null) {
+            throw writeError.get();
+        }
+        Summary summary = new Summary(positions, solved.get(), unsolvable.get(), failed.get(), (System.nanoTime() - startTime) / 1_000_000);
+        Logger.info("Batch finished: {} positions, {} solved, {} unsolvable, {} failed in {} ms.",
+                summary.positions(), summary.solved(), summary.unsolvable(), summary.failed(), summary.elapsedMillis());
+        return summary;
+    }
+
+    /**
+     * Runs one worker: solves the queued positions until the end marker, writing each result at once.
+     * A position whose search throws, even an {@link Error} such as {@link OutOfMemoryError}, is recorded as failed,
+     * so the worker keeps draining the queue and the reader never waits for a dead worker.
+     * After a write error the worker only drains the queue.
+     *
+     * @param queue The queue of positions.
+     * @param output The shared {@link Writer}, also used as the lock of the output.
+     * @param solved The counter of solved positions.
+     * @param unsolvable The counter of unsolvable positions.
+     * @param failed The counter of failed positions.
+     * @param writeError The first write error of any worker.
+     */
+    private void work(BlockingQueue<Task> queue, Writer output, AtomicLong solved, AtomicLong unsolvable,
+                      AtomicLong failed, AtomicReference<IOException> writeError) {
+        Solver solver = solverFactory.get();
+        try {
+            for (Task task = queue.take(); task != END; task = queue.take()) {
+                if (writeError.get() != null) {
+                    continue;
+                }
+                Result result;
+                try {
+                    result = solve(solver, task);
+                } catch (Throwable e) {
+                    Logger.error("Failed to solve the position on line {}: {}", task.line(), e.toString(), e);
+                    result = new Result(task.line(), task.notation(), null, null, null, 0, e.toString());
+                }
+                (result.error() != null ? failed : result.distance() < 0 ? unsolvable : solved).incrementAndGet();
+                try {
+                    synchronized (output) {
+                        output.write(gson.toJson(result));
+                        output.write(System.lineSeparator());
+                        output.flush();
+                    }
+                } catch (IOException e) {
+                    writeError.compareAndSet(null, e);
+                }
+                long done = solved.get() + unsolvable.get() + failed.get();
+                if (done % LOG_INTERVAL == 0) {
+                    Logger.info("Batch progress: {} positions done.", done);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Solves one position.
+     *
+     * @param solver The {@link Solver} of the worker.
+     * @param task The position to solve.
+     * @return The {@link Result} of the position.
+     */
+    private Result solve(Solver solver, Task task) {
+        long startTime = System.nanoTime();
+        BitboardKnightSwapState start;
+        try {
+            start = PositionNotation.parse(definition, task.notation());
+        } catch (IllegalArgumentException e) {
+            return new Result(task.line(), task.notation(), null, null, null, 0, e.getMessage());
+        }
+        String position = PositionNotation.format(start);
+        try {
+            Optional<Solution> solution = solver.solve(start, new SearchMonitor(limits));
+            long elapsedMillis = (System.nanoTime() - startTime) / 1_000_000;
+            if (solution.isEmpty() && !solver.provesUnsolvability()) {
+                return new Result(task.line(), position, null, null, null, elapsedMillis, "no solution within the solver's depth limit");
+            }
+            if (solution.isEmpty()) {
+                return new Result(task.line(), position, -1, null, null, elapsedMillis, null);
+            }
+            List<String> path = new ArrayList<>(solution.get().length());
+            for (TwoPhaseMoveState.TwoPhaseMove<Position> move : solution.get().moves()) {
+                path.add(move.from() + " -> " + move.to());
+            }
+            return new Result(task.line(), position, solution.get().length(), path, solution.get().nodesExpanded(), elapsedMillis, null);
+        } catch (SearchAbortedException e) {
+            return new Result(task.line(), position, null, null, e.getProgress().nodesExpanded(),
+                    (System.nanoTime() - startTime) / 1_000_000, e.getReason().toString());
+        } catch (RuntimeException e) {
+            Logger.error("Failed to solve the position on line {}: {}", task.line(), e.getMessage(), e);
+            return new Result(task.line(), position, null, null, null, (System.nanoTime() - startTime) / 1_000_000, e.toString());
+        }
+    }
+}
@@ -0,0 +1,6 @@
+/**
+ * Provides the batch mode of the console solver.
+ * The {@link knightswap.batch.BatchSolver} streams start positions written in
+ * {@link knightswap.engine.PositionNotation} through a pool of worker threads and writes one JSON line per result.
+ */
+package knightswap.batch;
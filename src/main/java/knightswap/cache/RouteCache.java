@@ -0,0 +1,162 @@
+package knightswap.cache;
+
+import knightswap.engine.MoveCodec;
+import knightswap.engine.StateRanker;
+import knightswap.solver.LongIntHashMap;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.OptionalInt;
+
+/**
+ * A cache of optimal routes between positions, shared by the point-to-point queries of a puzzle variant.
+ * <p>
+ * Positions are identified by their plain {@link StateRanker} index; no symmetry is applied, since a route to the
+ * mirror image of a target does not reach the target. For every target, the cache maps the positions of the routes
+ * found so far to the next move of an optimal route, packed by {@link MoveCodec}. Every suffix of an optimal route
+ * is itself optimal, so one stored route answers the queries from all of its positions, and following the cached
+ * next moves from any stored position always reaches the target by a shortest route. Positions known not to reach
+ * a target are marked {@link #UNREACHABLE}.
+ * <p>
+ * At most a fixed number of targets is kept, the least recently used being dropped first. Hits and misses are
+ * counted. All methods are synchronized, so one cache can be shared by threads.
+ */
+public final class RouteCache {
+    /**
+     * The default number of targets kept.
+     */
+    public static final int DEFAULT_TARGETS = 64;
+
+    /**
+     * The next move returned for a position from which the target cannot be reached.
+     */
+    public static final int UNREACHABLE = -1;
+
+    /**
+     * The value returned by the maps of {@link #routes} for a position they do not hold.
+     */
+    private static final int MISSING = Integer.MIN_VALUE;
+
+    /**
+     * The next moves of every cached target, indexed by target and then by position, in access order.
+     */
+    private final Map<Long, LongIntHashMap> routes;
+
+    /**
+     * The number of lookups answered by the cache.
+     */
+    private long hits;
+
+    /**
+     * The number of lookups not answered by the cache.
+     */
+    private long misses;
+
+    /**
+     * Creates a cache keeping the default number of targets.
+     */
+    public RouteCache() {
+        this(DEFAULT_TARGETS);
+    }
+
+    /**
+     * Creates a cache keeping at most the given number of targets.
+     *
+     * @param maxTargets The largest number of targets kept.
+     * @throws IllegalArgumentException If {@code maxTargets} is not positive.
+     */
+    public RouteCache(int maxTargets) {
+        if (maxTargets < 1) {
+            throw new IllegalArgumentException("The cache must keep at least one target: " + maxTargets);
+        }
+        this.routes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, LongIntHashMap> eldest) {
+                return size() > maxTargets;
+            }
+        };
+    }
+
+    /**
+     * Looks up the next move of an optimal route from a position to a target.
+     *
+     * @param position The {@link StateRanker} index of the position, other than {@code target}.
+     * @param target The {@link StateRanker} index of the target.
+     * @return An {@link OptionalInt} holding the packed next move, or {@link #UNREACHABLE} if the target cannot be
+     * reached from the position, or an empty {@link OptionalInt} on a miss.
+     */
+    public synchronized OptionalInt nextMove(long position, long target) {
+        LongIntHashMap nextMoves = routes.get(target);
+        int move = nextMoves == null ? MISSING : nextMoves.get(position, MISSING);
+        if (move == MISSING) {
+            misses++;
+            return OptionalInt.empty();
+        }
+        hits++;
+        return OptionalInt.of(move);
+    }
+
+    /**
+     * Stores an optimal route to a target.
+     *
+     * @param target The {@link StateRanker} index of the target.
+     * @param positions The indices of the positions of the route, in playing order, without the target.
+     * @param moves The packed moves of the route, {@code moves[i]} being played in {@code positions[i]}.
+     * @throws IllegalArgumentException If the arrays differ in length.
+     */
+    public synchronized void putRoute(long target, long[] positions, int[] moves) {
+        if (positions.length != moves.length) {
+            throw new IllegalArgumentException("A route needs one position per move: " + positions.length + " != " + moves.length);
+        }
+        LongIntHashMap nextMoves = routes.computeIfAbsent(target, key -> new LongIntHashMap());
+        for (int i = 0; i < positions.length; i++) {
+            nextMoves.put(positions[i], moves[i]);
+        }
+    }
+
+    /**
+     * Records that a target cannot be reached from a position.
+     *
+     * @param position The {@link StateRanker} index of the position.
+     * @param target The {@link StateRanker} index of the target.
+     */
+    public synchronized void putUnreachable(long position, long target) {
+        routes.computeIfAbsent(target, key -> new LongIntHashMap()).put(position, UNREACHABLE);
+    }
+
+    /**
+     * Returns the number of lookups answered by the cache.
+     *
+     * @return The {@code long} number of hits.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups not answered by the cache.
+     *
+     * @return The {@code long} number of misses.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of targets kept.
+     *
+     * @return The {@code int} number of targets.
+     */
+    public synchronized int getTargetCount() {
+        return routes.size();
+    }
+
+    /**
+     * Returns the number of positions kept, over all targets.
+     *
+     * @return The {@code int} number of cached next moves.
+     */
+    public synchronized int getEntryCount() {
+        return routes.values().stream().mapToInt(LongIntHashMap::size).sum();
+    }
+}
@@ -0,0 +1,558 @@
+package knightswap.cache;
+
+import knightswap.engine.BitboardKnightSwapState;
+import knightswap.engine.KnightSwapBoard;
+import knightswap.engine.MoveCodec;
+import knightswap.engine.PuzzleDefinition;
+import knightswap.engine.StateRanker;
+import knightswap.engine.Symmetry;
+import knightswap.engine.SymmetryGroup;
+import knightswap.utils.Position;
+import org.tinylog.Logger;
+import puzzle.TwoPhaseMoveState;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A two-tier cache of optimal solutions, keyed by the {@link StateRanker} index of the orbit representative
+ * of the start position under the {@link SymmetryGroup} of the variant, so all symmetric positions share one entry.
+ * The moves are stored as they apply to the representative, and mapped onto the queried position on the way out.
+ * <p>
+ * The first tier is a least-recently-used map in the heap holding at most a fixed number of entries. The second,
+ * optional tier is an open-addressing hash table with linear probing in a memory-mapped file, which keeps every entry
+ * across runs. Each slot of the file holds the key plus one, zero marking a free slot, the number of moves, or -1 for
+ * an unsolvable position, and up to {@value #MAX_STORED_MOVES} packed moves; longer solutions are kept in the heap
+ * only. When the table becomes half full, the file is extended to twice the slots and its entries are rehashed.
+ * <p>
+ * Hits in either tier and misses are counted. All methods are synchronized, so one cache can be shared by threads.
+ */
+public final class SolutionCache implements Closeable {
+    /**
+     * The default number of entries kept in the heap.
+     */
+    public static final int DEFAULT_MEMORY_ENTRIES = 4096;
+
+    /**
+     * The longest solution stored in the file.
+     */
+    public static final int MAX_STORED_MOVES = 59;
+
+    /**
+     * The magic number at the start of every cache file, the ASCII codes of {@code KSSC}.
+     */
+    private static final int MAGIC = 0x4B535343;
+
+    /**
+     * The version of the file format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The size of the file header in bytes: magic, version, rows, columns, goal masks, slot count, slot size
+     * and entry count, padded to a multiple of eight.
+     */
+    private static final int HEADER_SIZE = 48;
+
+    /**
+     * The position of the slot count in the header.
+     */
+    private static final int SLOT_COUNT_OFFSET = 32;
+
+    /**
+     * The position of the entry count in the header.
+     */
+    private static final int ENTRY_COUNT_OFFSET = 40;
+
+    /**
+     * The size of a slot in bytes: the key, the move count and the moves.
+     */
+    private static final int SLOT_SIZE = Long.BYTES + Short.BYTES + MAX_STORED_MOVES * Short.BYTES;
+
+    /**
+     * The number of slots of a new cache file.
+     */
+    private static final int INITIAL_SLOTS = 1024;
+
+    /**
+     * The move count stored for unsolvable positions.
+     */
+    private static final short UNSOLVABLE = -1;
+
+    /**
+     * The value of the heap tier marking an unsolvable position, compared by identity.
+     */
+    private static final short[] UNSOLVABLE_MOVES = new short[0];
+
+    /**
+     * A cached result.
+     *
+     * @param solvable Whether the position can be solved.
+     * @param moves The moves of an optimal solution, in playing order; empty if the position cannot be solved.
+     */
+    public record Entry(boolean solvable, List<TwoPhaseMoveState.TwoPhaseMove<Position>> moves) {
+    }
+
+    /**
+     * The puzzle variant whose positions are cached.
+     */
+    private final PuzzleDefinition definition;
+
+    /**
+     * The ranker producing the keys.
+     */
+    private final StateRanker ranker;
+
+    /**
+     * The symmetries used to canonicalize the positions.
+     */
+    private final SymmetryGroup symmetries;
+
+    /**
+     * The heap tier, in least-recently-used order, mapping keys to the packed moves of the representative.
+     */
+    private final Map<Long, short[]> memory;
+
+    /**
+     * The cache file, or {@code null} if the cache has no file tier.
+     */
+    private final Path file;
+
+    /**
+     * The channel of the cache file.
+     */
+    private FileChannel channel;
+
+    /**
+     * The mapped cache file.
+     */
+    private MappedByteBuffer table;
+
+    /**
+     * The number of slots of the cache file, a power of two.
+     */
+    private int slotCount;
+
+    /**
+     * The number of occupied slots of the cache file.
+     */
+    private int diskEntries;
+
+    /**
+     * The number of lookups answered by the heap tier.
+     */
+    private long memoryHits;
+
+    /**
+     * The number of lookups answered by the file tier.
+     */
+    private long diskHits;
+
+    /**
+     * The number of lookups answered by neither tier.
+     */
+    private long misses;
+
+    /**
+     * Creates a cache.
+     *
+     * @param definition The {@link PuzzleDefinition} whose positions are cached.
+     * @param memoryEntries The largest number of entries kept in the heap.
+     * @param file The {@link Path} of the cache file, or {@code null}.
+     * @throws IllegalArgumentException If {@code memoryEntries} is negative.
+     */
+    private SolutionCache(PuzzleDefinition definition, int memoryEntries, Path file) {
+        if (memoryEntries < 0) {
+            throw new IllegalArgumentException("The number of entries must not be negative: " + memoryEntries);
+        }
+        this.definition = definition;
+        this.ranker = new StateRanker(definition);
+        this.symmetries = new SymmetryGroup(definition);
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, short[]> eldest) {
+                return size() > memoryEntries;
+            }
+        };
+        this.file = file;
+    }
+
+    /**
+     * Creates a cache kept in the heap only.
+     *
+     * @param definition The {@link PuzzleDefinition} whose positions are cached.
+     * @param memoryEntries The largest number of entries kept in the heap.
+     * @return The new {@code SolutionCache}.
+     * @throws IllegalArgumentException If {@code memoryEntries} is negative.
+     */
+    public static SolutionCache inMemory(PuzzleDefinition definition, int memoryEntries) {
+        return new SolutionCache(definition, memoryEntries, null);
+    }
+
+    /**
+     * Opens a cache backed by a file, creating the file if it does not exist.
+     *
+     * @param file The {@link Path} of the cache file.
+     * @param definition The {@link PuzzleDefinition} whose positions are cached.
+     * @param memoryEntries The largest number of entries kept in the heap.
+     * @return The new {@code SolutionCache}.
+     * @throws IOException If the file cannot be created or read, is not a cache file, or belongs to another variant.
+     * @throws IllegalArgumentException If {@code memoryEntries} is negative.
+     */
+    public static SolutionCache open(Path file, PuzzleDefinition definition, int memoryEntries) throws IOException {
+        SolutionCache cache = new SolutionCache(definition, memoryEntries, file.toAbsolutePath());
+        if (Files.notExists(file)) {
+            cache.createFile(cache.file, INITIAL_SLOTS).close();
+        }
+        cache.map();
+        Logger.info("Solution cache {} opened with {} entries.", file, cache.diskEntries);
+        return cache;
+    }
+
+    /**
+     * Creates a cache file with empty slots.
+     *
+     * @param path The {@link Path} of the new file.
+     * @param slots The number of slots.
+     * @return The {@link FileChannel} of the file, open for reading and writing.
+     * @throws IOException If the file cannot be written.
+     */
+    private FileChannel createFile(Path path, int slots) throws IOException {
+        FileChannel created = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putInt(definition.getRows()).putInt(definition.getCols())
+                .putLong(definition.getGoalLightMask()).putLong(definition.getGoalDarkMask())
+                .putInt(slots).putInt(SLOT_SIZE).putInt(0);
+        header.clear();
+        while (header.hasRemaining()) {
+            created.write(header);
+        }
+        created.write(ByteBuffer.allocate(1), HEADER_SIZE + (long) slots * SLOT_SIZE - 1);
+        return created;
+    }
+
+    /**
+     * Opens and maps the cache file, checking its header.
+     *
+     * @throws IOException If the file cannot be read, is not a cache file, or belongs to another variant.
+     */
+    private void map() throws IOException {
+        FileChannel opened = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer mapped = opened.map(FileChannel.MapMode.READ_WRITE, 0, opened.size());
+            if (opened.size() < HEADER_SIZE || mapped.getInt() != MAGIC || mapped.getInt() != VERSION) {
+                throw new IOException("Not a solution cache file: " + file);
+            }
+            if (mapped.getInt() != definition.getRows() || mapped.getInt() != definition.getCols()
+                    || mapped.getLong() != definition.getGoalLightMask() || mapped.getLong() != definition.getGoalDarkMask()) {
+                throw new IOException("The solution cache file " + file + " belongs to another puzzle variant.");
+            }
+            int slots = mapped.getInt();
+            if (Integer.bitCount(slots) != 1 || mapped.getInt() != SLOT_SIZE
+                    || opened.size() != HEADER_SIZE + (long) slots * SLOT_SIZE) {
+                throw new IOException("Corrupt solution cache file: " + file);
+            }
+            this.diskEntries = mapped.getInt(ENTRY_COUNT_OFFSET);
+            this.slotCount = slots;
+            this.table = mapped;
+            this.channel = opened;
+        } catch (IOException e) {
+            opened.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Looks up the cached result of a position.
+     *
+     * @param board The {@link KnightSwapBoard} holding the position. It is not modified.
+     * @return An {@link Optional} holding the cached {@link Entry}, whose moves apply to {@code board},
+     * or an empty {@link Optional} on a miss.
+     * @throws IllegalArgumentException If {@code board} belongs to another puzzle variant.
+     */
+    public synchronized Optional<Entry> get(KnightSwapBoard board) {
+        BitboardKnightSwapState state = toBitboard(board);
+        Symmetry canonical = symmetries.canonicalSymmetry(state.getLightMask(), state.getDarkMask(), state.getCurrentPlayer());
+        long key = keyOf(state, canonical);
+        short[] moves = memory.get(key);
+        if (moves != null) {
+            memoryHits++;
+        } else if (table != null && (moves = read(key)) != null) {
+            diskHits++;
+            memory.put(key, moves);
+        } else {
+            misses++;
+            return Optional.empty();
+        }
+        if (moves == UNSOLVABLE_MOVES) {
+            return Optional.of(new Entry(false, List.of()));
+        }
+        Symmetry back = canonical.inverse();
+        List<TwoPhaseMoveState.TwoPhaseMove<Position>> path = new ArrayList<>(moves.length);
+        for (short move : moves) {
+            path.add(MoveCodec.toMove(definition, back.mapMove(move)));
+        }
+        return Optional.of(new Entry(true, List.copyOf(path)));
+    }
+
+    /**
+     * Stores the result of a position in both tiers.
+     *
+     * @param board The {@link KnightSwapBoard} holding the position. It is not modified.
+     * @param moves An {@link Optional} holding the moves of an optimal solution of {@code board},
+     * or an empty {@link Optional} if it cannot be solved.
+     * @throws IllegalArgumentException If {@code board} belongs to another puzzle variant, or a move leaves the board.
+     * @throws UncheckedIOException If the cache file cannot be grown.
+     */
+    public synchronized void put(KnightSwapBoard board, Optional<List<TwoPhaseMoveState.TwoPhaseMove<Position>>> moves) {
+        BitboardKnightSwapState state = toBitboard(board);
+        Symmetry canonical = symmetries.canonicalSymmetry(state.getLightMask(), state.getDarkMask(), state.getCurrentPlayer());
+        long key = keyOf(state, canonical);
+        short[] packed = UNSOLVABLE_MOVES;
+        if (moves.isPresent()) {
+            packed = new short[moves.get().size()];
+            for (int i = 0; i < packed.length; i++) {
+                packed[i] = (short) canonical.mapMove(MoveCodec.fromMove(definition, moves.get().get(i)));
+            }
+        }
+        memory.put(key, packed);
+        if (table != null && packed.length <= MAX_STORED_MOVES) {
+            try {
+                write(key, packed);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to grow the solution cache " + file, e);
+            }
+        }
+    }
+
+    /**
+     * Converts a board of this cache's variant to the bitboard engine.
+     *
+     * @param board The {@link KnightSwapBoard} to convert.
+     * @return The {@link BitboardKnightSwapState} holding the same position.
+     * @throws IllegalArgumentException If {@code board} belongs to another puzzle variant.
+     */
+    private BitboardKnightSwapState toBitboard(KnightSwapBoard board) {
+        if (!board.getDefinition().equals(definition)) {
+            throw new IllegalArgumentException("The position belongs to another puzzle variant than the cache.");
+        }
+        return board instanceof BitboardKnightSwapState bitboard ? bitboard : new BitboardKnightSwapState(definition, board);
+    }
+
+    /**
+     * Returns the key of a position: the index of its image under its canonicalizing symmetry.
+     *
+     * @param state The {@link BitboardKnightSwapState} holding the position.
+     * @param canonical The canonicalizing {@link Symmetry} of the position.
+     * @return The {@code long} key.
+     */
+    private long keyOf(BitboardKnightSwapState state, Symmetry canonical) {
+        long light = state.getLightMask();
+        long dark = state.getDarkMask();
+        return ranker.rank(canonical.mapLightMask(light, dark), canonical.mapDarkMask(light, dark),
+                canonical.mapPlayer(state.getCurrentPlayer()));
+    }
+
+    /**
+     * Returns the first slot probed for a key.
+     *
+     * @param key The key.
+     * @param slots The number of slots, a power of two.
+     * @return The index of the home slot.
+     */
+    private static int homeSlot(long key, int slots) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> (Long.SIZE - Integer.numberOfTrailingZeros(slots)));
+    }
+
+    /**
+     * Returns the position of a slot in a mapped file.
+     *
+     * @param slot The index of the slot.
+     * @return The byte offset of the slot.
+     */
+    private static int slotOffset(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    /**
+     * Reads the moves stored for a key in the file tier.
+     *
+     * @param key The key.
+     * @return The packed moves, {@link #UNSOLVABLE_MOVES}, or {@code null} if the key is not stored.
+     */
+    private short[] read(long key) {
+        for (int slot = homeSlot(key, slotCount); ; slot = (slot + 1) & (slotCount - 1)) {
+            int offset = slotOffset(slot);
+            long stored = table.getLong(offset);
+            if (stored == 0) {
+                return null;
+            }
+            if (stored == key + 1) {
+                short length = table.getShort(offset + Long.BYTES);
+                if (length == UNSOLVABLE) {
+                    return UNSOLVABLE_MOVES;
+                }
+                short[] moves = new short[length];
+                for (int i = 0; i < length; i++) {
+                    moves[i] = table.getShort(offset + Long.BYTES + Short.BYTES * (i + 1));
+                }
+                return moves;
+            }
+        }
+    }
+
+    /**
+     * Stores the moves of a key in the file tier, growing the file first if it is half full.
+     *
+     * @param key The key.
+     * @param moves The packed moves, or {@link #UNSOLVABLE_MOVES}.
+     * @throws IOException If the file cannot be grown.
+     */
+    private void write(long key, short[] moves) throws IOException {
+        if ((diskEntries + 1) * 2L > slotCount) {
+            grow();
+        }
+        if (writeSlot(table, slotCount, key, moves)) {
+            diskEntries++;
+            table.putInt(ENTRY_COUNT_OFFSET, diskEntries);
+        }
+    }
+
+    /**
+     * Writes an entry into the slots of a mapped file. The key is written last, so a slot interrupted halfway
+     * reads as free.
+     *
+     * @param target The mapped file.
+     * @param slots The number of slots of the file.
+     * @param key The key.
+     * @param moves The packed moves, or {@link #UNSOLVABLE_MOVES}.
+     * @return {@code true} if a free slot was taken, {@code false} if the key was already stored.
+     */
+    private static boolean writeSlot(MappedByteBuffer target, int slots, long key, short[] moves) {
+        int slot = homeSlot(key, slots);
+        long stored;
+        while ((stored = target.getLong(slotOffset(slot))) != 0 && stored != key + 1) {
+            slot = (slot + 1) & (slots - 1);
+        }
+        int offset = slotOffset(slot);
+        target.putShort(offset + Long.BYTES, moves == UNSOLVABLE_MOVES ? UNSOLVABLE : (short) moves.length);
+        for (int i = 0; i < moves.length; i++) {
+            target.putShort(offset + Long.BYTES + Short.BYTES * (i + 1), moves[i]);
+        }
+        target.putLong(offset, key + 1);
+        return stored == 0;
+    }
+
+    /**
+     * Doubles the slots of the file tier in place. The occupied slots are copied to the heap, the file is extended
+     * through its channel and mapped again, and the entries are rehashed into it. The file is never replaced, so the
+     * old mapping, which stays alive until it is garbage collected, does not prevent the growth on any platform.
+     *
+     * @throws IOException If the file cannot be extended.
+     */
+    private void grow() throws IOException {
+        int slots = slotCount * 2;
+        if (HEADER_SIZE + (long) slots * SLOT_SIZE > Integer.MAX_VALUE) {
+            throw new IOException("The solution cache file cannot grow beyond " + slotCount + " slots.");
+        }
+        ByteBuffer old = ByteBuffer.allocate(slotCount * SLOT_SIZE);
+        old.put(table.slice(HEADER_SIZE, slotCount * SLOT_SIZE));
+        int oldSlots = slotCount;
+        table.force();
+        channel.write(ByteBuffer.allocate(1), HEADER_SIZE + (long) slots * SLOT_SIZE - 1);
+        MappedByteBuffer grown = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        grown.put(HEADER_SIZE, new byte[oldSlots * SLOT_SIZE]);
+        grown.putInt(SLOT_COUNT_OFFSET, slots);
+        table = grown;
+        slotCount = slots;
+        for (int slot = 0; slot < oldSlots; slot++) {
+            int offset = slot * SLOT_SIZE;
+            long stored = old.getLong(offset);
+            if (stored != 0) {
+                short length = old.getShort(offset + Long.BYTES);
+                short[] moves = length == UNSOLVABLE ? UNSOLVABLE_MOVES : new short[length];
+                for (int i = 0; i < moves.length; i++) {
+                    moves[i] = old.getShort(offset + Long.BYTES + Short.BYTES * (i + 1));
+                }
+                writeSlot(grown, slots, stored - 1, moves);
+            }
+        }
+        grown.putInt(ENTRY_COUNT_OFFSET, diskEntries);
+        grown.force();
+        Logger.debug("Solution cache {} grown to {} slots.", file, slots);
+    }
+
+    /**
+     * Returns the number of lookups answered by either tier.
+     *
+     * @return The {@code long} number of hits.
+     */
+    public synchronized long getHits() {
+        return memoryHits + diskHits;
+    }
+
+    /**
+     * Returns the number of lookups answered by the file tier after missing the heap tier.
+     *
+     * @return The {@code long} number of file hits.
+     */
+    public synchronized long getDiskHits() {
+        return diskHits;
+    }
+
+    /**
+     * Returns the number of lookups answered by neither tier.
+     *
+     * @return The {@code long} number of misses.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of entries in the heap tier.
+     *
+     * @return The {@code int} number of entries kept in the heap.
+     */
+    public synchronized int getMemoryEntries() {
+        return memory.size();
+    }
+
+    /**
+     * Returns the number of entries in the file tier.
+     *
+     * @return The {@code int} number of entries stored in the file, 0 if the cache has no file.
+     */
+    public synchronized int getDiskEntries() {
+        return diskEntries;
+    }
+
+    /**
+     * Forces the file tier to the storage device and closes it. The heap tier stays usable.
+     *
+     * @throws IOException If the file cannot be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (table != null) {
+            table.force();
+            table = null;
+            channel.close();
+            Logger.info("Solution cache {} closed with {} entries. Hits: {} ({} from the file). Misses: {}.",
+                    file, diskEntries, getHits(), diskHits, misses);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+/**
+ * Provides caches of solver results, some of which survive between runs.
+ * The {@link knightswap.cache.SolutionCache} maps the canonical key of a position to its optimal move sequence,
+ * keeping recently used entries in the heap and all of them in a memory-mapped file.
+ * The {@link knightswap.cache.RouteCache} keeps, in the heap, the next moves of the routes found between positions.
+ */
+package knightswap.cache;
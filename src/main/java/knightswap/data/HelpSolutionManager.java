@@ -0,0 +1,322 @@
+package knightswap.data;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import knightswap.engine.BitboardKnightSwapState;
+import knightswap.engine.MoveCodec;
+import knightswap.engine.PuzzleDefinition;
+import knightswap.solver.BidirectionalBfsSolver;
+import knightswap.solver.SearchAbortedException;
+import knightswap.solver.SearchLimits;
+import knightswap.solver.SearchMonitor;
+import knightswap.solver.Solution;
+import knightswap.solver.Solver;
+import knightswap.utils.PieceType;
+import knightswap.utils.Position;
+import org.tinylog.Logger;
+import puzzle.TwoPhaseMoveState;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Provides the solution shown on the help screen, computed by a {@link Solver} for the puzzle variant being played.
+ * <p>
+ * The solution is prepared on a background daemon thread the first time it is requested. It is read from a small
+ * JSON file if that file belongs to the same variant and its moves still solve the puzzle under the engine's rules;
+ * otherwise it is computed and the file is rewritten, so later launches show it at once. The computation runs under
+ * {@link SearchLimits}, so a large variant cannot exhaust the heap of the application; a search stopped by them
+ * yields a solution that is {@link Status#NOT_AVAILABLE} and is tried again on the next launch.
+ */
+public class HelpSolutionManager {
+    /**
+     * The default file the solution is stored in.
+     */
+    public static final Path DEFAULT_FILE_PATH = Paths.get("help-solution.json");
+
+    /**
+     * The default limits of the computation: one minute and half of the largest heap.
+     */
+    public static final SearchLimits DEFAULT_LIMITS = SearchLimits.unlimited().withTimeLimit(Duration.ofMinutes(1))
+            .withMemoryLimit(Runtime.getRuntime().maxMemory() / 2);
+
+    /**
+     * Runs every computation on a new daemon thread, so an unfinished one does not keep the application alive.
+     */
+    private static final Executor BACKGROUND = task -> {
+        Thread thread = new Thread(task, "help-solution");
+        thread.setDaemon(true);
+        thread.start();
+    };
+
+    /**
+     * The outcomes of preparing the solution.
+     */
+    public enum Status {
+        /**
+         * A solution was found.
+         */
+        SOLVED,
+        /**
+         * The variant cannot be solved.
+         */
+        UNSOLVABLE,
+        /**
+         * The search was stopped by its limits before it finished.
+         */
+        NOT_AVAILABLE
+    }
+
+    /**
+     * The solution prepared for the help screen.
+     *
+     * @param status The {@link Status} of the solution.
+     * @param moves The moves of the solution, empty unless the status is {@link Status#SOLVED}.
+     */
+    public record HelpSolution(Status status, List<TwoPhaseMoveState.TwoPhaseMove<Position>> moves) {
+    }
+
+    /**
+     * The contents of the solution file.
+     *
+     * @param rows The number of rows of the variant.
+     * @param cols The number of columns of the variant.
+     * @param startLight The mask of the light knights at the start.
+     * @param startDark The mask of the dark knights at the start.
+     * @param goalLight The mask of the light knights in the goal layout.
+     * @param goalDark The mask of the dark knights in the goal layout.
+     * @param firstPlayer The {@link PieceType} moving first.
+     * @param solvable Whether the variant can be solved.
+     * @param moves The packed moves of the solution (see {@link MoveCodec}), in playing order.
+     */
+    private record StoredSolution(int rows, int cols, long startLight, long startDark, long goalLight, long goalDark,
+                                  PieceType firstPlayer, boolean solvable, List<Integer> moves) {
+    }
+
+    /**
+     * The file the solution is stored in.
+     */
+    private final Path file;
+
+    /**
+     * The puzzle variant being played.
+     */
+    private final PuzzleDefinition definition;
+
+    /**
+     * The solver computing the solution.
+     */
+    private final Solver solver;
+
+    /**
+     * The limits of the computation.
+     */
+    private final SearchLimits limits;
+
+    /**
+     * The JSON mapper of the solution file.
+     */
+    private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+
+    /**
+     * The solution being prepared, or {@code null} before the first request.
+     */
+    private CompletableFuture<HelpSolution> solution;
+
+    /**
+     * Constructs a new {@code HelpSolutionManager} computing solutions with the {@link BidirectionalBfsSolver}.
+     *
+     * @param file The {@link Path} of the solution file.
+     * @param definition The {@link PuzzleDefinition} of the variant being played.
+     */
+    public HelpSolutionManager(Path file, PuzzleDefinition definition) {
+        this(file, definition, new BidirectionalBfsSolver());
+    }
+
+    /**
+     * Constructs a new {@code HelpSolutionManager}.
+     *
+     * @param file The {@link Path} of the solution file.
+     * @param definition The {@link PuzzleDefinition} of the variant being played.
+     * @param solver The {@link Solver} computing the solution when the file cannot be used.
+     */
+    public HelpSolutionManager(Path file, PuzzleDefinition definition, Solver solver) {
+        this(file, definition, solver, DEFAULT_LIMITS);
+    }
+
+    /**
+     * Constructs a new {@code HelpSolutionManager} with custom limits.
+     *
+     * @param file The {@link Path} of the solution file.
+     * @param definition The {@link PuzzleDefinition} of the variant being played.
+     * @param solver The {@link Solver} computing the solution when the file cannot be used.
+     * @param limits The {@link SearchLimits} of the computation.
+     */
+    public HelpSolutionManager(Path file, PuzzleDefinition definition, Solver solver, SearchLimits limits) {
+        this.file = file;
+        this.definition = definition;
+        this.solver = solver;
+        this.limits = limits;
+    }
+
+    /**
+     * Returns the solution of the variant, starting to prepare it in the background on the first call.
+     *
+     * @return A {@link CompletableFuture} completed with the {@link HelpSolution}.
+     */
+    public synchronized CompletableFuture<HelpSolution> getSolution() {
+        if (solution == null) {
+            solution = CompletableFuture.supplyAsync(this::loadOrCompute, BACKGROUND);
+        }
+        return solution;
+    }
+
+    /**
+     * Reads the solution from the file, or computes it and saves it if the file cannot be used.
+     *
+     * @return The {@link HelpSolution}.
+     */
+    private HelpSolution loadOrCompute() {
+        Optional<StoredSolution> stored = load().filter(this::isValid);
+        if (stored.isPresent()) {
+            Logger.info("Help solution loaded from '{}'.", file);
+            return stored.get().solvable() ? new HelpSolution(Status.SOLVED, toMoves(stored.get().moves()))
+                    : new HelpSolution(Status.UNSOLVABLE, List.of());
+        }
+        long startTime = System.nanoTime();
+        Optional<Solution> computed;
+        try {
+            computed = solver.solve(new BitboardKnightSwapState(definition), new SearchMonitor(limits));
+        } catch (SearchAbortedException e) {
+            Logger.warn("Help solution not available: {}.", e.getMessage());
+            return new HelpSolution(Status.NOT_AVAILABLE, List.of());
+        }
+        Logger.info("Help solution computed in {} ms.", (System.nanoTime() - startTime) / 1_000_000);
+        List<Integer> moves = new ArrayList<>();
+        computed.ifPresent(found -> found.moves().forEach(move -> moves.add(MoveCodec.fromMove(definition, move))));
+        save(new StoredSolution(definition.getRows(), definition.getCols(), definition.getStartLightMask(),
+                definition.getStartDarkMask(), definition.getGoalLightMask(), definition.getGoalDarkMask(),
+                definition.getFirstPlayer(), computed.isPresent(), moves));
+        return computed.map(found -> new HelpSolution(Status.SOLVED, found.moves()))
+                .orElseGet(() -> new HelpSolution(Status.UNSOLVABLE, List.of()));
+    }
+
+    /**
+     * Reads the solution file.
+     *
+     * @return An {@link Optional} holding the stored solution, or an empty {@link Optional} if the file
+     * does not exist or cannot be read.
+     */
+    private Optional<StoredSolution> load() {
+        if (!Files.exists(file)) {
+            Logger.info("Help solution file '{}' not found.", file);
+            return Optional.empty();
+        }
+        try (Reader reader = Files.newBufferedReader(file)) {
+            return Optional.ofNullable(gson.fromJson(reader, StoredSolution.class));
+        } catch (IOException | JsonParseException e) {
+            Logger.warn("Failed to read the help solution from '{}': {}.", file, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Checks that a stored solution belongs to the variant being played and that its moves are legal and
+     * reach the goal.
+     *
+     * @param stored The stored solution.
+     * @return {@code true} if the solution can be shown.
+     */
+    private boolean isValid(StoredSolution stored) {
+        if (stored.rows() != definition.getRows() || stored.cols() != definition.getCols()
+                || stored.startLight() != definition.getStartLightMask() || stored.startDark() != definition.getStartDarkMask()
+                || stored.goalLight() != definition.getGoalLightMask() || stored.goalDark() != definition.getGoalDarkMask()
+                || stored.firstPlayer() != definition.getFirstPlayer() || stored.moves() == null) {
+            Logger.info("Help solution file '{}' belongs to another puzzle variant.", file);
+            return false;
+        }
+        if (!stored.solvable()) {
+            return true;
+        }
+        for (Integer move : stored.moves()) {
+            if (move == null || move != MoveCodec.encode(MoveCodec.from(move), MoveCodec.to(move))
+                    || MoveCodec.from(move) >= definition.getSquareCount() || MoveCodec.to(move) >= definition.getSquareCount()) {
+                Logger.warn("Help solution file '{}' holds an undecodable move: {}.", file, move);
+                return false;
+            }
+        }
+        BitboardKnightSwapState state = new BitboardKnightSwapState(definition);
+        for (TwoPhaseMoveState.TwoPhaseMove<Position> move : toMoves(stored.moves())) {
+            if (!state.isLegalMove(move)) {
+                Logger.warn("Help solution file '{}' holds an illegal move: {}.", file, move);
+                return false;
+            }
+            state.makeMove(move);
+        }
+        if (!state.isSolved()) {
+            Logger.warn("Help solution file '{}' does not reach the goal.", file);
+        }
+        return state.isSolved();
+    }
+
+    /**
+     * Writes a solution to the file, through a temporary file so readers never see a partial one.
+     *
+     * @param stored The solution to write.
+     */
+    private void save(StoredSolution stored) {
+        Path absolute = file.toAbsolutePath();
+        Path temporary = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temporary)) {
+                gson.toJson(stored, writer);
+            }
+            Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING);
+            Logger.info("Help solution saved to '{}'.", file);
+        } catch (IOException e) {
+            Logger.error("Failed to save the help solution to '{}': {}.", file, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Converts packed moves of the variant.
+     *
+     * @param packed The packed moves.
+     * @return The moves as pairs of {@link Position} objects.
+     */
+    private List<TwoPhaseMoveState.TwoPhaseMove<Position>> toMoves(List<Integer> packed) {
+        List<TwoPhaseMoveState.TwoPhaseMove<Position>> moves = new ArrayList<>(packed.size());
+        for (int move : packed) {
+            moves.add(MoveCodec.toMove(definition, move));
+        }
+        return moves;
+    }
+
+    /**
+     * Formats moves for the help screen, one {@code (row, col) -> (row, col)} move per line below a header line.
+     *
+     * @param moves The moves to format.
+     * @return The formatted {@link String}.
+     */
+    public static String format(List<TwoPhaseMoveState.TwoPhaseMove<Position>> moves) {
+        StringJoiner text = new StringJoiner("\n", "", "\n");
+        text.add("(fromRow, fromCol) -> (toRow, toCol)");
+        for (TwoPhaseMoveState.TwoPhaseMove<Position> move : moves) {
+            text.add(move.from() + " -> " + move.to());
+        }
+        return text.toString();
+    }
+}
@@ -1,5 +1,5 @@
 /**
- * Handles the game's persistent data, including player scores.
- * Manages to load and save player records to a JSON file.
+ * Handles the game's persistent data, including player scores and the help screen's solution.
+ * Manages to load and save player records and the solution to JSON files.
  */
 package knightswap.data;
\ No newline at end of file
@@ -0,0 +1,644 @@
+package knightswap.engine;
+
+import knightswap.utils.PieceType;
+import knightswap.utils.Position;
+import org.tinylog.Logger;
+import puzzle.TwoPhaseMoveState;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+/**
+ * A bitboard implementation of the Knight Swap puzzle state.
+ * The light and dark knights are kept as two bit masks, where bit {@code row * cols + col}
+ * is set if the square holds a knight of that color. Knight moves and attacks are looked up
+ * in the table of precomputed per-square masks of the {@link PuzzleDefinition}, so move generation,
+ * legality checks and the goal test are a handful of bitwise operations instead of board scans.
+ * The rules are identical to those of {@link knightswap.KnightSwapState}.
+ * <p>
+ * Besides the {@link TwoPhaseMoveState} API, the state supports in-place search through
+ * {@link #makeMove(int, int)} and {@link #unmakeMove()}, which record each move on a compact undo stack
+ * instead of requiring a {@link #clone()} per child state. Backward searches use {@link #forEachPredecessorMove(IntConsumer)}
+ * and {@link #retractMove(int)} to walk the game graph in reverse, from the goal towards the start.
+ */
+public class BitboardKnightSwapState implements KnightSwapBoard {
+    /**
+     * The shared empty undo stack of states that have not made an undoable move yet.
+     */
+    private static final short[] NO_UNDO = new short[0];
+
+    /**
+     * The flag marking undo stack entries made by {@link #retractMove(int)}, stored above the packed move bits.
+     */
+    private static final int RETRACTION = 1 << (2 * MoveCodec.SQUARE_BITS);
+
+    /**
+     * The puzzle variant this state belongs to.
+     */
+    private final PuzzleDefinition definition;
+
+    /**
+     * The knight-move masks of the {@link #definition}, indexed by square number.
+     * Because knight moves are symmetric, these are also the masks of squares attacking each square.
+     */
+    private final long[] knightMasks;
+
+    /**
+     * The bit mask of the squares occupied by light knights.
+     */
+    private long lightMask;
+
+    /**
+     * The bit mask of the squares occupied by dark knights.
+     */
+    private long darkMask;
+
+    /**
+     * The {@link PieceType} of the player whose turn it is to move next.
+     */
+    private PieceType currentPlayer;
+
+    /**
+     * The {@link Zobrist} key of the position, updated incrementally by every move.
+     */
+    private long zobristKey;
+
+    /**
+     * The moves made with {@link #makeMove(int, int)} that have not been undone yet,
+     * each packed by {@link MoveCodec}.
+     */
+    private short[] undoStack = NO_UNDO;
+
+    /**
+     * The number of entries in the {@link #undoStack}.
+     */
+    private int undoDepth;
+
+    /**
+     * Creates a new {@code BitboardKnightSwapState} with the initial setup of the classic 4x3 puzzle.
+     * Dark knights occupy row 0, light knights occupy row 3, and light moves first.
+     */
+    public BitboardKnightSwapState() {
+        this(PuzzleDefinition.classic());
+    }
+
+    /**
+     * Creates a new {@code BitboardKnightSwapState} with the starting layout of the given puzzle variant.
+     *
+     * @param definition The {@link PuzzleDefinition} describing the board and its layouts.
+     */
+    public BitboardKnightSwapState(PuzzleDefinition definition) {
+        this(definition, definition.getStartLightMask(), definition.getStartDarkMask(), definition.getFirstPlayer());
+        Logger.info("Bitboard KnightSwap puzzle initial state created on a {}x{} board. Current player: {}.",
+                definition.getRows(), definition.getCols(), currentPlayer);
+    }
+
+    /**
+     * Creates a new {@code BitboardKnightSwapState} from explicit knight masks.
+     *
+     * @param definition The {@link PuzzleDefinition} describing the board.
+     * @param lightMask The mask of the light knights.
+     * @param darkMask The mask of the dark knights.
+     * @param currentPlayer The {@link PieceType} of the player to move.
+     * @throws IllegalArgumentException If the masks overlap or contain squares outside the board.
+     */
+    public BitboardKnightSwapState(PuzzleDefinition definition, long lightMask, long darkMask, PieceType currentPlayer) {
+        if ((lightMask & darkMask) != 0 || ((lightMask | darkMask) & ~definition.getBoardMask()) != 0) {
+            throw new IllegalArgumentException("Invalid knight masks for a " + definition.getRows() + "x" + definition.getCols() + " board.");
+        }
+        this.definition = definition;
+        this.knightMasks = definition.knightMaskTable();
+        this.lightMask = lightMask;
+        this.darkMask = darkMask;
+        this.currentPlayer = currentPlayer;
+        this.zobristKey = Zobrist.keyOf(lightMask, darkMask, currentPlayer);
+    }
+
+    /**
+     * Creates a new {@code BitboardKnightSwapState} holding the same position as another board
+     * of the classic 4x3 puzzle.
+     * This allows converting a state of any engine into the bitboard representation.
+     *
+     * @param other The {@link KnightSwapBoard} to copy.
+     * @throws IllegalArgumentException If the board is not 4x3.
+     */
+    public BitboardKnightSwapState(KnightSwapBoard other) {
+        this(PuzzleDefinition.classic(), other);
+    }
+
+    /**
+     * Creates a new {@code BitboardKnightSwapState} holding the same position as another board
+     * of the given puzzle variant.
+     *
+     * @param definition The {@link PuzzleDefinition} of the board being copied.
+     * @param other The {@link KnightSwapBoard} to copy, of the same size as the variant's board.
+     * @throws IllegalArgumentException If the boards differ in size.
+     */
+    public BitboardKnightSwapState(PuzzleDefinition definition, KnightSwapBoard other) {
+        if (other.getRows() != definition.getRows() || other.getCols() != definition.getCols()) {
+            throw new IllegalArgumentException("The board must be " + definition.getRows() + "x" + definition.getCols()
+                    + ", not " + other.getRows() + "x" + other.getCols() + ".");
+        }
+        this.definition = definition;
+        this.knightMasks = definition.knightMaskTable();
+        for (int square = 0; square < definition.getSquareCount(); square++) {
+            char piece = other.getPieceAt(square / definition.getCols(), square % definition.getCols());
+            if (piece == PieceType.LIGHT.getSymbol()) {
+                lightMask |= 1L << square;
+            } else if (piece == PieceType.DARK.getSymbol()) {
+                darkMask |= 1L << square;
+            }
+        }
+        this.currentPlayer = other.getCurrentPlayer();
+        this.zobristKey = Zobrist.keyOf(lightMask, darkMask, currentPlayer);
+        Logger.debug("Bitboard state converted from another board:\n{}", this);
+    }
+
+    /**
+     * Replaces the position held by this state, so one instance can be reused for many positions during a search.
+     * The undo stack is cleared.
+     *
+     * @param lightMask The mask of the light knights.
+     * @param darkMask The mask of the dark knights.
+     * @param currentPlayer The {@link PieceType} of the player to move.
+     * @throws IllegalArgumentException If the masks overlap or contain squares outside the board.
+     */
+    public void setPosition(long lightMask, long darkMask, PieceType currentPlayer) {
+        if ((lightMask & darkMask) != 0 || ((lightMask | darkMask) & ~definition.getBoardMask()) != 0) {
+            throw new IllegalArgumentException("Invalid knight masks for a " + definition.getRows() + "x" + definition.getCols() + " board.");
+        }
+        this.lightMask = lightMask;
+        this.darkMask = darkMask;
+        this.currentPlayer = currentPlayer;
+        this.zobristKey = Zobrist.keyOf(lightMask, darkMask, currentPlayer);
+        this.undoDepth = 0;
+    }
+
+    /**
+     * Returns the puzzle variant this state belongs to.
+     *
+     * @return The {@link PuzzleDefinition} of this state.
+     */
+    @Override
+    public PuzzleDefinition getDefinition() {
+        return definition;
+    }
+
+    /**
+     * Returns the bit mask of the squares occupied by light knights.
+     *
+     * @return The light knight mask.
+     */
+    public long getLightMask() {
+        return lightMask;
+    }
+
+    /**
+     * Returns the bit mask of the squares occupied by dark knights.
+     *
+     * @return The dark knight mask.
+     */
+    public long getDarkMask() {
+        return darkMask;
+    }
+
+    /**
+     * Returns the bit mask of the knights of the player to move.
+     *
+     * @return The mask of the knights that may be moved in this turn.
+     */
+    public long getMoverMask() {
+        return maskOf(currentPlayer);
+    }
+
+    /**
+     * Returns the bit mask of the squares the player to move may move a knight to:
+     * the empty squares that are not attacked by an opposing knight.
+     * A move {@code from -> to} is legal exactly when {@code from} is in {@link #getMoverMask()}
+     * and {@code to} is in both {@code getDefinition().getKnightMask(from)} and this mask.
+     *
+     * @return The mask of the legal target squares of this turn.
+     */
+    public long getFreeSquares() {
+        return definition.getBoardMask() & ~(lightMask | darkMask | attackedBy(maskOf(currentPlayer.opponent())));
+    }
+
+    /**
+     * Returns the mask of the knights belonging to the given player.
+     *
+     * @param player The {@link PieceType} whose knights are requested.
+     * @return The bit mask of that player's knights.
+     */
+    private long maskOf(PieceType player) {
+        return player == PieceType.LIGHT ? lightMask : darkMask;
+    }
+
+    /**
+     * Returns the mask of all squares attacked by the given knights.
+     *
+     * @param knights The bit mask of the attacking knights.
+     * @return The union of the knight-move masks of every knight in {@code knights}.
+     */
+    private long attackedBy(long knights) {
+        long attacked = 0L;
+        while (knights != 0) {
+            attacked |= knightMasks[Long.numberOfTrailingZeros(knights)];
+            knights &= knights - 1;
+        }
+        return attacked;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public char getPieceAt(int row, int col) {
+        int square = definition.getSquare(row, col);
+        if (square < 0) {
+            Logger.error("Attempted to access out of bounds board position: ({}, {}).", row, col);
+            throw new IllegalArgumentException("Position out of bounds: (" + row + ", " + col + ")");
+        }
+        return PuzzleDefinition.symbolAt(lightMask, darkMask, square);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getRows() {
+        return definition.getRows();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getCols() {
+        return definition.getCols();
+    }
+
+    /**
+     * {@inheritDoc}
+     * The puzzle is solved when the knight masks equal the goal layout of the {@link PuzzleDefinition}.
+     *
+     * @return {@code true} if the puzzle is solved, {@code false} otherwise.
+     */
+    @Override
+    public boolean isSolved() {
+        return definition.isGoal(lightMask, darkMask);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The moves are produced by {@link #forEachLegalMove(IntConsumer)} and unpacked by {@link MoveCodec}.
+     *
+     * @return A {@link Set} of {@link TwoPhaseMoveState.TwoPhaseMove<Position>} objects, where each describes a legal move.
+     */
+    @Override
+    public Set<TwoPhaseMoveState.TwoPhaseMove<Position>> getLegalMoves() {
+        Set<TwoPhaseMoveState.TwoPhaseMove<Position>> legalMoves = new HashSet<>();
+        forEachLegalMove(move -> legalMoves.add(MoveCodec.toMove(definition, move)));
+        return legalMoves;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The moves are produced by iterating over the set bits of the precomputed target masks.
+     *
+     * @param action The {@link IntConsumer} receiving the packed moves.
+     */
+    @Override
+    public void forEachLegalMove(IntConsumer action) {
+        long free = getFreeSquares();
+        long pieces = maskOf(currentPlayer);
+        while (pieces != 0) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            long targets = knightMasks[from] & free;
+            while (targets != 0) {
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                action.accept(MoveCodec.encode(from, to));
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param moves The array receiving the packed moves, starting at index 0.
+     * @return The {@code int} number of moves written.
+     */
+    @Override
+    public int fillLegalMoves(int[] moves) {
+        int count = 0;
+        long free = getFreeSquares();
+        long pieces = maskOf(currentPlayer);
+        while (pieces != 0) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            long targets = knightMasks[from] & free;
+            while (targets != 0) {
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                moves[count++] = MoveCodec.encode(from, to);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Passes every move that leads into this position, packed by {@link MoveCodec}, to the given action.
+     * These are moves of the opponent of the player to move: a knight now on square {@code to} that does not
+     * stand on a square attacked by the player to move came from an empty square {@code from} a knight's jump away.
+     * Applying {@link #retractMove(int)} with such a move yields a predecessor position.
+     *
+     * @param action The {@link IntConsumer} receiving the packed moves.
+     */
+    public void forEachPredecessorMove(IntConsumer action) {
+        long empty = definition.getBoardMask() & ~(lightMask | darkMask);
+        long defenders = maskOf(currentPlayer);
+        long pieces = maskOf(currentPlayer.opponent());
+        while (pieces != 0) {
+            int to = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            if ((knightMasks[to] & defenders) != 0) {
+                continue;
+            }
+            long sources = knightMasks[to] & empty;
+            while (sources != 0) {
+                int from = Long.numberOfTrailingZeros(sources);
+                sources &= sources - 1;
+                action.accept(MoveCodec.encode(from, to));
+            }
+        }
+    }
+
+    /**
+     * Writes every move that leads into this position, as described at {@link #forEachPredecessorMove(IntConsumer)},
+     * into the given array.
+     * An array of {@link PuzzleDefinition#getMaxLegalMoves()} elements is always large enough.
+     *
+     * @param moves The array receiving the packed moves, starting at index 0.
+     * @return The {@code int} number of moves written.
+     */
+    public int fillPredecessorMoves(int[] moves) {
+        int count = 0;
+        long empty = definition.getBoardMask() & ~(lightMask | darkMask);
+        long defenders = maskOf(currentPlayer);
+        long pieces = maskOf(currentPlayer.opponent());
+        while (pieces != 0) {
+            int to = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            if ((knightMasks[to] & defenders) != 0) {
+                continue;
+            }
+            long sources = knightMasks[to] & empty;
+            while (sources != 0) {
+                int from = Long.numberOfTrailingZeros(sources);
+                sources &= sources - 1;
+                moves[count++] = MoveCodec.encode(from, to);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * {@inheritDoc}
+     * A move is legal from this position if it is on the board and holds a knight of the {@link #currentPlayer}.
+     *
+     * @param from Represents the starting {@link Position} of the move.
+     * @return {@code true} if a move can be initiated from {@code from}, {@code false} otherwise.
+     */
+    @Override
+    public boolean isLegalToMoveFrom(Position from) {
+        int square = definition.getSquare(from);
+        return square >= 0 && (maskOf(currentPlayer) & (1L << square)) != 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     * A move is legal if it starts from a knight of the {@link #currentPlayer}, is a knight's jump
+     * to an empty square, and the target square is not attacked by an opposing knight.
+     *
+     * @param move A {@link TwoPhaseMoveState.TwoPhaseMove<Position>} object representing the move.
+     * @return {@code true} if the move is legal, {@code false} otherwise.
+     */
+    @Override
+    public boolean isLegalMove(TwoPhaseMoveState.TwoPhaseMove<Position> move) {
+        if (move == null || move.from() == null || move.to() == null) {
+            Logger.warn("Move object is null or contains null positions, not a legal move.");
+            return false;
+        }
+        int from = definition.getSquare(move.from());
+        int to = definition.getSquare(move.to());
+        if (from < 0 || to < 0 || (maskOf(currentPlayer) & (1L << from)) == 0) {
+            return false;
+        }
+        long toBit = 1L << to;
+        return (knightMasks[from] & toBit) != 0
+                && ((lightMask | darkMask) & toBit) == 0
+                && (knightMasks[to] & maskOf(currentPlayer.opponent())) == 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     * After the move, the {@link #currentPlayer} is switched to the opponent.
+     * Unlike {@link #makeMove(int, int)}, the move is validated but not recorded on the undo stack.
+     *
+     * @param move A {@link TwoPhaseMoveState.TwoPhaseMove<Position>} object representing the move.
+     * @throws IllegalArgumentException If the move is illegal or invalid.
+     */
+    @Override
+    public void makeMove(TwoPhaseMoveState.TwoPhaseMove<Position> move) {
+        if (!isLegalMove(move)) {
+            Logger.error("Cannot make move '{}' as it is not legal. Throwing IllegalArgumentException.", move);
+            throw new IllegalArgumentException("Illegal move: " + move);
+        }
+        applyMove(definition.getSquare(move.from()), definition.getSquare(move.to()));
+        Logger.debug("Move made on bitboard: {} -> {}. Current player switched to {}.", move.from(), move.to(), currentPlayer);
+    }
+
+    /**
+     * Moves the knight of the player to move from one square to another in place, and records
+     * the move on the undo stack so that it can be reverted with {@link #unmakeMove()}.
+     * For speed, the move is not validated: the caller must only pass moves that are legal according to
+     * {@link #getMoverMask()} and {@link #getFreeSquares()}.
+     *
+     * @param from The square number of the knight to move.
+     * @param to The square number of the target square.
+     */
+    public void makeMove(int from, int to) {
+        if (undoDepth == undoStack.length) {
+            ensureUndoCapacity(Math.max(16, undoDepth * 2));
+        }
+        undoStack[undoDepth++] = (short) MoveCodec.encode(from, to);
+        applyMove(from, to);
+    }
+
+    /**
+     * Makes a move packed by {@link MoveCodec} in place, exactly like {@link #makeMove(int, int)}.
+     *
+     * @param move The packed move, typically produced by {@link #fillLegalMoves(int[])}.
+     */
+    public void makeMove(int move) {
+        makeMove(MoveCodec.from(move), MoveCodec.to(move));
+    }
+
+    /**
+     * Takes back a move of the opponent of the player to move in place, turning this position into the one
+     * before the move, and records it on the undo stack. The move is not validated: it should be one produced by
+     * {@link #forEachPredecessorMove(IntConsumer)} or {@link #fillPredecessorMoves(int[])}.
+     *
+     * @param move The packed move to take back.
+     */
+    public void retractMove(int move) {
+        if (undoDepth == undoStack.length) {
+            ensureUndoCapacity(Math.max(16, undoDepth * 2));
+        }
+        undoStack[undoDepth++] = (short) (move | RETRACTION);
+        currentPlayer = currentPlayer.opponent();
+        applyMove(MoveCodec.from(move), MoveCodec.to(move));
+        currentPlayer = currentPlayer.opponent();
+    }
+
+    /**
+     * Reverts the last move made with {@link #makeMove(int, int)} or taken back with {@link #retractMove(int)}.
+     *
+     * @throws IllegalStateException If there is no move to undo.
+     */
+    public void unmakeMove() {
+        if (undoDepth == 0) {
+            throw new IllegalStateException("There is no move to undo.");
+        }
+        int entry = undoStack[--undoDepth];
+        if ((entry & RETRACTION) != 0) {
+            applyMove(MoveCodec.from(entry), MoveCodec.to(entry));
+        } else {
+            currentPlayer = currentPlayer.opponent();
+            applyMove(MoveCodec.from(entry), MoveCodec.to(entry));
+            currentPlayer = currentPlayer.opponent();
+        }
+    }
+
+    /**
+     * Returns the number of moves that can currently be reverted with {@link #unmakeMove()}.
+     *
+     * @return The {@code int} depth of the undo stack.
+     */
+    public int getUndoDepth() {
+        return undoDepth;
+    }
+
+    /**
+     * Grows the undo stack so that at least {@code capacity} moves can be made without reallocating it.
+     * Search code calls this once with its maximum depth to keep the search itself allocation-free.
+     *
+     * @param capacity The required number of undo entries.
+     */
+    public void ensureUndoCapacity(int capacity) {
+        if (capacity > undoStack.length) {
+            undoStack = Arrays.copyOf(undoStack, capacity);
+        }
+    }
+
+    /**
+     * Moves a knight of the player to move and passes the turn to the opponent.
+     *
+     * @param from The square number of the knight to move.
+     * @param to The square number of the target square.
+     */
+    private void applyMove(int from, int to) {
+        long change = (1L << from) | (1L << to);
+        if (currentPlayer == PieceType.LIGHT) {
+            lightMask ^= change;
+        } else {
+            darkMask ^= change;
+        }
+        zobristKey ^= Zobrist.moveDelta(currentPlayer, from, to);
+        currentPlayer = currentPlayer.opponent();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long zobristKey() {
+        return zobristKey;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PieceType getCurrentPlayer() {
+        return currentPlayer;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The copy holds the same position but starts with an empty undo stack.
+     *
+     * @return A new {@link TwoPhaseMoveState} object that is an independent copy of the current state.
+     */
+    @Override
+    public BitboardKnightSwapState clone() {
+        try {
+            BitboardKnightSwapState clonedState = (BitboardKnightSwapState) super.clone();
+            clonedState.undoStack = NO_UNDO;
+            clonedState.undoDepth = 0;
+            return clonedState;
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError("CloneNotSupportedException should not occur as Cloneable is implemented.", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Two states are considered equal if their knight masks and current players are identical.
+     *
+     * @param o The {@link Object} to compare with this state.
+     * @return {@code true} if the specified object is equal to this state, {@code false} otherwise.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BitboardKnightSwapState that = (BitboardKnightSwapState) o;
+        return zobristKey == that.zobristKey && lightMask == that.lightMask && darkMask == that.darkMask && currentPlayer == that.currentPlayer
+                && (definition == that.definition || definition.equals(that.definition));
+    }
+
+    /**
+     * {@inheritDoc}
+     * The hash code is derived from the {@link #zobristKey()}.
+     *
+     * @return An {@code int} hash code value for this state.
+     */
+    @Override
+    public int hashCode() {
+        return Long.hashCode(zobristKey);
+    }
+
+    /**
+     * Returns a multi-line string representation of the current board state,
+     * in the same format as {@link knightswap.KnightSwapState#toString()}.
+     *
+     * @return A {@link String} representation of the board and current player.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Current turn: ").append(currentPlayer).append("\n");
+        sb.append("Board:\n");
+        for (int row = 0; row < definition.getRows(); row++) {
+            for (int col = 0; col < definition.getCols(); col++) {
+                sb.append(getPieceAt(row, col)).append(" ");
+            }
+            sb.append("\n");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,289 @@
+package knightswap.engine;
+
+import knightswap.utils.Position;
+import org.tinylog.Logger;
+import puzzle.TwoPhaseMoveState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Depth-first traversal of the Knight Swap game tree built on the in-place
+ * {@link BitboardKnightSwapState#makeMove(int, int)} / {@link BitboardKnightSwapState#unmakeMove()} pair.
+ * The traversal works on a single private copy of the root state, keeps the current path in arrays that are
+ * allocated once per call, and therefore creates no garbage while visiting nodes.
+ * <p>
+ * It offers move counting ({@link #countPaths(int)}) and an iterative-deepening solver
+ * ({@link #findShortestSolution(int)}), which becomes IDA* when an admissible {@link LowerBound} is supplied.
+ */
+public class DepthFirstTraversal {
+    /**
+     * An admissible estimate of the number of moves still needed to solve a state.
+     * Implementations must never overestimate and should not allocate, as they are called for every node.
+     */
+    @FunctionalInterface
+    public interface LowerBound {
+        /**
+         * Estimates the number of moves needed to solve the given state.
+         *
+         * @param state The {@link BitboardKnightSwapState} to estimate.
+         * @return A lower bound on the number of moves to the goal.
+         */
+        int estimate(BitboardKnightSwapState state);
+    }
+
+    /**
+     * Receives every node visited by the solver, for example to report progress or to stop the search.
+     * Implementations may throw an unchecked exception, which ends the search and propagates to the caller.
+     */
+    @FunctionalInterface
+    public interface NodeListener {
+        /**
+         * Receives a visited node.
+         *
+         * @param nodesVisited The number of nodes visited so far, including this one.
+         * @param ply The number of moves from the root to the node.
+         * @param bound The bound of the current iteration.
+         */
+        void onNode(long nodesVisited, int ply, int bound);
+    }
+
+    /**
+     * The private working copy of the root state, modified in place during the traversal.
+     */
+    private final BitboardKnightSwapState state;
+
+    /**
+     * The admissible estimate used to prune the solver's search.
+     */
+    private final LowerBound lowerBound;
+
+    /**
+     * The listener receiving the nodes visited by the solver.
+     */
+    private NodeListener nodeListener = (nodesVisited, ply, bound) -> {};
+
+    /**
+     * The number of nodes visited since the traversal was created.
+     */
+    private long nodesVisited;
+
+    /**
+     * The from squares of the moves on the current path, indexed by ply.
+     */
+    private int[] pathFrom;
+
+    /**
+     * The to squares of the moves on the current path, indexed by ply.
+     */
+    private int[] pathTo;
+
+    /**
+     * The light masks of the states on the current path, indexed by ply, used to detect repetitions.
+     */
+    private long[] pathLight;
+
+    /**
+     * The dark masks of the states on the current path, indexed by ply, used to detect repetitions.
+     */
+    private long[] pathDark;
+
+    /**
+     * Creates a new uninformed traversal starting from the given state.
+     *
+     * @param root The {@link BitboardKnightSwapState} at the root of the traversal. It is copied, not modified.
+     */
+    public DepthFirstTraversal(BitboardKnightSwapState root) {
+        this(root, s -> 0);
+    }
+
+    /**
+     * Creates a new traversal starting from the given state, whose solver is pruned by an admissible estimate.
+     *
+     * @param root The {@link BitboardKnightSwapState} at the root of the traversal. It is copied, not modified.
+     * @param lowerBound The admissible {@link LowerBound} of the number of moves to the goal.
+     */
+    public DepthFirstTraversal(BitboardKnightSwapState root, LowerBound lowerBound) {
+        this.state = root.clone();
+        this.lowerBound = lowerBound;
+    }
+
+    /**
+     * Returns the number of nodes visited by all calls made on this traversal so far.
+     *
+     * @return The {@code long} number of visited nodes.
+     */
+    public long getNodesVisited() {
+        return nodesVisited;
+    }
+
+    /**
+     * Sets the listener receiving the nodes visited by {@link #findShortestSolution(int)}.
+     *
+     * @param nodeListener The {@link NodeListener} to call for every node.
+     */
+    public void setNodeListener(NodeListener nodeListener) {
+        this.nodeListener = nodeListener;
+    }
+
+    /**
+     * Counts the legal move sequences of exactly {@code depth} moves from the root state.
+     * Solved states are not treated specially, so this is the size of the game tree's {@code depth}-th layer.
+     *
+     * @param depth The number of moves in each counted sequence.
+     * @return The {@code long} number of move sequences.
+     * @throws IllegalArgumentException If {@code depth} is negative.
+     */
+    public long countPaths(int depth) {
+        if (depth < 0) {
+            throw new IllegalArgumentException("Depth must not be negative: " + depth);
+        }
+        state.ensureUndoCapacity(depth);
+        long count = countPathsFrom(depth);
+        Logger.debug("Counted {} move sequences of length {}.", count, depth);
+        return count;
+    }
+
+    /**
+     * Recursively counts the move sequences of the given length from the current state.
+     *
+     * @param depth The number of moves still to make.
+     * @return The number of move sequences.
+     */
+    private long countPathsFrom(int depth) {
+        nodesVisited++;
+        if (depth == 0) {
+            return 1;
+        }
+        long count = 0;
+        long free = state.getFreeSquares();
+        long pieces = state.getMoverMask();
+        while (pieces != 0) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            long targets = state.getDefinition().getKnightMask(from) & free;
+            if (depth == 1) {
+                count += Long.bitCount(targets);
+                continue;
+            }
+            while (targets != 0) {
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                state.makeMove(from, to);
+                count += countPathsFrom(depth - 1);
+                state.unmakeMove();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Finds a shortest move sequence from the root state to the goal layout by iterative deepening.
+     * Each iteration is a depth-first search bounded by {@code moves made + lowerBound estimate};
+     * with the default zero estimate this is plain iterative-deepening DFS, otherwise it is IDA*.
+     * Positions repeating an earlier position of the current path are pruned. If the {@link NodeListener} throws,
+     * the root state is restored before the exception propagates, so the traversal can be used again.
+     *
+     * @param maxDepth The maximum solution length to look for.
+     * @return An {@link Optional} holding the moves of a shortest solution, or an empty {@link Optional}
+     * if there is no solution of at most {@code maxDepth} moves.
+     */
+    public Optional<List<TwoPhaseMoveState.TwoPhaseMove<Position>>> findShortestSolution(int maxDepth) {
+        pathFrom = new int[maxDepth + 1];
+        pathTo = new int[maxDepth + 1];
+        pathLight = new long[maxDepth + 1];
+        pathDark = new long[maxDepth + 1];
+        state.ensureUndoCapacity(maxDepth + 1);
+
+        int bound = lowerBound.estimate(state);
+        while (bound <= maxDepth) {
+            Logger.debug("Depth-first iteration with bound {} started. Nodes visited so far: {}.", bound, nodesVisited);
+            int result;
+            try {
+                result = search(0, bound);
+            } catch (RuntimeException e) {
+                while (state.getUndoDepth() > 0) {
+                    state.unmakeMove();
+                }
+                throw e;
+            }
+            if (result < 0) {
+                return Optional.of(collectPath(-result - 1));
+            }
+            if (result == Integer.MAX_VALUE) {
+                break;
+            }
+            bound = result;
+        }
+        Logger.debug("No solution of at most {} moves exists.", maxDepth);
+        return Optional.empty();
+    }
+
+    /**
+     * Recursively searches for a solution within the given bound.
+     *
+     * @param ply The number of moves made from the root.
+     * @param bound The maximum allowed {@code ply + estimate}.
+     * @return {@code -(ply + 1)} if a solution of {@code ply} moves was found, otherwise the smallest
+     * {@code ply + estimate} that exceeded the bound, or {@link Integer#MAX_VALUE} if there is none.
+     */
+    private int search(int ply, int bound) {
+        nodesVisited++;
+        nodeListener.onNode(nodesVisited, ply, bound);
+        int f = ply + lowerBound.estimate(state);
+        if (f > bound) {
+            return f;
+        }
+        if (state.isSolved()) {
+            return -(ply + 1);
+        }
+        long light = state.getLightMask();
+        long dark = state.getDarkMask();
+        for (int earlier = ply - 2; earlier >= 0; earlier -= 2) {
+            if (pathLight[earlier] == light && pathDark[earlier] == dark) {
+                return Integer.MAX_VALUE;
+            }
+        }
+        pathLight[ply] = light;
+        pathDark[ply] = dark;
+
+        int min = Integer.MAX_VALUE;
+        long free = state.getFreeSquares();
+        long pieces = state.getMoverMask();
+        while (pieces != 0) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            long targets = state.getDefinition().getKnightMask(from) & free;
+            while (targets != 0) {
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                pathFrom[ply] = from;
+                pathTo[ply] = to;
+                state.makeMove(from, to);
+                int result = search(ply + 1, bound);
+                state.unmakeMove();
+                if (result < 0) {
+                    return result;
+                }
+                min = Math.min(min, result);
+            }
+        }
+        return min;
+    }
+
+    /**
+     * Converts the first {@code length} moves of the current path into {@link TwoPhaseMoveState.TwoPhaseMove} objects.
+     *
+     * @param length The number of moves in the solution.
+     * @return The list of moves.
+     */
+    private List<TwoPhaseMoveState.TwoPhaseMove<Position>> collectPath(int length) {
+        PuzzleDefinition definition = state.getDefinition();
+        List<TwoPhaseMoveState.TwoPhaseMove<Position>> moves = new ArrayList<>(length);
+        for (int ply = 0; ply < length; ply++) {
+            moves.add(new TwoPhaseMoveState.TwoPhaseMove<>(definition.getPosition(pathFrom[ply]), definition.getPosition(pathTo[ply])));
+        }
+        return moves;
+    }
+}
@@ -0,0 +1,51 @@
+package knightswap.engine;
+
+import knightswap.KnightSwapState;
+
+import java.util.Locale;
+
+/**
+ * Enumerates the available Knight Swap game engines.
+ * Both engines implement the same rules and the {@link KnightSwapBoard} interface,
+ * so any of them can be played in the GUI or used by the console to replay and print a solution.
+ */
+public enum EngineType {
+    /**
+     * The reference engine, {@link KnightSwapState}, storing the board as a character matrix.
+     */
+    ARRAY,
+    /**
+     * The bitboard engine, {@link BitboardKnightSwapState}, storing the knights as bit masks.
+     */
+    BITBOARD;
+
+    /**
+     * Creates the initial state of the classic puzzle using this engine.
+     *
+     * @return A new {@link KnightSwapBoard} in the starting position.
+     */
+    public KnightSwapBoard newInitialState() {
+        return newInitialState(PuzzleDefinition.classic());
+    }
+
+    /**
+     * Creates the initial state of the given puzzle variant using this engine.
+     *
+     * @param definition The {@link PuzzleDefinition} of the puzzle variant.
+     * @return A new {@link KnightSwapBoard} in the starting position of the variant.
+     */
+    public KnightSwapBoard newInitialState(PuzzleDefinition definition) {
+        return this == ARRAY ? new KnightSwapState(definition) : new BitboardKnightSwapState(definition);
+    }
+
+    /**
+     * Parses an engine name case-insensitively.
+     *
+     * @param name The {@link String} name of the engine (e.g. {@code "bitboard"}).
+     * @return The matching {@code EngineType}.
+     * @throws IllegalArgumentException If no engine has the given name.
+     */
+    public static EngineType fromName(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,95 @@
+package knightswap.engine;
+
+import knightswap.utils.PieceType;
+import knightswap.utils.Position;
+import puzzle.TwoPhaseMoveState;
+
+import java.util.function.IntConsumer;
+
+/**
+ * The common board interface of both Knight Swap engines, {@link knightswap.KnightSwapState} and
+ * {@link BitboardKnightSwapState}. It inherits the moves of {@link TwoPhaseMoveState} and adds the queries needed
+ * to display a board, so that the console solver and the GUI can play and show positions with either engine.
+ * <p>
+ * For search code, legal moves are also available as primitive moves packed by {@link MoveCodec},
+ * which avoids building a {@link java.util.Set} of {@link TwoPhaseMoveState.TwoPhaseMove} objects per state.
+ */
+public interface KnightSwapBoard extends TwoPhaseMoveState<Position> {
+    /**
+     * Returns the character symbol representing the piece at the specified board position.
+     *
+     * @param row The {@code int} row index.
+     * @param col The {@code int} column index.
+     * @return The {@code char} symbol of the piece ('D', 'L', or '.').
+     * @throws IllegalArgumentException If the provided row or column is out of the board's bounds.
+     */
+    char getPieceAt(int row, int col);
+
+    /**
+     * Returns the character symbol representing the piece at the specified board position.
+     * Overloaded method for {@link Position} object.
+     *
+     * @param p The {@link Position} object.
+     * @return The {@code char} symbol of the piece ('D', 'L', or '.').
+     * @throws IllegalArgumentException If the provided position is out of the board's bounds.
+     */
+    default char getPieceAt(Position p) {
+        return getPieceAt(p.row(), p.col());
+    }
+
+    /**
+     * Returns the number of rows of the board.
+     *
+     * @return The {@code int} number of rows.
+     */
+    int getRows();
+
+    /**
+     * Returns the number of columns of the board.
+     *
+     * @return The {@code int} number of columns.
+     */
+    int getCols();
+
+    /**
+     * Returns the puzzle variant being played, whose square numbering is used by packed moves.
+     *
+     * @return The {@link PuzzleDefinition} of this board.
+     */
+    PuzzleDefinition getDefinition();
+
+    /**
+     * Passes every legal move of the player to move, packed by {@link MoveCodec}, to the given action.
+     * No objects are allocated per move.
+     *
+     * @param action The {@link IntConsumer} receiving the packed moves.
+     */
+    void forEachLegalMove(IntConsumer action);
+
+    /**
+     * Writes every legal move of the player to move, packed by {@link MoveCodec}, into the given array.
+     * An array of {@link PuzzleDefinition#getMaxLegalMoves()} elements is always large enough,
+     * so a search can reuse one array per depth.
+     *
+     * @param moves The array receiving the packed moves, starting at index 0.
+     * @return The {@code int} number of moves written.
+     * @throws ArrayIndexOutOfBoundsException If the array is too small to hold every legal move.
+     */
+    int fillLegalMoves(int[] moves);
+
+    /**
+     * Returns the 64-bit {@link Zobrist} key of the position, including the player to move.
+     * Engines maintain the key incrementally, so this is a constant-time call, and boards of different engines
+     * holding the same position have the same key.
+     *
+     * @return The {@code long} Zobrist key.
+     */
+    long zobristKey();
+
+    /**
+     * Returns the {@link PieceType} of the player whose turn it is to make a move.
+     *
+     * @return The {@link PieceType} of the current player.
+     */
+    PieceType getCurrentPlayer();
+}
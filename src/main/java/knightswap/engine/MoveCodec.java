@@ -0,0 +1,103 @@
+package knightswap.engine;
+
+import knightswap.utils.Position;
+import puzzle.TwoPhaseMoveState;
+
+/**
+ * Packs Knight Swap moves into primitive {@code int} values.
+ * A move is stored as {@code from | to << 6}, where {@code from} and {@code to} are square numbers
+ * ({@code row * cols + col}) of a {@link PuzzleDefinition}. As boards have at most 64 squares,
+ * every move fits into the low 12 bits, so it can also be kept in a {@code short}.
+ * <p>
+ * Engines generate packed moves without allocating; the methods of this class convert them to and from
+ * {@link TwoPhaseMoveState.TwoPhaseMove} objects at the API boundary.
+ */
+public final class MoveCodec {
+    /**
+     * The number of bits used by one square number.
+     */
+    public static final int SQUARE_BITS = 6;
+
+    /**
+     * The mask extracting a square number from a packed move.
+     */
+    private static final int SQUARE_MASK = (1 << SQUARE_BITS) - 1;
+
+    /**
+     * Utility class, not meant to be instantiated.
+     */
+    private MoveCodec() {
+    }
+
+    /**
+     * Packs a move into an {@code int}.
+     *
+     * @param from The square number of the knight to move.
+     * @param to The square number of the target square.
+     * @return The packed move.
+     */
+    public static int encode(int from, int to) {
+        return from | to << SQUARE_BITS;
+    }
+
+    /**
+     * Returns the from square of a packed move.
+     *
+     * @param move The packed move.
+     * @return The square number the knight moves from.
+     */
+    public static int from(int move) {
+        return move & SQUARE_MASK;
+    }
+
+    /**
+     * Returns the to square of a packed move.
+     *
+     * @param move The packed move.
+     * @return The square number the knight moves to.
+     */
+    public static int to(int move) {
+        return (move >>> SQUARE_BITS) & SQUARE_MASK;
+    }
+
+    /**
+     * Converts a packed move into a {@link TwoPhaseMoveState.TwoPhaseMove} of the given puzzle variant.
+     *
+     * @param definition The {@link PuzzleDefinition} whose square numbering the move uses.
+     * @param move The packed move.
+     * @return The move as a pair of {@link Position} objects.
+     */
+    public static TwoPhaseMoveState.TwoPhaseMove<Position> toMove(PuzzleDefinition definition, int move) {
+        return new TwoPhaseMoveState.TwoPhaseMove<>(definition.getPosition(from(move)), definition.getPosition(to(move)));
+    }
+
+    /**
+     * Packs a {@link TwoPhaseMoveState.TwoPhaseMove} of the given puzzle variant into an {@code int}.
+     *
+     * @param definition The {@link PuzzleDefinition} whose square numbering is used.
+     * @param move The move to pack.
+     * @return The packed move.
+     * @throws IllegalArgumentException If the move is {@code null} or leaves the board.
+     */
+    public static int fromMove(PuzzleDefinition definition, TwoPhaseMoveState.TwoPhaseMove<Position> move) {
+        if (move == null || move.from() == null || move.to() == null) {
+            throw new IllegalArgumentException("Move must not be null.");
+        }
+        int from = definition.getSquare(move.from());
+        int to = definition.getSquare(move.to());
+        if (from < 0 || to < 0) {
+            throw new IllegalArgumentException("Move is out of the board: " + move);
+        }
+        return encode(from, to);
+    }
+
+    /**
+     * Returns a compact human-readable form of a packed move, such as {@code 9->4}.
+     *
+     * @param move The packed move.
+     * @return The from and to square numbers of the move.
+     */
+    public static String toString(int move) {
+        return from(move) + "->" + to(move);
+    }
+}
@@ -0,0 +1,102 @@
+package knightswap.engine;
+
+import knightswap.utils.PieceType;
+
+import java.util.StringJoiner;
+
+/**
+ * Reads and writes positions as single lines of text, such as {@code DDD/.../.../LLL L}.
+ * The rows of the board are given top to bottom and separated by {@value #ROW_SEPARATOR}, each square holding
+ * {@code L}, {@code D} or {@code .}; the player to move follows after whitespace, either as its symbol or its name.
+ * The player may be omitted, in which case the first player of the puzzle variant is to move.
+ */
+public final class PositionNotation {
+    /**
+     * The character separating the rows of the board.
+     */
+    public static final char ROW_SEPARATOR = '/';
+
+    /**
+     * Utility class, not meant to be instantiated.
+     */
+    private PositionNotation() {
+    }
+
+    /**
+     * Parses a position of a puzzle variant.
+     *
+     * @param definition The {@link PuzzleDefinition} the position belongs to.
+     * @param notation The {@link String} notation of the position.
+     * @return A new {@link BitboardKnightSwapState} holding the position.
+     * @throws IllegalArgumentException If the notation is malformed, does not fit the board, or does not hold
+     * the variant's number of knights of each color.
+     */
+    public static BitboardKnightSwapState parse(PuzzleDefinition definition, String notation) {
+        String[] parts = notation.trim().split("\\s+");
+        if (parts.length > 2 || parts[0].isEmpty()) {
+            throw new IllegalArgumentException("A position must be a board and an optional player: '" + notation + "'.");
+        }
+        String[] rows = parts[0].split(String.valueOf(ROW_SEPARATOR), -1);
+        if (rows.length != definition.getRows()) {
+            throw new IllegalArgumentException("The position must have " + definition.getRows() + " rows: '" + notation + "'.");
+        }
+        long light = 0;
+        long dark = 0;
+        for (int row = 0; row < rows.length; row++) {
+            if (rows[row].length() != definition.getCols()) {
+                throw new IllegalArgumentException("Row " + row + " must have " + definition.getCols() + " columns: '" + notation + "'.");
+            }
+            for (int col = 0; col < definition.getCols(); col++) {
+                char symbol = rows[row].charAt(col);
+                long bit = 1L << definition.getSquare(row, col);
+                if (symbol == PieceType.LIGHT.getSymbol()) {
+                    light |= bit;
+                } else if (symbol == PieceType.DARK.getSymbol()) {
+                    dark |= bit;
+                } else if (symbol != '.') {
+                    throw new IllegalArgumentException("Unknown symbol '" + symbol + "' at (" + row + ", " + col + "): '" + notation + "'.");
+                }
+            }
+        }
+        if (Long.bitCount(light) != definition.getLightCount() || Long.bitCount(dark) != definition.getDarkCount()) {
+            throw new IllegalArgumentException("The position must have " + definition.getLightCount() + " light and "
+                    + definition.getDarkCount() + " dark knights: '" + notation + "'.");
+        }
+        PieceType player = parts.length == 2 ? parsePlayer(parts[1]) : definition.getFirstPlayer();
+        return new BitboardKnightSwapState(definition, light, dark, player);
+    }
+
+    /**
+     * Parses the player to move, given by its symbol or its name, ignoring case.
+     *
+     * @param token The {@link String} token naming the player.
+     * @return The {@link PieceType} of the player.
+     * @throws IllegalArgumentException If the token names no player.
+     */
+    private static PieceType parsePlayer(String token) {
+        for (PieceType player : PieceType.values()) {
+            if (token.equalsIgnoreCase(String.valueOf(player.getSymbol())) || token.equalsIgnoreCase(player.name())) {
+                return player;
+            }
+        }
+        throw new IllegalArgumentException("Unknown player to move: '" + token + "'.");
+    }
+
+    /**
+     * Formats the position held by a board, always including the player to move.
+     *
+     * @param board The {@link KnightSwapBoard} holding the position.
+     * @return The {@link String} notation of the position.
+     */
+    public static String format(KnightSwapBoard board) {
+        StringJoiner rows = new StringJoiner(String.valueOf(ROW_SEPARATOR));
+        for (int row = 0; row < board.getRows(); row++) {
+            StringBuilder line = new StringBuilder(board.getCols());
+            for (int col = 0; col < board.getCols(); col++) {
+                line.append(board.getPieceAt(row, col));
+            }
+            rows.add(line);
+        }
+        return rows + " " + board.getCurrentPlayer().getSymbol();
+    }
+}
@@ -0,0 +1,582 @@
+package knightswap.engine;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import knightswap.utils.PieceType;
+import knightswap.utils.Position;
+import org.tinylog.Logger;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Describes a Knight Swap puzzle variant: the board dimensions, the starting layout,
+ * the goal layout and the player who moves first.
+ * Layouts are given row by row as strings of {@code 'L'} (light knight), {@code 'D'} (dark knight)
+ * and {@code '.'} (empty square). Boards may have up to {@value #MAX_SQUARES} squares, so that every
+ * layout fits into a pair of {@code long} bit masks, where bit {@code row * cols + col} stands for
+ * the square {@code (row, col)}.
+ * The knight-move mask of every square is precomputed once per definition and shared by all states.
+ */
+public final class PuzzleDefinition {
+    /**
+     * The maximum number of squares supported by the bitboard representation.
+     */
+    public static final int MAX_SQUARES = 64;
+
+    /**
+     * The possible knight jumps as {@code {rowDelta, colDelta}} pairs.
+     */
+    private static final int[][] KNIGHT_JUMPS = {
+            {-2, -1}, {-2, 1}, {-1, -2}, {-1, 2},
+            {1, -2}, {1, 2}, {2, -1}, {2, 1}
+    };
+
+    /**
+     * The original 4x3 puzzle: three dark knights on the top row, three light knights on the
+     * bottom row, light moves first, and the goal is to swap them.
+     */
+    private static final PuzzleDefinition CLASSIC = fromLayouts(
+            List.of("DDD", "...", "...", "LLL"),
+            List.of("LLL", "...", "...", "DDD"),
+            PieceType.LIGHT);
+
+    /**
+     * The number of rows of the board.
+     */
+    private final int rows;
+
+    /**
+     * The number of columns of the board.
+     */
+    private final int cols;
+
+    /**
+     * For each square, the mask of squares a knight standing on it can jump to.
+     * Because knight moves are symmetric, this is also the mask of squares attacking it.
+     */
+    private final long[] knightMasks;
+
+    /**
+     * Shared {@link Position} instances for every square, indexed by square number.
+     */
+    private final Position[] positions;
+
+    /**
+     * The mask of the light knights in the starting layout.
+     */
+    private final long startLightMask;
+
+    /**
+     * The mask of the dark knights in the starting layout.
+     */
+    private final long startDarkMask;
+
+    /**
+     * The mask of the light knights in the goal layout.
+     */
+    private final long goalLightMask;
+
+    /**
+     * The mask of the dark knights in the goal layout.
+     */
+    private final long goalDarkMask;
+
+    /**
+     * The {@link PieceType} of the player who makes the first move.
+     */
+    private final PieceType firstPlayer;
+
+    /**
+     * Creates a new {@code PuzzleDefinition} from already validated masks.
+     *
+     * @param rows The number of rows.
+     * @param cols The number of columns.
+     * @param startLightMask The mask of the light knights in the starting layout.
+     * @param startDarkMask The mask of the dark knights in the starting layout.
+     * @param goalLightMask The mask of the light knights in the goal layout.
+     * @param goalDarkMask The mask of the dark knights in the goal layout.
+     * @param firstPlayer The player who moves first.
+     */
+    private PuzzleDefinition(int rows, int cols, long startLightMask, long startDarkMask,
+                             long goalLightMask, long goalDarkMask, PieceType firstPlayer) {
+        this.rows = rows;
+        this.cols = cols;
+        this.startLightMask = startLightMask;
+        this.startDarkMask = startDarkMask;
+        this.goalLightMask = goalLightMask;
+        this.goalDarkMask = goalDarkMask;
+        this.firstPlayer = firstPlayer;
+        this.knightMasks = new long[rows * cols];
+        this.positions = new Position[rows * cols];
+        for (int square = 0; square < rows * cols; square++) {
+            int row = square / cols;
+            int col = square % cols;
+            positions[square] = new Position(row, col);
+            for (int[] jump : KNIGHT_JUMPS) {
+                int toRow = row + jump[0];
+                int toCol = col + jump[1];
+                if (toRow >= 0 && toRow < rows && toCol >= 0 && toCol < cols) {
+                    knightMasks[square] |= 1L << (toRow * cols + toCol);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the definition of the original 4x3 Knight Swap puzzle.
+     *
+     * @return The classic {@code PuzzleDefinition}.
+     */
+    public static PuzzleDefinition classic() {
+        return CLASSIC;
+    }
+
+    /**
+     * Creates a puzzle definition from a starting and a goal layout.
+     *
+     * @param start The rows of the starting layout, top to bottom.
+     * @param goal The rows of the goal layout, top to bottom.
+     * @param firstPlayer The {@link PieceType} of the player who moves first.
+     * @return The new {@code PuzzleDefinition}.
+     * @throws IllegalArgumentException If the layouts are malformed, do not have the same dimensions,
+     * exceed {@value #MAX_SQUARES} squares, or do not contain the same number of knights of each color.
+     */
+    public static PuzzleDefinition fromLayouts(List<String> start, List<String> goal, PieceType firstPlayer) {
+        if (start == null || start.isEmpty() || start.getFirst() == null || start.getFirst().isEmpty()) {
+            throw new IllegalArgumentException("The starting layout must have at least one row and one column.");
+        }
+        if (goal == null || goal.size() != start.size()) {
+            throw new IllegalArgumentException("The goal layout must have the same number of rows as the starting layout.");
+        }
+        Objects.requireNonNull(firstPlayer, "The first player must be specified.");
+        int rows = start.size();
+        int cols = start.getFirst().length();
+        if (rows * cols > MAX_SQUARES) {
+            throw new IllegalArgumentException("Boards may have at most " + MAX_SQUARES + " squares, got " + rows + "x" + cols + ".");
+        }
+        long[] startMasks = parseLayout(start, cols, "starting");
+        long[] goalMasks = parseLayout(goal, cols, "goal");
+        if (Long.bitCount(startMasks[0]) != Long.bitCount(goalMasks[0])
+                || Long.bitCount(startMasks[1]) != Long.bitCount(goalMasks[1])) {
+            throw new IllegalArgumentException("The starting and goal layouts must contain the same number of knights of each color.");
+        }
+        return new PuzzleDefinition(rows, cols, startMasks[0], startMasks[1], goalMasks[0], goalMasks[1], firstPlayer);
+    }
+
+    /**
+     * Parses a layout into a light and a dark mask.
+     *
+     * @param layout The rows of the layout.
+     * @param cols The expected number of columns of every row.
+     * @param name The name of the layout, used in error messages.
+     * @return A two-element array holding the light mask and the dark mask.
+     * @throws IllegalArgumentException If a row has the wrong length or contains an unknown symbol.
+     */
+    private static long[] parseLayout(List<String> layout, int cols, String name) {
+        long light = 0L;
+        long dark = 0L;
+        for (int row = 0; row < layout.size(); row++) {
+            String line = layout.get(row);
+            if (line == null || line.length() != cols) {
+                throw new IllegalArgumentException("Row " + row + " of the " + name + " layout must have " + cols + " columns.");
+            }
+            for (int col = 0; col < cols; col++) {
+                char symbol = line.charAt(col);
+                long bit = 1L << (row * cols + col);
+                if (symbol == PieceType.LIGHT.getSymbol()) {
+                    light |= bit;
+                } else if (symbol == PieceType.DARK.getSymbol()) {
+                    dark |= bit;
+                } else if (symbol != '.') {
+                    throw new IllegalArgumentException("Unknown symbol '" + symbol + "' in the " + name + " layout at (" + row + ", " + col + ").");
+                }
+            }
+        }
+        return new long[] {light, dark};
+    }
+
+    /**
+     * Loads a puzzle definition from a JSON spec file.
+     *
+     * @param specFile The {@link Path} of the spec file.
+     * @return The loaded {@code PuzzleDefinition}.
+     * @throws IOException If the file cannot be read.
+     * @throws IllegalArgumentException If the spec is invalid.
+     * @see #parse(Reader)
+     */
+    public static PuzzleDefinition load(Path specFile) throws IOException {
+        try (Reader reader = Files.newBufferedReader(specFile)) {
+            PuzzleDefinition definition = parse(reader);
+            Logger.info("Puzzle definition loaded from '{}': {}x{} board.", specFile, definition.rows, definition.cols);
+            return definition;
+        }
+    }
+
+    /**
+     * Parses a puzzle definition from a JSON spec of the form
+     * <pre>{@code
+     * {
+     *   "start": ["DDD", "...", "...", "LLL"],
+     *   "goal": ["LLL", "...", "...", "DDD"],
+     *   "firstPlayer": "LIGHT"
+     * }
+     * }</pre>
+     * The {@code goal} defaults to the starting layout with the colors swapped,
+     * and {@code firstPlayer} defaults to {@link PieceType#LIGHT}.
+     *
+     * @param reader The {@link Reader} supplying the JSON spec.
+     * @return The parsed {@code PuzzleDefinition}.
+     * @throws IllegalArgumentException If the spec is not valid JSON or describes an invalid puzzle.
+     */
+    public static PuzzleDefinition parse(Reader reader) {
+        Spec spec;
+        try {
+            spec = new Gson().fromJson(reader, Spec.class);
+        } catch (JsonParseException e) {
+            throw new IllegalArgumentException("Invalid puzzle spec: " + e.getMessage(), e);
+        }
+        if (spec == null || spec.start == null) {
+            throw new IllegalArgumentException("The puzzle spec must contain a starting layout.");
+        }
+        List<String> goal = spec.goal != null ? spec.goal : spec.start.stream().map(PuzzleDefinition::swapColors).toList();
+        PieceType firstPlayer = spec.firstPlayer != null ? PieceType.valueOf(spec.firstPlayer.trim().toUpperCase(Locale.ROOT)) : PieceType.LIGHT;
+        return fromLayouts(spec.start, goal, firstPlayer);
+    }
+
+    /**
+     * Swaps the light and dark knight symbols in a layout row.
+     *
+     * @param row The layout row.
+     * @return The row with the colors swapped.
+     */
+    private static String swapColors(String row) {
+        StringBuilder sb = new StringBuilder(row.length());
+        for (char symbol : row.toCharArray()) {
+            if (symbol == PieceType.LIGHT.getSymbol()) {
+                sb.append(PieceType.DARK.getSymbol());
+            } else if (symbol == PieceType.DARK.getSymbol()) {
+                sb.append(PieceType.LIGHT.getSymbol());
+            } else {
+                sb.append(symbol);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns the number of rows of the board.
+     *
+     * @return The {@code int} number of rows.
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Returns the number of columns of the board.
+     *
+     * @return The {@code int} number of columns.
+     */
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Returns the number of squares of the board.
+     *
+     * @return The {@code int} number of squares.
+     */
+    public int getSquareCount() {
+        return knightMasks.length;
+    }
+
+    /**
+     * Returns the mask with a bit set for every square of the board.
+     *
+     * @return The mask of all squares.
+     */
+    public long getBoardMask() {
+        return knightMasks.length == Long.SIZE ? -1L : (1L << knightMasks.length) - 1;
+    }
+
+    /**
+     * Returns the square number of the given coordinates, or {@code -1} if they lie outside the board.
+     *
+     * @param row The {@code int} row index.
+     * @param col The {@code int} column index.
+     * @return The square number, or {@code -1} if the coordinates are out of bounds.
+     */
+    public int getSquare(int row, int col) {
+        if (row < 0 || row >= rows || col < 0 || col >= cols) {
+            return -1;
+        }
+        return row * cols + col;
+    }
+
+    /**
+     * Returns the square number of the given {@link Position}, or {@code -1} if it lies outside the board.
+     *
+     * @param p The {@link Position} to convert.
+     * @return The square number, or {@code -1} if the position is out of bounds.
+     */
+    public int getSquare(Position p) {
+        return getSquare(p.row(), p.col());
+    }
+
+    /**
+     * Returns the shared {@link Position} instance of the given square.
+     *
+     * @param square The square number.
+     * @return The {@link Position} of the square.
+     */
+    public Position getPosition(int square) {
+        return positions[square];
+    }
+
+    /**
+     * Returns the mask of squares a knight standing on the given square can jump to.
+     *
+     * @param square The square number.
+     * @return The knight-move mask of the square.
+     */
+    public long getKnightMask(int square) {
+        return knightMasks[square];
+    }
+
+    /**
+     * Returns the precomputed knight-move table itself, for use by the engine's hot paths.
+     * The returned array must not be modified.
+     *
+     * @return The knight-move masks indexed by square number.
+     */
+    long[] knightMaskTable() {
+        return knightMasks;
+    }
+
+    /**
+     * Returns the mask of all squares attacked by the given knights.
+     *
+     * @param knights The bit mask of the attacking knights.
+     * @return The union of the knight-move masks of every knight in {@code knights}.
+     */
+    public long attackedBy(long knights) {
+        long attacked = 0L;
+        while (knights != 0) {
+            attacked |= knightMasks[Long.numberOfTrailingZeros(knights)];
+            knights &= knights - 1;
+        }
+        return attacked;
+    }
+
+    /**
+     * Returns the mask of the light knights in the starting layout.
+     *
+     * @return The starting light mask.
+     */
+    public long getStartLightMask() {
+        return startLightMask;
+    }
+
+    /**
+     * Returns the mask of the dark knights in the starting layout.
+     *
+     * @return The starting dark mask.
+     */
+    public long getStartDarkMask() {
+        return startDarkMask;
+    }
+
+    /**
+     * Returns the mask of the light knights in the goal layout.
+     *
+     * @return The goal light mask.
+     */
+    public long getGoalLightMask() {
+        return goalLightMask;
+    }
+
+    /**
+     * Returns the mask of the dark knights in the goal layout.
+     *
+     * @return The goal dark mask.
+     */
+    public long getGoalDarkMask() {
+        return goalDarkMask;
+    }
+
+    /**
+     * Returns the {@link PieceType} of the player who moves first.
+     *
+     * @return The first player.
+     */
+    public PieceType getFirstPlayer() {
+        return firstPlayer;
+    }
+
+    /**
+     * Returns the number of light knights on the board.
+     *
+     * @return The {@code int} number of light knights.
+     */
+    public int getLightCount() {
+        return Long.bitCount(startLightMask);
+    }
+
+    /**
+     * Returns the number of dark knights on the board.
+     *
+     * @return The {@code int} number of dark knights.
+     */
+    public int getDarkCount() {
+        return Long.bitCount(startDarkMask);
+    }
+
+    /**
+     * Returns an upper bound of the number of legal moves in any state of this variant:
+     * eight knight jumps for every knight of the larger army.
+     *
+     * @return The {@code int} maximum number of legal moves.
+     */
+    public int getMaxLegalMoves() {
+        return 8 * Math.max(getLightCount(), getDarkCount());
+    }
+
+    /**
+     * Checks whether the given knight masks form the goal layout.
+     *
+     * @param lightMask The mask of the light knights.
+     * @param darkMask The mask of the dark knights.
+     * @return {@code true} if the masks match the goal layout, {@code false} otherwise.
+     */
+    public boolean isGoal(long lightMask, long darkMask) {
+        return lightMask == goalLightMask && darkMask == goalDarkMask;
+    }
+
+    /**
+     * Returns the symbol of the given square in the starting layout.
+     *
+     * @param row The {@code int} row index.
+     * @param col The {@code int} column index.
+     * @return The {@code char} symbol ('D', 'L', or '.').
+     */
+    public char getStartPieceAt(int row, int col) {
+        return symbolAt(startLightMask, startDarkMask, row * cols + col);
+    }
+
+    /**
+     * Returns the symbol of the given square in the goal layout.
+     *
+     * @param row The {@code int} row index.
+     * @param col The {@code int} column index.
+     * @return The {@code char} symbol ('D', 'L', or '.').
+     */
+    public char getGoalPieceAt(int row, int col) {
+        return symbolAt(goalLightMask, goalDarkMask, row * cols + col);
+    }
+
+    /**
+     * Returns the symbol of a square in a layout given by its masks.
+     *
+     * @param lightMask The mask of the light knights.
+     * @param darkMask The mask of the dark knights.
+     * @param square The square number.
+     * @return The {@code char} symbol ('D', 'L', or '.').
+     */
+    static char symbolAt(long lightMask, long darkMask, int square) {
+        long bit = 1L << square;
+        if ((lightMask & bit) != 0) {
+            return PieceType.LIGHT.getSymbol();
+        }
+        if ((darkMask & bit) != 0) {
+            return PieceType.DARK.getSymbol();
+        }
+        return '.';
+    }
+
+    /**
+     * {@inheritDoc}
+     * Two definitions are equal if they describe the same board, layouts and first player.
+     *
+     * @param o The {@link Object} to compare with this definition.
+     * @return {@code true} if the specified object is an equal definition, {@code false} otherwise.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PuzzleDefinition that = (PuzzleDefinition) o;
+        return rows == that.rows && cols == that.cols
+                && startLightMask == that.startLightMask && startDarkMask == that.startDarkMask
+                && goalLightMask == that.goalLightMask && goalDarkMask == that.goalDarkMask
+                && firstPlayer == that.firstPlayer;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return An {@code int} hash code value for this definition.
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(rows, cols, startLightMask, startDarkMask, goalLightMask, goalDarkMask, firstPlayer);
+    }
+
+    /**
+     * Returns a short description of the definition, listing its dimensions and layouts.
+     *
+     * @return A {@link String} representation of this definition.
+     */
+    @Override
+    public String toString() {
+        return "PuzzleDefinition{" + rows + "x" + cols
+                + ", start=" + Arrays.toString(layoutRows(startLightMask, startDarkMask))
+                + ", goal=" + Arrays.toString(layoutRows(goalLightMask, goalDarkMask))
+                + ", firstPlayer=" + firstPlayer + '}';
+    }
+
+    /**
+     * Renders a layout given by its masks as one string per row.
+     *
+     * @param lightMask The mask of the light knights.
+     * @param darkMask The mask of the dark knights.
+     * @return The rows of the layout.
+     */
+    private String[] layoutRows(long lightMask, long darkMask) {
+        String[] result = new String[rows];
+        for (int row = 0; row < rows; row++) {
+            StringBuilder sb = new StringBuilder(cols);
+            for (int col = 0; col < cols; col++) {
+                sb.append(symbolAt(lightMask, darkMask, row * cols + col));
+            }
+            result[row] = sb.toString();
+        }
+        return result;
+    }
+
+    /**
+     * The JSON shape of a puzzle spec file, filled in by {@link Gson}.
+     */
+    private static final class Spec {
+        /**
+         * The rows of the starting layout.
+         */
+        private List<String> start;
+
+        /**
+         * The rows of the goal layout, or {@code null} for the color-swapped starting layout.
+         */
+        private List<String> goal;
+
+        /**
+         * The name of the player who moves first, or {@code null} for light.
+         */
+        private String firstPlayer;
+    }
+}
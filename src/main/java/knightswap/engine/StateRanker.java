@@ -0,0 +1,255 @@
+package knightswap.engine;
+
+import knightswap.utils.PieceType;
+
+/**
+ * A perfect ranking of the Knight Swap positions of one {@link PuzzleDefinition}.
+ * Every combination of light squares, dark squares and player to move is mapped to a distinct index in
+ * {@code [0, getStateCount())} and back, so search code can keep visited sets and distance tables in
+ * {@link java.util.BitSet} or {@code byte[]} arrays instead of hash sets of state objects.
+ * <p>
+ * The index is built from the combinatorial number system: with {@code n} squares, {@code l} light
+ * and {@code d} dark knights, the light squares are ranked among all {@code C(n, l)} subsets, the dark squares
+ * among the {@code C(n - l, d)} subsets of the remaining squares, and the lowest bit holds the player to move.
+ * The classic 4x3 puzzle thus has {@code C(12,3) * C(9,3) * 2 = 36960} indices.
+ * Not every index is reachable from the starting position.
+ */
+public final class StateRanker {
+    /**
+     * Pascal's triangle up to {@value PuzzleDefinition#MAX_SQUARES} squares: {@code BINOMIALS[n][k] = C(n, k)}.
+     * The largest value, {@code C(64, 32)}, still fits into a {@code long}.
+     */
+    private static final long[][] BINOMIALS = new long[PuzzleDefinition.MAX_SQUARES + 1][PuzzleDefinition.MAX_SQUARES + 1];
+
+    static {
+        for (int n = 0; n <= PuzzleDefinition.MAX_SQUARES; n++) {
+            BINOMIALS[n][0] = 1;
+            for (int k = 1; k <= n; k++) {
+                BINOMIALS[n][k] = BINOMIALS[n - 1][k - 1] + BINOMIALS[n - 1][k];
+            }
+        }
+    }
+
+    /**
+     * The puzzle variant whose states are ranked.
+     */
+    private final PuzzleDefinition definition;
+
+    /**
+     * The number of squares of the board.
+     */
+    private final int squares;
+
+    /**
+     * The number of light knights.
+     */
+    private final int lightCount;
+
+    /**
+     * The number of dark knights.
+     */
+    private final int darkCount;
+
+    /**
+     * The number of ways to place the dark knights on the squares left free by the light ones.
+     */
+    private final long darkCombinations;
+
+    /**
+     * The total number of indices.
+     */
+    private final long stateCount;
+
+    /**
+     * Creates a ranker for the states of the given puzzle variant.
+     *
+     * @param definition The {@link PuzzleDefinition} whose states are ranked.
+     * @throws IllegalArgumentException If the variant has more states than a {@code long} index can address.
+     */
+    public StateRanker(PuzzleDefinition definition) {
+        this.definition = definition;
+        this.squares = definition.getSquareCount();
+        this.lightCount = definition.getLightCount();
+        this.darkCount = definition.getDarkCount();
+        this.darkCombinations = BINOMIALS[squares - lightCount][darkCount];
+        try {
+            this.stateCount = Math.multiplyExact(Math.multiplyExact(BINOMIALS[squares][lightCount], darkCombinations), 2L);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Too many states to rank for a " + definition.getRows() + "x"
+                    + definition.getCols() + " board.", e);
+        }
+    }
+
+    /**
+     * Returns the puzzle variant whose states are ranked.
+     *
+     * @return The {@link PuzzleDefinition} of this ranker.
+     */
+    public PuzzleDefinition getDefinition() {
+        return definition;
+    }
+
+    /**
+     * Returns the number of indices, which is one more than the largest index.
+     *
+     * @return The {@code long} number of rankable states.
+     */
+    public long getStateCount() {
+        return stateCount;
+    }
+
+    /**
+     * Checks whether every index fits into an {@code int}, so that tables can be plain Java arrays.
+     *
+     * @return {@code true} if {@link #getStateCount()} is at most {@link Integer#MAX_VALUE}.
+     */
+    public boolean isArrayIndexable() {
+        return stateCount <= Integer.MAX_VALUE;
+    }
+
+    /**
+     * Returns the index of the position held by the given board.
+     *
+     * @param board The {@link KnightSwapBoard} of this ranker's puzzle variant.
+     * @return The {@code long} index of the position.
+     * @throws IllegalArgumentException If the board does not have the knights of this ranker's variant.
+     */
+    public long rank(KnightSwapBoard board) {
+        if (board instanceof BitboardKnightSwapState bitboard) {
+            return rank(bitboard.getLightMask(), bitboard.getDarkMask(), bitboard.getCurrentPlayer());
+        }
+        long light = 0L;
+        long dark = 0L;
+        for (int square = 0; square < squares; square++) {
+            char piece = board.getPieceAt(square / definition.getCols(), square % definition.getCols());
+            if (piece == PieceType.LIGHT.getSymbol()) {
+                light |= 1L << square;
+            } else if (piece == PieceType.DARK.getSymbol()) {
+                dark |= 1L << square;
+            }
+        }
+        return rank(light, dark, board.getCurrentPlayer());
+    }
+
+    /**
+     * Returns the index of the position given by its knight masks.
+     *
+     * @param lightMask The mask of the light knights.
+     * @param darkMask The mask of the dark knights.
+     * @param currentPlayer The {@link PieceType} of the player to move.
+     * @return The {@code long} index of the position.
+     * @throws IllegalArgumentException If the masks do not hold the knights of this ranker's variant.
+     */
+    public long rank(long lightMask, long darkMask, PieceType currentPlayer) {
+        if (Long.bitCount(lightMask) != lightCount || Long.bitCount(darkMask) != darkCount
+                || (lightMask & darkMask) != 0 || ((lightMask | darkMask) & ~definition.getBoardMask()) != 0) {
+            throw new IllegalArgumentException("The knight masks do not match the puzzle definition.");
+        }
+        long lightRank = 0L;
+        long darkRank = 0L;
+        int lightSeen = 0;
+        int darkSeen = 0;
+        int freeIndex = 0;
+        for (int square = 0; square < squares; square++) {
+            long bit = 1L << square;
+            if ((lightMask & bit) != 0) {
+                lightRank += BINOMIALS[square][++lightSeen];
+            } else {
+                if ((darkMask & bit) != 0) {
+                    darkRank += BINOMIALS[freeIndex][++darkSeen];
+                }
+                freeIndex++;
+            }
+        }
+        return (lightRank * darkCombinations + darkRank) * 2 + (currentPlayer == PieceType.LIGHT ? 0 : 1);
+    }
+
+    /**
+     * Returns the player to move of the position with the given index.
+     *
+     * @param index The index of the position.
+     * @return The {@link PieceType} of the player to move.
+     */
+    public PieceType playerOf(long index) {
+        return (index & 1) == 0 ? PieceType.LIGHT : PieceType.DARK;
+    }
+
+    /**
+     * Returns the light knight mask of the position with the given index.
+     *
+     * @param index The index of the position.
+     * @return The mask of the light knights.
+     * @throws IllegalArgumentException If the index is out of range.
+     */
+    public long lightMaskOf(long index) {
+        checkIndex(index);
+        return unrankSubset((index >>> 1) / darkCombinations, lightCount);
+    }
+
+    /**
+     * Returns the dark knight mask of the position with the given index.
+     *
+     * @param index The index of the position.
+     * @return The mask of the dark knights.
+     * @throws IllegalArgumentException If the index is out of range.
+     */
+    public long darkMaskOf(long index) {
+        long lightMask = lightMaskOf(index);
+        long freeSubset = unrankSubset((index >>> 1) % darkCombinations, darkCount);
+        long darkMask = 0L;
+        int freeIndex = 0;
+        for (int square = 0; square < squares && freeSubset >>> freeIndex != 0; square++) {
+            if ((lightMask & (1L << square)) == 0) {
+                if ((freeSubset & (1L << freeIndex)) != 0) {
+                    darkMask |= 1L << square;
+                }
+                freeIndex++;
+            }
+        }
+        return darkMask;
+    }
+
+    /**
+     * Returns a new state holding the position with the given index.
+     *
+     * @param index The index of the position.
+     * @return A new {@link BitboardKnightSwapState}.
+     * @throws IllegalArgumentException If the index is out of range.
+     */
+    public BitboardKnightSwapState unrank(long index) {
+        return new BitboardKnightSwapState(definition, lightMaskOf(index), darkMaskOf(index), playerOf(index));
+    }
+
+    /**
+     * Checks that an index is in range.
+     *
+     * @param index The index to check.
+     * @throws IllegalArgumentException If the index is negative or not less than {@link #getStateCount()}.
+     */
+    private void checkIndex(long index) {
+        if (index < 0 || index >= stateCount) {
+            throw new IllegalArgumentException("State index out of range: " + index);
+        }
+    }
+
+    /**
+     * Converts the rank of a {@code k}-element subset in the combinatorial number system back into a mask.
+     *
+     * @param rank The rank of the subset.
+     * @param k The number of elements of the subset.
+     * @return The mask with the {@code k} bits of the subset set.
+     */
+    private static long unrankSubset(long rank, int k) {
+        long mask = 0L;
+        int position = PuzzleDefinition.MAX_SQUARES - 1;
+        for (int i = k; i > 0; i--) {
+            while (BINOMIALS[position][i] > rank) {
+                position--;
+            }
+            mask |= 1L << position;
+            rank -= BINOMIALS[position][i];
+            position--;
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,191 @@
+package knightswap.engine;
+
+import knightswap.utils.PieceType;
+
+/**
+ * A symmetry of a Knight Swap board: a permutation of the squares that maps knight jumps onto knight jumps,
+ * optionally combined with swapping the colors of the knights and the player to move.
+ * <p>
+ * The rules treat both colors alike, so every such transformation maps a legal move onto a legal move.
+ * When it also maps the goal layout onto itself, a position and its image are the same distance from the goal,
+ * which lets search code store one representative per orbit (see {@link SymmetryGroup}).
+ * Masks are mapped a byte at a time through precomputed tables. Instances are immutable.
+ */
+public final class Symmetry {
+    /**
+     * The name of the transformation, used in log messages.
+     */
+    private final String name;
+
+    /**
+     * The square each square is mapped to.
+     */
+    private final int[] squareMap;
+
+    /**
+     * Whether the colors of the knights and the player to move are swapped.
+     */
+    private final boolean swapsColors;
+
+    /**
+     * The image of every byte of a mask, indexed by {@code byteIndex * 256 + byteValue}.
+     */
+    private final long[] byteImages;
+
+    /**
+     * Creates a symmetry from a square permutation.
+     *
+     * @param name The {@link String} name of the transformation.
+     * @param squareMap The square each square is mapped to.
+     * @param swapsColors Whether the colors and the player to move are swapped.
+     */
+    Symmetry(String name, int[] squareMap, boolean swapsColors) {
+        this.name = name;
+        this.squareMap = squareMap.clone();
+        this.swapsColors = swapsColors;
+        this.byteImages = new long[Long.BYTES * 256];
+        for (int square = 0; square < squareMap.length; square++) {
+            int byteIndex = square / Byte.SIZE;
+            int bit = 1 << (square % Byte.SIZE);
+            for (int value = bit; value < 256; value = (value + 1) | bit) {
+                byteImages[byteIndex * 256 + value] |= 1L << squareMap[square];
+            }
+        }
+    }
+
+    /**
+     * Returns the name of the transformation.
+     *
+     * @return The {@link String} name, such as {@code "mirror"} or {@code "flip + color swap"}.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns whether the transformation swaps the colors of the knights and the player to move.
+     *
+     * @return {@code true} if the colors are swapped.
+     */
+    public boolean swapsColors() {
+        return swapsColors;
+    }
+
+    /**
+     * Returns whether the transformation leaves every position unchanged.
+     *
+     * @return {@code true} for the identity.
+     */
+    public boolean isIdentity() {
+        if (swapsColors) {
+            return false;
+        }
+        for (int square = 0; square < squareMap.length; square++) {
+            if (squareMap[square] != square) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Maps a square.
+     *
+     * @param square The square number to map.
+     * @return The square number of its image.
+     */
+    public int mapSquare(int square) {
+        return squareMap[square];
+    }
+
+    /**
+     * Maps every square of a mask, without swapping colors.
+     *
+     * @param mask The mask to map.
+     * @return The mask of the image squares.
+     */
+    public long mapMask(long mask) {
+        long image = 0L;
+        for (int byteIndex = 0; mask != 0; byteIndex++, mask >>>= Byte.SIZE) {
+            image |= byteImages[byteIndex * 256 + (int) (mask & 0xFF)];
+        }
+        return image;
+    }
+
+    /**
+     * Returns the light knights of the image of a position.
+     *
+     * @param lightMask The mask of the light knights.
+     * @param darkMask The mask of the dark knights.
+     * @return The mask of the light knights after the transformation.
+     */
+    public long mapLightMask(long lightMask, long darkMask) {
+        return mapMask(swapsColors ? darkMask : lightMask);
+    }
+
+    /**
+     * Returns the dark knights of the image of a position.
+     *
+     * @param lightMask The mask of the light knights.
+     * @param darkMask The mask of the dark knights.
+     * @return The mask of the dark knights after the transformation.
+     */
+    public long mapDarkMask(long lightMask, long darkMask) {
+        return mapMask(swapsColors ? lightMask : darkMask);
+    }
+
+    /**
+     * Returns the player to move in the image of a position.
+     *
+     * @param player The {@link PieceType} of the player to move.
+     * @return The {@link PieceType} of the player to move after the transformation.
+     */
+    public PieceType mapPlayer(PieceType player) {
+        return swapsColors ? player.opponent() : player;
+    }
+
+    /**
+     * Maps a packed move (see {@link MoveCodec}). The image of a legal move of a position is a legal move
+     * of the image of that position.
+     *
+     * @param move The packed move to map.
+     * @return The packed image move.
+     */
+    public int mapMove(int move) {
+        return MoveCodec.encode(squareMap[MoveCodec.from(move)], squareMap[MoveCodec.to(move)]);
+    }
+
+    /**
+     * Replaces the position held by a state with its image. The undo stack of the state is cleared.
+     *
+     * @param state The {@link BitboardKnightSwapState} to transform.
+     */
+    public void apply(BitboardKnightSwapState state) {
+        long light = state.getLightMask();
+        long dark = state.getDarkMask();
+        state.setPosition(mapLightMask(light, dark), mapDarkMask(light, dark), mapPlayer(state.getCurrentPlayer()));
+    }
+
+    /**
+     * Returns the transformation undoing this one.
+     *
+     * @return The inverse {@code Symmetry}.
+     */
+    public Symmetry inverse() {
+        int[] inverseMap = new int[squareMap.length];
+        for (int square = 0; square < squareMap.length; square++) {
+            inverseMap[squareMap[square]] = square;
+        }
+        return new Symmetry("inverse of " + name, inverseMap, swapsColors);
+    }
+
+    /**
+     * Returns the name of the transformation.
+     *
+     * @return The {@link String} name.
+     */
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,230 @@
+package knightswap.engine;
+
+import knightswap.utils.PieceType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * The symmetries of a puzzle variant, used to canonicalize positions.
+ * <p>
+ * The candidates are the reflections and rotations of the board (the transpositions and quarter turns only on
+ * square boards), each with and without swapping the colors. Only those mapping the goal layout onto itself are
+ * kept, because they are exactly the ones that preserve the distance to the goal. The classic 4x3 puzzle keeps four:
+ * the identity, the left-right mirror, and the vertical flip and half turn combined with a color swap, the latter
+ * two also changing the player to move.
+ * <p>
+ * The representative of an orbit is its image with the smallest light mask, then dark mask, then player,
+ * compared as unsigned values. Most positions near the start and goal have fewer than four distinct images, so
+ * searches and tables that store only representatives need roughly half of the entries on the classic board.
+ * Instances are immutable.
+ */
+public final class SymmetryGroup {
+    /**
+     * The puzzle variant whose positions are canonicalized.
+     */
+    private final PuzzleDefinition definition;
+
+    /**
+     * The symmetries of the variant, starting with the identity.
+     */
+    private final Symmetry[] symmetries;
+
+    /**
+     * Finds the symmetries of a puzzle variant.
+     *
+     * @param definition The {@link PuzzleDefinition} whose goal layout the symmetries must preserve.
+     */
+    public SymmetryGroup(PuzzleDefinition definition) {
+        this(definition, definition.getGoalLightMask(), definition.getGoalDarkMask(), true);
+    }
+
+    /**
+     * Finds the symmetries of a board that map a layout onto itself.
+     *
+     * @param definition The {@link PuzzleDefinition} of the board.
+     * @param lightMask The mask of the light knights of the layout to preserve.
+     * @param darkMask The mask of the dark knights of the layout to preserve.
+     * @param colorSwaps Whether the symmetries combined with a color swap are candidates.
+     */
+    private SymmetryGroup(PuzzleDefinition definition, long lightMask, long darkMask, boolean colorSwaps) {
+        this.definition = definition;
+        int rows = definition.getRows();
+        int cols = definition.getCols();
+        List<Symmetry> found = new ArrayList<>();
+        addIfSymmetric(found, "identity", (row, col) -> row * cols + col, lightMask, darkMask, colorSwaps);
+        addIfSymmetric(found, "mirror", (row, col) -> row * cols + (cols - 1 - col), lightMask, darkMask, colorSwaps);
+        addIfSymmetric(found, "flip", (row, col) -> (rows - 1 - row) * cols + col, lightMask, darkMask, colorSwaps);
+        addIfSymmetric(found, "half turn", (row, col) -> (rows - 1 - row) * cols + (cols - 1 - col), lightMask, darkMask, colorSwaps);
+        if (rows == cols) {
+            addIfSymmetric(found, "transpose", (row, col) -> col * cols + row, lightMask, darkMask, colorSwaps);
+            addIfSymmetric(found, "anti-transpose", (row, col) -> (cols - 1 - col) * cols + (rows - 1 - row), lightMask, darkMask, colorSwaps);
+            addIfSymmetric(found, "quarter turn", (row, col) -> col * cols + (rows - 1 - row), lightMask, darkMask, colorSwaps);
+            addIfSymmetric(found, "three-quarter turn", (row, col) -> (cols - 1 - col) * cols + row, lightMask, darkMask, colorSwaps);
+        }
+        this.symmetries = found.toArray(new Symmetry[0]);
+    }
+
+    /**
+     * Finds the symmetries of a board that leave a position unchanged, player to move included.
+     * Searches for a route to that position may canonicalize their states with this group, since every
+     * symmetry of it maps a route to the position onto another route to the same position.
+     * As a color swap always changes the player to move, only the plain board transformations can qualify.
+     *
+     * @param position The {@link KnightSwapBoard} holding the position to preserve. It is not modified.
+     * @return The new {@code SymmetryGroup}, holding at least the identity.
+     */
+    public static SymmetryGroup stabilizerOf(KnightSwapBoard position) {
+        BitboardKnightSwapState state = new BitboardKnightSwapState(position.getDefinition(), position);
+        return new SymmetryGroup(position.getDefinition(), state.getLightMask(), state.getDarkMask(), false);
+    }
+
+    /**
+     * Adds a board transformation, and its combination with a color swap, if they preserve a layout.
+     *
+     * @param found The {@link List} of symmetries found so far.
+     * @param name The {@link String} name of the transformation.
+     * @param mapping The square a {@code (row, col)} square is mapped to.
+     * @param light The mask of the light knights of the layout to preserve.
+     * @param dark The mask of the dark knights of the layout to preserve.
+     * @param colorSwaps Whether the combination with a color swap is a candidate.
+     */
+    private void addIfSymmetric(List<Symmetry> found, String name, IntBinaryOperator mapping, long light, long dark, boolean colorSwaps) {
+        int[] squareMap = new int[definition.getSquareCount()];
+        for (int square = 0; square < squareMap.length; square++) {
+            squareMap[square] = mapping.applyAsInt(square / definition.getCols(), square % definition.getCols());
+        }
+        for (boolean swapsColors : colorSwaps ? new boolean[]{false, true} : new boolean[]{false}) {
+            Symmetry symmetry = new Symmetry(swapsColors ? name + " + color swap" : name, squareMap, swapsColors);
+            if (symmetry.mapLightMask(light, dark) == light && symmetry.mapDarkMask(light, dark) == dark) {
+                found.add(symmetry);
+            }
+        }
+    }
+
+    /**
+     * Returns the puzzle variant whose positions are canonicalized.
+     *
+     * @return The {@link PuzzleDefinition} of this group.
+     */
+    public PuzzleDefinition getDefinition() {
+        return definition;
+    }
+
+    /**
+     * Returns the symmetries of the variant.
+     *
+     * @return An unmodifiable {@link List} of the {@link Symmetry symmetries}, starting with the identity.
+     */
+    public List<Symmetry> getSymmetries() {
+        return List.of(symmetries);
+    }
+
+    /**
+     * Returns the number of symmetries of the variant, which bounds the size of every orbit.
+     *
+     * @return The number of symmetries, at least 1.
+     */
+    public int size() {
+        return symmetries.length;
+    }
+
+    /**
+     * Finds the symmetry mapping a position to the representative of its orbit.
+     *
+     * @param lightMask The mask of the light knights.
+     * @param darkMask The mask of the dark knights.
+     * @param player The {@link PieceType} of the player to move.
+     * @return The canonicalizing {@link Symmetry}.
+     */
+    public Symmetry canonicalSymmetry(long lightMask, long darkMask, PieceType player) {
+        Symmetry best = symmetries[0];
+        long bestLight = lightMask;
+        long bestDark = darkMask;
+        PieceType bestPlayer = player;
+        for (int i = 1; i < symmetries.length; i++) {
+            Symmetry symmetry = symmetries[i];
+            long light = symmetry.mapLightMask(lightMask, darkMask);
+            int order = Long.compareUnsigned(light, bestLight);
+            if (order > 0) {
+                continue;
+            }
+            long dark = symmetry.mapDarkMask(lightMask, darkMask);
+            if (order == 0) {
+                order = Long.compareUnsigned(dark, bestDark);
+            }
+            PieceType mappedPlayer = symmetry.mapPlayer(player);
+            if (order == 0) {
+                order = mappedPlayer.compareTo(bestPlayer);
+            }
+            if (order < 0) {
+                best = symmetry;
+                bestLight = light;
+                bestDark = dark;
+                bestPlayer = mappedPlayer;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the index of the representative of a position's orbit.
+     *
+     * @param ranker The {@link StateRanker} of this group's puzzle variant.
+     * @param lightMask The mask of the light knights.
+     * @param darkMask The mask of the dark knights.
+     * @param player The {@link PieceType} of the player to move.
+     * @return The {@code long} index of the canonical position.
+     */
+    public long canonicalRank(StateRanker ranker, long lightMask, long darkMask, PieceType player) {
+        Symmetry symmetry = canonicalSymmetry(lightMask, darkMask, player);
+        return ranker.rank(symmetry.mapLightMask(lightMask, darkMask), symmetry.mapDarkMask(lightMask, darkMask),
+                symmetry.mapPlayer(player));
+    }
+
+    /**
+     * Returns the index of the representative of the orbit of the position held by a board.
+     *
+     * @param ranker The {@link StateRanker} of this group's puzzle variant.
+     * @param board The {@link KnightSwapBoard} holding the position.
+     * @return The {@code long} index of the canonical position.
+     */
+    public long canonicalRank(StateRanker ranker, KnightSwapBoard board) {
+        BitboardKnightSwapState state = board instanceof BitboardKnightSwapState bitboard
+                ? bitboard : new BitboardKnightSwapState(definition, board);
+        return canonicalRank(ranker, state.getLightMask(), state.getDarkMask(), state.getCurrentPlayer());
+    }
+
+    /**
+     * Returns the representative of the orbit of the position held by a board.
+     *
+     * @param board The {@link KnightSwapBoard} holding the position. It is not modified.
+     * @return A new {@link BitboardKnightSwapState} holding the canonical position.
+     */
+    public BitboardKnightSwapState canonicalize(KnightSwapBoard board) {
+        BitboardKnightSwapState state = new BitboardKnightSwapState(definition, board);
+        canonicalSymmetry(state.getLightMask(), state.getDarkMask(), state.getCurrentPlayer()).apply(state);
+        return state;
+    }
+
+    /**
+     * Finds a symmetry mapping one position onto another.
+     *
+     * @param from The {@link BitboardKnightSwapState} holding the first position.
+     * @param to The {@link BitboardKnightSwapState} holding the second position.
+     * @return An {@link Optional} holding a {@link Symmetry} mapping {@code from} onto {@code to},
+     * or an empty {@link Optional} if they are in different orbits.
+     */
+    public Optional<Symmetry> findMapping(BitboardKnightSwapState from, BitboardKnightSwapState to) {
+        for (Symmetry symmetry : symmetries) {
+            if (symmetry.mapLightMask(from.getLightMask(), from.getDarkMask()) == to.getLightMask()
+                    && symmetry.mapDarkMask(from.getLightMask(), from.getDarkMask()) == to.getDarkMask()
+                    && symmetry.mapPlayer(from.getCurrentPlayer()) == to.getCurrentPlayer()) {
+                return Optional.of(symmetry);
+            }
+        }
+        return Optional.empty();
+    }
+}
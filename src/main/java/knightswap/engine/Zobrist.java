@@ -0,0 +1,103 @@
+package knightswap.engine;
+
+import knightswap.utils.PieceType;
+
+import java.util.SplittableRandom;
+
+/**
+ * The Zobrist hashing scheme shared by the Knight Swap engines.
+ * Every (knight color, square) pair and the "dark to move" flag is assigned a fixed random 64-bit key,
+ * and the key of a state is the XOR of the keys of its knights, XOR-ed with the side key when dark is to move.
+ * A move therefore changes the key by XOR-ing three values, so engines can maintain it incrementally.
+ * <p>
+ * The keys are generated from a fixed seed, so they are identical in every run and can be persisted.
+ */
+public final class Zobrist {
+    /**
+     * The seed of the key generator. Changing it invalidates every persisted key.
+     */
+    private static final long SEED = 0x4B6E6967687453L;
+
+    /**
+     * The keys of light knights, indexed by square number.
+     */
+    private static final long[] LIGHT_KEYS = new long[PuzzleDefinition.MAX_SQUARES];
+
+    /**
+     * The keys of dark knights, indexed by square number.
+     */
+    private static final long[] DARK_KEYS = new long[PuzzleDefinition.MAX_SQUARES];
+
+    /**
+     * The key XOR-ed into the states where dark is to move.
+     */
+    private static final long DARK_TO_MOVE_KEY;
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int square = 0; square < PuzzleDefinition.MAX_SQUARES; square++) {
+            LIGHT_KEYS[square] = random.nextLong();
+            DARK_KEYS[square] = random.nextLong();
+        }
+        DARK_TO_MOVE_KEY = random.nextLong();
+    }
+
+    /**
+     * Utility class, not meant to be instantiated.
+     */
+    private Zobrist() {
+    }
+
+    /**
+     * Returns the key of a knight of the given color on the given square.
+     *
+     * @param piece The {@link PieceType} of the knight.
+     * @param square The square number of the knight.
+     * @return The 64-bit key of the knight.
+     */
+    public static long pieceKey(PieceType piece, int square) {
+        return piece == PieceType.LIGHT ? LIGHT_KEYS[square] : DARK_KEYS[square];
+    }
+
+    /**
+     * Returns the key XOR-ed into every state where dark is to move.
+     *
+     * @return The 64-bit side-to-move key.
+     */
+    public static long sideKey() {
+        return DARK_TO_MOVE_KEY;
+    }
+
+    /**
+     * Returns the change of the key caused by moving a knight of the given color, including the change of turn.
+     *
+     * @param mover The {@link PieceType} of the moving knight.
+     * @param from The square number the knight moves from.
+     * @param to The square number the knight moves to.
+     * @return The value to XOR into the key of the state before the move.
+     */
+    public static long moveDelta(PieceType mover, int from, int to) {
+        return pieceKey(mover, from) ^ pieceKey(mover, to) ^ DARK_TO_MOVE_KEY;
+    }
+
+    /**
+     * Computes the key of a state from scratch.
+     *
+     * @param lightMask The mask of the light knights.
+     * @param darkMask The mask of the dark knights.
+     * @param currentPlayer The {@link PieceType} of the player to move.
+     * @return The 64-bit Zobrist key of the state.
+     */
+    public static long keyOf(long lightMask, long darkMask, PieceType currentPlayer) {
+        long key = currentPlayer == PieceType.DARK ? DARK_TO_MOVE_KEY : 0L;
+        while (lightMask != 0) {
+            key ^= LIGHT_KEYS[Long.numberOfTrailingZeros(lightMask)];
+            lightMask &= lightMask - 1;
+        }
+        while (darkMask != 0) {
+            key ^= DARK_KEYS[Long.numberOfTrailingZeros(darkMask)];
+            darkMask &= darkMask - 1;
+        }
+        return key;
+    }
+}
@@ -0,0 +1,12 @@
+/**
+ * Provides the high-performance game engine for the Knight Swap puzzle.
+ * The central class is {@link knightswap.engine.BitboardKnightSwapState}, which stores
+ * the knights as bit masks and uses precomputed knight-move tables, and the
+ * {@link knightswap.engine.KnightSwapBoard} interface shared with the reference
+ * {@link knightswap.KnightSwapState} implementation.
+ * Search code builds on the primitive encodings of this package: {@link knightswap.engine.MoveCodec}
+ * for moves, {@link knightswap.engine.Zobrist} keys for hashing and {@link knightswap.engine.StateRanker}
+ * indices for array-based state tables, and {@link knightswap.engine.SymmetryGroup} reduces positions to
+ * the representatives of their symmetry orbits.
+ */
+package knightswap.engine;
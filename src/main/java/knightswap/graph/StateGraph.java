@@ -0,0 +1,669 @@
+package knightswap.graph;
+
+import knightswap.engine.BitboardKnightSwapState;
+import knightswap.engine.KnightSwapBoard;
+import knightswap.engine.MoveCodec;
+import knightswap.engine.PuzzleDefinition;
+import knightswap.engine.StateRanker;
+import knightswap.solver.LongHashSet;
+import org.tinylog.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * The graph of all positions reachable from a start position, in compressed sparse row form.
+ * <p>
+ * Every reachable position is a vertex, numbered by the rank of its {@link StateRanker} index among all reachable
+ * positions, so the vertex of a position is found by binary search in the sorted keys. The legal moves of the
+ * vertex {@code v} are the edges {@code offsets[v]} to {@code offsets[v + 1] - 1}, each stored as the target vertex
+ * in {@code targets} and the {@link MoveCodec packed move} in {@code moveCodes}, so a vertex and its edges take
+ * 12 bytes plus 6 bytes per move. Positions are kept exactly as played, not reduced by symmetry, so that every
+ * edge is a real move. Once built, queries such as shortest paths, reachability and the strongly connected
+ * components are plain scans over these arrays, without generating a single move.
+ * <p>
+ * Graphs are saved to a binary file with a small header identifying the variant and the start position, and are
+ * opened by memory-mapping each array of that file with {@link FileChannel#map}, like a
+ * {@link knightswap.tablebase.Tablebase}. Instances are immutable and thread-safe.
+ */
+public final class StateGraph {
+    /**
+     * The vertex returned by {@link #vertexOf(long)} for positions that are not in the graph.
+     */
+    public static final int NO_VERTEX = -1;
+
+    /**
+     * The distance returned by {@link #distancesFrom(int)} for unreachable vertices.
+     */
+    public static final int UNREACHABLE = -1;
+
+    /**
+     * The magic number at the start of every graph file, the ASCII codes of {@code KSSG}.
+     */
+    private static final int MAGIC = 0x4B535347;
+
+    /**
+     * The version of the file format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The size of the file header in bytes: magic, version, rows, columns, goal masks, start key,
+     * vertex count and edge count.
+     */
+    private static final int HEADER_SIZE = 4 + 4 + 4 + 4 + 8 + 8 + 8 + 4 + 4;
+
+    /**
+     * The size of the buffer used to write the arrays.
+     */
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The puzzle variant whose positions are covered.
+     */
+    private final PuzzleDefinition definition;
+
+    /**
+     * The ranker mapping positions to keys.
+     */
+    private final StateRanker ranker;
+
+    /**
+     * The key of the start position the graph was built from.
+     */
+    private final long startKey;
+
+    /**
+     * The sorted {@link StateRanker} indices of the vertices.
+     */
+    private final LongBuffer keys;
+
+    /**
+     * The first edge of every vertex, followed by the number of edges.
+     */
+    private final IntBuffer offsets;
+
+    /**
+     * The target vertex of every edge.
+     */
+    private final IntBuffer targets;
+
+    /**
+     * The packed move of every edge.
+     */
+    private final ShortBuffer moveCodes;
+
+    /**
+     * Creates a graph over the given arrays.
+     *
+     * @param definition The {@link PuzzleDefinition} whose positions are covered.
+     * @param ranker The {@link StateRanker} of the variant.
+     * @param startKey The key of the start position.
+     * @param keys The sorted keys of the vertices.
+     * @param offsets The first edge of every vertex, followed by the number of edges.
+     * @param targets The target vertex of every edge.
+     * @param moveCodes The packed move of every edge.
+     */
+    private StateGraph(PuzzleDefinition definition, StateRanker ranker, long startKey,
+                       LongBuffer keys, IntBuffer offsets, IntBuffer targets, ShortBuffer moveCodes) {
+        this.definition = definition;
+        this.ranker = ranker;
+        this.startKey = startKey;
+        this.keys = keys;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.moveCodes = moveCodes;
+    }
+
+    /**
+     * Enumerates the graph of the positions reachable from the start position of a puzzle variant.
+     *
+     * @param definition The {@link PuzzleDefinition} whose positions are enumerated.
+     * @return The new {@code StateGraph}.
+     * @throws IllegalArgumentException If the variant has too many states to be ranked, or the graph has too many
+     * vertices or edges for its arrays.
+     */
+    public static StateGraph build(PuzzleDefinition definition) {
+        return build(new BitboardKnightSwapState(definition));
+    }
+
+    /**
+     * Enumerates the graph of the positions reachable from a position.
+     * A breadth-first search first collects the keys of all reachable positions, which are then sorted to number
+     * the vertices; a second pass over the vertices generates their moves and fills the edge arrays.
+     *
+     * @param start The {@link KnightSwapBoard} to start from, of any engine. It is not modified.
+     * @return The new {@code StateGraph}.
+     * @throws IllegalArgumentException If the variant has too many states to be ranked, or the graph has too many
+     * vertices or edges for its arrays.
+     */
+    public static StateGraph build(KnightSwapBoard start) {
+        PuzzleDefinition definition = start.getDefinition();
+        StateRanker ranker = new StateRanker(definition);
+        long startTime = System.nanoTime();
+        BitboardKnightSwapState state = new BitboardKnightSwapState(definition);
+        int[] moves = new int[definition.getMaxLegalMoves()];
+
+        long startKey = ranker.rank(start);
+        LongHashSet visited = LongHashSet.forSearch();
+        visited.add(startKey);
+        long[] vertices = new long[16];
+        vertices[0] = startKey;
+        int vertexCount = 1;
+        long edgeCount = 0;
+        for (int head = 0; head < vertexCount; head++) {
+            long key = vertices[head];
+            state.setPosition(ranker.lightMaskOf(key), ranker.darkMaskOf(key), ranker.playerOf(key));
+            int count = state.fillLegalMoves(moves);
+            edgeCount += count;
+            for (int i = 0; i < count; i++) {
+                state.makeMove(moves[i]);
+                long child = ranker.rank(state);
+                state.unmakeMove();
+                if (visited.add(child)) {
+                    if (vertexCount == vertices.length) {
+                        if (vertexCount > Integer.MAX_VALUE / 2 / Long.BYTES) {
+                            throw new IllegalArgumentException("Too many reachable states for a state graph.");
+                        }
+                        vertices = Arrays.copyOf(vertices, vertexCount * 2);
+                    }
+                    vertices[vertexCount++] = child;
+                }
+            }
+        }
+        if (edgeCount > Integer.MAX_VALUE / Integer.BYTES) {
+            throw new IllegalArgumentException("Too many moves for a state graph: " + edgeCount);
+        }
+        long[] sortedKeys = Arrays.copyOf(vertices, vertexCount);
+        Arrays.sort(sortedKeys);
+
+        int[] offsets = new int[vertexCount + 1];
+        int[] targets = new int[(int) edgeCount];
+        short[] moveCodes = new short[(int) edgeCount];
+        int edge = 0;
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            offsets[vertex] = edge;
+            long key = sortedKeys[vertex];
+            state.setPosition(ranker.lightMaskOf(key), ranker.darkMaskOf(key), ranker.playerOf(key));
+            int count = state.fillLegalMoves(moves);
+            for (int i = 0; i < count; i++) {
+                state.makeMove(moves[i]);
+                targets[edge] = Arrays.binarySearch(sortedKeys, ranker.rank(state));
+                state.unmakeMove();
+                moveCodes[edge++] = (short) moves[i];
+            }
+        }
+        offsets[vertexCount] = edge;
+        Logger.info("State graph of {} vertices and {} edges built in {} ms.",
+                vertexCount, edge, (System.nanoTime() - startTime) / 1_000_000);
+        return new StateGraph(definition, ranker, startKey, LongBuffer.wrap(sortedKeys), IntBuffer.wrap(offsets),
+                IntBuffer.wrap(targets), ShortBuffer.wrap(moveCodes));
+    }
+
+    /**
+     * Opens a graph file by memory-mapping its arrays.
+     *
+     * @param file The {@link Path} of the graph file.
+     * @param definition The {@link PuzzleDefinition} the graph must belong to.
+     * @return The mapped {@code StateGraph}.
+     * @throws IOException If the file cannot be read, is not a state graph, or belongs to another board or goal layout.
+     */
+    public static StateGraph open(Path file, PuzzleDefinition definition) throws IOException {
+        StateRanker ranker = new StateRanker(definition);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("Not a state graph file: " + file);
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Not a state graph file: " + file);
+            }
+            if (header.getInt() != definition.getRows() || header.getInt() != definition.getCols()
+                    || header.getLong() != definition.getGoalLightMask() || header.getLong() != definition.getGoalDarkMask()) {
+                throw new IOException("The state graph file " + file + " belongs to another puzzle variant.");
+            }
+            long startKey = header.getLong();
+            int vertexCount = header.getInt();
+            int edgeCount = header.getInt();
+            long keysSize = (long) vertexCount * Long.BYTES;
+            long offsetsSize = (vertexCount + 1L) * Integer.BYTES;
+            long targetsSize = (long) edgeCount * Integer.BYTES;
+            long movesSize = (long) edgeCount * Short.BYTES;
+            if (vertexCount < 0 || edgeCount < 0 || startKey < 0 || startKey >= ranker.getStateCount()
+                    || channel.size() != HEADER_SIZE + keysSize + offsetsSize + targetsSize + movesSize) {
+                throw new IOException("Unexpected state graph file size: " + channel.size());
+            }
+            long position = HEADER_SIZE;
+            LongBuffer keys = channel.map(FileChannel.MapMode.READ_ONLY, position, keysSize).asLongBuffer();
+            position += keysSize;
+            IntBuffer offsets = channel.map(FileChannel.MapMode.READ_ONLY, position, offsetsSize).asIntBuffer();
+            position += offsetsSize;
+            IntBuffer targets = channel.map(FileChannel.MapMode.READ_ONLY, position, targetsSize).asIntBuffer();
+            position += targetsSize;
+            ShortBuffer moveCodes = channel.map(FileChannel.MapMode.READ_ONLY, position, movesSize).asShortBuffer();
+            Logger.info("State graph file {} mapped ({} vertices, {} edges).", file, vertexCount, edgeCount);
+            return new StateGraph(definition, ranker, startKey, keys, offsets, targets, moveCodes);
+        }
+    }
+
+    /**
+     * Opens a graph file, or enumerates the graph from the variant's start position and saves it to that file first
+     * if it does not exist.
+     *
+     * @param file The {@link Path} of the graph file.
+     * @param definition The {@link PuzzleDefinition} the graph belongs to.
+     * @return The mapped {@code StateGraph}.
+     * @throws IOException If the file cannot be written or read.
+     */
+    public static StateGraph openOrBuild(Path file, PuzzleDefinition definition) throws IOException {
+        if (Files.notExists(file)) {
+            Logger.info("State graph file {} not found, enumerating the reachable positions.", file);
+            build(definition).save(file);
+        }
+        return open(file, definition);
+    }
+
+    /**
+     * Saves this graph to a file. The file is written next to its final location and then moved into place,
+     * so readers never see a partially written graph.
+     *
+     * @param file The {@link Path} of the graph file.
+     * @throws IOException If the file cannot be written.
+     */
+    public void save(Path file) throws IOException {
+        Path absolute = file.toAbsolutePath();
+        Path temporary = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(definition.getRows()).putInt(definition.getCols())
+                    .putLong(definition.getGoalLightMask()).putLong(definition.getGoalDarkMask()).putLong(startKey)
+                    .putInt(getVertexCount()).putInt(getEdgeCount());
+            for (int i = 0; i < keys.limit(); i++) {
+                flushIfFull(channel, buffer, Long.BYTES).putLong(keys.get(i));
+            }
+            for (int i = 0; i < offsets.limit(); i++) {
+                flushIfFull(channel, buffer, Integer.BYTES).putInt(offsets.get(i));
+            }
+            for (int i = 0; i < targets.limit(); i++) {
+                flushIfFull(channel, buffer, Integer.BYTES).putInt(targets.get(i));
+            }
+            for (int i = 0; i < moveCodes.limit(); i++) {
+                flushIfFull(channel, buffer, Short.BYTES).putShort(moveCodes.get(i));
+            }
+            flushIfFull(channel, buffer, buffer.capacity());
+        }
+        Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING);
+        Logger.info("State graph saved to {}.", file);
+    }
+
+    /**
+     * Writes out a buffer once it has too little room left for the next value.
+     *
+     * @param channel The {@link FileChannel} to write to.
+     * @param buffer The {@link ByteBuffer} being filled.
+     * @param needed The number of bytes of the next value.
+     * @return The buffer, ready for the next value.
+     * @throws IOException If the buffer cannot be written.
+     */
+    private static ByteBuffer flushIfFull(FileChannel channel, ByteBuffer buffer, int needed) throws IOException {
+        if (buffer.remaining() < needed) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+        return buffer;
+    }
+
+    /**
+     * Returns the puzzle variant whose positions are covered.
+     *
+     * @return The {@link PuzzleDefinition} of this graph.
+     */
+    public PuzzleDefinition getDefinition() {
+        return definition;
+    }
+
+    /**
+     * Returns the ranker mapping positions to the keys of the vertices.
+     *
+     * @return The {@link StateRanker} of this graph.
+     */
+    public StateRanker getRanker() {
+        return ranker;
+    }
+
+    /**
+     * Returns the number of vertices, the positions reachable from the start.
+     *
+     * @return The {@code int} number of vertices.
+     */
+    public int getVertexCount() {
+        return keys.limit();
+    }
+
+    /**
+     * Returns the number of edges, the legal moves of all vertices.
+     *
+     * @return The {@code int} number of edges.
+     */
+    public int getEdgeCount() {
+        return targets.limit();
+    }
+
+    /**
+     * Returns the vertex of the start position the graph was built from.
+     *
+     * @return The {@code int} start vertex.
+     */
+    public int getStartVertex() {
+        return vertexOf(startKey);
+    }
+
+    /**
+     * Returns the vertex of a position.
+     *
+     * @param key The {@link StateRanker} index of the position.
+     * @return The {@code int} vertex, or {@link #NO_VERTEX} if the position is not reachable from the start.
+     */
+    public int vertexOf(long key) {
+        int low = 0;
+        int high = keys.limit() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleKey = keys.get(middle);
+            if (middleKey < key) {
+                low = middle + 1;
+            } else if (middleKey > key) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return NO_VERTEX;
+    }
+
+    /**
+     * Returns the vertex of the position held by a board.
+     *
+     * @param board The {@link KnightSwapBoard} of this graph's puzzle variant.
+     * @return The {@code int} vertex, or {@link #NO_VERTEX} if the position is not reachable from the start.
+     */
+    public int vertexOf(KnightSwapBoard board) {
+        return vertexOf(ranker.rank(board));
+    }
+
+    /**
+     * Returns the position of a vertex.
+     *
+     * @param vertex The vertex.
+     * @return The {@code long} {@link StateRanker} index of the position.
+     */
+    public long getKey(int vertex) {
+        return keys.get(vertex);
+    }
+
+    /**
+     * Returns the first edge of a vertex; its edges run up to the first edge of the next vertex.
+     *
+     * @param vertex The vertex, or the vertex count for the end of the last vertex's edges.
+     * @return The {@code int} index of the first edge.
+     */
+    public int getFirstEdge(int vertex) {
+        return offsets.get(vertex);
+    }
+
+    /**
+     * Returns the number of legal moves of a vertex.
+     *
+     * @param vertex The vertex.
+     * @return The {@code int} out-degree.
+     */
+    public int getDegree(int vertex) {
+        return offsets.get(vertex + 1) - offsets.get(vertex);
+    }
+
+    /**
+     * Returns the vertex an edge leads to.
+     *
+     * @param edge The index of the edge.
+     * @return The {@code int} target vertex.
+     */
+    public int getTarget(int edge) {
+        return targets.get(edge);
+    }
+
+    /**
+     * Returns the move of an edge.
+     *
+     * @param edge The index of the edge.
+     * @return The packed move (see {@link MoveCodec}).
+     */
+    public int getMoveCode(int edge) {
+        return moveCodes.get(edge);
+    }
+
+    /**
+     * Tells whether a vertex holds the goal layout.
+     *
+     * @param vertex The vertex.
+     * @return {@code true} if the position of the vertex is solved.
+     */
+    public boolean isGoal(int vertex) {
+        long key = keys.get(vertex);
+        return definition.isGoal(ranker.lightMaskOf(key), ranker.darkMaskOf(key));
+    }
+
+    /**
+     * Computes the number of moves from a vertex to every vertex by a breadth-first scan of the edge arrays.
+     *
+     * @param source The vertex to start from.
+     * @return A new {@code int} array holding the distance of every vertex, or {@link #UNREACHABLE}.
+     */
+    public int[] distancesFrom(int source) {
+        int[] distances = new int[getVertexCount()];
+        Arrays.fill(distances, UNREACHABLE);
+        int[] queue = new int[getVertexCount()];
+        int tail = 0;
+        distances[source] = 0;
+        queue[tail++] = source;
+        for (int head = 0; head < tail; head++) {
+            int vertex = queue[head];
+            for (int edge = offsets.get(vertex); edge < offsets.get(vertex + 1); edge++) {
+                int target = targets.get(edge);
+                if (distances[target] == UNREACHABLE) {
+                    distances[target] = distances[vertex] + 1;
+                    queue[tail++] = target;
+                }
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * Tells whether a vertex can be reached from another.
+     *
+     * @param from The vertex to start from.
+     * @param to The vertex to reach.
+     * @return {@code true} if some sequence of moves leads from {@code from} to {@code to}.
+     */
+    public boolean isReachable(int from, int to) {
+        return shortestPath(from, to).isPresent();
+    }
+
+    /**
+     * Finds a shortest sequence of moves between two vertices, by a breadth-first scan that stops at the target.
+     *
+     * @param from The vertex to start from.
+     * @param to The vertex to reach.
+     * @return An {@link Optional} holding the packed moves in playing order, or an empty {@link Optional}
+     * if {@code to} cannot be reached from {@code from}.
+     */
+    public Optional<int[]> shortestPath(int from, int to) {
+        int[] parentEdges = new int[getVertexCount()];
+        Arrays.fill(parentEdges, -1);
+        int[] queue = new int[getVertexCount()];
+        int tail = 0;
+        queue[tail++] = from;
+        boolean found = from == to;
+        for (int head = 0; head < tail && !found; head++) {
+            int vertex = queue[head];
+            for (int edge = offsets.get(vertex); edge < offsets.get(vertex + 1); edge++) {
+                int target = targets.get(edge);
+                if (target != from && parentEdges[target] < 0) {
+                    parentEdges[target] = edge;
+                    queue[tail++] = target;
+                    if (target == to) {
+                        found = true;
+                        break;
+                    }
+                }
+            }
+        }
+        if (!found) {
+            return Optional.empty();
+        }
+        int length = 0;
+        for (int vertex = to; vertex != from; vertex = sourceOf(parentEdges[vertex])) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int vertex = to; vertex != from; vertex = sourceOf(parentEdges[vertex])) {
+            path[--length] = moveCodes.get(parentEdges[vertex]);
+        }
+        return Optional.of(path);
+    }
+
+    /**
+     * Finds a shortest sequence of moves from a vertex to the goal layout.
+     *
+     * @param from The vertex to start from.
+     * @return An {@link Optional} holding the packed moves in playing order, or an empty {@link Optional}
+     * if no goal vertex can be reached.
+     */
+    public Optional<int[]> shortestPathToGoal(int from) {
+        int[] distances = distancesFrom(from);
+        int best = NO_VERTEX;
+        for (int vertex = 0; vertex < distances.length; vertex++) {
+            if (distances[vertex] != UNREACHABLE && isGoal(vertex) && (best == NO_VERTEX || distances[vertex] < distances[best])) {
+                best = vertex;
+            }
+        }
+        return best == NO_VERTEX ? Optional.empty() : shortestPath(from, best);
+    }
+
+    /**
+     * Returns the vertex an edge leaves, by binary search in the offsets.
+     *
+     * @param edge The index of the edge.
+     * @return The {@code int} source vertex.
+     */
+    private int sourceOf(int edge) {
+        int low = 0;
+        int high = getVertexCount() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (offsets.get(middle) <= edge) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Labels the strongly connected components of the graph, the largest sets of positions that can all be reached
+     * from one another, with an iterative version of Tarjan's algorithm.
+     *
+     * @return A new {@code int} array holding the component number of every vertex, from 0 to the number of components - 1.
+     */
+    public int[] stronglyConnectedComponents() {
+        int vertexCount = getVertexCount();
+        int[] components = new int[vertexCount];
+        int[] order = new int[vertexCount];
+        int[] lowLinks = new int[vertexCount];
+        int[] nextEdges = new int[vertexCount];
+        int[] callStack = new int[vertexCount];
+        int[] componentStack = new int[vertexCount];
+        boolean[] onStack = new boolean[vertexCount];
+        Arrays.fill(order, -1);
+        int counter = 0;
+        int componentCount = 0;
+        int componentTop = 0;
+        for (int root = 0; root < vertexCount; root++) {
+            if (order[root] >= 0) {
+                continue;
+            }
+            int callTop = 0;
+            callStack[callTop++] = root;
+            order[root] = lowLinks[root] = counter++;
+            nextEdges[root] = offsets.get(root);
+            componentStack[componentTop++] = root;
+            onStack[root] = true;
+            while (callTop > 0) {
+                int vertex = callStack[callTop - 1];
+                if (nextEdges[vertex] < offsets.get(vertex + 1)) {
+                    int target = targets.get(nextEdges[vertex]++);
+                    if (order[target] < 0) {
+                        order[target] = lowLinks[target] = counter++;
+                        nextEdges[target] = offsets.get(target);
+                        componentStack[componentTop++] = target;
+                        onStack[target] = true;
+                        callStack[callTop++] = target;
+                    } else if (onStack[target]) {
+                        lowLinks[vertex] = Math.min(lowLinks[vertex], order[target]);
+                    }
+                    continue;
+                }
+                callTop--;
+                if (callTop > 0) {
+                    int parent = callStack[callTop - 1];
+                    lowLinks[parent] = Math.min(lowLinks[parent], lowLinks[vertex]);
+                }
+                if (lowLinks[vertex] == order[vertex]) {
+                    int member;
+                    do {
+                        member = componentStack[--componentTop];
+                        onStack[member] = false;
+                        components[member] = componentCount;
+                    } while (member != vertex);
+                    componentCount++;
+                }
+            }
+        }
+        return components;
+    }
+
+    /**
+     * Returns the sizes of the strongly connected components.
+     *
+     * @return A new {@code int} array of component sizes in descending order.
+     */
+    public int[] componentSizes() {
+        int[] components = stronglyConnectedComponents();
+        int[] sizes = new int[Arrays.stream(components).max().orElse(-1) + 1];
+        for (int component : components) {
+            sizes[component]++;
+        }
+        Arrays.sort(sizes);
+        for (int i = 0, j = sizes.length - 1; i < j; i++, j--) {
+            int swap = sizes[i];
+            sizes[i] = sizes[j];
+            sizes[j] = swap;
+        }
+        return sizes;
+    }
+}
@@ -0,0 +1,105 @@
+package knightswap.graph;
+
+import knightswap.engine.MoveCodec;
+import knightswap.engine.PositionNotation;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+/**
+ * Writes a {@link StateGraph} as text for offline analysis, one line per vertex or edge.
+ * The lines are written to the {@link Writer} as the edge arrays are scanned, so no copy of the graph is built
+ * in memory, whatever its size.
+ */
+public final class StateGraphExporter {
+    /**
+     * The text formats a graph can be written in.
+     */
+    public enum Format {
+        /**
+         * A GraphViz {@code digraph}, with every vertex labelled by its {@link PositionNotation},
+         * the start vertex in bold and the goal vertices drawn as double circles.
+         */
+        DOT,
+        /**
+         * One {@code source target move} line per edge, the move written by {@link MoveCodec#toString(int)}.
+         */
+        EDGES;
+
+        /**
+         * Parses a format name case-insensitively.
+         *
+         * @param name The {@link String} name of the format (e.g. {@code "dot"}).
+         * @return The matching {@code Format}.
+         * @throws IllegalArgumentException If no format has the given name.
+         */
+        public static Format fromName(String name) {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * Utility class, not meant to be instantiated.
+     */
+    private StateGraphExporter() {
+    }
+
+    /**
+     * Writes a graph in the given format. The writer is neither flushed nor closed.
+     *
+     * @param graph The {@link StateGraph} to write.
+     * @param format The {@link Format} of the text.
+     * @param out The {@link Writer} receiving the text.
+     * @throws IOException If the text cannot be written.
+     */
+    public static void write(StateGraph graph, Format format, Writer out) throws IOException {
+        switch (format) {
+            case DOT -> writeDot(graph, out);
+            case EDGES -> writeEdges(graph, out);
+        }
+    }
+
+    /**
+     * Writes a graph as a GraphViz {@code digraph}.
+     *
+     * @param graph The {@link StateGraph} to write.
+     * @param out The {@link Writer} receiving the text.
+     * @throws IOException If the text cannot be written.
+     */
+    private static void writeDot(StateGraph graph, Writer out) throws IOException {
+        out.write("digraph knightswap {\n");
+        int start = graph.getStartVertex();
+        for (int vertex = 0; vertex < graph.getVertexCount(); vertex++) {
+            out.write("  " + vertex + " [label=\"" + PositionNotation.format(graph.getRanker().unrank(graph.getKey(vertex))) + "\"");
+            if (vertex == start) {
+                out.write(", style=bold");
+            }
+            if (graph.isGoal(vertex)) {
+                out.write(", shape=doublecircle");
+            }
+            out.write("];\n");
+        }
+        for (int vertex = 0; vertex < graph.getVertexCount(); vertex++) {
+            for (int edge = graph.getFirstEdge(vertex); edge < graph.getFirstEdge(vertex + 1); edge++) {
+                out.write("  " + vertex + " -> " + graph.getTarget(edge) + " [label=\"" + MoveCodec.toString(graph.getMoveCode(edge)) + "\"];\n");
+            }
+        }
+        out.write("}\n");
+    }
+
+    /**
+     * Writes a graph as an edge list.
+     *
+     * @param graph The {@link StateGraph} to write.
+     * @param out The {@link Writer} receiving the text.
+     * @throws IOException If the text cannot be written.
+     */
+    private static void writeEdges(StateGraph graph, Writer out) throws IOException {
+        for (int vertex = 0; vertex < graph.getVertexCount(); vertex++) {
+            for (int edge = graph.getFirstEdge(vertex); edge < graph.getFirstEdge(vertex + 1); edge++) {
+                out.write(vertex + " " + graph.getTarget(edge) + " " + MoveCodec.toString(graph.getMoveCode(edge)) + "\n");
+            }
+        }
+    }
+}
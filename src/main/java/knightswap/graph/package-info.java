@@ -0,0 +1,7 @@
+/**
+ * Provides the precomputed state graph of a Knight Swap puzzle variant.
+ * The {@link knightswap.graph.StateGraph} enumerates every position reachable from a start position once and stores
+ * the legal moves in compressed sparse row arrays, which can be saved, memory-mapped and queried without generating
+ * moves. The {@link knightswap.graph.StateGraphExporter} streams a graph as GraphViz or as an edge list.
+ */
+package knightswap.graph;
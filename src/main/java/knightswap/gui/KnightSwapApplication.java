@@ -3,14 +3,24 @@ package knightswap.gui;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.stage.Stage;
+import knightswap.data.HelpSolutionManager;
 import knightswap.data.ScoreboardManager;
+import knightswap.engine.PuzzleDefinition;
+import knightswap.engine.StateRanker;
 import knightswap.gui.controllers.HelpController;
 import knightswap.gui.controllers.KnightSwapController;
 import knightswap.gui.controllers.LeaderboardController;
+import knightswap.solver.RouteFinder;
+import knightswap.tablebase.DeadPositionIndex;
+import knightswap.tablebase.Tablebase;
 import knightswap.utils.GuiUtils;
 import org.tinylog.Logger;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * The main application class for the Knight Swap GUI game.
@@ -19,8 +29,36 @@ import java.io.IOException;
  */
 public class KnightSwapApplication extends Application {
     private static ScoreboardManager scoreboardManager;
+    private static HelpSolutionManager helpSolutionManager;
+    private static PuzzleDefinition puzzleDefinition;
+    private static CompletableFuture<PositionTables> positionTables;
+    private static RouteFinder routeFinder;
     private static Stage primaryStage;
 
+    /**
+     * The largest number of states of a variant whose tablebase is built in memory when no file is given.
+     */
+    private static final long IN_MEMORY_TABLEBASE_LIMIT = 1L << 24;
+
+    /**
+     * Runs the preparation of the position tables on a daemon thread of its own, so it never blocks the FX thread
+     * nor prevents the application from exiting.
+     */
+    private static final Executor BACKGROUND = task -> {
+        Thread thread = new Thread(task, "position-tables");
+        thread.setDaemon(true);
+        thread.start();
+    };
+
+    /**
+     * The tables answering questions about the positions of the variant being played, published together once ready.
+     *
+     * @param tablebase The {@link Tablebase} of the variant, if one is available.
+     * @param deadPositions The {@link DeadPositionIndex} derived from the tablebase, available exactly when it is.
+     */
+    public record PositionTables(Optional<Tablebase> tablebase, Optional<DeadPositionIndex> deadPositions) {
+    }
+
     /**
      * Constructs a new {@code KnightSwapApplication}.
      * This constructor is automatically invoked by the JavaFX runtime.
@@ -41,9 +79,105 @@ public class KnightSwapApplication extends Application {
         return scoreboardManager;
     }
 
+    /**
+     * Retrieves the {@link HelpSolutionManager} providing the solution shown on the help screen.
+     * The manager is initialized upon its first request for the variant of {@link #getPuzzleDefinition()}.
+     *
+     * @return The single instance of {@link HelpSolutionManager}.
+     */
+    public static synchronized HelpSolutionManager getHelpSolutionManager() {
+        if (helpSolutionManager == null) {
+            helpSolutionManager = new HelpSolutionManager(HelpSolutionManager.DEFAULT_FILE_PATH, getPuzzleDefinition());
+            Logger.info("HelpSolutionManager initialized.");
+        }
+        return helpSolutionManager;
+    }
+
+    /**
+     * Retrieves the {@link PuzzleDefinition} of the puzzle variant being played.
+     * The definition is loaded upon its first request from the JSON spec file named by the
+     * {@code knightswap.puzzle} system property; if the property is not set or the spec cannot be loaded,
+     * the classic 4x3 puzzle is used.
+     *
+     * @return The {@link PuzzleDefinition} used by the game screens.
+     */
+    public static synchronized PuzzleDefinition getPuzzleDefinition() {
+        if (puzzleDefinition == null) {
+            String specFile = System.getProperty("knightswap.puzzle");
+            puzzleDefinition = PuzzleDefinition.classic();
+            if (specFile != null) {
+                try {
+                    puzzleDefinition = PuzzleDefinition.load(Path.of(specFile));
+                } catch (IOException | IllegalArgumentException e) {
+                    Logger.error("Failed to load puzzle spec '{}', falling back to the classic puzzle: {}", specFile, e.getMessage(), e);
+                }
+            }
+            Logger.info("Puzzle definition initialized: {}.", puzzleDefinition);
+        }
+        return puzzleDefinition;
+    }
+
+    /**
+     * Retrieves the {@link PositionTables} of the puzzle variant being played, starting to prepare them in the
+     * background on the first call.
+     * If the {@code knightswap.tablebase} system property names a file, the {@link Tablebase} is memory-mapped from
+     * that file (which is built first if it does not exist); otherwise it is built in memory when the variant has at
+     * most {@value #IN_MEMORY_TABLEBASE_LIMIT} states. The {@link DeadPositionIndex} is then derived from it by the
+     * same task, so both are published together.
+     *
+     * @return A {@link CompletableFuture} completed with the {@link PositionTables}, whose members are empty
+     * if no tablebase is available.
+     */
+    public static synchronized CompletableFuture<PositionTables> getPositionTables() {
+        if (positionTables == null) {
+            positionTables = CompletableFuture.supplyAsync(KnightSwapApplication::preparePositionTables, BACKGROUND);
+        }
+        return positionTables;
+    }
+
+    /**
+     * Opens or builds the tablebase of the variant being played, and derives its dead-position index.
+     *
+     * @return The {@link PositionTables}, empty if the variant is too large or the tablebase cannot be prepared.
+     */
+    private static PositionTables preparePositionTables() {
+        PuzzleDefinition definition = getPuzzleDefinition();
+        String tablebaseFile = System.getProperty("knightswap.tablebase");
+        Optional<Tablebase> tablebase = Optional.empty();
+        try {
+            if (tablebaseFile != null) {
+                tablebase = Optional.of(Tablebase.openOrBuild(Path.of(tablebaseFile), definition));
+            } else if (new StateRanker(definition).getStateCount() <= IN_MEMORY_TABLEBASE_LIMIT) {
+                tablebase = Optional.of(Tablebase.build(definition));
+            } else {
+                Logger.info("Puzzle variant too large for an in-memory tablebase, distances will not be shown.");
+            }
+        } catch (IOException | IllegalArgumentException | IllegalStateException e) {
+            Logger.error("Failed to prepare the tablebase, distances will not be shown: {}", e.getMessage(), e);
+        }
+        Optional<DeadPositionIndex> deadPositions = tablebase.map(DeadPositionIndex::fromTablebase);
+        deadPositions.ifPresent(index -> Logger.info("Dead-position index ready: {} dead positions.", index.getDeadCount()));
+        return new PositionTables(tablebase, deadPositions);
+    }
+
+    /**
+     * Retrieves the {@link RouteFinder} searching routes between positions of the game, such as back to a checkpoint.
+     * The finder is initialized upon its first request, and its route cache is shared by all later requests.
+     *
+     * @return The single instance of {@link RouteFinder}.
+     */
+    public static synchronized RouteFinder getRouteFinder() {
+        if (routeFinder == null) {
+            routeFinder = new RouteFinder();
+            Logger.info("RouteFinder initialized.");
+        }
+        return routeFinder;
+    }
+
     /**
      * The entry point for the JavaFX application.
-     * Sets up the primary stage and displays the initial welcome screen.
+     * Sets up the primary stage, starts preparing the help screen's solution and the position tables in the background,
+     * and displays the initial welcome screen.
      *
      * @param stage The primary {@link Stage} for this application.
      * @throws Exception If an error occurs during the application start.
@@ -53,6 +187,8 @@ public class KnightSwapApplication extends Application {
         primaryStage = stage;
         Logger.debug("Application starting. Primary stage initialized.");
         GuiUtils.setStageIcon(primaryStage, getClass());
+        getHelpSolutionManager().getSolution();
+        getPositionTables();
         showWelcomeScreen();
     }
 
@@ -1,11 +1,14 @@
 package knightswap.gui.controllers;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.TextArea;
 import javafx.fxml.Initializable;
 import javafx.stage.Stage;
 import javafx.scene.Node;
 import javafx.event.ActionEvent;
+import knightswap.data.HelpSolutionManager;
+import knightswap.gui.KnightSwapApplication;
 import knightswap.utils.GuiUtils;
 import org.tinylog.Logger;
 
@@ -13,7 +16,7 @@ import java.net.URL;
 import java.util.ResourceBundle;
 
 /**
- * Controller class for the Help screen, displaying game solution steps.
+ * Controller class for the Help screen, displaying the solution steps computed by the {@link HelpSolutionManager}.
  * Manages the help window's lifecycle, including its display and closure,
  * and ensures proper return to the main game screen.
  */
@@ -43,7 +46,8 @@ public class HelpController implements Initializable {
     }
 
     /**
-     * Initializes the controller and populates the text area with predefined solution steps.
+     * Initializes the controller and populates the text area with the solution steps of the variant being played.
+     * If the solution is still being computed, a placeholder is shown until it is ready.
      * This method is automatically called by the FXML loader after all {@code @FXML} fields are injected.
      *
      * @param url The location used to resolve relative paths for the root object.
@@ -52,34 +56,20 @@ public class HelpController implements Initializable {
     @Override
     public void initialize(URL url, ResourceBundle rb) {
         Logger.info("Help screen controller initializing.");
-        String solution = """
-            (fromX, fromY) -> (toX, toY)
-            (3, 0) -> (1, 1)
-            (0, 1) -> (2, 2)
-            (3, 2) -> (2, 0)
-            (0, 0) -> (2, 1)
-            (3, 1) -> (1, 2)
-            (0, 2) -> (1, 0)
-            (1, 1) -> (3, 2)
-            (2, 1) -> (0, 2)
-            (1, 2) -> (0, 0)
-            (2, 2) -> (3, 0)
-            (2, 0) -> (1, 2)
-            (1, 0) -> (2, 2)
-            (3, 2) -> (2, 0)
-            (0, 2) -> (1, 0)
-            (0, 0) -> (2, 1)
-            (3, 0) -> (1, 1)
-            (1, 2) -> (0, 0)
-            (1, 0) -> (3, 1)
-            (2, 1) -> (0, 2)
-            (2, 2) -> (3, 0)
-            (2, 0) -> (0, 1)
-            (1, 1) -> (3, 2)
-        """;
-
-        solutionStepsTextArea.setText(solution.stripIndent().indent(0));
-        Logger.debug("Solution steps loaded into text area.");
+        solutionStepsTextArea.setText("Computing the solution...");
+        KnightSwapApplication.getHelpSolutionManager().getSolution().whenComplete((solution, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                Logger.error("Failed to prepare the help solution: {}", error.getMessage(), error);
+                solutionStepsTextArea.setText("The solution could not be computed.");
+            } else if (solution.status() == HelpSolutionManager.Status.UNSOLVABLE) {
+                solutionStepsTextArea.setText("This puzzle has no solution.");
+            } else if (solution.status() == HelpSolutionManager.Status.NOT_AVAILABLE) {
+                solutionStepsTextArea.setText("The solution is not available: the search exceeded its limits.");
+            } else {
+                solutionStepsTextArea.setText(HelpSolutionManager.format(solution.moves()));
+                Logger.debug("Solution steps loaded into text area.");
+            }
+        }));
     }
 
     /**
@@ -1,5 +1,6 @@
 package knightswap.gui.controllers;
 
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.Node;
@@ -17,42 +18,76 @@ import knightswap.gui.KnightSwapApplication;
 import org.tinylog.Logger;
 
 import knightswap.KnightSwapState;
+import knightswap.engine.BitboardKnightSwapState;
+import knightswap.engine.EngineType;
+import knightswap.engine.KnightSwapBoard;
+import knightswap.engine.PuzzleDefinition;
+import knightswap.solver.SearchAbortedException;
+import knightswap.solver.SearchLimits;
+import knightswap.solver.SearchMonitor;
+import knightswap.solver.Solution;
+import knightswap.tablebase.DeadPositionIndex;
+import knightswap.tablebase.Tablebase;
 import knightswap.utils.PieceType;
 import knightswap.utils.Position;
 import puzzle.TwoPhaseMoveState;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 /**
  * Controller for the main KnightSwap game board graphical user interface.
  * Manages user input, updates the visual game state, and interacts with the game logic
- * provided by {@link KnightSwapState}.
+ * provided by {@link KnightSwapState} or, when the {@code knightswap.engine} system property
+ * is set to {@code bitboard}, by the bitboard engine.
  */
 public class KnightSwapController {
     @FXML private Label currentScoreLabel;
     @FXML private Label bestScoreLabel;
     @FXML private Label statusLabel;
+    @FXML private Label distanceLabel;
+    @FXML private Button hintButton;
+    @FXML private Button routeButton;
     @FXML private GridPane boardGrid;
 
-    private static final int BOARD_ROWS = 4;
-    private static final int BOARD_COLS = 3;
     private static final double BUTTON_SIZE = 110.0;
+    private static final double MAX_BOARD_EXTENT = 660.0;
+    private static final double PIECE_FONT_SIZE = 45.0;
+    private static final String ENGINE_PROPERTY = "knightswap.engine";
 
     private static final String DARK_SQUARE_STYLE = "-fx-background-color: #A0522D; -fx-background-radius: 0;";
     private static final String LIGHT_SQUARE_STYLE = "-fx-background-color: #FFF8DC; -fx-background-radius: 0;";
     private static final String HIGHLIGHT_STYLE = "-fx-background-color: #6B4226; -fx-background-radius: 0; -fx-border-color: yellow; -fx-border-width: 2;";
+    private static final String HINT_FROM_STYLE = "-fx-background-color: #6B8E23; -fx-background-radius: 0; -fx-border-color: #ADFF2F; -fx-border-width: 3;";
+    private static final String HINT_TO_STYLE = "-fx-background-color: #9ACD32; -fx-background-radius: 0; -fx-border-color: #ADFF2F; -fx-border-width: 3;";
+    private static final Executor ROUTE_SEARCH = task -> {
+        Thread thread = new Thread(task, "route-search");
+        thread.setDaemon(true);
+        thread.start();
+    };
+    private static final SearchLimits ROUTE_LIMITS = SearchLimits.unlimited().withTimeLimit(Duration.ofSeconds(30))
+            .withMemoryLimit(Runtime.getRuntime().maxMemory() / 2);
 
     private int movesMade;
     private String playerName;
+    private PuzzleDefinition puzzleDefinition;
+    private EngineType engine = EngineType.ARRAY;
     private Button[][] buttons;
     private Button firstClickButton = null;
     private Position firstClickPosition = null;
 
-    private KnightSwapState gameState;
+    private KnightSwapBoard gameState;
     private ScoreboardManager scoreboardManager;
+    private Optional<Tablebase> tablebase = Optional.empty();
+    private Optional<DeadPositionIndex> deadPositions = Optional.empty();
+    private KnightSwapBoard checkpoint;
+    private SearchMonitor routeSearch;
 
     private final Map<Button, String> originalStyles = new HashMap<>();
 
@@ -72,7 +107,31 @@ public class KnightSwapController {
     public void initialize() {
         Logger.info("KnightSwap GUI controller initializing.");
 
-        buttons = new Button[BOARD_ROWS][BOARD_COLS];
+        puzzleDefinition = KnightSwapApplication.getPuzzleDefinition();
+        String engineName = System.getProperty(ENGINE_PROPERTY, "array");
+        try {
+            engine = EngineType.fromName(engineName);
+        } catch (IllegalArgumentException e) {
+            Logger.error("Unknown game engine '{}' in -D{}, falling back to the array engine.", engineName, ENGINE_PROPERTY);
+        }
+        hintButton.setDisable(true);
+        KnightSwapApplication.getPositionTables().whenComplete((tables, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                Logger.error("Failed to prepare the position tables: {}", error.getMessage(), error);
+                return;
+            }
+            tablebase = tables.tablebase();
+            deadPositions = tables.deadPositions();
+            hintButton.setDisable(tablebase.isEmpty());
+            if (gameState != null) {
+                updateDistanceLabel();
+                if (!gameState.isSolved() && isLostPosition()) {
+                    warnLostPosition();
+                }
+            }
+        }));
+        routeButton.setDisable(true);
+        buttons = new Button[puzzleDefinition.getRows()][puzzleDefinition.getCols()];
         setupGridPane();
     }
 
@@ -100,6 +159,7 @@ public class KnightSwapController {
     /**
      * Dynamically sets up the GridPane with buttons for the chessboard.
      * Creates ColumnConstraints and RowConstraints and adds buttons to the grid.
+     * The squares shrink on larger boards so that the whole board stays within {@link #MAX_BOARD_EXTENT} pixels.
      */
     private void setupGridPane() {
         boardGrid.getChildren().clear();
@@ -107,27 +167,31 @@ public class KnightSwapController {
         boardGrid.getRowConstraints().clear();
         Logger.debug("Clearing existing GridPane children and constraints for dynamic setup.");
 
-        for (int row = 0; row < BOARD_ROWS; row++) {
+        int boardRows = puzzleDefinition.getRows();
+        int boardCols = puzzleDefinition.getCols();
+        double buttonSize = Math.min(BUTTON_SIZE, MAX_BOARD_EXTENT / Math.max(boardRows, boardCols));
+
+        for (int row = 0; row < boardRows; row++) {
             RowConstraints rowConst = new RowConstraints();
-            rowConst.setPrefHeight(BUTTON_SIZE);
+            rowConst.setPrefHeight(buttonSize);
             rowConst.setVgrow(Priority.ALWAYS);
             boardGrid.getRowConstraints().add(rowConst);
         }
-        Logger.debug("Row constraints for {} rows set.", BOARD_ROWS);
+        Logger.debug("Row constraints for {} rows set.", boardRows);
 
-        for (int col = 0; col < BOARD_COLS; col++) {
+        for (int col = 0; col < boardCols; col++) {
             ColumnConstraints colConst = new ColumnConstraints();
-            colConst.setPrefWidth(BUTTON_SIZE);
+            colConst.setPrefWidth(buttonSize);
             colConst.setHgrow(Priority.ALWAYS);
             boardGrid.getColumnConstraints().add(colConst);
         }
-        Logger.debug("Column constraints for {} columns set.", BOARD_COLS);
+        Logger.debug("Column constraints for {} columns set.", boardCols);
 
-        for (int row = 0; row < BOARD_ROWS; row++) {
-            for (int col = 0; col < BOARD_COLS; col++) {
+        for (int row = 0; row < boardRows; row++) {
+            for (int col = 0; col < boardCols; col++) {
                 Button btn = new Button();
-                btn.setPrefSize(BUTTON_SIZE, BUTTON_SIZE);
-                btn.setFont(Font.font("Segoe UI Symbol", 45));
+                btn.setPrefSize(buttonSize, buttonSize);
+                btn.setFont(Font.font("Segoe UI Symbol", PIECE_FONT_SIZE * buttonSize / BUTTON_SIZE));
                 btn.setOnAction(this::handleButtonClick);
                 btn.setFocusTraversable(false);
 
@@ -140,7 +204,7 @@ public class KnightSwapController {
                 boardGrid.getChildren().add(btn);
             }
         }
-        Logger.info("Dynamically added {} buttons to the GridPane.", BOARD_ROWS * BOARD_COLS);
+        Logger.info("Dynamically added {} buttons to the GridPane.", boardRows * boardCols);
     }
 
     /**
@@ -210,6 +274,7 @@ public class KnightSwapController {
 
             Logger.debug("Attempting to move from {} to {}. Move: {}", firstClickPosition, clickedPosition, currentMove);
             if (gameState.isLegalMove(currentMove)) {
+                cancelRouteSearch();
                 gameState.makeMove(currentMove);
                 movesMade++;
                 Logger.info("Successful move from {} to {}. Moves made: {}. Next player: {}.", firstClickPosition, clickedPosition, movesMade, gameState.getCurrentPlayer());
@@ -297,13 +362,130 @@ public class KnightSwapController {
         Logger.info("Game board reset successful. Moves reset to 0. Game ready for player: {}.", playerName);
     }
 
+    /**
+     * Suggests an optimal next move from the current position.
+     * The move is looked up in the {@link Tablebase}, so the answer is immediate and no search runs on the FX thread.
+     * The squares of the suggested move are highlighted until the board is next redrawn.
+     * This method is called when the "Hint" button is clicked.
+     */
+    @FXML
+    private void handleHintButton() {
+        if (tablebase.isEmpty() || gameState.isSolved()) {
+            return;
+        }
+        Optional<TwoPhaseMoveState.TwoPhaseMove<Position>> hint = tablebase.get().hint(gameState);
+        resetSelection();
+        updateBoard();
+        if (hint.isEmpty()) {
+            statusLabel.setText("No winning move from here. Reset the board.");
+            Logger.info("Hint requested from an unsolvable position.");
+            return;
+        }
+        Position from = hint.get().from();
+        Position to = hint.get().to();
+        buttons[from.row()][from.col()].setStyle(HINT_FROM_STYLE);
+        buttons[to.row()][to.col()].setStyle(HINT_TO_STYLE);
+        statusLabel.setText("Hint: (" + from.row() + ", " + from.col() + ") -> (" + to.row() + ", " + to.col() + ")");
+        Logger.info("Hint given: {} -> {}.", from, to);
+    }
+
+    /**
+     * Remembers the current position as the checkpoint the "Route" button leads back to.
+     * The checkpoint is kept when the board is reset, so it can also be reached again from the initial position.
+     * This method is called when the "Checkpoint" button is clicked.
+     */
+    @FXML
+    private void handleCheckpointButton() {
+        checkpoint = new BitboardKnightSwapState(puzzleDefinition, gameState);
+        routeButton.setDisable(false);
+        statusLabel.setText("Checkpoint set.");
+        Logger.info("Checkpoint set after {} moves.", movesMade);
+    }
+
+    /**
+     * Suggests the first move of a shortest route from the current position back to the checkpoint.
+     * The route is searched by the shared {@link knightswap.solver.RouteFinder} on a background thread, so the
+     * FX thread never waits. The search runs under time and memory limits and is cancelled when a move is made
+     * or the board is reset, and its answer is then dropped.
+     * The squares of the suggested move are highlighted like those of a hint.
+     * This method is called when the "Route" button is clicked.
+     */
+    @FXML
+    private void handleRouteButton() {
+        if (checkpoint == null) {
+            return;
+        }
+        KnightSwapBoard requestedState = gameState;
+        int requestedMoves = movesMade;
+        KnightSwapBoard from = new BitboardKnightSwapState(puzzleDefinition, gameState);
+        KnightSwapBoard to = checkpoint;
+        SearchMonitor monitor = new SearchMonitor(ROUTE_LIMITS);
+        routeSearch = monitor;
+        routeButton.setDisable(true);
+        statusLabel.setText("Searching for a route to the checkpoint...");
+        CompletableFuture.supplyAsync(() -> KnightSwapApplication.getRouteFinder().findRoute(from, to, monitor), ROUTE_SEARCH)
+                .whenComplete((route, error) -> Platform.runLater(() -> {
+                    if (routeSearch == monitor) {
+                        routeSearch = null;
+                    }
+                    routeButton.setDisable(false);
+                    if (gameState != requestedState || movesMade != requestedMoves) {
+                        Logger.debug("Route to the checkpoint dropped: the position changed during the search.");
+                        return;
+                    }
+                    Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                    if (cause instanceof SearchAbortedException aborted) {
+                        Logger.warn("Route search to the checkpoint stopped: {}.", aborted.getMessage());
+                        statusLabel.setText("The route search took too long and was stopped.");
+                    } else if (error != null) {
+                        Logger.error("Failed to find a route to the checkpoint: {}", error.getMessage(), error);
+                        statusLabel.setText("The route could not be computed.");
+                    } else if (route.isEmpty()) {
+                        statusLabel.setText("The checkpoint cannot be reached from here.");
+                        Logger.info("Route requested to an unreachable checkpoint.");
+                    } else if (route.get().length() == 0) {
+                        statusLabel.setText("You are at the checkpoint.");
+                    } else {
+                        showRouteStep(route.get());
+                    }
+                }));
+    }
+
+    /**
+     * Cancels the route search in progress, if any.
+     */
+    private void cancelRouteSearch() {
+        if (routeSearch != null) {
+            routeSearch.cancel();
+            routeSearch = null;
+            Logger.debug("Route search to the checkpoint cancelled.");
+        }
+    }
+
+    /**
+     * Highlights the first move of a route to the checkpoint and tells how many moves the route takes.
+     *
+     * @param route The {@link Solution} leading from the current position to the checkpoint.
+     */
+    private void showRouteStep(Solution route) {
+        Position from = route.moves().getFirst().from();
+        Position to = route.moves().getFirst().to();
+        resetSelection();
+        updateBoard();
+        buttons[from.row()][from.col()].setStyle(HINT_FROM_STYLE);
+        buttons[to.row()][to.col()].setStyle(HINT_TO_STYLE);
+        statusLabel.setText("Checkpoint in " + route.length() + ": (" + from.row() + ", " + from.col() + ") -> (" + to.row() + ", " + to.col() + ")");
+        Logger.info("Route step given: {} -> {}, {} moves from the checkpoint.", from, to, route.length());
+    }
+
     /**
      * Resets the game to its initial state, including move count, game board, and UI elements.
      * This method is called upon initialization (now `startGame()`) and when the reset button is clicked.
      */
     private void resetGame() {
+        cancelRouteSearch();
         movesMade = 0;
-        gameState = new KnightSwapState();
+        gameState = engine.newInitialState(puzzleDefinition);
         resetSelection();
 
         enableAllButtons();
@@ -318,8 +500,8 @@ public class KnightSwapController {
      */
     private void updateBoard() {
         Logger.debug("Updating chessboard visuals.");
-        for (int row = 0; row < BOARD_ROWS; row++) {
-            for (int col = 0; col < BOARD_COLS; col++) {
+        for (int row = 0; row < buttons.length; row++) {
+            for (int col = 0; col < buttons[row].length; col++) {
                 char pieceChar = gameState.getPieceAt(row, col);
                 String pieceSymbol;
 
@@ -343,9 +525,9 @@ public class KnightSwapController {
     }
 
     /**
-     * Updates the {@code currentScoreLabel}, {@code bestScoreLabel}, and {@code statusLabel}
+     * Updates the {@code currentScoreLabel}, {@code bestScoreLabel}, {@code statusLabel} and {@code distanceLabel}
      * with current game information.
-     * Displays the current player's turn, moves made, and the player's best score.
+     * Displays the current player's turn, moves made, the player's best score and the distance to the goal.
      */
     private void updateScoreAndStatusLabels() {
         Logger.debug("Updating score and status labels.");
@@ -353,6 +535,8 @@ public class KnightSwapController {
         if (gameState.isSolved()) {
             statusLabel.setText("Congratulations! Puzzle solved.");
             Logger.debug("Status label set to 'Puzzle solved'.");
+        } else if (isLostPosition()) {
+            warnLostPosition();
         } else {
             statusLabel.setText(String.format("%s to move.", gameState.getCurrentPlayer()));
             Logger.debug("Status label set to indicate current player: {}.", gameState.getCurrentPlayer());
@@ -361,6 +545,8 @@ public class KnightSwapController {
         currentScoreLabel.setText(String.valueOf(movesMade));
         Logger.debug("Current score label set to: {}.", movesMade);
 
+        updateDistanceLabel();
+
         if (scoreboardManager != null && playerName != null && !playerName.isEmpty()) {
             Optional<PlayerScore> bestScore = scoreboardManager.getPlayerScore(playerName);
             if (bestScore.isPresent()) {
@@ -376,13 +562,54 @@ public class KnightSwapController {
         }
     }
 
+    /**
+     * Checks whether the goal can no longer be reached from the current position,
+     * as read from the {@link DeadPositionIndex}. Without an index, no position is reported as lost.
+     *
+     * @return {@code true} if the current position is dead.
+     */
+    private boolean isLostPosition() {
+        return deadPositions.isPresent() && deadPositions.get().isDead(gameState);
+    }
+
+    /**
+     * Warns the player that the current position is lost, telling apart positions where the player to move
+     * has no legal move at all from those where moves remain but none of them leads to the goal.
+     */
+    private void warnLostPosition() {
+        if (gameState.getLegalMoves().isEmpty()) {
+            statusLabel.setText(String.format("%s cannot move. Lost position, reset the board.", gameState.getCurrentPlayer()));
+        } else {
+            statusLabel.setText("Lost position: the goal is out of reach. Reset the board.");
+        }
+        Logger.info("Player {} entered a lost position after {} moves.", playerName, movesMade);
+    }
+
+    /**
+     * Updates the {@code distanceLabel} with the number of moves still needed to reach the goal,
+     * as read from the {@link Tablebase}. The label stays empty if no tablebase is available.
+     */
+    private void updateDistanceLabel() {
+        if (tablebase.isEmpty()) {
+            distanceLabel.setText("");
+            return;
+        }
+        int distance = tablebase.get().distance(gameState);
+        if (distance == Tablebase.UNSOLVABLE) {
+            distanceLabel.setText("Unsolvable");
+        } else {
+            distanceLabel.setText("Moves to goal: " + distance);
+        }
+        Logger.debug("Distance label set for a position {} moves from the goal.", distance);
+    }
+
     /**
      * Disables all chessboard buttons, preventing further interaction.
      * This is typically used when the puzzle is solved.
      */
     private void disableAllButtons() {
-        for (int row = 0; row < BOARD_ROWS; row++) {
-            for (int col = 0; col < BOARD_COLS; col++) {
+        for (int row = 0; row < buttons.length; row++) {
+            for (int col = 0; col < buttons[row].length; col++) {
                 buttons[row][col].setDisable(true);
             }
         }
@@ -394,8 +621,8 @@ public class KnightSwapController {
      * This is typically used when resetting the puzzle.
      */
     private void enableAllButtons() {
-        for (int row = 0; row < BOARD_ROWS; row++) {
-            for (int col = 0; col < BOARD_COLS; col++) {
+        for (int row = 0; row < buttons.length; row++) {
+            for (int col = 0; col < buttons[row].length; col++) {
                 buttons[row][col].setDisable(false);
             }
         }
@@ -0,0 +1,161 @@
+package knightswap.simulation;
+
+import knightswap.engine.BitboardKnightSwapState;
+import knightswap.engine.KnightSwapBoard;
+import knightswap.utils.PieceType;
+import org.tinylog.Logger;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Plays random legal games from a position on all cores and collects their {@link PlayoutStatistics}.
+ * <p>
+ * A playout repeatedly picks one of the legal moves of the player to move uniformly at random, until the goal is
+ * reached, the player to move has no legal move, or the maximum length is played. The playouts are split into
+ * ranges by the tasks of a {@link ForkJoinPool}, and every split also splits the {@link SplittableRandom}, so the
+ * statistics depend only on the seed and not on thread scheduling. Each leaf task reuses one
+ * {@link BitboardKnightSwapState} reset with {@link BitboardKnightSwapState#setPosition} and one move buffer
+ * filled by {@link BitboardKnightSwapState#fillLegalMoves(int[])}, so the playouts themselves allocate nothing.
+ */
+public class PlayoutSimulator {
+    /**
+     * The default largest number of moves of a playout.
+     */
+    public static final int DEFAULT_MAX_LENGTH = 1000;
+
+    /**
+     * The largest number of playouts run by one task without splitting it.
+     */
+    private static final long LEAF_SIZE = 4096;
+
+    /**
+     * The pool running the playout tasks.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a simulator running on the common {@link ForkJoinPool}.
+     */
+    public PlayoutSimulator() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a simulator running on the given pool.
+     *
+     * @param pool The {@link ForkJoinPool} whose parallelism the playouts use.
+     */
+    public PlayoutSimulator(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Plays random games from a position.
+     *
+     * @param start The {@link KnightSwapBoard} to start every playout from, of any engine. It is not modified.
+     * @param games The number of playouts.
+     * @param maxLength The largest number of moves of a playout.
+     * @param seed The seed of the random moves; the same seed yields the same statistics.
+     * @return The {@link PlayoutStatistics} of the playouts.
+     * @throws IllegalArgumentException If {@code games} or {@code maxLength} is negative.
+     */
+    public PlayoutStatistics run(KnightSwapBoard start, long games, int maxLength, long seed) {
+        if (games < 0 || maxLength < 0) {
+            throw new IllegalArgumentException("The number of playouts and their length must not be negative: " + games + ", " + maxLength);
+        }
+        BitboardKnightSwapState position = new BitboardKnightSwapState(start.getDefinition(), start);
+        long startTime = System.nanoTime();
+        PlayoutStatistics statistics = pool.invoke(new PlayoutTask(position, games, maxLength, new SplittableRandom(seed)));
+        statistics.setElapsedMillis((System.nanoTime() - startTime) / 1_000_000);
+        Logger.info("Finished {}.", statistics);
+        return statistics;
+    }
+
+    /**
+     * Runs a range of playouts, splitting it in halves while it is larger than {@link #LEAF_SIZE}.
+     */
+    private static final class PlayoutTask extends RecursiveTask<PlayoutStatistics> {
+        /**
+         * The position every playout starts from, shared and never modified.
+         */
+        private final BitboardKnightSwapState start;
+
+        /**
+         * The number of playouts of this task.
+         */
+        private final long games;
+
+        /**
+         * The largest number of moves of a playout.
+         */
+        private final int maxLength;
+
+        /**
+         * The random source of this task's playouts.
+         */
+        private final SplittableRandom random;
+
+        /**
+         * Creates a task.
+         *
+         * @param start The {@link BitboardKnightSwapState} every playout starts from.
+         * @param games The number of playouts.
+         * @param maxLength The largest number of moves of a playout.
+         * @param random The {@link SplittableRandom} owned by this task.
+         */
+        private PlayoutTask(BitboardKnightSwapState start, long games, int maxLength, SplittableRandom random) {
+            this.start = start;
+            this.games = games;
+            this.maxLength = maxLength;
+            this.random = random;
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * @return The {@link PlayoutStatistics} of this task's playouts.
+         */
+        @Override
+        protected PlayoutStatistics compute() {
+            if (games > LEAF_SIZE) {
+                PlayoutTask left = new PlayoutTask(start, games / 2, maxLength, random.split());
+                PlayoutTask right = new PlayoutTask(start, games - games / 2, maxLength, random);
+                left.fork();
+                PlayoutStatistics statistics = right.compute();
+                statistics.merge(left.join());
+                return statistics;
+            }
+            PlayoutStatistics statistics = new PlayoutStatistics(maxLength);
+            BitboardKnightSwapState state = new BitboardKnightSwapState(start.getDefinition());
+            state.ensureUndoCapacity(maxLength);
+            int[] moves = new int[start.getDefinition().getMaxLegalMoves()];
+            long lightMask = start.getLightMask();
+            long darkMask = start.getDarkMask();
+            PieceType player = start.getCurrentPlayer();
+            for (long game = 0; game < games; game++) {
+                state.setPosition(lightMask, darkMask, player);
+                int length = 0;
+                while (true) {
+                    if (state.isSolved()) {
+                        statistics.record(PlayoutStatistics.Outcome.SOLVED, length);
+                        break;
+                    }
+                    int count = state.fillLegalMoves(moves);
+                    if (count == 0) {
+                        statistics.record(PlayoutStatistics.Outcome.DEAD_END, length);
+                        break;
+                    }
+                    if (length == maxLength) {
+                        statistics.record(PlayoutStatistics.Outcome.CUT_OFF, length);
+                        break;
+                    }
+                    state.makeMove(moves[random.nextInt(count)]);
+                    length++;
+                }
+            }
+            return statistics;
+        }
+    }
+}
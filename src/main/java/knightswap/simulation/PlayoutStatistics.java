@@ -0,0 +1,235 @@
+package knightswap.simulation;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * The outcomes and lengths of a set of random playouts.
+ * <p>
+ * Every playout ends in one of the {@link Outcome outcomes}, and is counted in the length histogram of that
+ * outcome, indexed by the number of moves played. Instances are filled by the tasks of a {@link PlayoutSimulator}
+ * and merged when the tasks join; the results handed out are never modified afterwards.
+ */
+public final class PlayoutStatistics {
+    /**
+     * The ways a playout can end.
+     */
+    public enum Outcome {
+        /**
+         * The goal layout was reached.
+         */
+        SOLVED,
+        /**
+         * The player to move had no legal move.
+         */
+        DEAD_END,
+        /**
+         * The playout reached the maximum length without ending.
+         */
+        CUT_OFF
+    }
+
+    /**
+     * The number of playouts of every outcome and length, indexed by {@link Outcome#ordinal()} and then by length.
+     */
+    private final long[][] lengthCounts;
+
+    /**
+     * The wall-clock duration of the simulation in milliseconds, set once the playouts are done.
+     */
+    private long elapsedMillis;
+
+    /**
+     * Creates empty statistics.
+     *
+     * @param maxLength The largest number of moves of a playout.
+     */
+    PlayoutStatistics(int maxLength) {
+        this.lengthCounts = new long[Outcome.values().length][maxLength + 1];
+    }
+
+    /**
+     * Counts one playout.
+     *
+     * @param outcome The {@link Outcome} of the playout.
+     * @param length The number of moves played.
+     */
+    void record(Outcome outcome, int length) {
+        lengthCounts[outcome.ordinal()][length]++;
+    }
+
+    /**
+     * Adds the playouts counted by other statistics of the same maximum length to these.
+     *
+     * @param other The {@code PlayoutStatistics} to add.
+     */
+    void merge(PlayoutStatistics other) {
+        for (int outcome = 0; outcome < lengthCounts.length; outcome++) {
+            for (int length = 0; length < lengthCounts[outcome].length; length++) {
+                lengthCounts[outcome][length] += other.lengthCounts[outcome][length];
+            }
+        }
+    }
+
+    /**
+     * Sets the duration of the simulation.
+     *
+     * @param elapsedMillis The duration in milliseconds.
+     */
+    void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * Returns the largest number of moves a playout could have.
+     *
+     * @return The {@code int} length limit of the simulation.
+     */
+    public int getLengthLimit() {
+        return lengthCounts[0].length - 1;
+    }
+
+    /**
+     * Returns the total number of playouts.
+     *
+     * @return The {@code long} number of playouts.
+     */
+    public long getGames() {
+        long games = 0;
+        for (Outcome outcome : Outcome.values()) {
+            games += getCount(outcome);
+        }
+        return games;
+    }
+
+    /**
+     * Returns the number of playouts with a given outcome.
+     *
+     * @param outcome The {@link Outcome} to count.
+     * @return The {@code long} number of playouts.
+     */
+    public long getCount(Outcome outcome) {
+        return Arrays.stream(lengthCounts[outcome.ordinal()]).sum();
+    }
+
+    /**
+     * Returns the fraction of playouts with a given outcome.
+     *
+     * @param outcome The {@link Outcome} to count.
+     * @return The {@code double} fraction between 0 and 1, or 0 if there were no playouts.
+     */
+    public double getRate(Outcome outcome) {
+        long games = getGames();
+        return games == 0 ? 0 : (double) getCount(outcome) / games;
+    }
+
+    /**
+     * Returns the fraction of playouts that reached the goal.
+     *
+     * @return The {@code double} solve rate between 0 and 1.
+     */
+    public double getSolveRate() {
+        return getRate(Outcome.SOLVED);
+    }
+
+    /**
+     * Returns the fraction of playouts that ended with the player to move unable to move.
+     *
+     * @return The {@code double} dead-end frequency between 0 and 1.
+     */
+    public double getDeadEndRate() {
+        return getRate(Outcome.DEAD_END);
+    }
+
+    /**
+     * Returns the length distribution of the playouts with a given outcome.
+     *
+     * @param outcome The {@link Outcome} of the playouts.
+     * @return A new {@code long} array holding the number of playouts of every length from 0 to {@link #getLengthLimit()}.
+     */
+    public long[] getLengthCounts(Outcome outcome) {
+        return lengthCounts[outcome.ordinal()].clone();
+    }
+
+    /**
+     * Returns the mean length of the playouts with a given outcome.
+     *
+     * @param outcome The {@link Outcome} of the playouts.
+     * @return The {@code double} mean number of moves, or 0 if no playout had that outcome.
+     */
+    public double getMeanLength(Outcome outcome) {
+        long[] counts = lengthCounts[outcome.ordinal()];
+        long games = 0;
+        double total = 0;
+        for (int length = 0; length < counts.length; length++) {
+            games += counts[length];
+            total += (double) length * counts[length];
+        }
+        return games == 0 ? 0 : total / games;
+    }
+
+    /**
+     * Returns the shortest length of the playouts with a given outcome.
+     *
+     * @param outcome The {@link Outcome} of the playouts.
+     * @return The {@code int} number of moves, or -1 if no playout had that outcome.
+     */
+    public int getMinLength(Outcome outcome) {
+        long[] counts = lengthCounts[outcome.ordinal()];
+        for (int length = 0; length < counts.length; length++) {
+            if (counts[length] > 0) {
+                return length;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the longest length of the playouts with a given outcome.
+     *
+     * @param outcome The {@link Outcome} of the playouts.
+     * @return The {@code int} number of moves, or -1 if no playout had that outcome.
+     */
+    public int getMaxLength(Outcome outcome) {
+        long[] counts = lengthCounts[outcome.ordinal()];
+        for (int length = counts.length - 1; length >= 0; length--) {
+            if (counts[length] > 0) {
+                return length;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the duration of the simulation.
+     *
+     * @return The {@code long} number of milliseconds.
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Returns the number of playouts per second of the simulation.
+     *
+     * @return The {@code double} throughput, or 0 if the duration was too short to measure.
+     */
+    public double getGamesPerSecond() {
+        return elapsedMillis == 0 ? 0 : getGames() * 1000.0 / elapsedMillis;
+    }
+
+    /**
+     * Returns a one-line summary of the statistics.
+     *
+     * @return A {@link String} with the number of playouts, the rate and mean length of every outcome, and the throughput.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder().append(getGames()).append(" playouts");
+        for (Outcome outcome : Outcome.values()) {
+            sb.append(String.format(", %s %.4f%% (mean %.1f moves)", outcome.name().toLowerCase(Locale.ROOT).replace('_', ' '),
+                    100 * getRate(outcome), getMeanLength(outcome)));
+        }
+        return sb.append(String.format(", %.0f playouts/s", getGamesPerSecond())).toString();
+    }
+}
@@ -0,0 +1,6 @@
+/**
+ * Provides Monte Carlo playouts of Knight Swap puzzle variants.
+ * The {@link knightswap.simulation.PlayoutSimulator} plays random legal games on all cores and collects
+ * their outcomes and lengths in {@link knightswap.simulation.PlayoutStatistics}, which are used to tune variants.
+ */
+package knightswap.simulation;
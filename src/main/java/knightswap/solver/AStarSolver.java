@@ -0,0 +1,129 @@
+package knightswap.solver;
+
+import knightswap.engine.BitboardKnightSwapState;
+import knightswap.engine.PuzzleDefinition;
+import knightswap.engine.StateRanker;
+import knightswap.engine.SymmetryGroup;
+import knightswap.tablebase.DeadPositionIndex;
+import org.tinylog.Logger;
+
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.PriorityQueue;
+
+/**
+ * An A* solver guided by the {@link KnightDistanceHeuristic}.
+ * Open states are expanded in order of {@code moves made + estimate}, preferring deeper states on ties.
+ * Because the heuristic is consistent, the first goal state taken from the queue ends a shortest solution.
+ * <p>
+ * Like {@link BidirectionalBfsSolver}, the solver stores only orbit representatives under the
+ * {@link SymmetryGroup} of the variant, identified by their {@link StateRanker} index and mapped to their depth in a
+ * {@link LongIntHashMap}; the heuristic is invariant under these symmetries. Unlike {@link IdaStarSolver}, it detects
+ * unsolvable positions by exhausting the reachable states, which a {@link DeadPositionIndex} avoids: given one, dead
+ * positions are never queued and dead start positions are rejected at once.
+ */
+public class AStarSolver implements Solver {
+    /**
+     * The index of dead positions pruned from the search, if any.
+     */
+    private final Optional<DeadPositionIndex> deadPositions;
+
+    /**
+     * Creates a solver guided by the heuristic alone.
+     */
+    public AStarSolver() {
+        this.deadPositions = Optional.empty();
+    }
+
+    /**
+     * Creates a solver that also prunes dead positions.
+     *
+     * @param deadPositions The {@link DeadPositionIndex} of the puzzle variant to be solved.
+     */
+    public AStarSolver(DeadPositionIndex deadPositions) {
+        this.deadPositions = Optional.of(deadPositions);
+    }
+
+    /**
+     * An entry of the open queue.
+     *
+     * @param key The index of the state.
+     * @param depth The number of moves from the start to the state.
+     * @param priority The depth plus the heuristic estimate of the state.
+     */
+    private record OpenEntry(long key, int depth, int priority) {
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param start The {@link BitboardKnightSwapState} to solve. It is not modified.
+     * @param monitor The {@link SearchMonitor} receiving the progress and enforcing the limits.
+     * @return An {@link Optional} holding the {@link Solution}, or an empty {@link Optional}
+     * if the goal cannot be reached from {@code start}.
+     * @throws IllegalArgumentException If the puzzle variant has too many states to be ranked,
+     * or the dead-position index belongs to another variant.
+     * @throws SearchAbortedException If the search was cancelled or reached a limit of {@code monitor}.
+     */
+    @Override
+    public Optional<Solution> solve(BitboardKnightSwapState start, SearchMonitor monitor) {
+        monitor.start();
+        PuzzleDefinition definition = start.getDefinition();
+        StateRanker ranker = new StateRanker(definition);
+        SymmetryGroup symmetries = new SymmetryGroup(definition);
+        KnightDistanceHeuristic heuristic = new KnightDistanceHeuristic(definition);
+        BitboardKnightSwapState scratch = new BitboardKnightSwapState(definition);
+        int[] moves = new int[definition.getMaxLegalMoves()];
+
+        LongIntHashMap visited = new LongIntHashMap();
+        PriorityQueue<OpenEntry> open = new PriorityQueue<>(Comparator.comparingInt(OpenEntry::priority)
+                .thenComparing(Comparator.comparingInt(OpenEntry::depth).reversed()));
+        long startKey = symmetries.canonicalRank(ranker, start);
+        int startEstimate = heuristic.estimate(start);
+        if (startEstimate >= KnightDistanceHeuristic.UNREACHABLE) {
+            Logger.info("A* found no solution: a knight cannot reach the goal squares.");
+            return Optional.empty();
+        }
+        deadPositions.ifPresent(index -> index.checkDefinition(definition));
+        if (deadPositions.isPresent() && deadPositions.get().isDead(startKey)) {
+            Logger.info("A* found no solution: the start position is dead.");
+            return Optional.empty();
+        }
+        visited.put(startKey, 0);
+        open.add(new OpenEntry(startKey, 0, startEstimate));
+
+        long nodesExpanded = 0;
+        while (!open.isEmpty()) {
+            OpenEntry entry = open.poll();
+            if (visited.get(entry.key(), -1) < entry.depth()) {
+                continue;
+            }
+            scratch.setPosition(ranker.lightMaskOf(entry.key()), ranker.darkMaskOf(entry.key()), ranker.playerOf(entry.key()));
+            if (scratch.isSolved()) {
+                int[] path = CanonicalPaths.retractToRoot(symmetries, ranker, scratch, entry.depth(),
+                        (key, depth) -> visited.get(key, -1) == depth);
+                Solution solution = new Solution(CanonicalPaths.mapOnto(symmetries, scratch, start, path), nodesExpanded);
+                Logger.info("A* found a solution of {} moves after expanding {} states.", solution.length(), nodesExpanded);
+                return Optional.of(solution);
+            }
+            nodesExpanded++;
+            monitor.checkpoint(nodesExpanded, open.size(), visited.size(), entry.priority());
+            int count = scratch.fillLegalMoves(moves);
+            for (int i = 0; i < count; i++) {
+                scratch.makeMove(moves[i]);
+                long child = symmetries.canonicalRank(ranker, scratch.getLightMask(), scratch.getDarkMask(), scratch.getCurrentPlayer());
+                int estimate = heuristic.estimate(scratch);
+                scratch.unmakeMove();
+                int known = visited.get(child, Integer.MAX_VALUE);
+                if (estimate >= KnightDistanceHeuristic.UNREACHABLE || known <= entry.depth() + 1
+                        || deadPositions.isPresent() && deadPositions.get().isDead(child)) {
+                    continue;
+                }
+                visited.put(child, entry.depth() + 1);
+                open.add(new OpenEntry(child, entry.depth() + 1, entry.depth() + 1 + estimate));
+            }
+        }
+        Logger.info("A* found no solution after expanding {} states.", nodesExpanded);
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,87 @@
+package knightswap.solver;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size bit set that many threads can update concurrently without locking.
+ * Bits are set with a compare-and-set loop on the word holding them, so {@link #set(long)} tells
+ * exactly one of the competing threads that it was the first to set a bit.
+ * Parallel searches use it as the visited set, indexed by {@link knightswap.engine.StateRanker} indices.
+ */
+public final class AtomicBitSet {
+    /**
+     * The words holding the bits, 64 bits per word.
+     */
+    private final AtomicLongArray words;
+
+    /**
+     * The number of bits.
+     */
+    private final long size;
+
+    /**
+     * Creates a bit set with all bits cleared.
+     *
+     * @param size The number of bits.
+     * @throws IllegalArgumentException If {@code size} is negative or needs more words than an array can hold.
+     */
+    public AtomicBitSet(long size) {
+        if (size < 0 || (size + Long.SIZE - 1) / Long.SIZE > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Unsupported bit set size: " + size);
+        }
+        this.size = size;
+        this.words = new AtomicLongArray((int) ((size + Long.SIZE - 1) / Long.SIZE));
+    }
+
+    /**
+     * Returns the number of bits of this set.
+     *
+     * @return The {@code long} size.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Sets a bit.
+     *
+     * @param index The index of the bit.
+     * @return {@code true} if this call set the bit, {@code false} if it was already set.
+     */
+    public boolean set(long index) {
+        int word = (int) (index >>> 6);
+        long bit = 1L << index;
+        long current = words.get(word);
+        while ((current & bit) == 0) {
+            long witness = words.compareAndExchange(word, current, current | bit);
+            if (witness == current) {
+                return true;
+            }
+            current = witness;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the value of a bit.
+     *
+     * @param index The index of the bit.
+     * @return {@code true} if the bit is set.
+     */
+    public boolean get(long index) {
+        return (words.get((int) (index >>> 6)) & (1L << index)) != 0;
+    }
+
+    /**
+     * Counts the set bits. The result is exact only if no thread is setting bits at the same time.
+     *
+     * @return The {@code long} number of set bits.
+     */
+    public long cardinality() {
+        long count = 0;
+        for (int i = 0; i < words.length(); i++) {
+            count += Long.bitCount(words.get(i));
+        }
+        return count;
+    }
+}
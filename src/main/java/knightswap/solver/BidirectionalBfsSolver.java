@@ -0,0 +1,306 @@
+package knightswap.solver;
+
+import knightswap.engine.BitboardKnightSwapState;
+import knightswap.engine.PuzzleDefinition;
+import knightswap.engine.StateRanker;
+import knightswap.engine.SymmetryGroup;
+import knightswap.tablebase.DeadPositionIndex;
+import knightswap.utils.PieceType;
+import knightswap.utils.Position;
+import org.tinylog.Logger;
+import puzzle.TwoPhaseMoveState;
+
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A bidirectional breadth-first search solver.
+ * One search runs forward from the start position using the legal moves, the other runs backward from
+ * the goal layout (with either player to move) using {@link BitboardKnightSwapState#fillPredecessorMoves(int[])},
+ * which takes the alternating turns and the attack rule into account. The smaller frontier is expanded one full
+ * layer at a time, and the search stops after the first layer that meets the other side, which yields a shortest
+ * solution while exploring roughly the square root of the states a one-sided search would visit.
+ * <p>
+ * Both searches store only orbit representatives under the {@link SymmetryGroup} of the variant, identified by their
+ * {@link StateRanker} index, in a {@link LongHashSet} of visited states and in one sorted array per layer, which gives
+ * the depth of a state by binary search. The path is rebuilt by {@link CanonicalPaths}, stepping through neighbours
+ * one layer closer to either root.
+ * <p>
+ * Given a {@link DeadPositionIndex}, the forward search drops the positions from which the goal cannot be reached,
+ * and dead start positions are rejected without searching; the backward search only ever reaches live positions.
+ * <p>
+ * The same search also connects two arbitrary positions of a variant, with
+ * {@link #solve(BitboardKnightSwapState, BitboardKnightSwapState, SearchMonitor)}.
+ */
+public class BidirectionalBfsSolver implements Solver {
+    /**
+     * The index of dead positions pruned from the search, if any.
+     */
+    private final Optional<DeadPositionIndex> deadPositions;
+
+    /**
+     * Creates a solver that expands every reachable position.
+     */
+    public BidirectionalBfsSolver() {
+        this.deadPositions = Optional.empty();
+    }
+
+    /**
+     * Creates a solver that prunes dead positions.
+     *
+     * @param deadPositions The {@link DeadPositionIndex} of the puzzle variant to be solved.
+     */
+    public BidirectionalBfsSolver(DeadPositionIndex deadPositions) {
+        this.deadPositions = Optional.of(deadPositions);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param start The {@link BitboardKnightSwapState} to solve. It is not modified.
+     * @param monitor The {@link SearchMonitor} receiving the progress and enforcing the limits.
+     * @return An {@link Optional} holding the {@link Solution}, or an empty {@link Optional}
+     * if the goal cannot be reached from {@code start}.
+     * @throws IllegalArgumentException If the puzzle variant has too many states to be ranked,
+     * or the dead-position index belongs to another variant.
+     * @throws SearchAbortedException If the search was cancelled or reached a limit of {@code monitor}.
+     */
+    @Override
+    public Optional<Solution> solve(BitboardKnightSwapState start, SearchMonitor monitor) {
+        monitor.start();
+        PuzzleDefinition definition = start.getDefinition();
+        StateRanker ranker = new StateRanker(definition);
+        SymmetryGroup symmetries = new SymmetryGroup(definition);
+        deadPositions.ifPresent(index -> index.checkDefinition(definition));
+        if (deadPositions.isPresent() && deadPositions.get().isDead(symmetries.canonicalRank(ranker, start))) {
+            Logger.info("Bidirectional BFS found no solution: the start position is dead.");
+            return Optional.empty();
+        }
+        long[] goals = {
+                symmetries.canonicalRank(ranker, definition.getGoalLightMask(), definition.getGoalDarkMask(), PieceType.LIGHT),
+                symmetries.canonicalRank(ranker, definition.getGoalLightMask(), definition.getGoalDarkMask(), PieceType.DARK)
+        };
+        return search(start, ranker, symmetries, goals, deadPositions, monitor);
+    }
+
+    /**
+     * Finds a shortest sequence of moves leading from one position to another, rather than to the goal layout.
+     * The backward search starts from the target alone, and its states are reduced only by the symmetries that
+     * leave the target unchanged ({@link SymmetryGroup#stabilizerOf}). Dead positions are not pruned, since a
+     * position from which the goal cannot be reached may still lead to the target.
+     *
+     * @param start The {@link BitboardKnightSwapState} to start from. It is not modified.
+     * @param target The {@link BitboardKnightSwapState} to reach, of the same puzzle variant. It is not modified.
+     * @param monitor The {@link SearchMonitor} receiving the progress and enforcing the limits.
+     * @return An {@link Optional} holding the {@link Solution} ending in {@code target}, or an empty {@link Optional}
+     * if {@code target} cannot be reached from {@code start}.
+     * @throws IllegalArgumentException If the positions belong to different puzzle variants,
+     * or the variant has too many states to be ranked.
+     * @throws SearchAbortedException If the search was cancelled or reached a limit of {@code monitor}.
+     */
+    public Optional<Solution> solve(BitboardKnightSwapState start, BitboardKnightSwapState target, SearchMonitor monitor) {
+        if (!start.getDefinition().equals(target.getDefinition())) {
+            throw new IllegalArgumentException("The start and target positions belong to different puzzle variants.");
+        }
+        monitor.start();
+        StateRanker ranker = new StateRanker(start.getDefinition());
+        SymmetryGroup symmetries = SymmetryGroup.stabilizerOf(target);
+        return search(start, ranker, symmetries, new long[]{symmetries.canonicalRank(ranker, target)}, Optional.empty(), monitor);
+    }
+
+    /**
+     * Runs the two searches until they meet, and rebuilds the path through the meeting state.
+     *
+     * @param start The {@link BitboardKnightSwapState} the forward search starts from.
+     * @param ranker The {@link StateRanker} of the puzzle variant.
+     * @param symmetries The {@link SymmetryGroup} whose representatives are stored, which must preserve every target.
+     * @param targets The representatives the backward search starts from.
+     * @param pruning The {@link DeadPositionIndex} whose positions the forward search drops, if any.
+     * @param monitor The {@link SearchMonitor} receiving the progress and enforcing the limits.
+     * @return An {@link Optional} holding the {@link Solution}, or an empty {@link Optional} if no target can be reached.
+     */
+    private static Optional<Solution> search(BitboardKnightSwapState start, StateRanker ranker, SymmetryGroup symmetries,
+                                             long[] targets, Optional<DeadPositionIndex> pruning, SearchMonitor monitor) {
+        BitboardKnightSwapState scratch = new BitboardKnightSwapState(ranker.getDefinition());
+        int[] moves = new int[ranker.getDefinition().getMaxLegalMoves()];
+        Side forward = new Side(true);
+        forward.addRoot(symmetries.canonicalRank(ranker, start));
+        Side backward = new Side(false);
+        for (long target : targets) {
+            backward.addRoot(target);
+        }
+        forward.sealLayer();
+        backward.sealLayer();
+
+        long nodesExpanded = 0;
+        long meeting = backward.visited.contains(forward.layer[0]) ? forward.layer[0] : -1;
+        while (meeting < 0 && forward.layerSize > 0 && backward.layerSize > 0) {
+            Side side = forward.layerSize <= backward.layerSize ? forward : backward;
+            Side other = side == forward ? backward : forward;
+            int bestLength = Integer.MAX_VALUE;
+            long[] next = new long[Math.max(16, side.layerSize * 2)];
+            int nextSize = 0;
+
+            for (int i = 0; i < side.layerSize; i++) {
+                long key = side.layer[i];
+                scratch.setPosition(ranker.lightMaskOf(key), ranker.darkMaskOf(key), ranker.playerOf(key));
+                nodesExpanded++;
+                monitor.checkpoint(nodesExpanded, side.layerSize - i + nextSize, forward.visited.size() + backward.visited.size(),
+                        forward.depth + backward.depth);
+                int count = side.forward ? scratch.fillLegalMoves(moves) : scratch.fillPredecessorMoves(moves);
+                for (int j = 0; j < count; j++) {
+                    if (side.forward) {
+                        scratch.makeMove(moves[j]);
+                    } else {
+                        scratch.retractMove(moves[j]);
+                    }
+                    long child = symmetries.canonicalRank(ranker, scratch.getLightMask(), scratch.getDarkMask(), scratch.getCurrentPlayer());
+                    scratch.unmakeMove();
+                    if (side.forward && pruning.isPresent() && pruning.get().isDead(child) || !side.visited.add(child)) {
+                        continue;
+                    }
+                    if (nextSize == next.length) {
+                        next = Arrays.copyOf(next, nextSize * 2);
+                    }
+                    next[nextSize++] = child;
+
+                    if (other.visited.contains(child)) {
+                        int otherDepth = other.depthOf(child);
+                        if (side.depth + 1 + otherDepth < bestLength) {
+                            bestLength = side.depth + 1 + otherDepth;
+                            meeting = child;
+                        }
+                    }
+                }
+            }
+            side.layer = next;
+            side.layerSize = nextSize;
+            side.sealLayer();
+            side.depth++;
+            Logger.debug("Bidirectional BFS: {} layer {} has {} states. Expanded: {}.",
+                    side.forward ? "forward" : "backward", side.depth, nextSize, nodesExpanded);
+        }
+
+        if (meeting < 0) {
+            Logger.info("Bidirectional BFS found no solution after expanding {} states.", nodesExpanded);
+            return Optional.empty();
+        }
+        List<TwoPhaseMoveState.TwoPhaseMove<Position>> path = buildPath(symmetries, ranker, start, meeting, forward, backward);
+        Logger.info("Bidirectional BFS found a solution of {} moves after expanding {} states.", path.size(), nodesExpanded);
+        return Optional.of(new Solution(path, nodesExpanded));
+    }
+
+    /**
+     * Joins the forward path from the start to the meeting state and the backward path from it to the goal.
+     *
+     * @param symmetries The {@link SymmetryGroup} of the puzzle variant.
+     * @param ranker The {@link StateRanker} of the puzzle variant.
+     * @param start The {@link BitboardKnightSwapState} the solution starts from.
+     * @param meeting The index of a representative visited by both searches.
+     * @param forward The forward search.
+     * @param backward The backward search.
+     * @return The moves from the start to the goal, in playing order.
+     */
+    private static List<TwoPhaseMoveState.TwoPhaseMove<Position>> buildPath(SymmetryGroup symmetries, StateRanker ranker,
+                                                                          BitboardKnightSwapState start, long meeting,
+                                                                          Side forward, Side backward) {
+        BitboardKnightSwapState state = new BitboardKnightSwapState(ranker.getDefinition());
+        state.setPosition(ranker.lightMaskOf(meeting), ranker.darkMaskOf(meeting), ranker.playerOf(meeting));
+        int[] toGoal = CanonicalPaths.advanceToRoot(symmetries, ranker, state, backward.depthOf(meeting), backward::isAtDepth);
+        state.setPosition(ranker.lightMaskOf(meeting), ranker.darkMaskOf(meeting), ranker.playerOf(meeting));
+        int[] fromStart = CanonicalPaths.retractToRoot(symmetries, ranker, state, forward.depthOf(meeting), forward::isAtDepth);
+        return CanonicalPaths.mapOnto(symmetries, state, start, CanonicalPaths.concat(fromStart, toGoal));
+    }
+
+    /**
+     * One direction of the bidirectional search.
+     */
+    private static final class Side {
+        /**
+         * Whether this search follows the moves forward from the start, rather than backward from the goal.
+         */
+        private final boolean forward;
+
+        /**
+         * The visited representatives of this search.
+         */
+        private final LongHashSet visited = LongHashSet.forSearch();
+
+        /**
+         * The sorted representatives of every completed layer, indexed by depth.
+         */
+        private final List<long[]> layers = new ArrayList<>();
+
+        /**
+         * The states of the current layer, in the first {@link #layerSize} elements.
+         */
+        private long[] layer = new long[2];
+
+        /**
+         * The number of states in the current layer.
+         */
+        private int layerSize;
+
+        /**
+         * The depth of the current layer.
+         */
+        private int depth;
+
+        /**
+         * Creates an empty search.
+         *
+         * @param forward Whether the search runs forward from the start.
+         */
+        private Side(boolean forward) {
+            this.forward = forward;
+        }
+
+        /**
+         * Adds a root state to the first layer.
+         *
+         * @param key The index of the root representative.
+         */
+        private void addRoot(long key) {
+            if (visited.add(key)) {
+                layer[layerSize++] = key;
+            }
+        }
+
+        /**
+         * Completes the current layer, sorting its states and keeping them for depth lookups.
+         */
+        private void sealLayer() {
+            layer = Arrays.copyOf(layer, layerSize);
+            Arrays.sort(layer);
+            layers.add(layer);
+        }
+
+        /**
+         * Returns the depth at which a visited representative was reached, searching the deepest layers first.
+         *
+         * @param key The index of the representative.
+         * @return The {@code int} depth, or -1 if the representative was not visited.
+         */
+        private int depthOf(long key) {
+            for (int depth = layers.size() - 1; depth >= 0; depth--) {
+                if (Arrays.binarySearch(layers.get(depth), key) >= 0) {
+                    return depth;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Tells whether a representative was reached at the given depth of this search.
+         *
+         * @param key The index of the representative.
+         * @param depth The depth to check.
+         * @return {@code true} if the representative belongs to that layer.
+         */
+        private boolean isAtDepth(long key, int depth) {
+            return depth >= 0 && depth < layers.size() && Arrays.binarySearch(layers.get(depth), key) >= 0;
+        }
+    }
+}
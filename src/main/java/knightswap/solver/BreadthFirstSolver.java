@@ -0,0 +1,117 @@
+package knightswap.solver;
+
+import knightswap.engine.BitboardKnightSwapState;
+import knightswap.engine.MoveCodec;
+import knightswap.engine.PuzzleDefinition;
+import knightswap.engine.StateRanker;
+import knightswap.engine.SymmetryGroup;
+import knightswap.tablebase.DeadPositionIndex;
+import knightswap.utils.Position;
+import org.tinylog.Logger;
+import puzzle.TwoPhaseMoveState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A forward breadth-first search solver keeping its explored positions in a compact {@link SearchTree}.
+ * <p>
+ * Every discovered position becomes a node holding its {@link StateRanker} index, the position of its parent node and
+ * the packed move played from there, so the tree doubles as the queue of the search: nodes are expanded in the
+ * order they were added. Positions are recognised as visited by their orbit representative under the
+ * {@link SymmetryGroup} of the variant, kept in a {@link LongHashSet}, while the tree keeps the positions actually
+ * reached, so the solution is read off directly by following the parents from the goal node back to the start.
+ * <p>
+ * Given a {@link DeadPositionIndex}, the positions from which the goal cannot be reached are never added,
+ * and dead start positions are rejected without searching.
+ */
+public class BreadthFirstSolver implements Solver {
+    /**
+     * The index of dead positions pruned from the search, if any.
+     */
+    private final Optional<DeadPositionIndex> deadPositions;
+
+    /**
+     * Creates a solver that expands every reachable position.
+     */
+    public BreadthFirstSolver() {
+        this.deadPositions = Optional.empty();
+    }
+
+    /**
+     * Creates a solver that prunes dead positions.
+     *
+     * @param deadPositions The {@link DeadPositionIndex} of the puzzle variant to be solved.
+     */
+    public BreadthFirstSolver(DeadPositionIndex deadPositions) {
+        this.deadPositions = Optional.of(deadPositions);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param start The {@link BitboardKnightSwapState} to solve. It is not modified.
+     * @param monitor The {@link SearchMonitor} receiving the progress and enforcing the limits.
+     * @return An {@link Optional} holding the {@link Solution}, or an empty {@link Optional}
+     * if the goal cannot be reached from {@code start}.
+     * @throws IllegalArgumentException If the puzzle variant has too many states to be ranked,
+     * or the dead-position index belongs to another variant.
+     * @throws SearchAbortedException If the search was cancelled or reached a limit of {@code monitor}.
+     */
+    @Override
+    public Optional<Solution> solve(BitboardKnightSwapState start, SearchMonitor monitor) {
+        monitor.start();
+        PuzzleDefinition definition = start.getDefinition();
+        StateRanker ranker = new StateRanker(definition);
+        SymmetryGroup symmetries = new SymmetryGroup(definition);
+        BitboardKnightSwapState scratch = new BitboardKnightSwapState(definition);
+        int[] moves = new int[definition.getMaxLegalMoves()];
+        deadPositions.ifPresent(index -> index.checkDefinition(definition));
+        long startKey = symmetries.canonicalRank(ranker, start);
+        if (deadPositions.isPresent() && deadPositions.get().isDead(startKey)) {
+            Logger.info("BFS found no solution: the start position is dead.");
+            return Optional.empty();
+        }
+
+        SearchTree tree = new SearchTree();
+        LongHashSet visited = LongHashSet.forSearch();
+        tree.addRoot(ranker.rank(start));
+        visited.add(startKey);
+
+        long nodesExpanded = 0;
+        int depth = 0;
+        int layerEnd = tree.size();
+        for (int node = 0; node < tree.size(); node++) {
+            if (node == layerEnd) {
+                depth++;
+                layerEnd = tree.size();
+            }
+            long key = tree.getKey(node);
+            scratch.setPosition(ranker.lightMaskOf(key), ranker.darkMaskOf(key), ranker.playerOf(key));
+            if (scratch.isSolved()) {
+                List<TwoPhaseMoveState.TwoPhaseMove<Position>> path = new ArrayList<>(depth);
+                for (int move : tree.getPath(node)) {
+                    path.add(MoveCodec.toMove(definition, move));
+                }
+                Solution solution = new Solution(path, nodesExpanded);
+                Logger.info("BFS found a solution of {} moves after expanding {} states; the search tree holds {} nodes.",
+                        solution.length(), nodesExpanded, tree.size());
+                return Optional.of(solution);
+            }
+            nodesExpanded++;
+            monitor.checkpoint(nodesExpanded, tree.size() - node, visited.size(), depth);
+            int count = scratch.fillLegalMoves(moves);
+            for (int i = 0; i < count; i++) {
+                scratch.makeMove(moves[i]);
+                long child = symmetries.canonicalRank(ranker, scratch.getLightMask(), scratch.getDarkMask(), scratch.getCurrentPlayer());
+                if (!(deadPositions.isPresent() && deadPositions.get().isDead(child)) && visited.add(child)) {
+                    tree.add(ranker.rank(scratch), node, moves[i]);
+                }
+                scratch.unmakeMove();
+            }
+        }
+        Logger.info("BFS found no solution after expanding {} states.", nodesExpanded);
+        return Optional.empty();
+    }
+}
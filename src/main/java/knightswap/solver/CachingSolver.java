@@ -0,0 +1,78 @@
+package knightswap.solver;
+
+import knightswap.cache.SolutionCache;
+import knightswap.engine.BitboardKnightSwapState;
+import org.tinylog.Logger;
+
+import java.util.Optional;
+
+/**
+ * A solver answering repeated queries from a {@link SolutionCache} and delegating the others to another solver,
+ * whose results it stores. Cached solutions are returned with zero expanded states. Empty results are cached only
+ * if the delegate {@linkplain Solver#provesUnsolvability() proves} that the position cannot be solved.
+ */
+public class CachingSolver implements Solver {
+    /**
+     * The solver running the searches the cache cannot answer.
+     */
+    private final Solver delegate;
+
+    /**
+     * The cache of the results.
+     */
+    private final SolutionCache cache;
+
+    /**
+     * Creates a solver combining a cache with another solver.
+     *
+     * @param delegate The {@link Solver} used on cache misses.
+     * @param cache The {@link SolutionCache} of the puzzle variant to solve.
+     */
+    public CachingSolver(Solver delegate, SolutionCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    /**
+     * Returns the cache of the results.
+     *
+     * @return The {@link SolutionCache} of this solver.
+     */
+    public SolutionCache getCache() {
+        return cache;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param start The {@link BitboardKnightSwapState} to solve. It is not modified.
+     * @param monitor The {@link SearchMonitor} passed to the delegate on a cache miss.
+     * @return An {@link Optional} holding the {@link Solution}, or an empty {@link Optional}
+     * if the goal cannot be reached from {@code start}.
+     * @throws IllegalArgumentException If {@code start} belongs to another puzzle variant than the cache.
+     * @throws SearchAbortedException If the search was cancelled or reached a limit of {@code monitor}.
+     */
+    @Override
+    public Optional<Solution> solve(BitboardKnightSwapState start, SearchMonitor monitor) {
+        Optional<SolutionCache.Entry> cached = cache.get(start);
+        if (cached.isPresent()) {
+            Logger.debug("Solution cache hit: {} moves.", cached.get().solvable() ? cached.get().moves().size() : "no solution");
+            return cached.get().solvable() ? Optional.of(new Solution(cached.get().moves(), 0)) : Optional.empty();
+        }
+        Optional<Solution> solution = delegate.solve(start, monitor);
+        if (solution.isPresent() || delegate.provesUnsolvability()) {
+            cache.put(start, solution.map(Solution::moves));
+        }
+        return solution;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return Whether the delegate proves that positions cannot be solved.
+     */
+    @Override
+    public boolean provesUnsolvability() {
+        return delegate.provesUnsolvability();
+    }
+}
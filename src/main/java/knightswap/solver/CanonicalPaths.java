@@ -0,0 +1,141 @@
+package knightswap.solver;
+
+import knightswap.engine.BitboardKnightSwapState;
+import knightswap.engine.MoveCodec;
+import knightswap.engine.StateRanker;
+import knightswap.engine.Symmetry;
+import knightswap.engine.SymmetryGroup;
+import knightswap.utils.Position;
+import puzzle.TwoPhaseMoveState;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Rebuilds solution paths from searches that store only the depth of each orbit representative.
+ * <p>
+ * A search over representatives runs on the quotient graph, so its states are not oriented like the start.
+ * The path is therefore walked in whatever orientation the meeting state has, always stepping to a neighbour
+ * whose representative sits one layer closer to the root, and the finished path is mapped back onto the start
+ * with the {@link Symmetry} relating the two orientations. This class cannot be instantiated.
+ */
+final class CanonicalPaths {
+    /**
+     * Tells whether an orbit representative was reached at a given depth of a search.
+     */
+    @FunctionalInterface
+    interface DepthLookup {
+        /**
+         * Tells whether a representative was reached at the given depth.
+         *
+         * @param canonicalKey The {@link StateRanker} index of the representative.
+         * @param depth The depth to check.
+         * @return {@code true} if the representative belongs to that layer of the search.
+         */
+        boolean isAtDepth(long canonicalKey, int depth);
+    }
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     */
+    private CanonicalPaths() {}
+
+    /**
+     * Walks backward from a state of a forward search to a state in the orbit of its root.
+     *
+     * @param group The {@link SymmetryGroup} used to canonicalize the states.
+     * @param ranker The {@link StateRanker} of the puzzle variant.
+     * @param state The {@link BitboardKnightSwapState} to start from; it is left holding the root-orbit state.
+     * @param depth The depth of {@code state} in the search.
+     * @param lookup The {@link DepthLookup} of the forward search.
+     * @return The packed moves from the root-orbit state to the original {@code state}, in playing order.
+     */
+    static int[] retractToRoot(SymmetryGroup group, StateRanker ranker, BitboardKnightSwapState state, int depth, DepthLookup lookup) {
+        int[] path = new int[depth];
+        int[] moves = new int[ranker.getDefinition().getMaxLegalMoves()];
+        for (int layer = depth - 1; layer >= 0; layer--) {
+            int count = state.fillPredecessorMoves(moves);
+            int chosen = -1;
+            for (int i = 0; i < count && chosen < 0; i++) {
+                state.retractMove(moves[i]);
+                if (lookup.isAtDepth(group.canonicalRank(ranker, state.getLightMask(), state.getDarkMask(), state.getCurrentPlayer()), layer)) {
+                    chosen = moves[i];
+                } else {
+                    state.unmakeMove();
+                }
+            }
+            if (chosen < 0) {
+                throw new IllegalStateException("No predecessor found in layer " + layer + " of the search.");
+            }
+            path[layer] = chosen;
+        }
+        return path;
+    }
+
+    /**
+     * Walks forward from a state of a backward search, which was rooted at goal states, to a goal state.
+     *
+     * @param group The {@link SymmetryGroup} used to canonicalize the states.
+     * @param ranker The {@link StateRanker} of the puzzle variant.
+     * @param state The {@link BitboardKnightSwapState} to start from; it is left holding the goal state.
+     * @param depth The depth of {@code state} in the backward search.
+     * @param lookup The {@link DepthLookup} of the backward search.
+     * @return The packed moves from the original {@code state} to the goal state, in playing order.
+     */
+    static int[] advanceToRoot(SymmetryGroup group, StateRanker ranker, BitboardKnightSwapState state, int depth, DepthLookup lookup) {
+        int[] path = new int[depth];
+        int[] moves = new int[ranker.getDefinition().getMaxLegalMoves()];
+        for (int step = 0; step < depth; step++) {
+            int layer = depth - 1 - step;
+            int count = state.fillLegalMoves(moves);
+            int chosen = -1;
+            for (int i = 0; i < count && chosen < 0; i++) {
+                state.makeMove(moves[i]);
+                if (lookup.isAtDepth(group.canonicalRank(ranker, state.getLightMask(), state.getDarkMask(), state.getCurrentPlayer()), layer)) {
+                    chosen = moves[i];
+                } else {
+                    state.unmakeMove();
+                }
+            }
+            if (chosen < 0) {
+                throw new IllegalStateException("No successor found in layer " + layer + " of the search.");
+            }
+            path[step] = chosen;
+        }
+        return path;
+    }
+
+    /**
+     * Maps a path found in another orientation onto the start position and converts it to moves.
+     *
+     * @param group The {@link SymmetryGroup} used to canonicalize the states.
+     * @param pathStart The {@link BitboardKnightSwapState} the path starts from, in the orbit of {@code start}.
+     * @param start The {@link BitboardKnightSwapState} the solution must start from.
+     * @param packedMoves The packed moves of the path, in playing order.
+     * @return The moves of the mapped path.
+     */
+    static List<TwoPhaseMoveState.TwoPhaseMove<Position>> mapOnto(SymmetryGroup group, BitboardKnightSwapState pathStart,
+                                                                 BitboardKnightSwapState start, int[] packedMoves) {
+        Symmetry mapping = group.findMapping(pathStart, start)
+                .orElseThrow(() -> new IllegalStateException("The path does not start in the orbit of the start position."));
+        List<TwoPhaseMoveState.TwoPhaseMove<Position>> path = new ArrayList<>(packedMoves.length);
+        for (int move : packedMoves) {
+            path.add(MoveCodec.toMove(group.getDefinition(), mapping.mapMove(move)));
+        }
+        return path;
+    }
+
+    /**
+     * Joins two arrays of packed moves.
+     *
+     * @param first The moves played first.
+     * @param second The moves played after them.
+     * @return The concatenated moves.
+     */
+    static int[] concat(int[] first, int[] second) {
+        int[] joined = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, joined, first.length, second.length);
+        return joined;
+    }
+}
@@ -0,0 +1,713 @@
+package knightswap.solver;
+
+import knightswap.engine.BitboardKnightSwapState;
+import knightswap.engine.PuzzleDefinition;
+import knightswap.engine.StateRanker;
+import knightswap.engine.SymmetryGroup;
+import knightswap.tablebase.DeadPositionIndex;
+import knightswap.utils.PieceType;
+import knightswap.utils.Position;
+import org.tinylog.Logger;
+import puzzle.TwoPhaseMoveState;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * A breadth-first search solver that keeps its layers on disk, for variants whose visited set does not fit in the heap.
+ * <p>
+ * Every layer is a {@link SortedKeyFile} of the orbit representatives (see {@link SymmetryGroup}) first reached at
+ * that depth. The children of a layer are collected in a buffer sized by the memory budget, which is sorted,
+ * deduplicated and spilled to a run file whenever it fills up. The runs are then merged into the next layer,
+ * dropping every key found in an earlier layer by streaming a cumulative visited file, the union of all earlier
+ * layers, alongside the merge. The game graph is directed, so all earlier layers are needed, not only the previous
+ * two; keeping them in one file bounds the number of files open at once, and so the buffer memory, whatever the depth.
+ * <p>
+ * All files live in a {@value #SEARCH_DIRECTORY} subdirectory of the work directory, which the search creates and
+ * marks as its own. The search refuses a non-empty subdirectory without that marker, and never deletes anything
+ * outside it. Completed layers are moved into place atomically and recorded in a {@code progress.properties} file, so
+ * a search that is interrupted continues from its last completed layer when it is started again with the same
+ * directory, puzzle variant and start position. The path is rebuilt backward by scanning one layer file per move for
+ * the predecessors of the current state. A search that finishes deletes its files, and a search holds a lock on the
+ * marker while it runs, so a second search in the same directory fails instead of overwriting the files.
+ * <p>
+ * Given a {@link DeadPositionIndex}, children from which the goal cannot be reached never enter the buffer,
+ * and dead start positions are rejected without creating any file.
+ */
+public class ExternalBfsSolver implements Solver {
+    /**
+     * The default memory budget in bytes.
+     */
+    public static final long DEFAULT_MEMORY_BUDGET = 64L << 20;
+
+    /**
+     * The default work directory, the system temporary directory.
+     */
+    public static final Path DEFAULT_WORK_DIRECTORY = Path.of(System.getProperty("java.io.tmpdir"));
+
+    /**
+     * The name of the subdirectory of the work directory holding the search files.
+     */
+    public static final String SEARCH_DIRECTORY = "knightswap-external-bfs";
+
+    /**
+     * The smallest memory budget accepted, in bytes.
+     */
+    public static final long MIN_MEMORY_BUDGET = 1L << 20;
+
+    /**
+     * The name of the progress file in the search directory.
+     */
+    private static final String PROGRESS_FILE = "progress.properties";
+
+    /**
+     * The name of the file marking the search directory as created by this solver.
+     */
+    private static final String MARKER_FILE = ".external-bfs";
+
+    /**
+     * The directory given by the caller, in which the search directory is created.
+     */
+    private final Path workDirectory;
+
+    /**
+     * The directory holding the layer, run and progress files.
+     */
+    private final Path searchDirectory;
+
+    /**
+     * The number of bytes the search may use for its buffers.
+     */
+    private final long memoryBudget;
+
+    /**
+     * The index of dead positions pruned from the search, if any.
+     */
+    private final Optional<DeadPositionIndex> deadPositions;
+
+    /**
+     * Creates a solver with the default memory budget working in the {@link #DEFAULT_WORK_DIRECTORY}.
+     */
+    public ExternalBfsSolver() {
+        this(DEFAULT_WORK_DIRECTORY, DEFAULT_MEMORY_BUDGET);
+    }
+
+    /**
+     * Creates a solver working in the given directory.
+     *
+     * @param workDirectory The {@link Path} of the directory in which the {@value #SEARCH_DIRECTORY} subdirectory
+     * is created.
+     * @param memoryBudget The number of bytes the search may use for its buffers.
+     * @throws IllegalArgumentException If the budget is smaller than {@link #MIN_MEMORY_BUDGET}.
+     */
+    public ExternalBfsSolver(Path workDirectory, long memoryBudget) {
+        this(workDirectory, memoryBudget, Optional.empty());
+    }
+
+    /**
+     * Creates a solver working in the given directory that prunes dead positions.
+     *
+     * @param workDirectory The {@link Path} of the directory in which the {@value #SEARCH_DIRECTORY} subdirectory
+     * is created.
+     * @param memoryBudget The number of bytes the search may use for its buffers.
+     * @param deadPositions The {@link DeadPositionIndex} of the puzzle variant to be solved.
+     * @throws IllegalArgumentException If the budget is smaller than {@link #MIN_MEMORY_BUDGET}.
+     */
+    public ExternalBfsSolver(Path workDirectory, long memoryBudget, DeadPositionIndex deadPositions) {
+        this(workDirectory, memoryBudget, Optional.of(deadPositions));
+    }
+
+    /**
+     * Creates a solver with an optional index of dead positions.
+     *
+     * @param workDirectory The {@link Path} of the directory in which the search directory is created.
+     * @param memoryBudget The number of bytes the search may use for its buffers.
+     * @param deadPositions An {@link Optional} {@link DeadPositionIndex}.
+     * @throws IllegalArgumentException If the budget is smaller than {@link #MIN_MEMORY_BUDGET}.
+     */
+    private ExternalBfsSolver(Path workDirectory, long memoryBudget, Optional<DeadPositionIndex> deadPositions) {
+        if (memoryBudget < MIN_MEMORY_BUDGET) {
+            throw new IllegalArgumentException("The memory budget must be at least " + MIN_MEMORY_BUDGET + " bytes: " + memoryBudget);
+        }
+        this.workDirectory = workDirectory;
+        this.searchDirectory = workDirectory.resolve(SEARCH_DIRECTORY);
+        this.memoryBudget = memoryBudget;
+        this.deadPositions = deadPositions;
+    }
+
+    /**
+     * Returns the directory in which the search directory is created.
+     *
+     * @return The {@link Path} of the work directory.
+     */
+    public Path getWorkDirectory() {
+        return workDirectory;
+    }
+
+    /**
+     * Returns the directory holding the search files, the {@value #SEARCH_DIRECTORY} subdirectory of the work directory.
+     *
+     * @return The {@link Path} of the search directory.
+     */
+    public Path getSearchDirectory() {
+        return searchDirectory;
+    }
+
+    /**
+     * Returns the number of bytes the search may use for its buffers.
+     *
+     * @return The memory budget in bytes.
+     */
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param start The {@link BitboardKnightSwapState} to solve. It is not modified.
+     * @param monitor The {@link SearchMonitor} receiving the progress and enforcing the limits. A search it stops
+     * can be resumed from its last completed layer.
+     * @return An {@link Optional} holding the {@link Solution}, or an empty {@link Optional}
+     * if the goal cannot be reached from {@code start}.
+     * @throws UncheckedIOException If the search files cannot be read or written, or if the search directory is not
+     * empty and was not created by this solver.
+     * @throws IllegalArgumentException If the dead-position index belongs to another puzzle variant.
+     * @throws SearchAbortedException If the search was cancelled or reached a limit of {@code monitor}.
+     */
+    @Override
+    public Optional<Solution> solve(BitboardKnightSwapState start, SearchMonitor monitor) {
+        monitor.start();
+        try {
+            return search(start, monitor);
+        } catch (IOException e) {
+            throw new UncheckedIOException("External BFS failed in " + searchDirectory, e);
+        }
+    }
+
+    /**
+     * Prepares and locks the search directory, runs or resumes the layered search in it, and deletes the search files
+     * once the search has finished. The files of a search stopped by its monitor or by an error are kept for resuming.
+     *
+     * @param start The {@link BitboardKnightSwapState} to solve.
+     * @param monitor The {@link SearchMonitor} of the search.
+     * @return An {@link Optional} holding the {@link Solution}, or an empty {@link Optional} if there is none.
+     * @throws IOException If the search files cannot be read or written, or if another search holds the directory.
+     */
+    private Optional<Solution> search(BitboardKnightSwapState start, SearchMonitor monitor) throws IOException {
+        PuzzleDefinition definition = start.getDefinition();
+        StateRanker ranker = new StateRanker(definition);
+        SymmetryGroup symmetries = new SymmetryGroup(definition);
+        long startKey = symmetries.canonicalRank(ranker, start);
+        deadPositions.ifPresent(index -> index.checkDefinition(definition));
+        if (deadPositions.isPresent() && deadPositions.get().isDead(startKey)) {
+            Logger.info("External BFS found no solution: the start position is dead.");
+            return Optional.empty();
+        }
+        long[] goals = {
+                symmetries.canonicalRank(ranker, definition.getGoalLightMask(), definition.getGoalDarkMask(), PieceType.LIGHT),
+                symmetries.canonicalRank(ranker, definition.getGoalLightMask(), definition.getGoalDarkMask(), PieceType.DARK)
+        };
+        prepareSearchDirectory();
+        try (FileChannel channel = FileChannel.open(searchDirectory.resolve(MARKER_FILE), StandardOpenOption.WRITE);
+             FileLock _ = lockSearchDirectory(channel)) {
+            deleteFiles("*.tmp", null);
+            Optional<Solution> solution = searchLayers(symmetries, ranker, start, startKey, goals, monitor);
+            deleteFiles("*", searchDirectory.resolve(MARKER_FILE));
+            return solution;
+        }
+    }
+
+    /**
+     * Runs or resumes the layered search in the locked search directory.
+     *
+     * @param symmetries The {@link SymmetryGroup} of the puzzle variant.
+     * @param ranker The {@link StateRanker} of the puzzle variant.
+     * @param start The {@link BitboardKnightSwapState} to solve.
+     * @param startKey The index of the start representative.
+     * @param goals The indices of the goal representatives, one per player to move.
+     * @param monitor The {@link SearchMonitor} of the search.
+     * @return An {@link Optional} holding the {@link Solution}, or an empty {@link Optional} if there is none.
+     * @throws IOException If the search files cannot be read or written.
+     */
+    private Optional<Solution> searchLayers(SymmetryGroup symmetries, StateRanker ranker, BitboardKnightSwapState start,
+                                            long startKey, long[] goals, SearchMonitor monitor) throws IOException {
+        PuzzleDefinition definition = ranker.getDefinition();
+        Properties progress = loadProgress(definition, startKey);
+        int layers = Integer.parseInt(progress.getProperty("layers", "0"));
+        long nodesExpanded = Long.parseLong(progress.getProperty("nodesExpanded", "0"));
+        long layerKeys = 1;
+        long visitedKeys = 1;
+        if (layers == 0) {
+            try (SortedKeyFile.Writer writer = new SortedKeyFile.Writer(temporaryFile("layer-0"))) {
+                writer.write(startKey);
+            }
+            Files.move(temporaryFile("layer-0"), layerFile(0), StandardCopyOption.ATOMIC_MOVE);
+            Files.copy(layerFile(0), temporaryFile("visited-0"));
+            Files.move(temporaryFile("visited-0"), visitedFile(0), StandardCopyOption.ATOMIC_MOVE);
+            layers = 1;
+            saveProgress(progress, layers, nodesExpanded);
+        } else {
+            Logger.info("External BFS resuming after {} completed layers in {}.", layers, searchDirectory);
+            layerKeys = countKeys(layerFile(layers - 1));
+            visitedKeys = countKeys(visitedFile(layers - 1));
+        }
+
+        while (true) {
+            int depth = layers - 1;
+            long goal = findAny(layerFile(depth), goals);
+            if (goal >= 0) {
+                Solution solution = new Solution(buildPath(symmetries, ranker, start, goal, depth), nodesExpanded);
+                Logger.info("External BFS found a solution of {} moves after expanding {} states.", solution.length(), nodesExpanded);
+                return Optional.of(solution);
+            }
+            if (Files.size(layerFile(depth)) == 0) {
+                Logger.info("External BFS found no solution after expanding {} states.", nodesExpanded);
+                return Optional.empty();
+            }
+            long written = expandLayer(symmetries, ranker, depth, nodesExpanded, layerKeys, visitedKeys, monitor);
+            nodesExpanded += layerKeys;
+            layerKeys = written;
+            visitedKeys += written;
+            layers++;
+            saveProgress(progress, layers, nodesExpanded);
+            Files.delete(visitedFile(depth));
+        }
+    }
+
+    /**
+     * Writes the next layer after the given one: expands it into sorted runs, then merges the runs while dropping
+     * the keys of all earlier layers, and finally merges the new layer into the next visited file.
+     *
+     * @param symmetries The {@link SymmetryGroup} of the puzzle variant.
+     * @param ranker The {@link StateRanker} of the puzzle variant.
+     * @param depth The depth of the layer to expand.
+     * @param nodesBefore The number of states expanded in the earlier layers.
+     * @param layerKeys The number of keys in the layer, reported as the frontier.
+     * @param visitedKeys The number of keys in the visited file of the layer, reported as the visited set.
+     * @param monitor The {@link SearchMonitor} of the search.
+     * @return The number of keys in the next layer.
+     * @throws IOException If the search files cannot be read or written.
+     */
+    private long expandLayer(SymmetryGroup symmetries, StateRanker ranker, int depth, long nodesBefore, long layerKeys,
+                             long visitedKeys, SearchMonitor monitor) throws IOException {
+        PuzzleDefinition definition = ranker.getDefinition();
+        BitboardKnightSwapState state = new BitboardKnightSwapState(definition);
+        int[] moves = new int[definition.getMaxLegalMoves()];
+        long[] buffer = new long[(int) Math.min(Integer.MAX_VALUE - 8, memoryBudget / 2 / Long.BYTES)];
+        int size = 0;
+        List<Path> runs = new ArrayList<>();
+        long expanded = 0;
+
+        try (SortedKeyFile.Reader layer = new SortedKeyFile.Reader(layerFile(depth))) {
+            while (layer.hasNext()) {
+                long key = layer.next();
+                state.setPosition(ranker.lightMaskOf(key), ranker.darkMaskOf(key), ranker.playerOf(key));
+                expanded++;
+                monitor.checkpoint(nodesBefore + expanded, layerKeys, visitedKeys, depth);
+                int count = state.fillLegalMoves(moves);
+                for (int i = 0; i < count; i++) {
+                    state.makeMove(moves[i]);
+                    long child = symmetries.canonicalRank(ranker, state.getLightMask(), state.getDarkMask(), state.getCurrentPlayer());
+                    state.unmakeMove();
+                    if (deadPositions.isPresent() && deadPositions.get().isDead(child)) {
+                        continue;
+                    }
+                    if (size == buffer.length) {
+                        runs.add(spill(buffer, size, runs.size()));
+                        size = 0;
+                    }
+                    buffer[size++] = child;
+                }
+            }
+        }
+        runs.add(spill(buffer, size, runs.size()));
+
+        int fanIn = (int) Math.max(2, memoryBudget / 2 / SortedKeyFile.BUFFER_SIZE - 2);
+        while (runs.size() > fanIn) {
+            List<Path> group = runs.subList(0, fanIn);
+            Path merged = temporaryFile("run-merged-" + runs.size());
+            merge(group, List.of(), merged);
+            for (Path run : group) {
+                Files.delete(run);
+            }
+            group.clear();
+            runs.add(merged);
+        }
+
+        Path next = temporaryFile("layer-" + (depth + 1));
+        long written = merge(runs, List.of(visitedFile(depth)), next);
+        for (Path run : runs) {
+            Files.delete(run);
+        }
+        Files.move(next, layerFile(depth + 1), StandardCopyOption.ATOMIC_MOVE);
+        Path visited = temporaryFile("visited-" + (depth + 1));
+        merge(List.of(visitedFile(depth), layerFile(depth + 1)), List.of(), visited);
+        Files.move(visited, visitedFile(depth + 1), StandardCopyOption.ATOMIC_MOVE);
+        Logger.debug("External BFS: layer {} has {} states after merging {} runs.", depth + 1, written, runs.size());
+        return written;
+    }
+
+    /**
+     * Sorts the buffered keys, removes duplicates and writes them to a new run file.
+     *
+     * @param buffer The buffer of keys.
+     * @param size The number of keys in the buffer.
+     * @param index The number of the run, used in its file name.
+     * @return The {@link Path} of the run file.
+     * @throws IOException If the file cannot be written.
+     */
+    private Path spill(long[] buffer, int size, int index) throws IOException {
+        Arrays.sort(buffer, 0, size);
+        Path run = temporaryFile("run-" + index);
+        try (SortedKeyFile.Writer writer = new SortedKeyFile.Writer(run)) {
+            for (int i = 0; i < size; i++) {
+                if (i == 0 || buffer[i] != buffer[i - 1]) {
+                    writer.write(buffer[i]);
+                }
+            }
+        }
+        return run;
+    }
+
+    /**
+     * Merges sorted files into one, dropping duplicates and every key that appears in one of the excluded files.
+     *
+     * @param inputs The {@link Path paths} of the sorted files to merge.
+     * @param excluded The {@link Path paths} of the sorted files whose keys are dropped.
+     * @param output The {@link Path} of the merged file.
+     * @return The number of keys written.
+     * @throws IOException If the files cannot be read or written.
+     */
+    private static long merge(List<Path> inputs, List<Path> excluded, Path output) throws IOException {
+        List<SortedKeyFile.Reader> readers = new ArrayList<>();
+        List<SortedKeyFile.Reader> exclusions = new ArrayList<>();
+        try (SortedKeyFile.Writer writer = new SortedKeyFile.Writer(output)) {
+            for (Path input : inputs) {
+                readers.add(new SortedKeyFile.Reader(input));
+            }
+            for (Path file : excluded) {
+                exclusions.add(new SortedKeyFile.Reader(file));
+            }
+            while (true) {
+                long smallest = Long.MAX_VALUE;
+                for (SortedKeyFile.Reader reader : readers) {
+                    if (reader.hasNext() && reader.peek() < smallest) {
+                        smallest = reader.peek();
+                    }
+                }
+                if (smallest == Long.MAX_VALUE) {
+                    return writer.getCount();
+                }
+                for (SortedKeyFile.Reader reader : readers) {
+                    if (reader.hasNext() && reader.peek() == smallest) {
+                        reader.next();
+                    }
+                }
+                boolean seen = false;
+                for (SortedKeyFile.Reader exclusion : exclusions) {
+                    exclusion.skipTo(smallest);
+                    seen |= exclusion.hasNext() && exclusion.peek() == smallest;
+                }
+                if (!seen) {
+                    writer.write(smallest);
+                }
+            }
+        } finally {
+            for (SortedKeyFile.Reader reader : readers) {
+                reader.close();
+            }
+            for (SortedKeyFile.Reader reader : exclusions) {
+                reader.close();
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the path to a goal representative by walking back through the layer files.
+     * For every move, the canonical keys of all predecessors are looked up in one scan of the previous layer,
+     * and the first predecessor (in generation order) found there is taken.
+     *
+     * @param symmetries The {@link SymmetryGroup} of the puzzle variant.
+     * @param ranker The {@link StateRanker} of the puzzle variant.
+     * @param start The {@link BitboardKnightSwapState} the solution starts from.
+     * @param goal The index of the goal representative.
+     * @param depth The depth of the goal's layer.
+     * @return The moves from the start to the goal, in playing order.
+     * @throws IOException If the layer files cannot be read.
+     */
+    private List<TwoPhaseMoveState.TwoPhaseMove<Position>> buildPath(SymmetryGroup symmetries, StateRanker ranker,
+                                                                    BitboardKnightSwapState start, long goal, int depth) throws IOException {
+        BitboardKnightSwapState state = new BitboardKnightSwapState(ranker.getDefinition());
+        state.setPosition(ranker.lightMaskOf(goal), ranker.darkMaskOf(goal), ranker.playerOf(goal));
+        int[] moves = new int[ranker.getDefinition().getMaxLegalMoves()];
+        int[] path = new int[depth];
+        for (int layer = depth - 1; layer >= 0; layer--) {
+            int count = state.fillPredecessorMoves(moves);
+            long[] keys = new long[count];
+            for (int i = 0; i < count; i++) {
+                state.retractMove(moves[i]);
+                keys[i] = symmetries.canonicalRank(ranker, state.getLightMask(), state.getDarkMask(), state.getCurrentPlayer());
+                state.unmakeMove();
+            }
+            boolean[] found = contains(layerFile(layer), keys);
+            int chosen = 0;
+            while (chosen < count && !found[chosen]) {
+                chosen++;
+            }
+            if (chosen == count) {
+                throw new IOException("Layer " + layer + " holds no predecessor of the path; the search directory is inconsistent.");
+            }
+            path[layer] = moves[chosen];
+            state.retractMove(moves[chosen]);
+        }
+        return CanonicalPaths.mapOnto(symmetries, state, start, path);
+    }
+
+    /**
+     * Looks up several keys in one scan of a sorted file.
+     *
+     * @param file The {@link Path} of the sorted file.
+     * @param keys The keys to look up, in any order.
+     * @return For each key, whether it is in the file.
+     * @throws IOException If the file cannot be read.
+     */
+    private static boolean[] contains(Path file, long[] keys) throws IOException {
+        long[] sorted = keys.clone();
+        Arrays.sort(sorted);
+        boolean[] present = new boolean[sorted.length];
+        try (SortedKeyFile.Reader reader = new SortedKeyFile.Reader(file)) {
+            for (int i = 0; i < sorted.length; i++) {
+                reader.skipTo(sorted[i]);
+                present[i] = reader.hasNext() && reader.peek() == sorted[i];
+            }
+        }
+        boolean[] found = new boolean[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            found[i] = present[Arrays.binarySearch(sorted, keys[i])];
+        }
+        return found;
+    }
+
+    /**
+     * Scans a layer file for any of the given keys.
+     *
+     * @param file The {@link Path} of the layer file.
+     * @param keys The keys to look for.
+     * @return The first of the keys found, or -1 if none is in the file.
+     * @throws IOException If the file cannot be read.
+     */
+    private static long findAny(Path file, long[] keys) throws IOException {
+        boolean[] found = contains(file, keys);
+        for (int i = 0; i < keys.length; i++) {
+            if (found[i]) {
+                return keys[i];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Loads the progress of an earlier search in the search directory. If there is none, or it belongs to another
+     * puzzle variant or start position, its files are discarded and a fresh progress record is returned.
+     *
+     * @param definition The {@link PuzzleDefinition} being solved.
+     * @param startKey The index of the start representative.
+     * @return The {@link Properties} describing the search, with the number of completed {@code layers}.
+     * @throws IOException If the search directory cannot be read or cleaned.
+     */
+    private Properties loadProgress(PuzzleDefinition definition, long startKey) throws IOException {
+        Properties expected = new Properties();
+        expected.setProperty("rows", String.valueOf(definition.getRows()));
+        expected.setProperty("cols", String.valueOf(definition.getCols()));
+        expected.setProperty("goalLight", String.valueOf(definition.getGoalLightMask()));
+        expected.setProperty("goalDark", String.valueOf(definition.getGoalDarkMask()));
+        expected.setProperty("lightCount", String.valueOf(definition.getLightCount()));
+        expected.setProperty("darkCount", String.valueOf(definition.getDarkCount()));
+        expected.setProperty("start", String.valueOf(startKey));
+
+        Path file = searchDirectory.resolve(PROGRESS_FILE);
+        if (Files.exists(file)) {
+            Properties stored = new Properties();
+            try (InputStream in = Files.newInputStream(file)) {
+                stored.load(in);
+            }
+            boolean matches = expected.stringPropertyNames().stream()
+                    .allMatch(name -> expected.getProperty(name).equals(stored.getProperty(name)));
+            int layers = Integer.parseInt(stored.getProperty("layers", "0"));
+            boolean complete = true;
+            for (int layer = 0; layer < layers; layer++) {
+                complete &= Files.exists(layerFile(layer));
+            }
+            if (matches && complete) {
+                for (int layer = layers; Files.exists(layerFile(layer)); layer++) {
+                    Files.delete(layerFile(layer));
+                }
+                deleteFiles("visited-*.keys", visitedFile(layers - 1));
+                if (layers > 0 && !Files.exists(visitedFile(layers - 1))) {
+                    rebuildVisited(layers - 1);
+                }
+                return stored;
+            }
+            Logger.warn("The search files in {} belong to another search, discarding them.", searchDirectory);
+        }
+        deleteFiles("layer-*.keys", null);
+        deleteFiles("visited-*.keys", null);
+        return expected;
+    }
+
+    /**
+     * Counts the keys of a sorted file, giving the sizes of the last layer and visited set of a resumed search.
+     *
+     * @param file The {@link Path} of the sorted file.
+     * @return The number of keys in the file.
+     * @throws IOException If the file cannot be read.
+     */
+    private static long countKeys(Path file) throws IOException {
+        long count = 0;
+        try (SortedKeyFile.Reader reader = new SortedKeyFile.Reader(file)) {
+            while (reader.hasNext()) {
+                reader.next();
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Rebuilds the visited file of a depth from the layer files, merging them in one at a time so that only two
+     * files are read at once.
+     *
+     * @param depth The depth of the last layer included.
+     * @throws IOException If the files cannot be read or written.
+     */
+    private void rebuildVisited(int depth) throws IOException {
+        Path visited = temporaryFile("visited");
+        Files.copy(layerFile(0), visited);
+        for (int layer = 1; layer <= depth; layer++) {
+            Path merged = temporaryFile("visited-merged");
+            merge(List.of(visited, layerFile(layer)), List.of(), merged);
+            Files.move(merged, visited, StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.move(visited, visitedFile(depth), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Records the number of completed layers, replacing the progress file atomically.
+     *
+     * @param progress The {@link Properties} describing the search.
+     * @param layers The number of completed layers.
+     * @param nodesExpanded The number of states expanded so far.
+     * @throws IOException If the progress file cannot be written.
+     */
+    private void saveProgress(Properties progress, int layers, long nodesExpanded) throws IOException {
+        progress.setProperty("layers", String.valueOf(layers));
+        progress.setProperty("nodesExpanded", String.valueOf(nodesExpanded));
+        Path temporary = temporaryFile("progress");
+        try (OutputStream out = Files.newOutputStream(temporary)) {
+            progress.store(out, "External BFS progress");
+        }
+        Files.move(temporary, searchDirectory.resolve(PROGRESS_FILE), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Creates the search directory and marks it as this solver's, or checks the marker of an existing one.
+     *
+     * @throws IOException If the search directory cannot be created, read or cleaned, or if it is not empty and holds
+     * no marker.
+     */
+    private void prepareSearchDirectory() throws IOException {
+        Files.createDirectories(searchDirectory);
+        Path marker = searchDirectory.resolve(MARKER_FILE);
+        if (!Files.exists(marker)) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(searchDirectory)) {
+                if (files.iterator().hasNext()) {
+                    throw new IOException("The directory " + searchDirectory + " is not empty and was not created by the external BFS solver.");
+                }
+            }
+            Files.createFile(marker);
+        }
+    }
+
+    /**
+     * Locks the search directory through its marker file, so that no other search uses it at the same time.
+     *
+     * @param channel The {@link FileChannel} of the marker file, open for writing.
+     * @return The {@link FileLock} held until the search ends.
+     * @throws IOException If the marker file cannot be locked, or if another search already holds the lock.
+     */
+    private FileLock lockSearchDirectory(FileChannel channel) throws IOException {
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            throw new IOException("The directory " + searchDirectory + " is in use by another external BFS search.");
+        }
+        return lock;
+    }
+
+    /**
+     * Deletes the files of the search directory matching a pattern.
+     *
+     * @param glob The {@link String} glob pattern of the file names.
+     * @param keep The {@link Path} of a matching file to keep, or {@code null} to delete them all.
+     * @throws IOException If the search directory cannot be read or cleaned.
+     */
+    private void deleteFiles(String glob, Path keep) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(searchDirectory, glob)) {
+            for (Path file : files) {
+                if (!file.equals(keep)) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the file of a completed layer.
+     *
+     * @param depth The depth of the layer.
+     * @return The {@link Path} of the layer file.
+     */
+    private Path layerFile(int depth) {
+        return searchDirectory.resolve("layer-" + depth + ".keys");
+    }
+
+    /**
+     * Returns the visited file of a depth, the union of all layers up to that depth.
+     *
+     * @param depth The depth of the last layer included.
+     * @return The {@link Path} of the visited file.
+     */
+    private Path visitedFile(int depth) {
+        return searchDirectory.resolve("visited-" + depth + ".keys");
+    }
+
+    /**
+     * Returns a temporary file of the search directory, which is deleted when a search starts.
+     *
+     * @param name The {@link String} base name of the file.
+     * @return The {@link Path} of the temporary file.
+     */
+    private Path temporaryFile(String name) {
+        return searchDirectory.resolve(name + ".tmp");
+    }
+}
@@ -0,0 +1,131 @@
+package knightswap.solver;
+
+import knightswap.engine.BitboardKnightSwapState;
+import knightswap.engine.DepthFirstTraversal;
+import knightswap.engine.StateRanker;
+import knightswap.tablebase.DeadPositionIndex;
+import knightswap.utils.Position;
+import org.tinylog.Logger;
+import puzzle.TwoPhaseMoveState;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * An IDA* solver: iterative-deepening depth-first search pruned by the {@link KnightDistanceHeuristic}.
+ * It runs on the allocation-free {@link DepthFirstTraversal} and needs memory only for the current path,
+ * which makes it suitable for boards whose state space does not fit into memory.
+ * <p>
+ * As a depth-first search cannot prove that no solution exists other than by exhausting its depth limit,
+ * the search gives up after {@link #getMaxDepth()} moves. Positions that the heuristic proves unsolvable
+ * are rejected immediately, and so are, given a {@link DeadPositionIndex}, the positions it marks dead: they are
+ * estimated {@link KnightDistanceHeuristic#UNREACHABLE}, which keeps the bound admissible. As the search stores
+ * nothing but its path, the path length is reported to a {@link SearchMonitor} as both its frontier and its
+ * visited-set size, and the iteration bound as its depth.
+ */
+public class IdaStarSolver implements Solver {
+    /**
+     * The default maximum solution length searched for.
+     */
+    public static final int DEFAULT_MAX_DEPTH = 64;
+
+    /**
+     * The maximum solution length searched for.
+     */
+    private final int maxDepth;
+
+    /**
+     * The index of dead positions pruned from the search, if any.
+     */
+    private final Optional<DeadPositionIndex> deadPositions;
+
+    /**
+     * Creates a solver searching for solutions of at most {@value #DEFAULT_MAX_DEPTH} moves.
+     */
+    public IdaStarSolver() {
+        this(DEFAULT_MAX_DEPTH);
+    }
+
+    /**
+     * Creates a solver searching for solutions of at most the given length.
+     *
+     * @param maxDepth The maximum solution length searched for.
+     * @throws IllegalArgumentException If {@code maxDepth} is negative.
+     */
+    public IdaStarSolver(int maxDepth) {
+        this(maxDepth, Optional.empty());
+    }
+
+    /**
+     * Creates a solver searching for solutions of at most the given length that prunes dead positions.
+     *
+     * @param maxDepth The maximum solution length searched for.
+     * @param deadPositions The {@link DeadPositionIndex} of the puzzle variant to be solved.
+     * @throws IllegalArgumentException If {@code maxDepth} is negative.
+     */
+    public IdaStarSolver(int maxDepth, DeadPositionIndex deadPositions) {
+        this(maxDepth, Optional.of(deadPositions));
+    }
+
+    /**
+     * Creates a solver with an optional index of dead positions.
+     *
+     * @param maxDepth The maximum solution length searched for.
+     * @param deadPositions An {@link Optional} {@link DeadPositionIndex}.
+     * @throws IllegalArgumentException If {@code maxDepth} is negative.
+     */
+    private IdaStarSolver(int maxDepth, Optional<DeadPositionIndex> deadPositions) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("Maximum depth must not be negative: " + maxDepth);
+        }
+        this.maxDepth = maxDepth;
+        this.deadPositions = deadPositions;
+    }
+
+    /**
+     * Returns the maximum solution length searched for.
+     *
+     * @return The {@code int} depth limit.
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return {@code false}, as an empty result only means there is no solution within the depth limit.
+     */
+    @Override
+    public boolean provesUnsolvability() {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param start The {@link BitboardKnightSwapState} to solve. It is not modified.
+     * @param monitor The {@link SearchMonitor} receiving the progress and enforcing the limits.
+     * @return An {@link Optional} holding the {@link Solution}, or an empty {@link Optional}
+     * if there is no solution of at most {@link #getMaxDepth()} moves.
+     * @throws IllegalArgumentException If the dead-position index belongs to another puzzle variant.
+     * @throws SearchAbortedException If the search was cancelled or reached a limit of {@code monitor}.
+     */
+    @Override
+    public Optional<Solution> solve(BitboardKnightSwapState start, SearchMonitor monitor) {
+        monitor.start();
+        KnightDistanceHeuristic heuristic = new KnightDistanceHeuristic(start.getDefinition());
+        DepthFirstTraversal.LowerBound lowerBound = heuristic::estimate;
+        if (deadPositions.isPresent()) {
+            DeadPositionIndex index = deadPositions.get();
+            index.checkDefinition(start.getDefinition());
+            StateRanker ranker = new StateRanker(start.getDefinition());
+            lowerBound = state -> index.isDead(ranker.rank(state)) ? KnightDistanceHeuristic.UNREACHABLE : heuristic.estimate(state);
+        }
+        DepthFirstTraversal traversal = new DepthFirstTraversal(start, lowerBound);
+        traversal.setNodeListener((nodesVisited, ply, bound) -> monitor.checkpoint(nodesVisited, ply, ply, bound));
+        Optional<List<TwoPhaseMoveState.TwoPhaseMove<Position>>> moves = traversal.findShortestSolution(maxDepth);
+        Logger.info("IDA* finished after expanding {} states. Solution found: {}.", traversal.getNodesVisited(), moves.isPresent());
+        return moves.map(path -> new Solution(path, traversal.getNodesVisited()));
+    }
+}
@@ -0,0 +1,264 @@
+package knightswap.solver;
+
+import knightswap.engine.BitboardKnightSwapState;
+import knightswap.engine.DepthFirstTraversal;
+import knightswap.engine.PuzzleDefinition;
+import knightswap.utils.PieceType;
+
+import java.util.Arrays;
+
+/**
+ * An admissible and consistent estimate of the number of moves needed to solve a Knight Swap position.
+ * <p>
+ * The knight distances between every pair of squares of the empty board are precomputed. For each color,
+ * the knights are assigned to the goal squares of that color by a minimum-cost assignment (Hungarian algorithm),
+ * giving the number of moves {@code h} that color needs at least. As the players alternate, a position where
+ * light is to move needs at least {@code max(2 * hLight - 1, 2 * hDark)} plies, and symmetrically when dark is
+ * to move. Each ply changes this value by at most one, so the estimate is consistent.
+ * <p>
+ * Instances keep scratch arrays for the assignment and are therefore not thread-safe.
+ */
+public class KnightDistanceHeuristic implements DepthFirstTraversal.LowerBound {
+    /**
+     * The estimate of positions from which a knight cannot reach any goal square of its color.
+     * It is far larger than any real solution length, but small enough to be added to a depth without overflow.
+     */
+    public static final int UNREACHABLE = 1 << 20;
+
+    /**
+     * The puzzle variant whose positions are estimated.
+     */
+    private final PuzzleDefinition definition;
+
+    /**
+     * The knight distance between two squares of the empty board, indexed by {@code from * squares + to},
+     * or {@link #UNREACHABLE}.
+     */
+    private final int[] distances;
+
+    /**
+     * The number of squares of the board.
+     */
+    private final int squares;
+
+    /**
+     * The goal squares of the light knights.
+     */
+    private final int[] lightGoals;
+
+    /**
+     * The goal squares of the dark knights.
+     */
+    private final int[] darkGoals;
+
+    /**
+     * The squares of the knights being assigned, reused between calls.
+     */
+    private final int[] knights;
+
+    /**
+     * The row potentials of the Hungarian algorithm, 1-based.
+     */
+    private final int[] rowPotential;
+
+    /**
+     * The column potentials of the Hungarian algorithm, 1-based.
+     */
+    private final int[] columnPotential;
+
+    /**
+     * The row matched to each column by the Hungarian algorithm, 1-based with 0 meaning unmatched.
+     */
+    private final int[] columnMatch;
+
+    /**
+     * The previous column on the augmenting path of the Hungarian algorithm.
+     */
+    private final int[] way;
+
+    /**
+     * The smallest reduced cost reaching each column in the Hungarian algorithm.
+     */
+    private final int[] minCost;
+
+    /**
+     * Marks the columns already on the augmenting path in the Hungarian algorithm.
+     */
+    private final boolean[] used;
+
+    /**
+     * Creates the heuristic of the given puzzle variant, precomputing its knight distances.
+     *
+     * @param definition The {@link PuzzleDefinition} whose positions are estimated.
+     */
+    public KnightDistanceHeuristic(PuzzleDefinition definition) {
+        this.definition = definition;
+        this.squares = definition.getSquareCount();
+        this.distances = new int[squares * squares];
+        for (int from = 0; from < squares; from++) {
+            fillDistancesFrom(from);
+        }
+        this.lightGoals = squaresOf(definition.getGoalLightMask());
+        this.darkGoals = squaresOf(definition.getGoalDarkMask());
+        int size = Math.max(lightGoals.length, darkGoals.length) + 1;
+        this.knights = new int[size];
+        this.rowPotential = new int[size];
+        this.columnPotential = new int[size];
+        this.columnMatch = new int[size];
+        this.way = new int[size];
+        this.minCost = new int[size];
+        this.used = new boolean[size];
+    }
+
+    /**
+     * Returns the number of knight moves between two squares of the empty board.
+     *
+     * @param from The square number of the first square.
+     * @param to The square number of the second square.
+     * @return The {@code int} knight distance, or {@link #UNREACHABLE}.
+     */
+    public int getKnightDistance(int from, int to) {
+        return distances[from * squares + to];
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param state The {@link BitboardKnightSwapState} to estimate.
+     * @return A lower bound on the number of moves to the goal, or {@link #UNREACHABLE}.
+     */
+    @Override
+    public int estimate(BitboardKnightSwapState state) {
+        return estimate(state.getLightMask(), state.getDarkMask(), state.getCurrentPlayer());
+    }
+
+    /**
+     * Estimates the number of moves needed to solve the position given by its knight masks.
+     *
+     * @param lightMask The mask of the light knights.
+     * @param darkMask The mask of the dark knights.
+     * @param currentPlayer The {@link PieceType} of the player to move.
+     * @return A lower bound on the number of moves to the goal, or {@link #UNREACHABLE}.
+     */
+    public int estimate(long lightMask, long darkMask, PieceType currentPlayer) {
+        int light = assignmentCost(lightMask, lightGoals);
+        int dark = assignmentCost(darkMask, darkGoals);
+        if (light >= UNREACHABLE || dark >= UNREACHABLE) {
+            return UNREACHABLE;
+        }
+        int mover = currentPlayer == PieceType.LIGHT ? light : dark;
+        int waiting = currentPlayer == PieceType.LIGHT ? dark : light;
+        return Math.max(0, Math.max(2 * mover - 1, 2 * waiting));
+    }
+
+    /**
+     * Computes the minimum total knight distance of moving the given knights onto the given goal squares,
+     * using the Hungarian algorithm with the cost of knight {@code i} on goal {@code j} being their knight distance.
+     *
+     * @param mask The mask of the knights of one color.
+     * @param goals The goal squares of that color.
+     * @return The minimum total distance, or at least {@link #UNREACHABLE} if some knight cannot reach its goal.
+     */
+    private int assignmentCost(long mask, int[] goals) {
+        int n = goals.length;
+        if (n == 0) {
+            return 0;
+        }
+        for (int i = 1; mask != 0; i++) {
+            knights[i] = Long.numberOfTrailingZeros(mask);
+            mask &= mask - 1;
+        }
+        Arrays.fill(rowPotential, 0, n + 1, 0);
+        Arrays.fill(columnPotential, 0, n + 1, 0);
+        Arrays.fill(columnMatch, 0, n + 1, 0);
+
+        for (int row = 1; row <= n; row++) {
+            columnMatch[0] = row;
+            int column = 0;
+            Arrays.fill(minCost, 0, n + 1, Integer.MAX_VALUE);
+            Arrays.fill(used, 0, n + 1, false);
+            do {
+                used[column] = true;
+                int matchedRow = columnMatch[column];
+                int delta = Integer.MAX_VALUE;
+                int nextColumn = 0;
+                for (int j = 1; j <= n; j++) {
+                    if (used[j]) {
+                        continue;
+                    }
+                    int cost = getKnightDistance(knights[matchedRow], goals[j - 1]) - rowPotential[matchedRow] - columnPotential[j];
+                    if (cost < minCost[j]) {
+                        minCost[j] = cost;
+                        way[j] = column;
+                    }
+                    if (minCost[j] < delta) {
+                        delta = minCost[j];
+                        nextColumn = j;
+                    }
+                }
+                for (int j = 0; j <= n; j++) {
+                    if (used[j]) {
+                        rowPotential[columnMatch[j]] += delta;
+                        columnPotential[j] -= delta;
+                    } else {
+                        minCost[j] -= delta;
+                    }
+                }
+                column = nextColumn;
+            } while (columnMatch[column] != 0);
+            do {
+                int previous = way[column];
+                columnMatch[column] = columnMatch[previous];
+                column = previous;
+            } while (column != 0);
+        }
+
+        int total = 0;
+        for (int j = 1; j <= n; j++) {
+            total += getKnightDistance(knights[columnMatch[j]], goals[j - 1]);
+        }
+        return total;
+    }
+
+    /**
+     * Fills the row of {@link #distances} belonging to one square with a breadth-first search over knight jumps.
+     *
+     * @param from The square number the distances are measured from.
+     */
+    private void fillDistancesFrom(int from) {
+        int offset = from * squares;
+        Arrays.fill(distances, offset, offset + squares, UNREACHABLE);
+        int[] queue = new int[squares];
+        int head = 0;
+        int tail = 0;
+        distances[offset + from] = 0;
+        queue[tail++] = from;
+        while (head < tail) {
+            int square = queue[head++];
+            long targets = definition.getKnightMask(square);
+            while (targets != 0) {
+                int target = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                if (distances[offset + target] == UNREACHABLE) {
+                    distances[offset + target] = distances[offset + square] + 1;
+                    queue[tail++] = target;
+                }
+            }
+        }
+    }
+
+    /**
+     * Lists the squares of a mask in increasing order.
+     *
+     * @param mask The mask to list.
+     * @return The square numbers of the set bits.
+     */
+    private static int[] squaresOf(long mask) {
+        int[] result = new int[Long.bitCount(mask)];
+        for (int i = 0; mask != 0; i++) {
+            result[i] = Long.numberOfTrailingZeros(mask);
+            mask &= mask - 1;
+        }
+        return result;
+    }
+}
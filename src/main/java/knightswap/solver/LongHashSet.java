@@ -0,0 +1,370 @@
+package knightswap.solver;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * A hash set of primitive {@code long} keys, used by the solvers as their visited set of
+ * {@link knightswap.engine.StateRanker} indices.
+ * <p>
+ * Keys are stored in one flat table with open addressing and linear probing, at a load factor of at most one half,
+ * so an entry costs 16 bytes at worst instead of the boxed key, map entry and table slot of a {@link java.util.HashSet}.
+ * The key 0, which marks free slots, is kept in a flag. When the table fills up, a table of twice the size is
+ * allocated, but the entries are not rehashed all at once: every later insertion moves a few slots of the old table
+ * into the new one, and lookups consult both tables until the old one is drained, so no single insertion pauses
+ * for a full rehash. The table can also be allocated outside the Java heap, in direct buffers, so that large
+ * searches are bounded by the memory of the machine rather than by the heap size.
+ * <p>
+ * Instances are not thread-safe.
+ */
+public final class LongHashSet {
+    /**
+     * The system property that makes {@link #forSearch()} allocate its tables outside the heap when set to {@code true}.
+     */
+    public static final String OFF_HEAP_PROPERTY = "knightswap.offHeap";
+
+    /**
+     * The number of slots of a table created without a size hint.
+     */
+    private static final int DEFAULT_CAPACITY = 1 << 10;
+
+    /**
+     * The largest number of slots of a table.
+     */
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    /**
+     * The number of slots of the old table moved into the new one on every insertion during a resize.
+     * It drains the old table long before the new one is half full.
+     */
+    private static final int MIGRATION_STEP = 4;
+
+    /**
+     * The number of bits of a slot index selecting a slot within one direct buffer of an off-heap table.
+     */
+    private static final int CHUNK_BITS = 24;
+
+    /**
+     * The key marking a free slot.
+     */
+    private static final long FREE = 0;
+
+    /**
+     * Whether the tables are allocated outside the heap.
+     */
+    private final boolean offHeap;
+
+    /**
+     * The table receiving new keys.
+     */
+    private Table table;
+
+    /**
+     * The table being drained into {@link #table} during a resize, or {@code null}.
+     */
+    private Table oldTable;
+
+    /**
+     * The number of slots of {@link #oldTable} already moved.
+     */
+    private int migrated;
+
+    /**
+     * Whether the set holds the key {@link #FREE}, which cannot be stored in a table.
+     */
+    private boolean containsFree;
+
+    /**
+     * The number of keys of the set.
+     */
+    private int size;
+
+    /**
+     * Creates an empty set on the heap.
+     */
+    public LongHashSet() {
+        this(DEFAULT_CAPACITY / 2, false);
+    }
+
+    /**
+     * Creates an empty set.
+     *
+     * @param expectedSize The number of keys the set should hold before its first resize.
+     * @param offHeap Whether the tables are allocated outside the heap, in direct buffers.
+     * @throws IllegalArgumentException If {@code expectedSize} is negative or too large.
+     */
+    public LongHashSet(int expectedSize, boolean offHeap) {
+        if (expectedSize < 0 || expectedSize > MAX_CAPACITY / 4) {
+            throw new IllegalArgumentException("Unsupported expected size: " + expectedSize);
+        }
+        this.offHeap = offHeap;
+        this.table = new Table(Math.max(DEFAULT_CAPACITY, Integer.highestOneBit(Math.max(1, expectedSize)) << 2), offHeap);
+    }
+
+    /**
+     * Creates an empty visited set for a search, outside the heap if the {@value #OFF_HEAP_PROPERTY}
+     * system property is {@code true}.
+     *
+     * @return A new {@code LongHashSet}.
+     */
+    public static LongHashSet forSearch() {
+        return new LongHashSet(DEFAULT_CAPACITY / 2, Boolean.getBoolean(OFF_HEAP_PROPERTY));
+    }
+
+    /**
+     * Tells whether a key belongs to the set.
+     *
+     * @param key The key to look up.
+     * @return {@code true} if the set holds the key.
+     */
+    public boolean contains(long key) {
+        if (key == FREE) {
+            return containsFree;
+        }
+        return table.contains(key) || oldTable != null && oldTable.contains(key);
+    }
+
+    /**
+     * Adds a key to the set.
+     *
+     * @param key The key to add.
+     * @return {@code true} if the key was added, {@code false} if the set already held it.
+     * @throws IllegalStateException If the set already holds as many keys as its largest table can.
+     */
+    public boolean add(long key) {
+        if (key == FREE) {
+            if (containsFree) {
+                return false;
+            }
+            containsFree = true;
+            size++;
+            return true;
+        }
+        if (oldTable != null) {
+            if (oldTable.contains(key)) {
+                return false;
+            }
+            migrate(MIGRATION_STEP);
+        }
+        if (table.capacity() == MAX_CAPACITY && table.count >= MAX_CAPACITY / 16 * 15 && !table.contains(key)) {
+            throw new IllegalStateException("The hash set is full: " + size + " keys.");
+        }
+        if (!table.insert(key)) {
+            return false;
+        }
+        size++;
+        if (table.count > table.capacity() / 2 && table.capacity() < MAX_CAPACITY) {
+            grow();
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of keys of the set.
+     *
+     * @return The {@code int} number of keys.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Tells whether the set holds no key.
+     *
+     * @return {@code true} if the set is empty.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Tells whether the tables of the set live outside the heap.
+     *
+     * @return {@code true} if the tables are direct buffers.
+     */
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    /**
+     * Returns the number of slots of the table receiving new keys.
+     *
+     * @return The {@code int} capacity, a power of two.
+     */
+    public int capacity() {
+        return table.capacity();
+    }
+
+    /**
+     * Tells whether a resize is in progress, with keys still to be moved from the old table.
+     *
+     * @return {@code true} if two tables are in use.
+     */
+    public boolean isResizing() {
+        return oldTable != null;
+    }
+
+    /**
+     * Replaces the table with one of twice the size, to be filled incrementally from the current one.
+     */
+    private void grow() {
+        if (oldTable != null) {
+            migrate(oldTable.capacity());
+        }
+        oldTable = table;
+        migrated = 0;
+        table = new Table(oldTable.capacity() * 2, offHeap);
+    }
+
+    /**
+     * Moves keys from the old table into the current one, and drops the old table once it is drained.
+     *
+     * @param slots The number of slots of the old table to move.
+     */
+    private void migrate(int slots) {
+        int end = (int) Math.min((long) migrated + slots, oldTable.capacity());
+        for (; migrated < end; migrated++) {
+            long key = oldTable.get(migrated);
+            if (key != FREE) {
+                table.insert(key);
+            }
+        }
+        if (migrated == oldTable.capacity()) {
+            oldTable = null;
+        }
+    }
+
+    /**
+     * A table of slots with linear probing, held in a {@code long} array or in direct buffers.
+     */
+    private static final class Table {
+        /**
+         * The slots of a heap table, or {@code null}.
+         */
+        private final long[] slots;
+
+        /**
+         * The slots of an off-heap table, {@code 1 << CHUNK_BITS} per buffer, or {@code null}.
+         */
+        private final LongBuffer[] chunks;
+
+        /**
+         * The mask reducing a slot index to the table size.
+         */
+        private final int mask;
+
+        /**
+         * The shift reducing a 64-bit hash to a slot index.
+         */
+        private final int shift;
+
+        /**
+         * The number of occupied slots.
+         */
+        private int count;
+
+        /**
+         * Creates a table of free slots.
+         *
+         * @param capacity The number of slots, a power of two.
+         * @param offHeap Whether the slots are allocated in direct buffers.
+         */
+        private Table(int capacity, boolean offHeap) {
+            this.mask = capacity - 1;
+            this.shift = Long.SIZE - Integer.numberOfTrailingZeros(capacity);
+            if (offHeap) {
+                this.slots = null;
+                int chunkSize = Math.min(capacity, 1 << CHUNK_BITS);
+                this.chunks = new LongBuffer[capacity / chunkSize];
+                for (int i = 0; i < chunks.length; i++) {
+                    chunks[i] = ByteBuffer.allocateDirect(chunkSize * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+                }
+            } else {
+                this.slots = new long[capacity];
+                this.chunks = null;
+            }
+        }
+
+        /**
+         * Returns the number of slots.
+         *
+         * @return The {@code int} capacity.
+         */
+        private int capacity() {
+            return mask + 1;
+        }
+
+        /**
+         * Returns the key in a slot.
+         *
+         * @param slot The index of the slot.
+         * @return The key, or {@link #FREE}.
+         */
+        private long get(int slot) {
+            return slots != null ? slots[slot] : chunks[slot >>> CHUNK_BITS].get(slot & ((1 << CHUNK_BITS) - 1));
+        }
+
+        /**
+         * Stores a key in a slot.
+         *
+         * @param slot The index of the slot.
+         * @param key The key to store.
+         */
+        private void set(int slot, long key) {
+            if (slots != null) {
+                slots[slot] = key;
+            } else {
+                chunks[slot >>> CHUNK_BITS].put(slot & ((1 << CHUNK_BITS) - 1), key);
+            }
+        }
+
+        /**
+         * Returns the first slot probed for a key, by Fibonacci hashing.
+         *
+         * @param key The key.
+         * @return The index of the home slot of the key.
+         */
+        private int home(long key) {
+            return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+        }
+
+        /**
+         * Tells whether the table holds a key.
+         *
+         * @param key The key, other than {@link #FREE}.
+         * @return {@code true} if the key is stored.
+         */
+        private boolean contains(long key) {
+            for (int slot = home(key); ; slot = (slot + 1) & mask) {
+                long stored = get(slot);
+                if (stored == key) {
+                    return true;
+                }
+                if (stored == FREE) {
+                    return false;
+                }
+            }
+        }
+
+        /**
+         * Stores a key in the first free slot of its probe sequence, unless it is already stored.
+         *
+         * @param key The key, other than {@link #FREE}.
+         * @return {@code true} if the key was stored.
+         */
+        private boolean insert(long key) {
+            for (int slot = home(key); ; slot = (slot + 1) & mask) {
+                long stored = get(slot);
+                if (stored == key) {
+                    return false;
+                }
+                if (stored == FREE) {
+                    set(slot, key);
+                    count++;
+                    return true;
+                }
+            }
+        }
+    }
+}
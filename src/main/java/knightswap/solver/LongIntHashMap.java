@@ -0,0 +1,325 @@
+package knightswap.solver;
+
+/**
+ * A hash map from primitive {@code long} keys to primitive {@code int} values, used where a search or cache stores
+ * a number, such as a depth or a packed move, for every {@link knightswap.engine.StateRanker} index it meets.
+ * <p>
+ * The table works like the one of {@link LongHashSet}: open addressing with linear probing and Fibonacci hashing,
+ * at a load factor of at most one half, with the key 0 kept in a flag. The values live in a parallel {@code int}
+ * array, so an entry costs 24 bytes at worst instead of the boxed key, boxed value and map node of a
+ * {@link java.util.HashMap}. Resizes are incremental as well: every later insertion moves a few slots of the old
+ * table into the new one, and lookups consult both tables until the old one is drained, the new one first. A key
+ * whose slot has not been moved yet is updated in the old table and moved with its new value.
+ * <p>
+ * Instances are not thread-safe.
+ */
+public final class LongIntHashMap {
+    /**
+     * The number of slots of a table created without a size hint.
+     */
+    private static final int DEFAULT_CAPACITY = 1 << 10;
+
+    /**
+     * The largest number of slots of a table.
+     */
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    /**
+     * The number of slots of the old table moved into the new one on every insertion during a resize.
+     * It drains the old table long before the new one is half full.
+     */
+    private static final int MIGRATION_STEP = 4;
+
+    /**
+     * The key marking a free slot.
+     */
+    private static final long FREE = 0;
+
+    /**
+     * The table receiving new keys.
+     */
+    private Table table;
+
+    /**
+     * The table being drained into {@link #table} during a resize, or {@code null}.
+     */
+    private Table oldTable;
+
+    /**
+     * The number of slots of {@link #oldTable} already moved.
+     */
+    private int migrated;
+
+    /**
+     * Whether the map holds the key {@link #FREE}, which cannot be stored in a table.
+     */
+    private boolean containsFree;
+
+    /**
+     * The value of the key {@link #FREE}, valid while {@link #containsFree} is {@code true}.
+     */
+    private int freeValue;
+
+    /**
+     * The number of keys of the map.
+     */
+    private int size;
+
+    /**
+     * Creates an empty map.
+     */
+    public LongIntHashMap() {
+        this(DEFAULT_CAPACITY / 2);
+    }
+
+    /**
+     * Creates an empty map.
+     *
+     * @param expectedSize The number of keys the map should hold before its first resize.
+     * @throws IllegalArgumentException If {@code expectedSize} is negative or too large.
+     */
+    public LongIntHashMap(int expectedSize) {
+        if (expectedSize < 0 || expectedSize > MAX_CAPACITY / 4) {
+            throw new IllegalArgumentException("Unsupported expected size: " + expectedSize);
+        }
+        this.table = new Table(Math.max(DEFAULT_CAPACITY, Integer.highestOneBit(Math.max(1, expectedSize)) << 2));
+    }
+
+    /**
+     * Tells whether the map holds a key.
+     *
+     * @param key The key to look up.
+     * @return {@code true} if the map holds the key.
+     */
+    public boolean containsKey(long key) {
+        if (key == FREE) {
+            return containsFree;
+        }
+        return table.find(key) >= 0 || oldTable != null && oldTable.find(key) >= 0;
+    }
+
+    /**
+     * Returns the value of a key.
+     *
+     * @param key The key to look up.
+     * @param missing The value returned if the map does not hold the key.
+     * @return The {@code int} value of the key, or {@code missing}.
+     */
+    public int get(long key, int missing) {
+        if (key == FREE) {
+            return containsFree ? freeValue : missing;
+        }
+        int slot = table.find(key);
+        if (slot >= 0) {
+            return table.values[slot];
+        }
+        if (oldTable != null && (slot = oldTable.find(key)) >= 0) {
+            return oldTable.values[slot];
+        }
+        return missing;
+    }
+
+    /**
+     * Stores the value of a key, replacing any earlier value.
+     *
+     * @param key The key.
+     * @param value The value to store.
+     * @throws IllegalStateException If the map already holds as many keys as its largest table can.
+     */
+    public void put(long key, int value) {
+        if (key == FREE) {
+            if (!containsFree) {
+                containsFree = true;
+                size++;
+            }
+            freeValue = value;
+            return;
+        }
+        if (oldTable != null) {
+            int slot = oldTable.find(key);
+            if (slot >= migrated) {
+                oldTable.values[slot] = value;
+                return;
+            }
+            migrate(MIGRATION_STEP);
+        }
+        if (table.capacity() == MAX_CAPACITY && table.count >= MAX_CAPACITY / 16 * 15 && table.find(key) < 0) {
+            throw new IllegalStateException("The hash map is full: " + size + " keys.");
+        }
+        if (!table.put(key, value)) {
+            return;
+        }
+        size++;
+        if (table.count > table.capacity() / 2 && table.capacity() < MAX_CAPACITY) {
+            grow();
+        }
+    }
+
+    /**
+     * Returns the number of keys of the map.
+     *
+     * @return The {@code int} number of keys.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Tells whether the map holds no key.
+     *
+     * @return {@code true} if the map is empty.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of slots of the table receiving new keys.
+     *
+     * @return The {@code int} capacity, a power of two.
+     */
+    public int capacity() {
+        return table.capacity();
+    }
+
+    /**
+     * Tells whether a resize is in progress, with keys still to be moved from the old table.
+     *
+     * @return {@code true} if two tables are in use.
+     */
+    public boolean isResizing() {
+        return oldTable != null;
+    }
+
+    /**
+     * Replaces the table with one of twice the size, to be filled incrementally from the current one.
+     */
+    private void grow() {
+        if (oldTable != null) {
+            migrate(oldTable.capacity());
+        }
+        oldTable = table;
+        migrated = 0;
+        table = new Table(oldTable.capacity() * 2);
+    }
+
+    /**
+     * Moves entries from the old table into the current one, and drops the old table once it is drained.
+     *
+     * @param slots The number of slots of the old table to move.
+     */
+    private void migrate(int slots) {
+        int end = (int) Math.min((long) migrated + slots, oldTable.capacity());
+        for (; migrated < end; migrated++) {
+            long key = oldTable.keys[migrated];
+            if (key != FREE) {
+                table.put(key, oldTable.values[migrated]);
+            }
+        }
+        if (migrated == oldTable.capacity()) {
+            oldTable = null;
+        }
+    }
+
+    /**
+     * A table of slots with linear probing, holding the keys and values in parallel arrays.
+     */
+    private static final class Table {
+        /**
+         * The key of every slot, or {@link #FREE}.
+         */
+        private final long[] keys;
+
+        /**
+         * The value of every occupied slot.
+         */
+        private final int[] values;
+
+        /**
+         * The mask reducing a slot index to the table size.
+         */
+        private final int mask;
+
+        /**
+         * The shift reducing a 64-bit hash to a slot index.
+         */
+        private final int shift;
+
+        /**
+         * The number of occupied slots.
+         */
+        private int count;
+
+        /**
+         * Creates a table of free slots.
+         *
+         * @param capacity The number of slots, a power of two.
+         */
+        private Table(int capacity) {
+            this.keys = new long[capacity];
+            this.values = new int[capacity];
+            this.mask = capacity - 1;
+            this.shift = Long.SIZE - Integer.numberOfTrailingZeros(capacity);
+        }
+
+        /**
+         * Returns the number of slots.
+         *
+         * @return The {@code int} capacity.
+         */
+        private int capacity() {
+            return mask + 1;
+        }
+
+        /**
+         * Returns the first slot probed for a key, by Fibonacci hashing.
+         *
+         * @param key The key.
+         * @return The index of the home slot of the key.
+         */
+        private int home(long key) {
+            return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+        }
+
+        /**
+         * Finds the slot of a key.
+         *
+         * @param key The key, other than {@link #FREE}.
+         * @return The index of the slot holding the key, or -1 if it is not stored.
+         */
+        private int find(long key) {
+            for (int slot = home(key); ; slot = (slot + 1) & mask) {
+                long stored = keys[slot];
+                if (stored == key) {
+                    return slot;
+                }
+                if (stored == FREE) {
+                    return -1;
+                }
+            }
+        }
+
+        /**
+         * Stores the value of a key in its slot, or in the first free slot of its probe sequence.
+         *
+         * @param key The key, other than {@link #FREE}.
+         * @param value The value to store.
+         * @return {@code true} if the key was new to the table.
+         */
+        private boolean put(long key, int value) {
+            for (int slot = home(key); ; slot = (slot + 1) & mask) {
+                long stored = keys[slot];
+                if (stored == key) {
+                    values[slot] = value;
+                    return false;
+                }
+                if (stored == FREE) {
+                    keys[slot] = key;
+                    values[slot] = value;
+                    count++;
+                    return true;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package knightswap.solver;
+
+import knightswap.engine.BitboardKnightSwapState;
+import knightswap.engine.MoveCodec;
+import knightswap.engine.PuzzleDefinition;
+import knightswap.engine.StateRanker;
+import knightswap.utils.Position;
+import org.tinylog.Logger;
+import puzzle.TwoPhaseMoveState;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * All shortest solutions of a position, counted and enumerated without materializing them.
+ * <p>
+ * A breadth-first search from the start stores its layers as sorted arrays of {@link StateRanker} indices
+ * until the layer holding the goal, recognising visited states with a {@link LongHashSet}. A backward pass then
+ * keeps only the states from which the goal is reached in the remaining number of moves, which leaves the
+ * directed acyclic graph formed by all shortest solutions, and counts the solutions through every kept state as
+ * the sum over its kept children. Searching it depth first yields the solutions one at a time, in generation
+ * order, using memory proportional to the solution length.
+ * <p>
+ * States are kept exactly as played, not reduced by symmetry, because mirrored solutions count as distinct.
+ */
+public final class OptimalSolutions implements Iterable<List<TwoPhaseMoveState.TwoPhaseMove<Position>>> {
+    /**
+     * The position the solutions start from.
+     */
+    private final BitboardKnightSwapState start;
+
+    /**
+     * The ranker of the puzzle variant.
+     */
+    private final StateRanker ranker;
+
+    /**
+     * The sorted states of every layer that lie on a shortest solution; empty if there is no solution.
+     */
+    private final List<long[]> layers;
+
+    /**
+     * The number of shortest solutions.
+     */
+    private final BigInteger count;
+
+    /**
+     * The number of states expanded by the search and the backward pass.
+     */
+    private final long nodesExpanded;
+
+    /**
+     * Creates the result of an analysis.
+     *
+     * @param start The {@link BitboardKnightSwapState} the solutions start from.
+     * @param ranker The {@link StateRanker} of the puzzle variant.
+     * @param layers The pruned layers.
+     * @param count The number of shortest solutions.
+     * @param nodesExpanded The number of expanded states.
+     */
+    private OptimalSolutions(BitboardKnightSwapState start, StateRanker ranker, List<long[]> layers, BigInteger count, long nodesExpanded) {
+        this.start = start;
+        this.ranker = ranker;
+        this.layers = layers;
+        this.count = count;
+        this.nodesExpanded = nodesExpanded;
+    }
+
+    /**
+     * Finds all shortest solutions of a position.
+     *
+     * @param start The {@link BitboardKnightSwapState} to analyse. It is not modified.
+     * @return The {@code OptimalSolutions} of {@code start}.
+     * @throws IllegalArgumentException If the puzzle variant has too many states to be ranked.
+     */
+    public static OptimalSolutions of(BitboardKnightSwapState start) {
+        return of(start, SearchMonitor.unlimited());
+    }
+
+    /**
+     * Finds all shortest solutions of a position, reporting the progress of both passes to a monitor.
+     *
+     * @param start The {@link BitboardKnightSwapState} to analyse. It is not modified.
+     * @param monitor The {@link SearchMonitor} receiving the progress and enforcing the limits.
+     * @return The {@code OptimalSolutions} of {@code start}.
+     * @throws IllegalArgumentException If the puzzle variant has too many states to be ranked.
+     * @throws SearchAbortedException If the search was cancelled or reached a limit of {@code monitor}.
+     */
+    public static OptimalSolutions of(BitboardKnightSwapState start, SearchMonitor monitor) {
+        monitor.start();
+        PuzzleDefinition definition = start.getDefinition();
+        StateRanker ranker = new StateRanker(definition);
+        BitboardKnightSwapState state = new BitboardKnightSwapState(definition);
+        int[] moves = new int[definition.getMaxLegalMoves()];
+        LongHashSet visited = LongHashSet.forSearch();
+        List<long[]> layers = new ArrayList<>();
+        long nodesExpanded = 0;
+
+        long startKey = ranker.rank(start);
+        visited.add(startKey);
+        long[] layer = {startKey};
+        long goal = -1;
+        while (layer.length > 0) {
+            layers.add(layer);
+            goal = findGoal(ranker, layer);
+            if (goal >= 0) {
+                break;
+            }
+            long[] next = new long[Math.max(16, layer.length * 2)];
+            int size = 0;
+            for (long key : layer) {
+                state.setPosition(ranker.lightMaskOf(key), ranker.darkMaskOf(key), ranker.playerOf(key));
+                nodesExpanded++;
+                monitor.checkpoint(nodesExpanded, layer.length, visited.size(), layers.size() - 1);
+                int moveCount = state.fillLegalMoves(moves);
+                for (int i = 0; i < moveCount; i++) {
+                    state.makeMove(moves[i]);
+                    long child = ranker.rank(state);
+                    state.unmakeMove();
+                    if (visited.add(child)) {
+                        if (size == next.length) {
+                            next = Arrays.copyOf(next, size * 2);
+                        }
+                        next[size++] = child;
+                    }
+                }
+            }
+            layer = Arrays.copyOf(next, size);
+            Arrays.sort(layer);
+        }
+        if (goal < 0) {
+            Logger.info("No solution found after expanding {} states.", nodesExpanded);
+            return new OptimalSolutions(start.clone(), ranker, List.of(), BigInteger.ZERO, nodesExpanded);
+        }
+
+        layers.set(layers.size() - 1, new long[]{goal});
+        BigInteger[] ways = {BigInteger.ONE};
+        for (int depth = layers.size() - 2; depth >= 0; depth--) {
+            long[] children = layers.get(depth + 1);
+            long[] kept = new long[layers.get(depth).length];
+            BigInteger[] keptWays = new BigInteger[kept.length];
+            int size = 0;
+            for (long key : layers.get(depth)) {
+                state.setPosition(ranker.lightMaskOf(key), ranker.darkMaskOf(key), ranker.playerOf(key));
+                nodesExpanded++;
+                monitor.checkpoint(nodesExpanded, kept.length, visited.size(), depth);
+                BigInteger total = BigInteger.ZERO;
+                int moveCount = state.fillLegalMoves(moves);
+                for (int i = 0; i < moveCount; i++) {
+                    state.makeMove(moves[i]);
+                    int index = Arrays.binarySearch(children, ranker.rank(state));
+                    state.unmakeMove();
+                    if (index >= 0) {
+                        total = total.add(ways[index]);
+                    }
+                }
+                if (total.signum() > 0) {
+                    kept[size] = key;
+                    keptWays[size++] = total;
+                }
+            }
+            layers.set(depth, Arrays.copyOf(kept, size));
+            ways = Arrays.copyOf(keptWays, size);
+        }
+        Logger.info("Found {} shortest solutions of {} moves after expanding {} states.", ways[0], layers.size() - 1, nodesExpanded);
+        return new OptimalSolutions(start.clone(), ranker, List.copyOf(layers), ways[0], nodesExpanded);
+    }
+
+    /**
+     * Finds the goal state in a layer. All states of a layer have the same player to move, so there is at most one.
+     *
+     * @param ranker The {@link StateRanker} of the puzzle variant.
+     * @param layer The sorted states of the layer.
+     * @return The index of the goal state, or -1 if the layer holds none.
+     */
+    private static long findGoal(StateRanker ranker, long[] layer) {
+        PuzzleDefinition definition = ranker.getDefinition();
+        long goal = ranker.rank(definition.getGoalLightMask(), definition.getGoalDarkMask(), ranker.playerOf(layer[0]));
+        return Arrays.binarySearch(layer, goal) >= 0 ? goal : -1;
+    }
+
+    /**
+     * Returns whether the position can be solved.
+     *
+     * @return {@code true} if there is at least one solution.
+     */
+    public boolean isSolvable() {
+        return !layers.isEmpty();
+    }
+
+    /**
+     * Returns the number of moves of the shortest solutions.
+     *
+     * @return The {@code int} solution length, or -1 if the position cannot be solved.
+     */
+    public int getLength() {
+        return layers.size() - 1;
+    }
+
+    /**
+     * Returns the number of shortest solutions.
+     *
+     * @return The {@link BigInteger} count, zero if the position cannot be solved.
+     */
+    public BigInteger getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the number of states expanded by the search and the backward pass.
+     *
+     * @return The {@code long} number of expanded states.
+     */
+    public long getNodesExpanded() {
+        return nodesExpanded;
+    }
+
+    /**
+     * Returns a lazy iterator over the shortest solutions. Each call to {@code next()} computes one more solution.
+     *
+     * @return An {@link Iterator} of move lists, each in playing order.
+     */
+    @Override
+    public Iterator<List<TwoPhaseMoveState.TwoPhaseMove<Position>>> iterator() {
+        return new PathIterator();
+    }
+
+    /**
+     * Returns a lazy sequential stream of the shortest solutions.
+     *
+     * @return A {@link Stream} of move lists, each in playing order.
+     */
+    public Stream<List<TwoPhaseMoveState.TwoPhaseMove<Position>>> stream() {
+        int characteristics = Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE;
+        Spliterator<List<TwoPhaseMoveState.TwoPhaseMove<Position>>> spliterator = count.bitLength() < Long.SIZE
+                ? Spliterators.spliterator(iterator(), count.longValue(), characteristics)
+                : Spliterators.spliteratorUnknownSize(iterator(), characteristics);
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    /**
+     * A depth-first search over the pruned layers, keeping the legal moves of every state on the current path
+     * and the position of the next move to try.
+     */
+    private final class PathIterator implements Iterator<List<TwoPhaseMoveState.TwoPhaseMove<Position>>> {
+        /**
+         * The state at the end of the current path.
+         */
+        private final BitboardKnightSwapState state = start.clone();
+
+        /**
+         * The legal moves of the state at every depth of the current path.
+         */
+        private final int[][] moves;
+
+        /**
+         * The number of legal moves at every depth.
+         */
+        private final int[] moveCounts;
+
+        /**
+         * The position of the move taken (or to try next) at every depth.
+         */
+        private final int[] cursors;
+
+        /**
+         * The number of moves on the current path.
+         */
+        private int depth;
+
+        /**
+         * Whether the current path is a complete solution not yet returned.
+         */
+        private boolean ready;
+
+        /**
+         * Whether all solutions have been returned.
+         */
+        private boolean exhausted;
+
+        /**
+         * Creates an iterator positioned before the first solution.
+         */
+        private PathIterator() {
+            int length = Math.max(0, getLength());
+            int maxMoves = start.getDefinition().getMaxLegalMoves();
+            this.moves = new int[length + 1][maxMoves];
+            this.moveCounts = new int[length + 1];
+            this.cursors = new int[length + 1];
+            this.state.ensureUndoCapacity(length + 1);
+            this.exhausted = !isSolvable();
+            if (!exhausted) {
+                moveCounts[0] = state.fillLegalMoves(moves[0]);
+                ready = length == 0 || advance();
+                exhausted = !ready;
+            }
+        }
+
+        /**
+         * Extends or backtracks the current path until it forms the next complete solution.
+         *
+         * @return {@code false} if there are no more solutions.
+         */
+        private boolean advance() {
+            int length = getLength();
+            while (depth >= 0) {
+                if (depth == length) {
+                    return true;
+                }
+                boolean descended = false;
+                while (cursors[depth] < moveCounts[depth]) {
+                    int move = moves[depth][cursors[depth]];
+                    state.makeMove(move);
+                    if (Arrays.binarySearch(layers.get(depth + 1), ranker.rank(state)) >= 0) {
+                        depth++;
+                        moveCounts[depth] = state.fillLegalMoves(moves[depth]);
+                        cursors[depth] = 0;
+                        descended = true;
+                        break;
+                    }
+                    state.unmakeMove();
+                    cursors[depth]++;
+                }
+                if (!descended) {
+                    if (depth == 0) {
+                        return false;
+                    }
+                    depth--;
+                    state.unmakeMove();
+                    cursors[depth]++;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * @return {@code true} if another solution is available.
+         */
+        @Override
+        public boolean hasNext() {
+            if (!ready && !exhausted) {
+                if (depth == 0) {
+                    exhausted = true;
+                } else {
+                    depth--;
+                    state.unmakeMove();
+                    cursors[depth]++;
+                    ready = advance();
+                    exhausted = !ready;
+                }
+            }
+            return ready;
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * @return The moves of the next solution, in playing order.
+         * @throws NoSuchElementException If all solutions have been returned.
+         */
+        @Override
+        public List<TwoPhaseMoveState.TwoPhaseMove<Position>> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            List<TwoPhaseMoveState.TwoPhaseMove<Position>> path = new ArrayList<>(depth);
+            for (int i = 0; i < depth; i++) {
+                path.add(MoveCodec.toMove(start.getDefinition(), moves[i][cursors[i]]));
+            }
+            ready = false;
+            return List.copyOf(path);
+        }
+    }
+}
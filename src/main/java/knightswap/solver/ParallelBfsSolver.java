@@ -0,0 +1,301 @@
+package knightswap.solver;
+
+import knightswap.engine.BitboardKnightSwapState;
+import knightswap.engine.PuzzleDefinition;
+import knightswap.engine.StateRanker;
+import knightswap.engine.SymmetryGroup;
+import knightswap.tablebase.DeadPositionIndex;
+import knightswap.utils.PieceType;
+import knightswap.utils.Position;
+import org.tinylog.Logger;
+import puzzle.TwoPhaseMoveState;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A level-synchronous parallel breadth-first search solver.
+ * Each layer of the search is split into chunks that are expanded by the tasks of a {@link ForkJoinPool};
+ * the visited orbit representatives under the {@link SymmetryGroup} of the variant are marked in a lock-free
+ * {@link AtomicBitSet} indexed by {@link StateRanker} indices, so every representative is claimed by exactly one task.
+ * Every task sorts the states it visited and merges the sorted halves of its subtasks, so the next layer comes
+ * out sorted, all within the pool, which makes the layers, and therefore the reconstructed path, independent of
+ * thread scheduling.
+ * <p>
+ * The path is rebuilt backward from the goal by {@link CanonicalPaths}: in each layer, the first predecessor move
+ * (in generation order) leading to a representative of the previous layer is chosen.
+ * <p>
+ * Given a {@link DeadPositionIndex}, children from which the goal cannot be reached are dropped before they are
+ * marked visited, and dead start positions are rejected without searching.
+ */
+public class ParallelBfsSolver implements Solver {
+    /**
+     * The largest number of frontier states expanded by one task without splitting it.
+     */
+    private static final int LEAF_SIZE = 512;
+
+    /**
+     * The pool running the expansion tasks.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The index of dead positions pruned from the search, if any.
+     */
+    private final Optional<DeadPositionIndex> deadPositions;
+
+    /**
+     * Creates a solver running on the common {@link ForkJoinPool}.
+     */
+    public ParallelBfsSolver() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a solver running on the given pool.
+     *
+     * @param pool The {@link ForkJoinPool} whose parallelism the search uses.
+     */
+    public ParallelBfsSolver(ForkJoinPool pool) {
+        this.pool = pool;
+        this.deadPositions = Optional.empty();
+    }
+
+    /**
+     * Creates a solver running on the given pool that prunes dead positions.
+     *
+     * @param pool The {@link ForkJoinPool} whose parallelism the search uses.
+     * @param deadPositions The {@link DeadPositionIndex} of the puzzle variant to be solved.
+     */
+    public ParallelBfsSolver(ForkJoinPool pool, DeadPositionIndex deadPositions) {
+        this.pool = pool;
+        this.deadPositions = Optional.of(deadPositions);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param start The {@link BitboardKnightSwapState} to solve. It is not modified.
+     * @param monitor The {@link SearchMonitor} receiving the progress and enforcing the limits, checked once per chunk.
+     * @return An {@link Optional} holding the {@link Solution}, or an empty {@link Optional}
+     * if the goal cannot be reached from {@code start}.
+     * @throws IllegalArgumentException If the puzzle variant has too many states for a bit set,
+     * or the dead-position index belongs to another variant.
+     * @throws SearchAbortedException If the search was cancelled or reached a limit of {@code monitor}.
+     */
+    @Override
+    public Optional<Solution> solve(BitboardKnightSwapState start, SearchMonitor monitor) {
+        monitor.start();
+        PuzzleDefinition definition = start.getDefinition();
+        StateRanker ranker = new StateRanker(definition);
+        SymmetryGroup symmetries = new SymmetryGroup(definition);
+        AtomicBitSet visited = new AtomicBitSet(ranker.getStateCount());
+        LongAdder nodesExpanded = new LongAdder();
+        LongAdder visitedCount = new LongAdder();
+        List<long[]> layers = new ArrayList<>();
+
+        long[] goals = {
+                symmetries.canonicalRank(ranker, definition.getGoalLightMask(), definition.getGoalDarkMask(), PieceType.LIGHT),
+                symmetries.canonicalRank(ranker, definition.getGoalLightMask(), definition.getGoalDarkMask(), PieceType.DARK)
+        };
+        long startKey = symmetries.canonicalRank(ranker, start);
+        deadPositions.ifPresent(index -> index.checkDefinition(definition));
+        if (deadPositions.isPresent() && deadPositions.get().isDead(startKey)) {
+            Logger.info("Parallel BFS found no solution: the start position is dead.");
+            return Optional.empty();
+        }
+        visited.set(startKey);
+        visitedCount.increment();
+        long[] frontier = {startKey};
+        while (frontier.length > 0) {
+            long goal = Arrays.binarySearch(frontier, goals[0]) >= 0 ? goals[0] : goals[1];
+            if (Arrays.binarySearch(frontier, goal) >= 0) {
+                List<TwoPhaseMoveState.TwoPhaseMove<Position>> path = buildPath(symmetries, ranker, layers, start, goal);
+                Logger.info("Parallel BFS found a solution of {} moves after expanding {} states.", path.size(), nodesExpanded.sum());
+                return Optional.of(new Solution(path, nodesExpanded.sum()));
+            }
+            layers.add(frontier);
+            Progress progress = new Progress(monitor, nodesExpanded, visitedCount, layers.size() - 1);
+            frontier = pool.invoke(new ExpandTask(symmetries, ranker, deadPositions, visited, progress, frontier, 0, frontier.length));
+            Logger.debug("Parallel BFS: layer {} has {} states.", layers.size(), frontier.length);
+        }
+        Logger.info("Parallel BFS found no solution after expanding {} states.", nodesExpanded.sum());
+        return Optional.empty();
+    }
+
+    /**
+     * Rebuilds the path to a goal representative found in the layer after the given ones.
+     *
+     * @param symmetries The {@link SymmetryGroup} of the puzzle variant.
+     * @param ranker The {@link StateRanker} of the puzzle variant.
+     * @param layers The sorted layers preceding the goal's layer, starting with the start representative.
+     * @param start The {@link BitboardKnightSwapState} the solution starts from.
+     * @param goal The index of the goal representative.
+     * @return The moves from the start to the goal, in playing order.
+     */
+    private static List<TwoPhaseMoveState.TwoPhaseMove<Position>> buildPath(SymmetryGroup symmetries, StateRanker ranker,
+                                                                          List<long[]> layers, BitboardKnightSwapState start, long goal) {
+        BitboardKnightSwapState state = new BitboardKnightSwapState(ranker.getDefinition());
+        state.setPosition(ranker.lightMaskOf(goal), ranker.darkMaskOf(goal), ranker.playerOf(goal));
+        int[] path = CanonicalPaths.retractToRoot(symmetries, ranker, state, layers.size(),
+                (key, depth) -> Arrays.binarySearch(layers.get(depth), key) >= 0);
+        return CanonicalPaths.mapOnto(symmetries, state, start, path);
+    }
+
+    /**
+     * The shared counters of a layer expansion and the monitor they are reported to.
+     *
+     * @param monitor The {@link SearchMonitor} of the search.
+     * @param nodesExpanded The {@link LongAdder} counting expanded states.
+     * @param visitedCount The {@link LongAdder} counting visited representatives.
+     * @param depth The depth of the layer being expanded.
+     */
+    private record Progress(SearchMonitor monitor, LongAdder nodesExpanded, LongAdder visitedCount, int depth) {
+    }
+
+    /**
+     * Expands a range of the frontier, returning the states it was the first to visit in ascending order.
+     */
+    private static final class ExpandTask extends RecursiveTask<long[]> {
+        /**
+         * The symmetries used to canonicalize the children.
+         */
+        private final SymmetryGroup symmetries;
+
+        /**
+         * The ranker of the puzzle variant.
+         */
+        private final StateRanker ranker;
+
+        /**
+         * The index of dead positions to drop, if any.
+         */
+        private final Optional<DeadPositionIndex> deadPositions;
+
+        /**
+         * The shared visited set.
+         */
+        private final AtomicBitSet visited;
+
+        /**
+         * The shared counters and monitor of the search.
+         */
+        private final Progress progress;
+
+        /**
+         * The current layer.
+         */
+        private final long[] frontier;
+
+        /**
+         * The first index of the range, inclusive.
+         */
+        private final int from;
+
+        /**
+         * The last index of the range, exclusive.
+         */
+        private final int to;
+
+        /**
+         * Creates a task expanding {@code frontier[from..to)}.
+         *
+         * @param symmetries The {@link SymmetryGroup} of the puzzle variant.
+         * @param ranker The {@link StateRanker} of the puzzle variant.
+         * @param deadPositions An {@link Optional} {@link DeadPositionIndex} of positions to drop.
+         * @param visited The shared {@link AtomicBitSet} of visited states.
+         * @param progress The shared {@link Progress} of the search.
+         * @param frontier The current layer.
+         * @param from The first index of the range, inclusive.
+         * @param to The last index of the range, exclusive.
+         */
+        private ExpandTask(SymmetryGroup symmetries, StateRanker ranker, Optional<DeadPositionIndex> deadPositions,
+                           AtomicBitSet visited, Progress progress, long[] frontier, int from, int to) {
+            this.symmetries = symmetries;
+            this.ranker = ranker;
+            this.deadPositions = deadPositions;
+            this.visited = visited;
+            this.progress = progress;
+            this.frontier = frontier;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Expands the range directly when it is small, otherwise splits it in half and merges the halves' results.
+         *
+         * @return The newly visited states of the range, sorted.
+         */
+        @Override
+        protected long[] compute() {
+            if (to - from <= LEAF_SIZE) {
+                return expand();
+            }
+            int middle = (from + to) >>> 1;
+            ExpandTask left = new ExpandTask(symmetries, ranker, deadPositions, visited, progress, frontier, from, middle);
+            left.fork();
+            long[] right = new ExpandTask(symmetries, ranker, deadPositions, visited, progress, frontier, middle, to).compute();
+            return merge(left.join(), right);
+        }
+
+        /**
+         * Merges two sorted arrays of states. The arrays share no state, since every state is claimed by one task.
+         *
+         * @param first The first sorted array.
+         * @param second The second sorted array.
+         * @return The sorted array holding the states of both.
+         */
+        private static long[] merge(long[] first, long[] second) {
+            long[] merged = new long[first.length + second.length];
+            int i = 0;
+            int j = 0;
+            for (int k = 0; k < merged.length; k++) {
+                merged[k] = j == second.length || (i < first.length && first[i] < second[j]) ? first[i++] : second[j++];
+            }
+            return merged;
+        }
+
+        /**
+         * Generates the successors of every state of the range and keeps the representatives not visited before.
+         *
+         * @return The newly visited states, sorted.
+         * @throws SearchAbortedException If the search was cancelled or reached a limit.
+         */
+        private long[] expand() {
+            progress.monitor().check(progress.nodesExpanded().sum(), frontier.length, progress.visitedCount().sum(), progress.depth());
+            BitboardKnightSwapState state = new BitboardKnightSwapState(ranker.getDefinition());
+            int[] moves = new int[ranker.getDefinition().getMaxLegalMoves()];
+            long[] children = new long[Math.max(16, (to - from) * 2)];
+            int size = 0;
+            for (int i = from; i < to; i++) {
+                long key = frontier[i];
+                state.setPosition(ranker.lightMaskOf(key), ranker.darkMaskOf(key), ranker.playerOf(key));
+                int count = state.fillLegalMoves(moves);
+                for (int j = 0; j < count; j++) {
+                    state.makeMove(moves[j]);
+                    long child = symmetries.canonicalRank(ranker, state.getLightMask(), state.getDarkMask(), state.getCurrentPlayer());
+                    state.unmakeMove();
+                    if (deadPositions.isPresent() && deadPositions.get().isDead(child)) {
+                        continue;
+                    }
+                    if (visited.set(child)) {
+                        if (size == children.length) {
+                            children = Arrays.copyOf(children, size * 2);
+                        }
+                        children[size++] = child;
+                    }
+                }
+            }
+            progress.nodesExpanded().add(to - from);
+            progress.visitedCount().add(size);
+            long[] result = Arrays.copyOf(children, size);
+            Arrays.sort(result);
+            return result;
+        }
+    }
+}
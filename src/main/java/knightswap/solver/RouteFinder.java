@@ -0,0 +1,166 @@
+package knightswap.solver;
+
+import knightswap.cache.RouteCache;
+import knightswap.engine.BitboardKnightSwapState;
+import knightswap.engine.KnightSwapBoard;
+import knightswap.engine.MoveCodec;
+import knightswap.engine.PuzzleDefinition;
+import knightswap.engine.StateRanker;
+import knightswap.utils.Position;
+import org.tinylog.Logger;
+import puzzle.TwoPhaseMoveState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Finds shortest routes between two arbitrary positions of a puzzle variant, for instance back to a checkpoint
+ * of a game rather than on to the goal.
+ * <p>
+ * A query first follows the next moves stored in its {@link RouteCache} from the start position. If they lead to
+ * the target, no search is needed; otherwise the remaining route, from the last position reached, is found by
+ * {@link BidirectionalBfsSolver#solve(BitboardKnightSwapState, BitboardKnightSwapState, SearchMonitor)}, and stored
+ * in the cache so that later queries to the same target from any position along it are answered at once.
+ * Instances are thread-safe, so one finder and its cache can serve the console and the GUI alike.
+ */
+public final class RouteFinder {
+    /**
+     * The cache of routes found so far.
+     */
+    private final RouteCache cache;
+
+    /**
+     * The solver searching the routes missing from the cache.
+     */
+    private final BidirectionalBfsSolver solver = new BidirectionalBfsSolver();
+
+    /**
+     * The number of queries answered without searching.
+     */
+    private final LongAdder cacheHits = new LongAdder();
+
+    /**
+     * The number of queries that needed a search.
+     */
+    private final LongAdder cacheMisses = new LongAdder();
+
+    /**
+     * Creates a finder with a cache of its own.
+     */
+    public RouteFinder() {
+        this(new RouteCache());
+    }
+
+    /**
+     * Creates a finder sharing the given cache.
+     *
+     * @param cache The {@link RouteCache} consulted and filled by the queries.
+     */
+    public RouteFinder(RouteCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Finds a shortest route between two positions, without any search limit.
+     *
+     * @param from The {@link KnightSwapBoard} holding the position to start from. It is not modified.
+     * @param to The {@link KnightSwapBoard} holding the position to reach. It is not modified.
+     * @return An {@link Optional} holding the {@link Solution} leading from {@code from} to {@code to},
+     * or an empty {@link Optional} if {@code to} cannot be reached from {@code from}.
+     * @throws IllegalArgumentException If the positions belong to different puzzle variants.
+     */
+    public Optional<Solution> findRoute(KnightSwapBoard from, KnightSwapBoard to) {
+        return findRoute(from, to, SearchMonitor.unlimited());
+    }
+
+    /**
+     * Finds a shortest route between two positions.
+     *
+     * @param from The {@link KnightSwapBoard} holding the position to start from. It is not modified.
+     * @param to The {@link KnightSwapBoard} holding the position to reach. It is not modified.
+     * @param monitor The {@link SearchMonitor} receiving the progress and enforcing the limits of the search, if any.
+     * @return An {@link Optional} holding the {@link Solution} leading from {@code from} to {@code to},
+     * or an empty {@link Optional} if {@code to} cannot be reached from {@code from}.
+     * @throws IllegalArgumentException If the positions belong to different puzzle variants.
+     * @throws SearchAbortedException If the search was cancelled or reached a limit of {@code monitor}.
+     */
+    public Optional<Solution> findRoute(KnightSwapBoard from, KnightSwapBoard to, SearchMonitor monitor) {
+        PuzzleDefinition definition = from.getDefinition();
+        if (!definition.equals(to.getDefinition())) {
+            throw new IllegalArgumentException("The start and target positions belong to different puzzle variants.");
+        }
+        StateRanker ranker = new StateRanker(definition);
+        long target = ranker.rank(to);
+        BitboardKnightSwapState state = new BitboardKnightSwapState(definition, from);
+        long position = ranker.rank(state);
+        List<TwoPhaseMoveState.TwoPhaseMove<Position>> route = new ArrayList<>();
+        while (position != target) {
+            OptionalInt next = cache.nextMove(position, target);
+            if (next.isEmpty()) {
+                break;
+            }
+            if (next.getAsInt() == RouteCache.UNREACHABLE) {
+                cacheHits.increment();
+                Logger.debug("Route cache: the target cannot be reached.");
+                return Optional.empty();
+            }
+            route.add(MoveCodec.toMove(definition, next.getAsInt()));
+            state.makeMove(next.getAsInt());
+            position = ranker.rank(state.getLightMask(), state.getDarkMask(), state.getCurrentPlayer());
+        }
+        if (position == target) {
+            cacheHits.increment();
+            Logger.debug("Route of {} moves answered by the route cache.", route.size());
+            return Optional.of(new Solution(route, 0));
+        }
+
+        cacheMisses.increment();
+        Optional<Solution> rest = solver.solve(state, new BitboardKnightSwapState(definition, to), monitor);
+        if (rest.isEmpty()) {
+            cache.putUnreachable(position, target);
+            return Optional.empty();
+        }
+        List<TwoPhaseMoveState.TwoPhaseMove<Position>> found = rest.get().moves();
+        long[] positions = new long[found.size()];
+        int[] moves = new int[found.size()];
+        for (int i = 0; i < moves.length; i++) {
+            positions[i] = ranker.rank(state.getLightMask(), state.getDarkMask(), state.getCurrentPlayer());
+            moves[i] = MoveCodec.fromMove(definition, found.get(i));
+            state.makeMove(moves[i]);
+        }
+        cache.putRoute(target, positions, moves);
+        route.addAll(found);
+        Logger.info("Route of {} moves found, {} of them from the route cache.", route.size(), route.size() - found.size());
+        return Optional.of(new Solution(route, rest.get().nodesExpanded()));
+    }
+
+    /**
+     * Returns the cache consulted by this finder.
+     *
+     * @return The {@link RouteCache} of this finder.
+     */
+    public RouteCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Returns the number of queries answered from the cache, without searching.
+     *
+     * @return The {@code long} number of hits.
+     */
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    /**
+     * Returns the number of queries that needed a search.
+     *
+     * @return The {@code long} number of misses.
+     */
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+}
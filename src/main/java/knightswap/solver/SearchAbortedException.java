@@ -0,0 +1,68 @@
+package knightswap.solver;
+
+/**
+ * Thrown by a {@link Solver} when its search was cancelled or exceeded one of its {@link SearchLimits}.
+ */
+public class SearchAbortedException extends RuntimeException {
+    /**
+     * The reasons a search can be stopped for.
+     */
+    public enum Reason {
+        /**
+         * {@link SearchMonitor#cancel()} was called.
+         */
+        CANCELLED,
+        /**
+         * The time limit was reached.
+         */
+        TIME_LIMIT,
+        /**
+         * The node limit was reached.
+         */
+        NODE_LIMIT,
+        /**
+         * The memory limit was reached.
+         */
+        MEMORY_LIMIT
+    }
+
+    /**
+     * Why the search was stopped.
+     */
+    private final Reason reason;
+
+    /**
+     * The state of the search when it was stopped.
+     */
+    private final transient SearchProgress progress;
+
+    /**
+     * Creates an exception for a stopped search.
+     *
+     * @param reason The {@link Reason} the search was stopped for.
+     * @param progress The {@link SearchProgress} when it was stopped.
+     */
+    public SearchAbortedException(Reason reason, SearchProgress progress) {
+        super("Search stopped (" + reason + ") at " + progress);
+        this.reason = reason;
+        this.progress = progress;
+    }
+
+    /**
+     * Returns why the search was stopped.
+     *
+     * @return The {@link Reason}.
+     */
+    public Reason getReason() {
+        return reason;
+    }
+
+    /**
+     * Returns the state of the search when it was stopped.
+     *
+     * @return The last {@link SearchProgress}.
+     */
+    public SearchProgress getProgress() {
+        return progress;
+    }
+}
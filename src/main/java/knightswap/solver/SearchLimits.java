@@ -0,0 +1,67 @@
+package knightswap.solver;
+
+import java.time.Duration;
+
+/**
+ * The resource limits of a search, enforced by a {@link SearchMonitor}.
+ * A limit of {@link Long#MAX_VALUE} means that the resource is not limited.
+ *
+ * @param timeLimitMillis The longest time the search may run, in milliseconds.
+ * @param nodeLimit The largest number of states the search may expand.
+ * @param memoryLimitBytes The largest heap use, in bytes, the search may cause.
+ */
+public record SearchLimits(long timeLimitMillis, long nodeLimit, long memoryLimitBytes) {
+    /**
+     * Creates limits, checking that every limit is positive.
+     *
+     * @param timeLimitMillis The longest time the search may run, in milliseconds.
+     * @param nodeLimit The largest number of states the search may expand.
+     * @param memoryLimitBytes The largest heap use, in bytes, the search may cause.
+     * @throws IllegalArgumentException If a limit is not positive.
+     */
+    public SearchLimits {
+        if (timeLimitMillis <= 0 || nodeLimit <= 0 || memoryLimitBytes <= 0) {
+            throw new IllegalArgumentException("Search limits must be positive: " + timeLimitMillis + " ms, "
+                    + nodeLimit + " nodes, " + memoryLimitBytes + " bytes.");
+        }
+    }
+
+    /**
+     * Returns limits that never stop a search.
+     *
+     * @return The unlimited {@code SearchLimits}.
+     */
+    public static SearchLimits unlimited() {
+        return new SearchLimits(Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns a copy of these limits with the given time limit.
+     *
+     * @param timeLimit The {@link Duration} the search may run.
+     * @return The new {@code SearchLimits}.
+     */
+    public SearchLimits withTimeLimit(Duration timeLimit) {
+        return new SearchLimits(timeLimit.toMillis(), nodeLimit, memoryLimitBytes);
+    }
+
+    /**
+     * Returns a copy of these limits with the given node limit.
+     *
+     * @param nodes The largest number of states the search may expand.
+     * @return The new {@code SearchLimits}.
+     */
+    public SearchLimits withNodeLimit(long nodes) {
+        return new SearchLimits(timeLimitMillis, nodes, memoryLimitBytes);
+    }
+
+    /**
+     * Returns a copy of these limits with the given memory limit.
+     *
+     * @param bytes The largest heap use, in bytes, the search may cause.
+     * @return The new {@code SearchLimits}.
+     */
+    public SearchLimits withMemoryLimit(long bytes) {
+        return new SearchLimits(timeLimitMillis, nodeLimit, bytes);
+    }
+}
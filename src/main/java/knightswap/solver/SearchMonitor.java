@@ -0,0 +1,185 @@
+package knightswap.solver;
+
+import java.time.Duration;
+
+/**
+ * Watches a running search: reports its progress to a {@link SolverObserver}, enforces its {@link SearchLimits}
+ * and lets other threads cancel it cooperatively.
+ * <p>
+ * Solvers call {@link #checkpoint} once per expanded state. The call only decrements a counter, compares the
+ * node count with its limit and reads the cancellation flag; every {@value #CHECK_INTERVAL} calls it reads the
+ * clock and the heap, stops the search by throwing a {@link SearchAbortedException} if a limit was reached, and
+ * notifies the observer when the report interval has elapsed, so a time or memory limit is noticed within that
+ * many expansions. Solvers whose units of work are coarser, such as a whole chunk or layer, call {@link #check}
+ * instead, which does the full check every time and may be called from several threads.
+ * <p>
+ * A monitor watches one search at a time; {@link #start()} resets its clock for the next one.
+ */
+public final class SearchMonitor {
+    /**
+     * The default time between two progress reports.
+     */
+    public static final Duration DEFAULT_REPORT_INTERVAL = Duration.ofSeconds(1);
+
+    /**
+     * The number of {@link #checkpoint} calls between two full checks.
+     */
+    static final int CHECK_INTERVAL = 1024;
+
+    /**
+     * The limits enforced on the search.
+     */
+    private final SearchLimits limits;
+
+    /**
+     * The observer receiving the progress reports.
+     */
+    private final SolverObserver observer;
+
+    /**
+     * The time between two progress reports, in nanoseconds.
+     */
+    private final long reportIntervalNanos;
+
+    /**
+     * Whether {@link #cancel()} was called.
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * The {@link System#nanoTime()} when the search started.
+     */
+    private long startNanos;
+
+    /**
+     * The {@link System#nanoTime()} of the last progress report.
+     */
+    private long lastReportNanos;
+
+    /**
+     * The number of {@link #checkpoint} calls left before the next full check.
+     */
+    private int countdown = CHECK_INTERVAL;
+
+    /**
+     * Creates a monitor.
+     *
+     * @param limits The {@link SearchLimits} to enforce.
+     * @param observer The {@link SolverObserver} receiving the progress reports.
+     * @param reportInterval The {@link Duration} between two progress reports.
+     * @throws IllegalArgumentException If {@code reportInterval} is not positive.
+     */
+    public SearchMonitor(SearchLimits limits, SolverObserver observer, Duration reportInterval) {
+        if (reportInterval.isNegative() || reportInterval.isZero()) {
+            throw new IllegalArgumentException("Report interval must be positive: " + reportInterval);
+        }
+        this.limits = limits;
+        this.observer = observer;
+        this.reportIntervalNanos = reportInterval.toNanos();
+        start();
+    }
+
+    /**
+     * Creates a monitor enforcing limits without reporting progress.
+     *
+     * @param limits The {@link SearchLimits} to enforce.
+     */
+    public SearchMonitor(SearchLimits limits) {
+        this(limits, progress -> {}, Duration.ofNanos(Long.MAX_VALUE));
+    }
+
+    /**
+     * Returns a monitor that never stops a search and reports nothing, unless it is cancelled.
+     *
+     * @return A new unlimited {@code SearchMonitor}.
+     */
+    public static SearchMonitor unlimited() {
+        return new SearchMonitor(SearchLimits.unlimited());
+    }
+
+    /**
+     * Returns the limits enforced on the search.
+     *
+     * @return The {@link SearchLimits} of this monitor.
+     */
+    public SearchLimits getLimits() {
+        return limits;
+    }
+
+    /**
+     * Resets the clock of the time limit and of the progress reports. Solvers call it when their search begins.
+     * A cancellation requested earlier is kept.
+     */
+    public synchronized void start() {
+        startNanos = System.nanoTime();
+        lastReportNanos = startNanos;
+        countdown = CHECK_INTERVAL;
+    }
+
+    /**
+     * Asks the search to stop. It throws a {@link SearchAbortedException} at its next checkpoint.
+     * This method may be called from any thread.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Returns whether the search was asked to stop.
+     *
+     * @return {@code true} if {@link #cancel()} was called.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Records the expansion of a state, doing a full {@link #check} every {@value #CHECK_INTERVAL} calls.
+     * It must only be called from the thread running the search.
+     *
+     * @param nodesExpanded The number of states expanded so far.
+     * @param frontierSize The number of states waiting to be expanded.
+     * @param visitedSize The number of states stored by the search.
+     * @param depth The current depth, layer or cost bound of the search.
+     * @throws SearchAbortedException If the search was cancelled or reached a limit.
+     */
+    public void checkpoint(long nodesExpanded, long frontierSize, long visitedSize, int depth) {
+        if (cancelled || nodesExpanded >= limits.nodeLimit() || --countdown <= 0) {
+            countdown = CHECK_INTERVAL;
+            check(nodesExpanded, frontierSize, visitedSize, depth);
+        }
+    }
+
+    /**
+     * Checks the cancellation flag and every limit, and reports the progress if the report interval has elapsed.
+     *
+     * @param nodesExpanded The number of states expanded so far.
+     * @param frontierSize The number of states waiting to be expanded.
+     * @param visitedSize The number of states stored by the search.
+     * @param depth The current depth, layer or cost bound of the search.
+     * @throws SearchAbortedException If the search was cancelled or reached a limit.
+     */
+    public synchronized void check(long nodesExpanded, long frontierSize, long visitedSize, int depth) {
+        long now = System.nanoTime();
+        Runtime runtime = Runtime.getRuntime();
+        SearchProgress progress = new SearchProgress(nodesExpanded, frontierSize, visitedSize, depth,
+                runtime.totalMemory() - runtime.freeMemory(), (now - startNanos) / 1_000_000);
+        SearchAbortedException.Reason reason = null;
+        if (cancelled) {
+            reason = SearchAbortedException.Reason.CANCELLED;
+        } else if (progress.elapsedMillis() >= limits.timeLimitMillis()) {
+            reason = SearchAbortedException.Reason.TIME_LIMIT;
+        } else if (nodesExpanded >= limits.nodeLimit()) {
+            reason = SearchAbortedException.Reason.NODE_LIMIT;
+        } else if (progress.usedHeapBytes() >= limits.memoryLimitBytes()) {
+            reason = SearchAbortedException.Reason.MEMORY_LIMIT;
+        }
+        if (reason != null) {
+            throw new SearchAbortedException(reason, progress);
+        }
+        if (now - lastReportNanos >= reportIntervalNanos) {
+            lastReportNanos = now;
+            observer.onProgress(progress);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package knightswap.solver;
+
+/**
+ * A snapshot of a running search, reported to a {@link SolverObserver}.
+ *
+ * @param nodesExpanded The number of states expanded so far.
+ * @param frontierSize The number of states waiting to be expanded, or the size of the current layer.
+ * @param visitedSize The number of states stored by the search.
+ * @param depth The current depth, layer or cost bound of the search.
+ * @param usedHeapBytes The estimated heap use of the whole process, in bytes.
+ * @param elapsedMillis The time since the search started, in milliseconds.
+ */
+public record SearchProgress(long nodesExpanded, long frontierSize, long visitedSize, int depth,
+                             long usedHeapBytes, long elapsedMillis) {
+    /**
+     * Returns the average expansion rate since the search started.
+     *
+     * @return The number of states expanded per second.
+     */
+    public double nodesPerSecond() {
+        return elapsedMillis == 0 ? 0 : nodesExpanded * 1000.0 / elapsedMillis;
+    }
+
+    /**
+     * Returns a one-line summary, suitable for log messages.
+     *
+     * @return The {@link String} summary.
+     */
+    @Override
+    public String toString() {
+        return String.format("depth %d, %d nodes (%.0f/s), frontier %d, visited %d, heap %d MiB, %d ms",
+                depth, nodesExpanded, nodesPerSecond(), frontierSize, visitedSize, usedHeapBytes >> 20, elapsedMillis);
+    }
+}
@@ -0,0 +1,167 @@
+package knightswap.solver;
+
+import knightswap.engine.MoveCodec;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A search tree stored in parallel primitive arrays instead of linked node objects.
+ * <p>
+ * Every node is identified by its {@code int} position in the tree and holds the packed key of its state
+ * (a {@link knightswap.engine.StateRanker} index), the position of its parent and the {@link MoveCodec packed move}
+ * leading from the parent to it, kept in a {@code short} since moves fit into 12 bits. A node thus takes 14 bytes,
+ * against the state object, parent reference and object headers of a linked node. Nodes are appended in the order
+ * they are discovered, so a breadth-first search can use the tree itself as its queue, and a path is rebuilt by
+ * following the parent positions back to the root.
+ */
+public final class SearchTree {
+    /**
+     * The parent position of a root node.
+     */
+    public static final int NO_PARENT = -1;
+
+    /**
+     * The initial capacity of the arrays.
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * The state keys of the nodes.
+     */
+    private long[] keys = new long[INITIAL_CAPACITY];
+
+    /**
+     * The parent positions of the nodes.
+     */
+    private int[] parents = new int[INITIAL_CAPACITY];
+
+    /**
+     * The packed moves leading to the nodes.
+     */
+    private short[] moves = new short[INITIAL_CAPACITY];
+
+    /**
+     * The number of nodes.
+     */
+    private int size;
+
+    /**
+     * Appends a root node, which has no parent.
+     *
+     * @param key The key of the root state.
+     * @return The {@code int} position of the new node.
+     */
+    public int addRoot(long key) {
+        return add(key, NO_PARENT, 0);
+    }
+
+    /**
+     * Appends a node reached from another one.
+     *
+     * @param key The key of the state of the node.
+     * @param parent The position of the parent node, or {@link #NO_PARENT} for a root.
+     * @param move The packed move leading from the parent's state to this node's state.
+     * @return The {@code int} position of the new node.
+     * @throws IllegalArgumentException If {@code parent} is not a node of this tree.
+     * @throws IllegalStateException If the tree already holds as many nodes as an array can.
+     */
+    public int add(long key, int parent, int move) {
+        if (parent < NO_PARENT || parent >= size) {
+            throw new IllegalArgumentException("No such parent node: " + parent);
+        }
+        if (size == keys.length) {
+            if (size == Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("The search tree is full.");
+            }
+            int capacity = (int) Math.min((long) size * 2, Integer.MAX_VALUE - 8);
+            keys = Arrays.copyOf(keys, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+            moves = Arrays.copyOf(moves, capacity);
+        }
+        keys[size] = key;
+        parents[size] = parent;
+        moves[size] = (short) move;
+        return size++;
+    }
+
+    /**
+     * Returns the number of nodes.
+     *
+     * @return The {@code int} number of nodes of this tree.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the state key of a node.
+     *
+     * @param node The position of the node.
+     * @return The {@code long} key given when the node was added.
+     */
+    public long getKey(int node) {
+        return keys[checkNode(node)];
+    }
+
+    /**
+     * Returns the parent of a node.
+     *
+     * @param node The position of the node.
+     * @return The {@code int} position of the parent node, or {@link #NO_PARENT} for a root.
+     */
+    public int getParent(int node) {
+        return parents[checkNode(node)];
+    }
+
+    /**
+     * Returns the move leading to a node.
+     *
+     * @param node The position of the node.
+     * @return The packed move leading from the parent's state to the node's state; 0 for a root.
+     */
+    public int getMove(int node) {
+        return moves[checkNode(node)];
+    }
+
+    /**
+     * Returns the depth of a node, the number of moves from its root.
+     *
+     * @param node The position of the node.
+     * @return The {@code int} number of ancestors of the node.
+     */
+    public int getDepth(int node) {
+        int depth = 0;
+        for (int current = parents[checkNode(node)]; current != NO_PARENT; current = parents[current]) {
+            depth++;
+        }
+        return depth;
+    }
+
+    /**
+     * Returns the moves leading from the root of a node to the node.
+     *
+     * @param node The position of the node.
+     * @return A new {@code int} array of packed moves in playing order, empty for a root.
+     */
+    public int[] getPath(int node) {
+        int[] path = new int[getDepth(node)];
+        int current = node;
+        for (int i = path.length - 1; i >= 0; i--) {
+            path[i] = moves[current];
+            current = parents[current];
+        }
+        return path;
+    }
+
+    /**
+     * Checks that a position denotes a node of this tree.
+     *
+     * @param node The position to check.
+     * @return The position.
+     * @throws IndexOutOfBoundsException If there is no node at that position.
+     */
+    private int checkNode(int node) {
+        return Objects.checkIndex(node, size);
+    }
+}
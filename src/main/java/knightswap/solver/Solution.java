@@ -0,0 +1,33 @@
+package knightswap.solver;
+
+import knightswap.utils.Position;
+import puzzle.TwoPhaseMoveState;
+
+import java.util.List;
+
+/**
+ * The result of a {@link Solver}: a shortest sequence of moves and the effort spent finding it.
+ *
+ * @param moves The {@link List} of moves leading from the start position to the goal, in playing order.
+ * @param nodesExpanded The {@code long} number of states whose successors or predecessors were generated.
+ */
+public record Solution(List<TwoPhaseMoveState.TwoPhaseMove<Position>> moves, long nodesExpanded) {
+    /**
+     * Creates a solution holding an unmodifiable copy of the given moves.
+     *
+     * @param moves The {@link List} of moves leading from the start position to the goal.
+     * @param nodesExpanded The {@code long} number of expanded states.
+     */
+    public Solution {
+        moves = List.copyOf(moves);
+    }
+
+    /**
+     * Returns the number of moves of the solution.
+     *
+     * @return The {@code int} solution length.
+     */
+    public int length() {
+        return moves.size();
+    }
+}
@@ -0,0 +1,42 @@
+package knightswap.solver;
+
+import knightswap.engine.BitboardKnightSwapState;
+
+import java.util.Optional;
+
+/**
+ * A solver finding a shortest sequence of moves that takes a Knight Swap position to the goal layout
+ * of its {@link knightswap.engine.PuzzleDefinition}.
+ */
+public interface Solver {
+    /**
+     * Searches for a shortest solution of the given position without limits.
+     *
+     * @param start The {@link BitboardKnightSwapState} to solve. It is not modified.
+     * @return An {@link Optional} holding the {@link Solution}, or an empty {@link Optional}
+     * if the goal cannot be reached from {@code start}.
+     */
+    default Optional<Solution> solve(BitboardKnightSwapState start) {
+        return solve(start, SearchMonitor.unlimited());
+    }
+
+    /**
+     * Searches for a shortest solution of the given position under the watch of a monitor.
+     *
+     * @param start The {@link BitboardKnightSwapState} to solve. It is not modified.
+     * @param monitor The {@link SearchMonitor} receiving the progress and enforcing the limits.
+     * @return An {@link Optional} holding the {@link Solution}, or an empty {@link Optional}
+     * if the goal cannot be reached from {@code start}.
+     * @throws SearchAbortedException If the search was cancelled or reached a limit of {@code monitor}.
+     */
+    Optional<Solution> solve(BitboardKnightSwapState start, SearchMonitor monitor);
+
+    /**
+     * Tells whether an empty result proves that the position cannot be solved, rather than that the solver gave up.
+     *
+     * @return {@code true} by default.
+     */
+    default boolean provesUnsolvability() {
+        return true;
+    }
+}
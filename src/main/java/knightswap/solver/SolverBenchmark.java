@@ -0,0 +1,114 @@
+package knightswap.solver;
+
+import knightswap.engine.BitboardKnightSwapState;
+import knightswap.engine.PuzzleDefinition;
+import knightswap.utils.CommandLineOptions;
+import org.tinylog.Logger;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A command-line benchmark of the solvers of this package.
+ * It measures the sequential {@link BreadthFirstSolver} as the baseline, then the {@link ParallelBfsSolver} with a
+ * growing number of threads and the other {@link SolverType solvers}, reporting the speedup of each over the baseline.
+ * <p>
+ * Options: {@code --puzzle <file>} loads a puzzle variant (the classic puzzle by default),
+ * {@code --runs <n>} sets the number of measured runs per configuration (default 5), whose median is reported,
+ * and {@code --warmup <n>} the number of unmeasured runs before them (default 2).
+ * This class cannot be instantiated.
+ */
+public final class SolverBenchmark {
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     */
+    private SolverBenchmark() {}
+
+    /**
+     * The names of the options accepted by {@link #main(String[])}.
+     */
+    private static final Set<String> OPTIONS = Set.of("puzzle", "runs", "warmup");
+
+    /**
+     * The entry point of the benchmark.
+     *
+     * @param args Command line arguments.
+     */
+    public static void main(String[] args) {
+        PuzzleDefinition definition;
+        int runs;
+        int warmup;
+        try {
+            CommandLineOptions options = CommandLineOptions.parse(args, OPTIONS);
+            Optional<String> puzzleFile = options.get("puzzle");
+            definition = puzzleFile.isPresent() ? PuzzleDefinition.load(Path.of(puzzleFile.get())) : PuzzleDefinition.classic();
+            runs = options.getInt("runs", 5);
+            warmup = options.getInt("warmup", 2);
+        } catch (IllegalArgumentException e) {
+            Logger.error("Invalid command line arguments: {}", e.getMessage());
+            return;
+        } catch (IOException e) {
+            Logger.error("Failed to read the puzzle spec: {}", e.getMessage(), e);
+            return;
+        }
+        BitboardKnightSwapState start = new BitboardKnightSwapState(definition);
+
+        System.out.printf("%-22s %10s %12s %14s %8s%n", "Solver", "Length", "Nodes", "Median ms", "Speedup");
+        double sequentialMillis = report(SolverType.BFS.name().toLowerCase(Locale.ROOT), SolverType.BFS.newSolver(),
+                start, runs, warmup, 0);
+        int processors = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; ; threads = Math.min(threads * 2, processors)) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                report("parallel (" + threads + " threads)", new ParallelBfsSolver(pool), start, runs, warmup, sequentialMillis);
+            } finally {
+                pool.shutdown();
+            }
+            if (threads == processors) {
+                break;
+            }
+        }
+        for (SolverType type : SolverType.values()) {
+            if (type != SolverType.BFS && type != SolverType.PARALLEL) {
+                report(type.name().toLowerCase(Locale.ROOT), type.newSolver(), start, runs, warmup, sequentialMillis);
+            }
+        }
+    }
+
+    /**
+     * Measures one solver and prints a line of the result table.
+     *
+     * @param name The {@link String} name printed for the solver.
+     * @param solver The {@link Solver} to measure.
+     * @param start The {@link BitboardKnightSwapState} to solve.
+     * @param runs The number of measured runs.
+     * @param warmup The number of unmeasured runs before the measured ones.
+     * @param baselineMillis The median time of the sequential breadth-first solver, or 0 if not yet known.
+     * @return The median time of the measured runs in milliseconds.
+     */
+    private static double report(String name, Solver solver, BitboardKnightSwapState start, int runs, int warmup, double baselineMillis) {
+        for (int i = 0; i < warmup; i++) {
+            solver.solve(start);
+        }
+        double[] millis = new double[Math.max(1, runs)];
+        Optional<Solution> solution = Optional.empty();
+        for (int i = 0; i < millis.length; i++) {
+            long startTime = System.nanoTime();
+            solution = solver.solve(start);
+            millis[i] = (System.nanoTime() - startTime) / 1e6;
+        }
+        Arrays.sort(millis);
+        double median = millis[millis.length / 2];
+        System.out.printf("%-22s %10s %12s %14.2f %8s%n", name,
+                solution.map(s -> String.valueOf(s.length())).orElse("-"),
+                solution.map(s -> String.valueOf(s.nodesExpanded())).orElse("-"),
+                median,
+                baselineMillis > 0 ? String.format("%.2fx", baselineMillis / median) : "1.00x");
+        return median;
+    }
+}
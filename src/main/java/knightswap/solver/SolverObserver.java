@@ -0,0 +1,15 @@
+package knightswap.solver;
+
+/**
+ * Receives the progress of a search at the interval set on its {@link SearchMonitor}.
+ * It is called on the thread running the search, so it should return quickly.
+ */
+@FunctionalInterface
+public interface SolverObserver {
+    /**
+     * Receives a snapshot of the search.
+     *
+     * @param progress The current {@link SearchProgress}.
+     */
+    void onProgress(SearchProgress progress);
+}
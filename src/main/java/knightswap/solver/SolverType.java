@@ -0,0 +1,81 @@
+package knightswap.solver;
+
+import knightswap.tablebase.DeadPositionIndex;
+
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Enumerates the solvers of this package, so that they can be selected by name on the command line.
+ */
+public enum SolverType {
+    /**
+     * The {@link BreadthFirstSolver}, a forward breadth-first search storing a compact {@link SearchTree}.
+     */
+    BFS,
+    /**
+     * The {@link BidirectionalBfsSolver}, searching forward from the start and backward from the goal.
+     */
+    BIDIRECTIONAL,
+    /**
+     * The {@link AStarSolver}, guided by the {@link KnightDistanceHeuristic}.
+     */
+    ASTAR,
+    /**
+     * The {@link IdaStarSolver}, an iterative-deepening search pruned by the {@link KnightDistanceHeuristic}.
+     */
+    IDASTAR,
+    /**
+     * The {@link ParallelBfsSolver}, a level-synchronous breadth-first search on the common fork-join pool.
+     */
+    PARALLEL,
+    /**
+     * The {@link ExternalBfsSolver}, a breadth-first search keeping its layers on disk, with the default
+     * work directory and memory budget.
+     */
+    EXTERNAL;
+
+    /**
+     * Creates a new solver of this type.
+     *
+     * @return A new {@link Solver}.
+     */
+    public Solver newSolver() {
+        return switch (this) {
+            case BFS -> new BreadthFirstSolver();
+            case BIDIRECTIONAL -> new BidirectionalBfsSolver();
+            case ASTAR -> new AStarSolver();
+            case IDASTAR -> new IdaStarSolver();
+            case PARALLEL -> new ParallelBfsSolver();
+            case EXTERNAL -> new ExternalBfsSolver();
+        };
+    }
+
+    /**
+     * Creates a new solver of this type that prunes the positions of a {@link DeadPositionIndex}.
+     *
+     * @param deadPositions The {@link DeadPositionIndex} of the puzzle variant to be solved.
+     * @return A new {@link Solver}.
+     */
+    public Solver newSolver(DeadPositionIndex deadPositions) {
+        return switch (this) {
+            case BFS -> new BreadthFirstSolver(deadPositions);
+            case BIDIRECTIONAL -> new BidirectionalBfsSolver(deadPositions);
+            case ASTAR -> new AStarSolver(deadPositions);
+            case IDASTAR -> new IdaStarSolver(IdaStarSolver.DEFAULT_MAX_DEPTH, deadPositions);
+            case PARALLEL -> new ParallelBfsSolver(ForkJoinPool.commonPool(), deadPositions);
+            case EXTERNAL -> new ExternalBfsSolver(ExternalBfsSolver.DEFAULT_WORK_DIRECTORY, ExternalBfsSolver.DEFAULT_MEMORY_BUDGET, deadPositions);
+        };
+    }
+
+    /**
+     * Parses a solver name case-insensitively.
+     *
+     * @param name The {@link String} name of the solver (e.g. {@code "bidirectional"}).
+     * @return The matching {@code SolverType}.
+     * @throws IllegalArgumentException If no solver has the given name.
+     */
+    public static SolverType fromName(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,257 @@
+package knightswap.solver;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams ascending state keys to and from files, storing each key as the unsigned LEB128 varint of its
+ * difference from the previous key. The keys of a dense search layer differ by a few units, so most take one
+ * or two bytes instead of eight. Both directions go through a {@link FileChannel} and one fixed-size buffer,
+ * so the memory used does not depend on the size of the file. This class cannot be instantiated.
+ */
+final class SortedKeyFile {
+    /**
+     * The size of the buffer of every reader and writer in bytes.
+     */
+    static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     */
+    private SortedKeyFile() {}
+
+    /**
+     * Writes ascending keys to a new file.
+     */
+    static final class Writer implements Closeable {
+        /**
+         * The channel of the file being written.
+         */
+        private final FileChannel channel;
+
+        /**
+         * The buffer collecting encoded keys.
+         */
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        /**
+         * The last key written, or -1 before the first one.
+         */
+        private long previous = -1;
+
+        /**
+         * The number of keys written.
+         */
+        private long count;
+
+        /**
+         * Creates or truncates a file and opens it for writing.
+         *
+         * @param file The {@link Path} of the file.
+         * @throws IOException If the file cannot be opened.
+         */
+        Writer(Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        /**
+         * Appends a key.
+         *
+         * @param key The key to write; it must be greater than the previous key.
+         * @throws IOException If the file cannot be written.
+         * @throws IllegalArgumentException If the key is negative or not greater than the previous key.
+         */
+        void write(long key) throws IOException {
+            if (key <= previous) {
+                throw new IllegalArgumentException("Keys must be written in strictly ascending order: " + key);
+            }
+            long delta = key - previous - 1;
+            previous = key;
+            count++;
+            if (buffer.remaining() < 10) {
+                flush();
+            }
+            while ((delta & ~0x7FL) != 0) {
+                buffer.put((byte) ((delta & 0x7F) | 0x80));
+                delta >>>= 7;
+            }
+            buffer.put((byte) delta);
+        }
+
+        /**
+         * Returns the number of keys written so far.
+         *
+         * @return The {@code long} count.
+         */
+        long getCount() {
+            return count;
+        }
+
+        /**
+         * Writes the buffered bytes to the channel.
+         *
+         * @throws IOException If the file cannot be written.
+         */
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        /**
+         * Flushes the remaining keys, forces them to the storage device and closes the file.
+         *
+         * @throws IOException If the file cannot be written.
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+                channel.force(false);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Reads the keys of a file in ascending order.
+     */
+    static final class Reader implements Closeable {
+        /**
+         * The channel of the file being read.
+         */
+        private final FileChannel channel;
+
+        /**
+         * The buffer holding bytes read but not yet decoded.
+         */
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        /**
+         * The last key read, or -1 before the first one.
+         */
+        private long previous = -1;
+
+        /**
+         * The next key, valid while {@link #hasNext} is {@code true}.
+         */
+        private long next;
+
+        /**
+         * Whether {@link #next} holds a key.
+         */
+        private boolean hasNext;
+
+        /**
+         * Opens a file for reading and reads its first key.
+         *
+         * @param file The {@link Path} of the file.
+         * @throws IOException If the file cannot be read.
+         */
+        Reader(Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            buffer.flip();
+            advance();
+        }
+
+        /**
+         * Returns whether another key is available.
+         *
+         * @return {@code true} if {@link #peek()} and {@link #next()} may be called.
+         */
+        boolean hasNext() {
+            return hasNext;
+        }
+
+        /**
+         * Returns the next key without consuming it.
+         *
+         * @return The next key.
+         */
+        long peek() {
+            return next;
+        }
+
+        /**
+         * Consumes and returns the next key.
+         *
+         * @return The next key.
+         * @throws IOException If the file cannot be read.
+         */
+        long next() throws IOException {
+            long key = next;
+            advance();
+            return key;
+        }
+
+        /**
+         * Skips the keys smaller than the given one.
+         *
+         * @param key The key to skip to.
+         * @throws IOException If the file cannot be read.
+         */
+        void skipTo(long key) throws IOException {
+            while (hasNext && next < key) {
+                advance();
+            }
+        }
+
+        /**
+         * Decodes the next key, or marks the end of the file.
+         *
+         * @throws IOException If the file cannot be read or ends inside a key.
+         */
+        private void advance() throws IOException {
+            if (!buffer.hasRemaining() && !fill()) {
+                hasNext = false;
+                return;
+            }
+            long delta = 0;
+            for (int shift = 0; ; shift += 7) {
+                if (!buffer.hasRemaining() && !fill()) {
+                    throw new EOFException("Truncated key file.");
+                }
+                byte b = buffer.get();
+                delta |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    break;
+                }
+            }
+            previous += delta + 1;
+            next = previous;
+            hasNext = true;
+        }
+
+        /**
+         * Reads more bytes from the channel into the buffer.
+         *
+         * @return {@code false} if the end of the file was reached.
+         * @throws IOException If the file cannot be read.
+         */
+        private boolean fill() throws IOException {
+            buffer.compact();
+            int read = channel.read(buffer);
+            buffer.flip();
+            return read > 0 || buffer.hasRemaining();
+        }
+
+        /**
+         * Closes the file.
+         *
+         * @throws IOException If the file cannot be closed.
+         */
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package knightswap.solver;
+
+import knightswap.engine.BitboardKnightSwapState;
+import knightswap.engine.MoveCodec;
+import knightswap.tablebase.Tablebase;
+import knightswap.utils.Position;
+import org.tinylog.Logger;
+import puzzle.TwoPhaseMoveState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A solver that reads a shortest solution out of a {@link Tablebase} without searching.
+ * From every position it plays the first legal move (in generation order) leading to a position one move
+ * closer to the goal, so only the states along the solution are expanded.
+ */
+public class TablebaseSolver implements Solver {
+    /**
+     * The tablebase the distances are read from.
+     */
+    private final Tablebase tablebase;
+
+    /**
+     * Creates a solver reading the given tablebase.
+     *
+     * @param tablebase The {@link Tablebase} of the puzzle variant to solve.
+     */
+    public TablebaseSolver(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param start The {@link BitboardKnightSwapState} to solve. It is not modified.
+     * @param monitor The {@link SearchMonitor} receiving the progress and enforcing the limits.
+     * @return An {@link Optional} holding the {@link Solution}, or an empty {@link Optional}
+     * if the goal cannot be reached from {@code start}.
+     * @throws IllegalArgumentException If {@code start} belongs to another puzzle variant than the tablebase.
+     * @throws SearchAbortedException If the search was cancelled or reached a limit of {@code monitor}.
+     */
+    @Override
+    public Optional<Solution> solve(BitboardKnightSwapState start, SearchMonitor monitor) {
+        monitor.start();
+        if (!start.getDefinition().equals(tablebase.getDefinition())) {
+            throw new IllegalArgumentException("The position belongs to another puzzle variant than the tablebase.");
+        }
+        int distance = tablebase.distance(start);
+        if (distance == Tablebase.UNSOLVABLE) {
+            Logger.info("The tablebase marks the position as unsolvable.");
+            return Optional.empty();
+        }
+        BitboardKnightSwapState state = start.clone();
+        state.ensureUndoCapacity(distance + 1);
+        List<TwoPhaseMoveState.TwoPhaseMove<Position>> path = new ArrayList<>(distance);
+        for (int move = tablebase.bestMove(state); move != Tablebase.NO_MOVE; move = tablebase.bestMove(state)) {
+            monitor.checkpoint(path.size() + 1, 1, 0, path.size());
+            path.add(MoveCodec.toMove(start.getDefinition(), move));
+            state.makeMove(move);
+        }
+        Logger.info("Tablebase solver found a solution of {} moves.", path.size());
+        return Optional.of(new Solution(path, path.size()));
+    }
+}
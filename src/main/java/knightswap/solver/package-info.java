@@ -0,0 +1,9 @@
+/**
+ * Provides the Knight Swap puzzle solvers built on the bitboard engine of {@link knightswap.engine}.
+ * Every solver implements the {@link knightswap.solver.Solver} interface, returns its result as a
+ * {@link knightswap.solver.Solution}, and can be selected by name through {@link knightswap.solver.SolverType}.
+ * A running search reports its progress to, and can be limited or cancelled through, a
+ * {@link knightswap.solver.SearchMonitor}.
+ * The {@link knightswap.solver.RouteFinder} connects two arbitrary positions instead of a position and the goal.
+ */
+package knightswap.solver;
@@ -0,0 +1,231 @@
+package knightswap.tablebase;
+
+import knightswap.engine.BitboardKnightSwapState;
+import knightswap.engine.KnightSwapBoard;
+import knightswap.engine.PuzzleDefinition;
+import knightswap.engine.StateRanker;
+import knightswap.engine.Symmetry;
+import knightswap.engine.SymmetryGroup;
+import knightswap.utils.PieceType;
+import org.tinylog.Logger;
+
+import java.util.Arrays;
+
+/**
+ * The set of dead positions of a puzzle variant: those from which the goal can never be reached, including every
+ * position whose player to move has no legal move.
+ * <p>
+ * The index is built by backward reachability from the goal layout (with either player to move), following the
+ * moves backward with {@link BitboardKnightSwapState#fillPredecessorMoves(int[])} like {@link Tablebase#build}, but
+ * without recording distances; only the orbit representatives under the {@link SymmetryGroup} are expanded, and
+ * every image of a reached position is marked. One bit is stored per {@link StateRanker} index, and a lookup is a
+ * single bit test, without the canonicalization a tablebase lookup needs. Because dead positions are closed under
+ * the symmetries, the index answers for plain and canonical indices alike, so solvers can test the keys they
+ * already compute.
+ * Instances are immutable and thread-safe.
+ */
+public final class DeadPositionIndex {
+    /**
+     * The puzzle variant whose positions are covered.
+     */
+    private final PuzzleDefinition definition;
+
+    /**
+     * The ranker mapping positions to bits.
+     */
+    private final StateRanker ranker;
+
+    /**
+     * The bits of the dead positions, 64 per word, indexed by {@link StateRanker} index.
+     */
+    private final long[] deadBits;
+
+    /**
+     * The number of dead positions.
+     */
+    private final long deadCount;
+
+    /**
+     * Creates an index over the given bits.
+     *
+     * @param definition The {@link PuzzleDefinition} whose positions are covered.
+     * @param ranker The {@link StateRanker} of the variant.
+     * @param deadBits The bits of the dead positions.
+     */
+    private DeadPositionIndex(PuzzleDefinition definition, StateRanker ranker, long[] deadBits) {
+        this.definition = definition;
+        this.ranker = ranker;
+        this.deadBits = deadBits;
+        this.deadCount = Arrays.stream(deadBits).map(Long::bitCount).sum();
+    }
+
+    /**
+     * Computes the dead positions of a puzzle variant by backward reachability from the goal.
+     *
+     * @param definition The {@link PuzzleDefinition} whose positions are analysed.
+     * @return The new {@code DeadPositionIndex}.
+     * @throws IllegalArgumentException If the variant has too many states for an in-memory index.
+     */
+    public static DeadPositionIndex build(PuzzleDefinition definition) {
+        StateRanker ranker = new StateRanker(definition);
+        if (!ranker.isArrayIndexable()) {
+            throw new IllegalArgumentException("Too many states for a dead-position index: " + ranker.getStateCount());
+        }
+        long startTime = System.nanoTime();
+        long[] live = new long[wordCount(ranker.getStateCount())];
+        SymmetryGroup symmetries = new SymmetryGroup(definition);
+        int[] queue = new int[16];
+        int tail = 0;
+        for (PieceType player : PieceType.values()) {
+            int goal = (int) symmetries.canonicalRank(ranker, definition.getGoalLightMask(), definition.getGoalDarkMask(), player);
+            if (!isSet(live, goal)) {
+                markOrbit(live, ranker, symmetries, ranker.lightMaskOf(goal), ranker.darkMaskOf(goal), ranker.playerOf(goal));
+                queue[tail++] = goal;
+            }
+        }
+
+        BitboardKnightSwapState state = new BitboardKnightSwapState(definition);
+        int[] moves = new int[definition.getMaxLegalMoves()];
+        for (int head = 0; head < tail; head++) {
+            int index = queue[head];
+            state.setPosition(ranker.lightMaskOf(index), ranker.darkMaskOf(index), ranker.playerOf(index));
+            int count = state.fillPredecessorMoves(moves);
+            for (int i = 0; i < count; i++) {
+                state.retractMove(moves[i]);
+                long light = state.getLightMask();
+                long dark = state.getDarkMask();
+                PieceType player = state.getCurrentPlayer();
+                state.unmakeMove();
+                int predecessor = (int) symmetries.canonicalRank(ranker, light, dark, player);
+                if (isSet(live, predecessor)) {
+                    continue;
+                }
+                markOrbit(live, ranker, symmetries, light, dark, player);
+                if (tail == queue.length) {
+                    queue = Arrays.copyOf(queue, tail * 2);
+                }
+                queue[tail++] = predecessor;
+            }
+        }
+
+        long[] dead = new long[live.length];
+        for (int word = 0; word < live.length; word++) {
+            dead[word] = ~live[word];
+        }
+        int spare = (int) (ranker.getStateCount() % Long.SIZE);
+        if (spare != 0) {
+            dead[dead.length - 1] &= (1L << spare) - 1;
+        }
+        DeadPositionIndex index = new DeadPositionIndex(definition, ranker, dead);
+        Logger.info("Dead-position index of {} states built in {} ms. Dead states: {}.",
+                ranker.getStateCount(), (System.nanoTime() - startTime) / 1_000_000, index.deadCount);
+        return index;
+    }
+
+    /**
+     * Derives the dead positions from a tablebase, which marks them as {@link Tablebase#UNSOLVABLE}.
+     *
+     * @param tablebase The {@link Tablebase} of the puzzle variant.
+     * @return The new {@code DeadPositionIndex}.
+     */
+    public static DeadPositionIndex fromTablebase(Tablebase tablebase) {
+        StateRanker ranker = tablebase.getRanker();
+        long[] dead = new long[wordCount(ranker.getStateCount())];
+        for (long index = 0; index < ranker.getStateCount(); index++) {
+            if (tablebase.distance(index) == Tablebase.UNSOLVABLE) {
+                dead[(int) (index >>> 6)] |= 1L << index;
+            }
+        }
+        return new DeadPositionIndex(tablebase.getDefinition(), ranker, dead);
+    }
+
+    /**
+     * Marks every image of a position under the symmetries of its variant.
+     *
+     * @param bits The bits being marked.
+     * @param ranker The {@link StateRanker} of the variant.
+     * @param symmetries The {@link SymmetryGroup} of the variant.
+     * @param lightMask The mask of the light knights.
+     * @param darkMask The mask of the dark knights.
+     * @param player The {@link PieceType} of the player to move.
+     */
+    private static void markOrbit(long[] bits, StateRanker ranker, SymmetryGroup symmetries,
+                                  long lightMask, long darkMask, PieceType player) {
+        for (Symmetry symmetry : symmetries.getSymmetries()) {
+            long image = ranker.rank(symmetry.mapLightMask(lightMask, darkMask), symmetry.mapDarkMask(lightMask, darkMask),
+                    symmetry.mapPlayer(player));
+            bits[(int) (image >>> 6)] |= 1L << image;
+        }
+    }
+
+    /**
+     * Tells whether a bit is set.
+     *
+     * @param bits The bits to test.
+     * @param index The index of the bit.
+     * @return {@code true} if the bit is set.
+     */
+    private static boolean isSet(long[] bits, long index) {
+        return (bits[(int) (index >>> 6)] & (1L << index)) != 0;
+    }
+
+    /**
+     * Returns the number of words holding one bit per state.
+     *
+     * @param stateCount The number of states.
+     * @return The {@code int} number of words.
+     */
+    private static int wordCount(long stateCount) {
+        return (int) ((stateCount + Long.SIZE - 1) / Long.SIZE);
+    }
+
+    /**
+     * Returns the puzzle variant whose positions are covered.
+     *
+     * @return The {@link PuzzleDefinition} of this index.
+     */
+    public PuzzleDefinition getDefinition() {
+        return definition;
+    }
+
+    /**
+     * Checks that this index covers the positions of a puzzle variant, before a search relies on it.
+     *
+     * @param other The {@link PuzzleDefinition} of the positions to be tested.
+     * @throws IllegalArgumentException If this index belongs to another variant.
+     */
+    public void checkDefinition(PuzzleDefinition other) {
+        if (!definition.equals(other)) {
+            throw new IllegalArgumentException("The dead-position index belongs to another puzzle variant.");
+        }
+    }
+
+    /**
+     * Returns the number of dead positions.
+     *
+     * @return The {@code long} number of positions from which the goal cannot be reached.
+     */
+    public long getDeadCount() {
+        return deadCount;
+    }
+
+    /**
+     * Tells whether the position with the given index is dead.
+     *
+     * @param index The {@link StateRanker} index of the position, plain or canonical.
+     * @return {@code true} if the goal cannot be reached from the position.
+     */
+    public boolean isDead(long index) {
+        return isSet(deadBits, index);
+    }
+
+    /**
+     * Tells whether the position held by a board is dead.
+     *
+     * @param board The {@link KnightSwapBoard} of this index's puzzle variant.
+     * @return {@code true} if the goal cannot be reached from the position.
+     */
+    public boolean isDead(KnightSwapBoard board) {
+        return isDead(ranker.rank(board));
+    }
+}
@@ -0,0 +1,154 @@
+package knightswap.tablebase;
+
+import knightswap.KnightSwapState;
+import knightswap.engine.StateRanker;
+import knightswap.utils.PieceType;
+import org.tinylog.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Generates random start positions of a puzzle variant with a requested optimal solution length.
+ * <p>
+ * Instead of generating positions and solving them, the generator samples from the distance layers of a
+ * {@link Tablebase}: the {@link StateRanker} indices of all positions at a given distance, with the requested
+ * player to move, are collected into an array the first time that distance is requested, and every puzzle
+ * is then a single uniform draw from it. All positions are therefore legal and solvable by construction, and
+ * the same seed always yields the same puzzles for the same table. Instances are thread-safe.
+ */
+public final class PuzzleGenerator {
+    /**
+     * The distances of the positions to sample from.
+     */
+    private final Tablebase tablebase;
+
+    /**
+     * The player to move in every generated position.
+     */
+    private final PieceType player;
+
+    /**
+     * The number of positions at every distance with {@link #player} to move.
+     */
+    private final int[] layerSizes;
+
+    /**
+     * The indices of the positions at every distance, filled the first time the distance is requested.
+     */
+    private final int[][] layers;
+
+    /**
+     * Creates a generator of positions with the variant's first player to move.
+     *
+     * @param tablebase The {@link Tablebase} of the puzzle variant.
+     */
+    public PuzzleGenerator(Tablebase tablebase) {
+        this(tablebase, tablebase.getDefinition().getFirstPlayer());
+    }
+
+    /**
+     * Creates a generator of positions with the given player to move, counting the size of every distance layer.
+     *
+     * @param tablebase The {@link Tablebase} of the puzzle variant.
+     * @param player The {@link PieceType} of the player to move in every generated position.
+     */
+    public PuzzleGenerator(Tablebase tablebase, PieceType player) {
+        this.tablebase = tablebase;
+        this.player = player;
+        StateRanker ranker = tablebase.getRanker();
+        int[] sizes = new int[256];
+        int maxDistance = -1;
+        for (long index = 0; index < ranker.getStateCount(); index++) {
+            int distance = tablebase.distance(index);
+            if (distance != Tablebase.UNSOLVABLE && ranker.playerOf(index) == player) {
+                sizes[distance]++;
+                maxDistance = Math.max(maxDistance, distance);
+            }
+        }
+        this.layerSizes = Arrays.copyOf(sizes, maxDistance + 1);
+        this.layers = new int[layerSizes.length][];
+        Logger.debug("Puzzle generator created for {} to move, with distances up to {}.", player, maxDistance);
+    }
+
+    /**
+     * Returns the largest distance of any position the generator can produce.
+     *
+     * @return The {@code int} number of moves of the hardest puzzles, or -1 if there are none.
+     */
+    public int getMaxDistance() {
+        return layerSizes.length - 1;
+    }
+
+    /**
+     * Returns the number of distinct positions at a given distance.
+     *
+     * @param distance The number of moves of a shortest solution.
+     * @return The {@code int} number of positions the generator chooses from at that distance.
+     */
+    public int getLayerSize(int distance) {
+        return distance >= 0 && distance < layerSizes.length ? layerSizes[distance] : 0;
+    }
+
+    /**
+     * Generates one position whose shortest solution has the given length.
+     *
+     * @param distance The number of moves of a shortest solution.
+     * @param random The {@link SplittableRandom} drawing the position.
+     * @return A new {@link KnightSwapState} holding the position.
+     * @throws IllegalArgumentException If no position lies at that distance.
+     */
+    public KnightSwapState generate(int distance, SplittableRandom random) {
+        int[] layer = layer(distance);
+        return new KnightSwapState(tablebase.getDefinition(), tablebase.getRanker().unrank(layer[random.nextInt(layer.length)]));
+    }
+
+    /**
+     * Generates positions whose shortest solutions have the given length. The same seed yields the same positions.
+     *
+     * @param distance The number of moves of a shortest solution.
+     * @param count The number of positions to generate; they may repeat.
+     * @param seed The seed of the random draws.
+     * @return A {@link List} of new {@link KnightSwapState} instances, in drawing order.
+     * @throws IllegalArgumentException If {@code count} is negative or no position lies at that distance.
+     */
+    public List<KnightSwapState> generate(int distance, int count, long seed) {
+        if (count < 0) {
+            throw new IllegalArgumentException("The number of puzzles must not be negative: " + count);
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        List<KnightSwapState> puzzles = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            puzzles.add(generate(distance, random));
+        }
+        return puzzles;
+    }
+
+    /**
+     * Returns the indices of the positions at a distance, collecting them on first use.
+     *
+     * @param distance The number of moves of a shortest solution.
+     * @return The ascending {@link StateRanker} indices of the positions.
+     * @throws IllegalArgumentException If no position lies at that distance.
+     */
+    private synchronized int[] layer(int distance) {
+        if (getLayerSize(distance) == 0) {
+            throw new IllegalArgumentException("No position with " + player + " to move is " + distance
+                    + " moves from the goal; the largest distance is " + getMaxDistance() + ".");
+        }
+        if (layers[distance] == null) {
+            StateRanker ranker = tablebase.getRanker();
+            int[] layer = new int[layerSizes[distance]];
+            int size = 0;
+            for (int index = 0; size < layer.length; index++) {
+                if (tablebase.distance(index) == distance && ranker.playerOf(index) == player) {
+                    layer[size++] = index;
+                }
+            }
+            layers[distance] = layer;
+        }
+        return layers[distance];
+    }
+}
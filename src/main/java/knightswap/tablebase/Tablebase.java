@@ -0,0 +1,459 @@
+package knightswap.tablebase;
+
+import knightswap.engine.BitboardKnightSwapState;
+import knightswap.engine.KnightSwapBoard;
+import knightswap.engine.MoveCodec;
+import knightswap.engine.PuzzleDefinition;
+import knightswap.engine.StateRanker;
+import knightswap.engine.SymmetryGroup;
+import knightswap.utils.PieceType;
+import knightswap.utils.Position;
+import org.tinylog.Logger;
+import puzzle.TwoPhaseMoveState;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * A table of the exact distance to the goal of every position of a puzzle variant.
+ * <p>
+ * The table is computed by retrograde analysis: a breadth-first search that starts from the goal layout
+ * (with either player to move) and follows the moves backward with
+ * {@link BitboardKnightSwapState#fillPredecessorMoves(int[])}. It therefore covers every position from which
+ * the goal can be reached, including every solvable position reachable from the start. Only the representatives of
+ * the orbits under the {@link SymmetryGroup} of the variant are expanded and stored: one byte per orbit, holding the
+ * distance in moves or {@code 0xFF} if the goal cannot be reached. The entries are found through a bitmap marking
+ * the representatives among the {@link StateRanker} indices and the number of representatives before every 64 of
+ * them, so a lookup canonicalizes the position, then counts the representatives below it. With the four symmetries
+ * of the classic board this takes about 0.45 bytes per position instead of one; a variant without symmetries keeps
+ * one byte per index and no bitmap.
+ * <p>
+ * Tables are saved to a binary file with a small header identifying the board and goal layout, and are opened
+ * by memory-mapping that file with {@link FileChannel#map}, so a lookup is a single read from the page cache
+ * and the table does not occupy heap memory. Instances are immutable and thread-safe.
+ */
+public final class Tablebase {
+    /**
+     * The distance returned for positions from which the goal cannot be reached.
+     */
+    public static final int UNSOLVABLE = -1;
+
+    /**
+     * The move returned by {@link #bestMove(BitboardKnightSwapState)} when no move leads closer to the goal.
+     */
+    public static final int NO_MOVE = -1;
+
+    /**
+     * The magic number at the start of every tablebase file, the ASCII codes of {@code KSTB}.
+     */
+    private static final int MAGIC = 0x4B535442;
+
+    /**
+     * The version of the file format.
+     */
+    private static final int VERSION = 2;
+
+    /**
+     * The size of the file header in bytes: magic, version, rows, columns, goal masks, state count and entry count.
+     */
+    private static final int HEADER_SIZE = 4 + 4 + 4 + 4 + 8 + 8 + 8 + 8;
+
+    /**
+     * The number of bytes of the representative index per 64 states: a bitmap word and a count.
+     */
+    private static final int INDEX_BYTES_PER_WORD = Long.BYTES + Integer.BYTES;
+
+    /**
+     * The byte stored for positions from which the goal cannot be reached.
+     */
+    private static final byte NO_DISTANCE = (byte) 0xFF;
+
+    /**
+     * The puzzle variant whose positions are covered.
+     */
+    private final PuzzleDefinition definition;
+
+    /**
+     * The ranker mapping positions to table entries.
+     */
+    private final StateRanker ranker;
+
+    /**
+     * The symmetries mapping positions to the representatives of their orbits.
+     */
+    private final SymmetryGroup symmetries;
+
+    /**
+     * The representative index, the bitmap words followed by the counts, empty if every index is a representative.
+     */
+    private final ByteBuffer index;
+
+    /**
+     * The bitmap of the representatives, one bit per {@link StateRanker} index.
+     */
+    private final LongBuffer representatives;
+
+    /**
+     * The number of representatives before every word of the bitmap.
+     */
+    private final IntBuffer counts;
+
+    /**
+     * The distance entries, one byte per representative in index order, starting at position 0.
+     */
+    private final ByteBuffer distances;
+
+    /**
+     * Creates a tablebase over the given entries.
+     *
+     * @param definition The {@link PuzzleDefinition} whose positions are covered.
+     * @param ranker The {@link StateRanker} of the variant.
+     * @param symmetries The {@link SymmetryGroup} of the variant.
+     * @param index The {@link ByteBuffer} holding the representative bitmap and counts, or nothing.
+     * @param distances The {@link ByteBuffer} holding one distance byte per representative.
+     */
+    private Tablebase(PuzzleDefinition definition, StateRanker ranker, SymmetryGroup symmetries, ByteBuffer index,
+                      ByteBuffer distances) {
+        int words = index.capacity() / INDEX_BYTES_PER_WORD;
+        this.definition = definition;
+        this.ranker = ranker;
+        this.symmetries = symmetries;
+        this.index = index;
+        this.representatives = index.slice(0, words * Long.BYTES).asLongBuffer();
+        this.counts = index.slice(words * Long.BYTES, words * Integer.BYTES).asIntBuffer();
+        this.distances = distances;
+    }
+
+    /**
+     * Returns the number of bitmap words the representative index of a variant needs.
+     *
+     * @param ranker The {@link StateRanker} of the variant.
+     * @param symmetries The {@link SymmetryGroup} of the variant.
+     * @return The number of words, or 0 if every index is a representative.
+     */
+    private static int indexWords(StateRanker ranker, SymmetryGroup symmetries) {
+        return symmetries.size() > 1 ? (int) ((ranker.getStateCount() + 63) >>> 6) : 0;
+    }
+
+    /**
+     * Computes the tablebase of a puzzle variant in memory by retrograde analysis.
+     *
+     * @param definition The {@link PuzzleDefinition} whose positions are analysed.
+     * @return The new {@code Tablebase}.
+     * @throws IllegalArgumentException If the variant has too many states for an in-memory table.
+     * @throws IllegalStateException If a position is more than 254 moves from the goal.
+     */
+    public static Tablebase build(PuzzleDefinition definition) {
+        StateRanker ranker = new StateRanker(definition);
+        if (!ranker.isArrayIndexable()) {
+            throw new IllegalArgumentException("Too many states for a tablebase: " + ranker.getStateCount());
+        }
+        long startTime = System.nanoTime();
+        SymmetryGroup symmetries = new SymmetryGroup(definition);
+        int words = indexWords(ranker, symmetries);
+        ByteBuffer representativeIndex = ByteBuffer.allocate(words * INDEX_BYTES_PER_WORD);
+        int representativeCount = words == 0 ? (int) ranker.getStateCount() : 0;
+        for (int word = 0; word < words; word++) {
+            long bits = 0;
+            for (int bit = 0; bit < 64 && ((long) word << 6) + bit < ranker.getStateCount(); bit++) {
+                long position = ((long) word << 6) + bit;
+                if (symmetries.canonicalRank(ranker, ranker.lightMaskOf(position), ranker.darkMaskOf(position),
+                        ranker.playerOf(position)) == position) {
+                    bits |= 1L << bit;
+                }
+            }
+            representativeIndex.putLong(word * Long.BYTES, bits);
+            representativeIndex.putInt(words * Long.BYTES + word * Integer.BYTES, representativeCount);
+            representativeCount += Long.bitCount(bits);
+        }
+        byte[] table = new byte[representativeCount];
+        Arrays.fill(table, NO_DISTANCE);
+        Tablebase tablebase = new Tablebase(definition, ranker, symmetries, representativeIndex, ByteBuffer.wrap(table));
+
+        int[] layer = new int[2];
+        int layerSize = 0;
+        long solvable = 0;
+        for (PieceType player : PieceType.values()) {
+            int goal = (int) symmetries.canonicalRank(ranker, definition.getGoalLightMask(), definition.getGoalDarkMask(), player);
+            int entry = tablebase.entryOf(goal);
+            if (table[entry] == NO_DISTANCE) {
+                table[entry] = 0;
+                solvable++;
+                layer[layerSize++] = goal;
+            }
+        }
+
+        BitboardKnightSwapState state = new BitboardKnightSwapState(definition);
+        int[] moves = new int[definition.getMaxLegalMoves()];
+        for (int distance = 1; layerSize > 0; distance++) {
+            int[] next = new int[Math.max(16, layerSize * 2)];
+            int nextSize = 0;
+            for (int i = 0; i < layerSize; i++) {
+                int index = layer[i];
+                state.setPosition(ranker.lightMaskOf(index), ranker.darkMaskOf(index), ranker.playerOf(index));
+                int count = state.fillPredecessorMoves(moves);
+                for (int j = 0; j < count; j++) {
+                    state.retractMove(moves[j]);
+                    long light = state.getLightMask();
+                    long dark = state.getDarkMask();
+                    PieceType player = state.getCurrentPlayer();
+                    state.unmakeMove();
+                    int predecessor = (int) symmetries.canonicalRank(ranker, light, dark, player);
+                    int entry = tablebase.entryOf(predecessor);
+                    if (table[entry] != NO_DISTANCE) {
+                        continue;
+                    }
+                    if (distance >= (NO_DISTANCE & 0xFF)) {
+                        throw new IllegalStateException("Positions more than 254 moves from the goal cannot be stored.");
+                    }
+                    table[entry] = (byte) distance;
+                    solvable++;
+                    if (nextSize == next.length) {
+                        next = Arrays.copyOf(next, nextSize * 2);
+                    }
+                    next[nextSize++] = predecessor;
+                }
+            }
+            layer = next;
+            layerSize = nextSize;
+        }
+        Logger.info("Tablebase of {} states ({} orbits) built in {} ms. Solvable orbits: {}.",
+                ranker.getStateCount(), table.length, (System.nanoTime() - startTime) / 1_000_000, solvable);
+        return tablebase;
+    }
+
+    /**
+     * Returns the entry of an orbit representative: the number of representatives with a smaller index.
+     *
+     * @param representative The {@link StateRanker} index of the representative.
+     * @return The position of its distance byte.
+     */
+    private int entryOf(long representative) {
+        if (representatives.capacity() == 0) {
+            return (int) representative;
+        }
+        int word = (int) (representative >>> 6);
+        long below = representatives.get(word) & ((1L << (representative & 63)) - 1);
+        return counts.get(word) + Long.bitCount(below);
+    }
+
+    /**
+     * Opens a tablebase file by memory-mapping it.
+     *
+     * @param file The {@link Path} of the tablebase file.
+     * @param definition The {@link PuzzleDefinition} the table must belong to.
+     * @return The mapped {@code Tablebase}.
+     * @throws IOException If the file cannot be read, is not a tablebase, or belongs to another board or goal layout.
+     */
+    public static Tablebase open(Path file, PuzzleDefinition definition) throws IOException {
+        StateRanker ranker = new StateRanker(definition);
+        SymmetryGroup symmetries = new SymmetryGroup(definition);
+        int words = indexWords(ranker, symmetries);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE + (long) words * INDEX_BYTES_PER_WORD) {
+                throw new IOException("Unexpected tablebase file size: " + channel.size());
+            }
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (mapped.getInt() != MAGIC || mapped.getInt() != VERSION) {
+                throw new IOException("Not a tablebase file: " + file);
+            }
+            if (mapped.getInt() != definition.getRows() || mapped.getInt() != definition.getCols()
+                    || mapped.getLong() != definition.getGoalLightMask() || mapped.getLong() != definition.getGoalDarkMask()
+                    || mapped.getLong() != ranker.getStateCount()) {
+                throw new IOException("The tablebase file " + file + " belongs to another puzzle variant.");
+            }
+            long entryCount = mapped.getLong();
+            int indexSize = words * INDEX_BYTES_PER_WORD;
+            if (channel.size() != HEADER_SIZE + indexSize + entryCount) {
+                throw new IOException("Unexpected tablebase file size: " + channel.size());
+            }
+            ByteBuffer index = mapped.slice(HEADER_SIZE, indexSize);
+            if (words > 0 && index.getInt(words * Long.BYTES + (words - 1) * Integer.BYTES)
+                    + Long.bitCount(index.getLong((words - 1) * Long.BYTES)) != entryCount) {
+                throw new IOException("The representative index of " + file + " does not match its entries.");
+            }
+            Logger.info("Tablebase file {} mapped ({} states, {} orbits).", file, ranker.getStateCount(), entryCount);
+            return new Tablebase(definition, ranker, symmetries, index, mapped.slice(HEADER_SIZE + indexSize, (int) entryCount));
+        }
+    }
+
+    /**
+     * Opens a tablebase file, or builds the tablebase and saves it to that file first if it does not exist
+     * or was written in an earlier version of the file format.
+     *
+     * @param file The {@link Path} of the tablebase file.
+     * @param definition The {@link PuzzleDefinition} the table belongs to.
+     * @return The mapped {@code Tablebase}.
+     * @throws IOException If the file cannot be written or read.
+     */
+    public static Tablebase openOrBuild(Path file, PuzzleDefinition definition) throws IOException {
+        if (Files.notExists(file)) {
+            Logger.info("Tablebase file {} not found, running the retrograde analysis.", file);
+            build(definition).save(file);
+        } else if (isOutdated(file)) {
+            Logger.info("Tablebase file {} has an older format, running the retrograde analysis.", file);
+            build(definition).save(file);
+        }
+        return open(file, definition);
+    }
+
+    /**
+     * Tells whether a file is a tablebase written in an earlier version of the file format.
+     *
+     * @param file The {@link Path} of the tablebase file.
+     * @return {@code true} if the file starts with the tablebase magic and an older version number.
+     * @throws IOException If the file cannot be read.
+     */
+    private static boolean isOutdated(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            ByteBuffer start = ByteBuffer.wrap(in.readNBytes(2 * Integer.BYTES));
+            return start.remaining() == 2 * Integer.BYTES && start.getInt() == MAGIC && start.getInt() < VERSION;
+        }
+    }
+
+    /**
+     * Saves this tablebase to a file. The file is written next to its final location and then moved into place,
+     * so readers never see a partially written table.
+     *
+     * @param file The {@link Path} of the tablebase file.
+     * @throws IOException If the file cannot be written.
+     */
+    public void save(Path file) throws IOException {
+        Path absolute = file.toAbsolutePath();
+        Path temporary = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(definition.getRows()).putInt(definition.getCols())
+                    .putLong(definition.getGoalLightMask()).putLong(definition.getGoalDarkMask()).putLong(ranker.getStateCount())
+                    .putLong(distances.capacity());
+            header.flip();
+            ByteBuffer indexBody = index.duplicate();
+            indexBody.clear();
+            ByteBuffer body = distances.duplicate();
+            body.clear();
+            while (header.hasRemaining() || indexBody.hasRemaining() || body.hasRemaining()) {
+                channel.write(new ByteBuffer[]{header, indexBody, body});
+            }
+        }
+        Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING);
+        Logger.info("Tablebase saved to {}.", file);
+    }
+
+    /**
+     * Returns the puzzle variant whose positions are covered.
+     *
+     * @return The {@link PuzzleDefinition} of this table.
+     */
+    public PuzzleDefinition getDefinition() {
+        return definition;
+    }
+
+    /**
+     * Returns the ranker mapping positions to table entries.
+     *
+     * @return The {@link StateRanker} of this table.
+     */
+    public StateRanker getRanker() {
+        return ranker;
+    }
+
+    /**
+     * Returns the number of distances stored, one per orbit representative.
+     *
+     * @return The {@code int} number of entries.
+     */
+    public int getEntryCount() {
+        return distances.capacity();
+    }
+
+    /**
+     * Returns the distance to the goal of the position with the given index.
+     *
+     * @param index The {@link StateRanker} index of the position, which need not be a representative.
+     * @return The number of moves of a shortest solution, or {@link #UNSOLVABLE}.
+     */
+    public int distance(long index) {
+        return distance(ranker.lightMaskOf(index), ranker.darkMaskOf(index), ranker.playerOf(index));
+    }
+
+    /**
+     * Returns the distance to the goal of the position held by a board.
+     *
+     * @param board The {@link KnightSwapBoard} of this table's puzzle variant.
+     * @return The number of moves of a shortest solution, or {@link #UNSOLVABLE}.
+     */
+    public int distance(KnightSwapBoard board) {
+        return representativeDistance(symmetries.canonicalRank(ranker, board));
+    }
+
+    /**
+     * Returns the distance to the goal of a position given by its masks.
+     *
+     * @param lightMask The mask of the light knights.
+     * @param darkMask The mask of the dark knights.
+     * @param player The {@link PieceType} of the player to move.
+     * @return The number of moves of a shortest solution, or {@link #UNSOLVABLE}.
+     */
+    private int distance(long lightMask, long darkMask, PieceType player) {
+        return representativeDistance(symmetries.canonicalRank(ranker, lightMask, darkMask, player));
+    }
+
+    /**
+     * Returns the distance to the goal of an orbit.
+     *
+     * @param representative The {@link StateRanker} index of the orbit's representative.
+     * @return The number of moves of a shortest solution, or {@link #UNSOLVABLE}.
+     */
+    private int representativeDistance(long representative) {
+        int entry = distances.get(entryOf(representative)) & 0xFF;
+        return entry == (NO_DISTANCE & 0xFF) ? UNSOLVABLE : entry;
+    }
+
+    /**
+     * Finds an optimal move of a position: the first legal move, in generation order, leading to a position
+     * one move closer to the goal. Only the successors of the position are looked up, so no search is needed.
+     *
+     * @param state The {@link BitboardKnightSwapState} of this table's puzzle variant. It is left unchanged.
+     * @return The packed move (see {@link MoveCodec}), or {@link #NO_MOVE} if the position is solved or unsolvable.
+     */
+    public int bestMove(BitboardKnightSwapState state) {
+        int distance = distance(state.getLightMask(), state.getDarkMask(), state.getCurrentPlayer());
+        if (distance == UNSOLVABLE || distance == 0) {
+            return NO_MOVE;
+        }
+        int[] moves = new int[definition.getMaxLegalMoves()];
+        int count = state.fillLegalMoves(moves);
+        for (int i = 0; i < count; i++) {
+            state.makeMove(moves[i]);
+            int childDistance = distance(state.getLightMask(), state.getDarkMask(), state.getCurrentPlayer());
+            state.unmakeMove();
+            if (childDistance == distance - 1) {
+                return moves[i];
+            }
+        }
+        return NO_MOVE;
+    }
+
+    /**
+     * Suggests an optimal move for a position held by any engine, as chosen by {@link #bestMove(BitboardKnightSwapState)}.
+     *
+     * @param board The {@link KnightSwapBoard} of this table's puzzle variant. It is not modified.
+     * @return An {@link Optional} holding the suggested move, or an empty {@link Optional}
+     * if the position is solved or unsolvable.
+     */
+    public Optional<TwoPhaseMoveState.TwoPhaseMove<Position>> hint(KnightSwapBoard board) {
+        int move = bestMove(new BitboardKnightSwapState(definition, board));
+        return move == NO_MOVE ? Optional.empty() : Optional.of(MoveCodec.toMove(definition, move));
+    }
+}
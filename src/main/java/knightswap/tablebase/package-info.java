@@ -0,0 +1,9 @@
+/**
+ * Provides precomputed knowledge about every position of a Knight Swap puzzle variant.
+ * The {@link knightswap.tablebase.Tablebase} stores the exact distance of each position to the goal,
+ * computed once by retrograde analysis and kept in a memory-mapped file with one entry per symmetry orbit,
+ * located through {@link knightswap.engine.StateRanker} indices. The {@link knightswap.tablebase.PuzzleGenerator} samples random
+ * puzzles of a requested difficulty from its distance layers, and the {@link knightswap.tablebase.DeadPositionIndex}
+ * holds one bit per position telling whether the goal can still be reached, for the solvers to prune with.
+ */
+package knightswap.tablebase;
@@ -0,0 +1,128 @@
+package knightswap.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Parses the command line arguments of the console entry points.
+ * Options are given as {@code --name value}, {@code --name=value} or as a bare {@code --name} flag,
+ * which is treated as having the value {@code "true"}. Each entry point passes the names of the options it knows,
+ * so a mistyped option is reported instead of being silently ignored.
+ */
+public final class CommandLineOptions {
+    /**
+     * The option values keyed by option name, without the leading dashes.
+     */
+    private final Map<String, String> values;
+
+    /**
+     * Creates a new {@code CommandLineOptions} instance from already parsed values.
+     *
+     * @param values The option values keyed by option name (without the leading dashes).
+     */
+    private CommandLineOptions(Map<String, String> values) {
+        this.values = values;
+    }
+
+    /**
+     * Parses the given command line arguments.
+     *
+     * @param args The command line arguments.
+     * @param knownNames The names of the options the entry point accepts, without the leading dashes.
+     * @return The parsed {@code CommandLineOptions}.
+     * @throws IllegalArgumentException If an argument is not an option (does not start with {@code --}),
+     * or names an option that is not in {@code knownNames}.
+     */
+    public static CommandLineOptions parse(String[] args, Set<String> knownNames) {
+        Map<String, String> values = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--") || arg.length() == 2) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            String name = arg.substring(2);
+            int separator = name.indexOf('=');
+            String optionName = separator >= 0 ? name.substring(0, separator) : name;
+            if (!knownNames.contains(optionName)) {
+                throw new IllegalArgumentException("Unknown option: --" + optionName);
+            }
+            if (separator >= 0) {
+                values.put(optionName, name.substring(separator + 1));
+            } else if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                values.put(name, args[++i]);
+            } else {
+                values.put(name, "true");
+            }
+        }
+        return new CommandLineOptions(values);
+    }
+
+    /**
+     * Checks whether the given option was specified.
+     *
+     * @param name The {@link String} name of the option.
+     * @return {@code true} if the option is present, {@code false} otherwise.
+     */
+    public boolean has(String name) {
+        return values.containsKey(name);
+    }
+
+    /**
+     * Returns the value of the given option.
+     *
+     * @param name The {@link String} name of the option.
+     * @return An {@link Optional} containing the value, or an empty {@link Optional} if the option is absent.
+     */
+    public Optional<String> get(String name) {
+        return Optional.ofNullable(values.get(name));
+    }
+
+    /**
+     * Returns the value of the given option, or a default value if it is absent.
+     *
+     * @param name The {@link String} name of the option.
+     * @param defaultValue The value returned when the option is absent.
+     * @return The {@link String} value of the option.
+     */
+    public String get(String name, String defaultValue) {
+        return values.getOrDefault(name, defaultValue);
+    }
+
+    /**
+     * Returns the value of the given option as an {@code int}, or a default value if it is absent.
+     *
+     * @param name The {@link String} name of the option.
+     * @param defaultValue The value returned when the option is absent.
+     * @return The {@code int} value of the option.
+     * @throws IllegalArgumentException If the value is not a valid integer.
+     */
+    public int getInt(String name, int defaultValue) {
+        long value = getLong(name, defaultValue);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Option --" + name + " is out of range: " + value);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Returns the value of the given option as a {@code long}, or a default value if it is absent.
+     *
+     * @param name The {@link String} name of the option.
+     * @param defaultValue The value returned when the option is absent.
+     * @return The {@code long} value of the option.
+     * @throws IllegalArgumentException If the value is not a valid integer.
+     */
+    public long getLong(String name, long defaultValue) {
+        String value = values.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Option --" + name + " expects a number but got: " + value, e);
+        }
+    }
+}
@@ -1,11 +1,11 @@
 package knightswap.utils;
 
 /**
- * Represents a position on a 4x3 chessboard using immutable row and column coordinates.
+ * Represents a position on the chessboard using immutable row and column coordinates.
  * Provides validation for coordinates and a method to check for valid knight moves.
  *
- * @param row The {@code int} row coordinate (0-3).
- * @param col The {@code int} column coordinate (0-2).
+ * @param row The {@code int} row coordinate (0-3 on the classic 4x3 board).
+ * @param col The {@code int} column coordinate (0-2 on the classic 4x3 board).
  */
 public record Position(int row, int col) {
     /**
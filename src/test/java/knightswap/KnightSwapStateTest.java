@@ -1,5 +1,6 @@
 package knightswap;
 
+import knightswap.engine.PuzzleDefinition;
 import knightswap.utils.PieceType;
 import knightswap.utils.Position;
 import org.junit.jupiter.api.BeforeEach;
@@ -10,6 +11,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -81,6 +83,27 @@ class KnightSwapStateTest {
         assertTrue(solvedState.isSolved());
     }
 
+    @Test
+    void testCustomPuzzleDefinition() {
+        PuzzleDefinition definition = PuzzleDefinition.fromLayouts(
+                List.of("D...", "....", "...L"), List.of("...D", "....", "L..."), PieceType.DARK);
+        KnightSwapState state = new KnightSwapState(definition);
+
+        assertEquals(3, state.getRows());
+        assertEquals(4, state.getCols());
+        assertEquals(PieceType.DARK.getSymbol(), state.getPieceAt(0, 0));
+        assertEquals(PieceType.LIGHT.getSymbol(), state.getPieceAt(2, 3));
+        assertEquals(PieceType.DARK, state.getCurrentPlayer());
+        assertFalse(state.isSolved());
+
+        state.board[0][0] = '.';
+        state.board[2][3] = '.';
+        state.board[0][3] = PieceType.DARK.getSymbol();
+        state.board[2][0] = PieceType.LIGHT.getSymbol();
+        assertTrue(state.isSolved());
+        assertNotEquals(new KnightSwapState(), state);
+    }
+
     @Test
     void testIsSolvedPartiallySolvedState() {
         KnightSwapState partialSolvedState = new KnightSwapState();
@@ -139,6 +162,21 @@ class KnightSwapStateTest {
         assertTrue(expectedMoves.containsAll(initialState.getLegalMoves()));
     }
 
+    @Test
+    void testZobristKeyIsMaintainedByMoves() {
+        KnightSwapState state = (KnightSwapState) initialState.clone();
+        assertEquals(initialState.zobristKey(), state.zobristKey());
+        assertEquals(initialState.hashCode(), state.hashCode());
+
+        state.makeMove(new TwoPhaseMoveState.TwoPhaseMove<>(new Position(3, 0), new Position(1, 1)));
+        assertNotEquals(initialState.zobristKey(), state.zobristKey());
+        assertNotEquals(initialState, state);
+
+        long incrementalKey = state.zobristKey();
+        state.refreshDerivedState();
+        assertEquals(incrementalKey, state.zobristKey());
+    }
+
     @Test
     void testClone() {
         KnightSwapState clonedState = (KnightSwapState) initialState.clone();
@@ -402,4 +440,15 @@ class KnightSwapStateTest {
         KnightSwapState state = new KnightSwapState();
         assertFalse((boolean) isAttackedMethod.invoke(state, new Position(1, 1), PieceType.DARK));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testCopyConstructor() {
+        initialState.makeMove(new TwoPhaseMoveState.TwoPhaseMove<>(new Position(3, 0), new Position(1, 1)));
+        KnightSwapState copy = new KnightSwapState(PuzzleDefinition.classic(), initialState);
+        assertEquals(initialState, copy);
+        assertEquals(PieceType.DARK, copy.getCurrentPlayer());
+        assertEquals(initialState.zobristKey(), copy.zobristKey());
+        PuzzleDefinition other = PuzzleDefinition.fromLayouts(List.of("D.D", "L.L"), List.of("L.L", "D.D"), PieceType.LIGHT);
+        assertThrows(IllegalArgumentException.class, () -> new KnightSwapState(other, initialState));
+    }
+}
@@ -0,0 +1,102 @@
+package knightswap.batch;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import knightswap.engine.BitboardKnightSwapState;
+import knightswap.engine.PositionNotation;
+import knightswap.engine.PuzzleDefinition;
+import knightswap.solver.BidirectionalBfsSolver;
+import knightswap.solver.IdaStarSolver;
+import knightswap.solver.SearchLimits;
+import knightswap.solver.Solver;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchSolverTest {
+    private static Map<Long, JsonObject> resultsByLine(String output) {
+        Map<Long, JsonObject> results = new HashMap<>();
+        for (String line : output.split("\\R")) {
+            JsonObject result = JsonParser.parseString(line).getAsJsonObject();
+            results.put(result.get("line").getAsLong(), result);
+        }
+        return results;
+    }
+
+    @Test
+    void testEveryPositionProducesOneJsonLine() throws Exception {
+        String start = PositionNotation.format(new BitboardKnightSwapState());
+        String input = "# comment\n" + start + "\n\n" + "DDD/.../.../LLX\n" + start.split(" ")[0] + "\n";
+        StringWriter output = new StringWriter();
+        BatchSolver batch = new BatchSolver(PuzzleDefinition.classic(), BidirectionalBfsSolver::new, 2, 1, SearchLimits.unlimited());
+
+        BatchSolver.Summary summary = batch.run(new BufferedReader(new StringReader(input)), output);
+
+        assertEquals(3, summary.positions());
+        assertEquals(2, summary.solved());
+        assertEquals(0, summary.unsolvable());
+        assertEquals(1, summary.failed());
+        Map<Long, JsonObject> results = resultsByLine(output.toString().trim());
+        assertEquals(3, results.size());
+        JsonObject solved = results.get(2L);
+        assertEquals(start, solved.get("position").getAsString());
+        int distance = solved.get("distance").getAsInt();
+        assertTrue(distance > 0);
+        assertEquals(distance, solved.getAsJsonArray("path").size());
+        assertTrue(solved.get("nodes").getAsLong() > 0);
+        assertFalse(solved.has("error"));
+        assertTrue(results.get(4L).has("error"));
+        assertFalse(results.get(4L).has("distance"));
+        assertEquals(distance, results.get(5L).get("distance").getAsInt());
+    }
+
+    @Test
+    void testStoppedSearchesAndDepthLimitsAreErrors() throws Exception {
+        String start = PositionNotation.format(new BitboardKnightSwapState());
+        StringWriter output = new StringWriter();
+        BatchSolver limited = new BatchSolver(PuzzleDefinition.classic(), BidirectionalBfsSolver::new, 1, 4,
+                SearchLimits.unlimited().withNodeLimit(10));
+        assertEquals(1, limited.run(new BufferedReader(new StringReader(start)), output).failed());
+        JsonObject result = JsonParser.parseString(output.toString().trim()).getAsJsonObject();
+        assertEquals("NODE_LIMIT", result.get("error").getAsString());
+        assertTrue(result.has("nodes"));
+
+        output = new StringWriter();
+        BatchSolver bounded = new BatchSolver(PuzzleDefinition.classic(), () -> new IdaStarSolver(4), 1, 4, SearchLimits.unlimited());
+        BatchSolver.Summary summary = bounded.run(new BufferedReader(new StringReader(start)), output);
+        assertEquals(0, summary.unsolvable());
+        assertEquals(1, summary.failed());
+    }
+
+    @Test
+    void testErrorsInSearchesAreFailures() throws Exception {
+        String start = PositionNotation.format(new BitboardKnightSwapState());
+        StringWriter output = new StringWriter();
+        Solver crashing = (state, monitor) -> {
+            throw new StackOverflowError("too deep");
+        };
+        BatchSolver batch = new BatchSolver(PuzzleDefinition.classic(), () -> crashing, 1, 1, SearchLimits.unlimited());
+
+        BatchSolver.Summary summary = batch.run(new BufferedReader(new StringReader((start + "\n").repeat(5))), output);
+
+        assertEquals(5, summary.positions());
+        assertEquals(5, summary.failed());
+        for (JsonObject result : resultsByLine(output.toString().trim()).values()) {
+            assertTrue(result.get("error").getAsString().contains("StackOverflowError"));
+        }
+    }
+
+    @Test
+    void testInvalidConfigurationIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new BatchSolver(PuzzleDefinition.classic(), BidirectionalBfsSolver::new, 0, 1, SearchLimits.unlimited()));
+        assertThrows(IllegalArgumentException.class,
+                () -> new BatchSolver(PuzzleDefinition.classic(), BidirectionalBfsSolver::new, 1, 0, SearchLimits.unlimited()));
+    }
+}
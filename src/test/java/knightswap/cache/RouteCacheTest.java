@@ -0,0 +1,51 @@
+package knightswap.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.OptionalInt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteCacheTest {
+    @Test
+    void testStoredRouteAnswersEveryPosition() {
+        RouteCache cache = new RouteCache();
+        cache.putRoute(100, new long[]{1, 2, 3}, new int[]{10, 20, 30});
+
+        assertEquals(OptionalInt.of(10), cache.nextMove(1, 100));
+        assertEquals(OptionalInt.of(30), cache.nextMove(3, 100));
+        assertEquals(OptionalInt.empty(), cache.nextMove(1, 200));
+        assertEquals(OptionalInt.empty(), cache.nextMove(4, 100));
+        assertEquals(2, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(1, cache.getTargetCount());
+        assertEquals(3, cache.getEntryCount());
+    }
+
+    @Test
+    void testUnreachable() {
+        RouteCache cache = new RouteCache();
+        cache.putUnreachable(7, 100);
+        assertEquals(OptionalInt.of(RouteCache.UNREACHABLE), cache.nextMove(7, 100));
+    }
+
+    @Test
+    void testLeastRecentlyUsedTargetIsDropped() {
+        RouteCache cache = new RouteCache(2);
+        cache.putRoute(100, new long[]{1}, new int[]{10});
+        cache.putRoute(200, new long[]{2}, new int[]{20});
+        cache.nextMove(1, 100);
+        cache.putRoute(300, new long[]{3}, new int[]{30});
+
+        assertEquals(2, cache.getTargetCount());
+        assertTrue(cache.nextMove(1, 100).isPresent());
+        assertTrue(cache.nextMove(2, 200).isEmpty());
+        assertTrue(cache.nextMove(3, 300).isPresent());
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new RouteCache(0));
+        assertThrows(IllegalArgumentException.class, () -> new RouteCache().putRoute(1, new long[]{2}, new int[0]));
+    }
+}
@@ -0,0 +1,165 @@
+package knightswap.cache;
+
+import knightswap.engine.BitboardKnightSwapState;
+import knightswap.engine.PuzzleDefinition;
+import knightswap.engine.StateRanker;
+import knightswap.engine.Symmetry;
+import knightswap.engine.SymmetryGroup;
+import knightswap.solver.Solution;
+import knightswap.solver.TablebaseSolver;
+import knightswap.tablebase.Tablebase;
+import knightswap.utils.PieceType;
+import knightswap.utils.Position;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import puzzle.TwoPhaseMoveState;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SolutionCacheTest {
+    private static final PuzzleDefinition UNSOLVABLE = PuzzleDefinition.fromLayouts(
+            List.of("...", ".L.", "..D"), List.of("...", ".D.", "..L"), PieceType.LIGHT);
+
+    private static boolean solves(BitboardKnightSwapState start, List<TwoPhaseMoveState.TwoPhaseMove<Position>> moves) {
+        BitboardKnightSwapState state = start.clone();
+        for (TwoPhaseMoveState.TwoPhaseMove<Position> move : moves) {
+            if (!state.isLegalMove(move)) {
+                return false;
+            }
+            state.makeMove(move);
+        }
+        return state.isSolved();
+    }
+
+    @Test
+    void testSymmetricPositionsShareAnEntry() {
+        BitboardKnightSwapState start = new BitboardKnightSwapState();
+        SolutionCache cache = SolutionCache.inMemory(start.getDefinition(), 16);
+        assertTrue(cache.get(start).isEmpty());
+        cache.put(start, Optional.of(new TablebaseSolver(Tablebase.build(start.getDefinition())).solve(start).orElseThrow().moves()));
+
+        for (Symmetry symmetry : new SymmetryGroup(start.getDefinition()).getSymmetries()) {
+            BitboardKnightSwapState image = start.clone();
+            symmetry.apply(image);
+            SolutionCache.Entry entry = cache.get(image).orElseThrow();
+            assertTrue(entry.solvable());
+            assertEquals(22, entry.moves().size());
+            assertTrue(solves(image, entry.moves()), symmetry.getName());
+        }
+        assertEquals(new SymmetryGroup(start.getDefinition()).size(), cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getMemoryEntries());
+    }
+
+    @Test
+    void testUnsolvablePositions() {
+        BitboardKnightSwapState start = new BitboardKnightSwapState(UNSOLVABLE);
+        SolutionCache cache = SolutionCache.inMemory(UNSOLVABLE, 16);
+        cache.put(start, Optional.empty());
+        SolutionCache.Entry entry = cache.get(start).orElseThrow();
+        assertFalse(entry.solvable());
+        assertTrue(entry.moves().isEmpty());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntriesAreEvicted() {
+        PuzzleDefinition classic = PuzzleDefinition.classic();
+        StateRanker ranker = new StateRanker(classic);
+        SolutionCache cache = SolutionCache.inMemory(classic, 2);
+        List<BitboardKnightSwapState> states = new ArrayList<>();
+        for (long index : new long[]{100, 2000, 30000}) {
+            states.add(ranker.unrank(index));
+        }
+        cache.put(states.get(0), Optional.empty());
+        cache.put(states.get(1), Optional.empty());
+        assertTrue(cache.get(states.get(0)).isPresent());
+        cache.put(states.get(2), Optional.empty());
+        assertEquals(2, cache.getMemoryEntries());
+        assertTrue(cache.get(states.get(0)).isPresent());
+        assertTrue(cache.get(states.get(1)).isEmpty());
+    }
+
+    @Test
+    void testFileSurvivesReopeningAndGrowth(@TempDir Path directory) throws IOException {
+        PuzzleDefinition classic = PuzzleDefinition.classic();
+        Tablebase tablebase = Tablebase.build(classic);
+        TablebaseSolver solver = new TablebaseSolver(tablebase);
+        StateRanker ranker = tablebase.getRanker();
+        Path file = directory.resolve("classic.kssc");
+
+        List<BitboardKnightSwapState> stored = new ArrayList<>();
+        try (SolutionCache cache = SolutionCache.open(file, classic, 0)) {
+            for (long index = 0; index < ranker.getStateCount() && stored.size() < 1500; index += 7) {
+                BitboardKnightSwapState state = ranker.unrank(index);
+                if (tablebase.distance(index) != Tablebase.UNSOLVABLE) {
+                    cache.put(state, solver.solve(state).map(Solution::moves));
+                    stored.add(state);
+                }
+            }
+            assertTrue(cache.getDiskEntries() > 0);
+        }
+
+        try (SolutionCache cache = SolutionCache.open(file, classic, 0)) {
+            for (BitboardKnightSwapState state : stored) {
+                SolutionCache.Entry entry = cache.get(state).orElseThrow();
+                assertEquals(tablebase.distance(state), entry.moves().size());
+                assertTrue(solves(state, entry.moves()));
+            }
+            assertEquals(stored.size(), cache.getDiskHits());
+            assertEquals(0, cache.getMisses());
+        }
+    }
+
+    @Test
+    void testGrowsAReopenedFileInPlace(@TempDir Path directory) throws IOException {
+        PuzzleDefinition classic = PuzzleDefinition.classic();
+        StateRanker ranker = new StateRanker(classic);
+        Path file = directory.resolve("classic.kssc");
+        SolutionCache.open(file, classic, 0).close();
+        long initialSize = Files.size(file);
+
+        List<BitboardKnightSwapState> stored = new ArrayList<>();
+        try (SolutionCache cache = SolutionCache.open(file, classic, 0)) {
+            for (long index = 0; cache.getDiskEntries() < 600; index += 11) {
+                BitboardKnightSwapState state = ranker.unrank(index);
+                if (cache.get(state).isEmpty()) {
+                    cache.put(state, Optional.empty());
+                    stored.add(state);
+                }
+            }
+            for (BitboardKnightSwapState state : stored) {
+                assertFalse(cache.get(state).orElseThrow().solvable());
+            }
+        }
+        assertTrue(Files.size(file) > initialSize);
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(List.of(file), files.toList());
+        }
+
+        try (SolutionCache cache = SolutionCache.open(file, classic, 0)) {
+            assertEquals(stored.size(), cache.getDiskEntries());
+            for (BitboardKnightSwapState state : stored) {
+                assertTrue(cache.get(state).isPresent());
+            }
+            assertEquals(0, cache.getMisses());
+        }
+    }
+
+    @Test
+    void testRejectsOtherVariants(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("classic.kssc");
+        SolutionCache.open(file, PuzzleDefinition.classic(), 16).close();
+        assertThrows(IOException.class, () -> SolutionCache.open(file, UNSOLVABLE, 16));
+        SolutionCache cache = SolutionCache.inMemory(PuzzleDefinition.classic(), 16);
+        assertThrows(IllegalArgumentException.class, () -> cache.get(new BitboardKnightSwapState(UNSOLVABLE)));
+        assertThrows(IllegalArgumentException.class, () -> SolutionCache.inMemory(UNSOLVABLE, -1));
+    }
+}
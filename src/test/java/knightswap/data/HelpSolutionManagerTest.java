@@ -0,0 +1,123 @@
+package knightswap.data;
+
+import knightswap.engine.BitboardKnightSwapState;
+import knightswap.engine.PuzzleDefinition;
+import knightswap.solver.BidirectionalBfsSolver;
+import knightswap.solver.SearchLimits;
+import knightswap.solver.SearchMonitor;
+import knightswap.solver.Solution;
+import knightswap.solver.Solver;
+import knightswap.utils.PieceType;
+import knightswap.utils.Position;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import puzzle.TwoPhaseMoveState;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HelpSolutionManagerTest {
+    private static final PuzzleDefinition SMALL = PuzzleDefinition.fromLayouts(
+            List.of("D.D", "...", "...", "L.L"), List.of("L.L", "...", "...", "D.D"), PieceType.DARK);
+
+    private static final class CountingSolver implements Solver {
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public Optional<Solution> solve(BitboardKnightSwapState start, SearchMonitor monitor) {
+            calls.incrementAndGet();
+            return new BidirectionalBfsSolver().solve(start, monitor);
+        }
+    }
+
+    private static void assertSolves(PuzzleDefinition definition, List<TwoPhaseMoveState.TwoPhaseMove<Position>> moves) {
+        BitboardKnightSwapState state = new BitboardKnightSwapState(definition);
+        for (TwoPhaseMoveState.TwoPhaseMove<Position> move : moves) {
+            assertTrue(state.isLegalMove(move), move.toString());
+            state.makeMove(move);
+        }
+        assertTrue(state.isSolved());
+    }
+
+    @Test
+    void testSolutionIsComputedOnceAndReused(@TempDir Path directory) {
+        Path file = directory.resolve("help.json");
+        CountingSolver solver = new CountingSolver();
+        List<TwoPhaseMoveState.TwoPhaseMove<Position>> first = new HelpSolutionManager(file, PuzzleDefinition.classic(), solver)
+                .getSolution().join().moves();
+        assertEquals(22, first.size());
+        assertSolves(PuzzleDefinition.classic(), first);
+        assertTrue(Files.exists(file));
+
+        List<TwoPhaseMoveState.TwoPhaseMove<Position>> second = new HelpSolutionManager(file, PuzzleDefinition.classic(), solver)
+                .getSolution().join().moves();
+        assertEquals(first, second);
+        assertEquals(1, solver.calls.get());
+    }
+
+    @Test
+    void testOtherVariantOrCorruptFileIsRecomputed(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("help.json");
+        CountingSolver solver = new CountingSolver();
+        new HelpSolutionManager(file, PuzzleDefinition.classic(), solver).getSolution().join();
+        List<TwoPhaseMoveState.TwoPhaseMove<Position>> small = new HelpSolutionManager(file, SMALL, solver)
+                .getSolution().join().moves();
+        assertSolves(SMALL, small);
+        assertEquals(2, solver.calls.get());
+
+        Files.writeString(file, Files.readString(file).replaceFirst("\"moves\": \\[\\s*\\d+", "\"moves\": [0"));
+        assertSolves(SMALL, new HelpSolutionManager(file, SMALL, solver).getSolution().join().moves());
+        assertEquals(3, solver.calls.get());
+
+        Files.writeString(file, "not json");
+        assertEquals(HelpSolutionManager.Status.SOLVED, new HelpSolutionManager(file, SMALL, solver).getSolution().join().status());
+        assertEquals(4, solver.calls.get());
+    }
+
+    @Test
+    void testUndecodableMovesAreRecomputed(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("help.json");
+        CountingSolver solver = new CountingSolver();
+        new HelpSolutionManager(file, SMALL, solver).getSolution().join();
+
+        Files.writeString(file, Files.readString(file).replaceFirst("\"moves\": \\[\\s*\\d+", "\"moves\": [4095"));
+        assertSolves(SMALL, new HelpSolutionManager(file, SMALL, solver).getSolution().join().moves());
+        assertEquals(2, solver.calls.get());
+
+        Files.writeString(file, Files.readString(file).replaceFirst("\"moves\": \\[\\s*\\d+", "\"moves\": [null"));
+        assertSolves(SMALL, new HelpSolutionManager(file, SMALL, solver).getSolution().join().moves());
+        assertEquals(3, solver.calls.get());
+    }
+
+    @Test
+    void testSearchStoppedByLimitsIsNotAvailable(@TempDir Path directory) {
+        Path file = directory.resolve("help.json");
+        SearchLimits limits = SearchLimits.unlimited().withNodeLimit(1);
+        HelpSolutionManager.HelpSolution solution = new HelpSolutionManager(file, PuzzleDefinition.classic(),
+                new BidirectionalBfsSolver(), limits).getSolution().join();
+        assertEquals(HelpSolutionManager.Status.NOT_AVAILABLE, solution.status());
+        assertTrue(solution.moves().isEmpty());
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void testUnsolvableVariant(@TempDir Path directory) {
+        PuzzleDefinition unsolvable = PuzzleDefinition.fromLayouts(List.of("...", ".L.", "..D"), List.of("...", ".D.", "..L"), PieceType.LIGHT);
+        assertEquals(HelpSolutionManager.Status.UNSOLVABLE,
+                new HelpSolutionManager(directory.resolve("help.json"), unsolvable).getSolution().join().status());
+        assertEquals(HelpSolutionManager.Status.UNSOLVABLE,
+                new HelpSolutionManager(directory.resolve("help.json"), unsolvable).getSolution().join().status());
+    }
+
+    @Test
+    void testFormat() {
+        List<TwoPhaseMoveState.TwoPhaseMove<Position>> moves = List.of(new TwoPhaseMoveState.TwoPhaseMove<>(new Position(3, 0), new Position(1, 1)));
+        assertEquals("(fromRow, fromCol) -> (toRow, toCol)\n(3, 0) -> (1, 1)\n", HelpSolutionManager.format(moves));
+    }
+}
@@ -0,0 +1,228 @@
+package knightswap.engine;
+
+import knightswap.KnightSwapState;
+import knightswap.utils.PieceType;
+import knightswap.utils.Position;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import puzzle.TwoPhaseMoveState;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BitboardKnightSwapStateTest {
+    private BitboardKnightSwapState initialState;
+
+    @BeforeEach
+    void setUp() {
+        initialState = new BitboardKnightSwapState();
+    }
+
+    @Test
+    void testInitialBoardSetup() {
+        for (int col = 0; col < 3; col++) {
+            assertEquals(PieceType.DARK.getSymbol(), initialState.getPieceAt(0, col));
+            assertEquals('.', initialState.getPieceAt(1, col));
+            assertEquals('.', initialState.getPieceAt(2, col));
+            assertEquals(PieceType.LIGHT.getSymbol(), initialState.getPieceAt(3, col));
+        }
+        assertEquals(PieceType.LIGHT, initialState.getCurrentPlayer());
+        assertFalse(initialState.isSolved());
+    }
+
+    @Test
+    void testGetPieceAtOutOfBounds() {
+        assertThrows(IllegalArgumentException.class, () -> initialState.getPieceAt(-1, 0));
+        assertThrows(IllegalArgumentException.class, () -> initialState.getPieceAt(4, 0));
+        assertThrows(IllegalArgumentException.class, () -> initialState.getPieceAt(0, 3));
+    }
+
+    @Test
+    void testGetLegalMovesInitialState() {
+        Set<TwoPhaseMoveState.TwoPhaseMove<Position>> expectedMoves = new HashSet<>();
+        expectedMoves.add(new TwoPhaseMoveState.TwoPhaseMove<>(new Position(3, 0), new Position(1, 1)));
+        expectedMoves.add(new TwoPhaseMoveState.TwoPhaseMove<>(new Position(3, 2), new Position(1, 1)));
+
+        assertEquals(expectedMoves, initialState.getLegalMoves());
+    }
+
+    @Test
+    void testIsLegalMoveRejectsInvalidMoves() {
+        assertFalse(initialState.isLegalMove(null));
+        assertFalse(initialState.isLegalMove(new TwoPhaseMoveState.TwoPhaseMove<>(new Position(-1, 0), new Position(1, 1))));
+        assertFalse(initialState.isLegalMove(new TwoPhaseMoveState.TwoPhaseMove<>(new Position(0, 0), new Position(2, 1))));
+        assertFalse(initialState.isLegalMove(new TwoPhaseMoveState.TwoPhaseMove<>(new Position(3, 0), new Position(3, 1))));
+        assertFalse(initialState.isLegalMove(new TwoPhaseMoveState.TwoPhaseMove<>(new Position(3, 0), new Position(2, 0))));
+        assertFalse(initialState.isLegalMove(new TwoPhaseMoveState.TwoPhaseMove<>(new Position(3, 1), new Position(1, 2))));
+    }
+
+    @Test
+    void testMakeMoveIllegalMoveLeavesStateUnchanged() {
+        BitboardKnightSwapState before = initialState.clone();
+        TwoPhaseMoveState.TwoPhaseMove<Position> illegalMove = new TwoPhaseMoveState.TwoPhaseMove<>(new Position(0, 0), new Position(1, 2));
+
+        assertThrows(IllegalArgumentException.class, () -> initialState.makeMove(illegalMove));
+        assertEquals(before, initialState);
+    }
+
+    @Test
+    void testCloneIsIndependent() {
+        BitboardKnightSwapState cloned = initialState.clone();
+        assertNotSame(initialState, cloned);
+        assertEquals(initialState, cloned);
+        assertEquals(initialState.hashCode(), cloned.hashCode());
+
+        cloned.makeMove(new TwoPhaseMoveState.TwoPhaseMove<>(new Position(3, 0), new Position(1, 1)));
+        assertNotEquals(initialState, cloned);
+        assertEquals(PieceType.LIGHT.getSymbol(), initialState.getPieceAt(3, 0));
+    }
+
+    @Test
+    void testToStringMatchesArrayEngine() {
+        KnightSwapState arrayState = new KnightSwapState();
+        assertEquals(arrayState.toString(), initialState.toString());
+
+        TwoPhaseMoveState.TwoPhaseMove<Position> move = new TwoPhaseMoveState.TwoPhaseMove<>(new Position(3, 0), new Position(1, 1));
+        arrayState.makeMove(move);
+        initialState.makeMove(move);
+        assertEquals(arrayState.toString(), initialState.toString());
+    }
+
+    @Test
+    void testConversionFromArrayEngine() {
+        KnightSwapState arrayState = new KnightSwapState();
+        arrayState.makeMove(new TwoPhaseMoveState.TwoPhaseMove<>(new Position(3, 2), new Position(1, 1)));
+
+        BitboardKnightSwapState converted = new BitboardKnightSwapState(arrayState);
+        assertEquals(arrayState.toString(), converted.toString());
+        assertEquals(PieceType.DARK, converted.getCurrentPlayer());
+    }
+
+    @Test
+    void testConversionRejectsOtherBoardSize() {
+        PuzzleDefinition wide = PuzzleDefinition.fromLayouts(List.of("D...", "....", "...L"), List.of("...D", "....", "L..."), PieceType.DARK);
+        KnightSwapState other = new KnightSwapState(wide);
+        assertThrows(IllegalArgumentException.class, () -> new BitboardKnightSwapState(other));
+        assertThrows(IllegalArgumentException.class, () -> new BitboardKnightSwapState(PuzzleDefinition.classic(), other));
+    }
+
+    @Test
+    void testSameLegalMovesAsArrayEngineInEveryReachableState() {
+        assertTrue(compareWithArrayEngine(PuzzleDefinition.classic(), Integer.MAX_VALUE) > 1000);
+    }
+
+    @Test
+    void testSameLegalMovesAsArrayEngineOnLargerBoard() {
+        PuzzleDefinition definition = PuzzleDefinition.fromLayouts(
+                List.of("DD.DD", ".....", ".....", ".....", "LL.LL"),
+                List.of("LL.LL", ".....", ".....", ".....", "DD.DD"),
+                PieceType.DARK);
+        assertEquals(2000, compareWithArrayEngine(definition, 2000));
+    }
+
+    @Test
+    void testMakePackedMove() {
+        int[] moves = new int[initialState.getDefinition().getMaxLegalMoves()];
+        int count = initialState.fillLegalMoves(moves);
+        assertEquals(2, count);
+
+        BitboardKnightSwapState expected = initialState.clone();
+        expected.makeMove(MoveCodec.toMove(initialState.getDefinition(), moves[0]));
+        initialState.makeMove(moves[0]);
+        assertEquals(expected, initialState);
+    }
+
+    @Test
+    void testPredecessorMovesInvertLegalMoves() {
+        StateRanker ranker = new StateRanker(PuzzleDefinition.classic());
+        int[] moves = new int[initialState.getDefinition().getMaxLegalMoves()];
+        int[] predecessors = new int[moves.length];
+        for (long index = 0; index < ranker.getStateCount(); index++) {
+            BitboardKnightSwapState state = ranker.unrank(index);
+            int count = state.fillLegalMoves(moves);
+            for (int i = 0; i < count; i++) {
+                state.makeMove(moves[i]);
+                int predecessorCount = state.fillPredecessorMoves(predecessors);
+                boolean found = false;
+                for (int j = 0; j < predecessorCount; j++) {
+                    state.retractMove(predecessors[j]);
+                    BitboardKnightSwapState parent = state.clone();
+                    assertTrue(parent.fillLegalMoves(new int[moves.length]) > 0);
+                    found |= parent.equals(ranker.unrank(index));
+                    state.unmakeMove();
+                }
+                assertTrue(found);
+                state.unmakeMove();
+                assertEquals(ranker.unrank(index), state);
+            }
+        }
+    }
+
+    @Test
+    void testSetPositionClearsUndoStack() {
+        initialState.makeMove(MoveCodec.encode(9, 4));
+        initialState.setPosition(initialState.getDefinition().getStartLightMask(), initialState.getDefinition().getStartDarkMask(), PieceType.LIGHT);
+        assertEquals(new BitboardKnightSwapState(), initialState);
+        assertEquals(0, initialState.getUndoDepth());
+        assertThrows(IllegalArgumentException.class, () -> initialState.setPosition(1L, 1L, PieceType.LIGHT));
+    }
+
+    @Test
+    void testIsSolvedUsesGoalLayout() {
+        PuzzleDefinition definition = PuzzleDefinition.fromLayouts(List.of("D..", "...", "..L"), List.of("..D", "...", "L.."), PieceType.LIGHT);
+        BitboardKnightSwapState state = new BitboardKnightSwapState(definition);
+        assertFalse(state.isSolved());
+        assertEquals(3, state.getRows());
+
+        BitboardKnightSwapState solved = new BitboardKnightSwapState(definition, definition.getGoalLightMask(), definition.getGoalDarkMask(), PieceType.DARK);
+        assertTrue(solved.isSolved());
+        assertThrows(IllegalArgumentException.class, () -> new BitboardKnightSwapState(definition, 1L, 1L, PieceType.LIGHT));
+        assertThrows(IllegalArgumentException.class, () -> new BitboardKnightSwapState(definition, 1L << 9, 0L, PieceType.LIGHT));
+    }
+
+    private static Set<Integer> packedMoves(KnightSwapBoard state) {
+        int[] moves = new int[state.getDefinition().getMaxLegalMoves()];
+        int count = state.fillLegalMoves(moves);
+        Set<Integer> packed = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            packed.add(moves[i]);
+        }
+        Set<Integer> consumed = new HashSet<>();
+        state.forEachLegalMove(consumed::add);
+        assertEquals(packed, consumed);
+        assertEquals(count, packed.size());
+        return packed;
+    }
+
+    private static int compareWithArrayEngine(PuzzleDefinition definition, int limit) {
+        Deque<KnightSwapState> queue = new ArrayDeque<>();
+        Set<KnightSwapState> visited = new HashSet<>();
+        KnightSwapState start = new KnightSwapState(definition);
+        queue.add(start);
+        visited.add(start);
+
+        while (!queue.isEmpty() && visited.size() < limit) {
+            KnightSwapState arrayState = queue.poll();
+            BitboardKnightSwapState bitboardState = new BitboardKnightSwapState(definition, arrayState);
+
+            assertEquals(arrayState.getLegalMoves(), bitboardState.getLegalMoves());
+            assertEquals(packedMoves(arrayState), packedMoves(bitboardState));
+            assertEquals(arrayState.zobristKey(), bitboardState.zobristKey());
+            assertEquals(arrayState.isSolved(), bitboardState.isSolved());
+
+            for (TwoPhaseMoveState.TwoPhaseMove<Position> move : arrayState.getLegalMoves()) {
+                KnightSwapState child = (KnightSwapState) arrayState.clone();
+                child.makeMove(move);
+                if (visited.size() < limit && visited.add(child)) {
+                    queue.add(child);
+                }
+            }
+        }
+        return visited.size();
+    }
+}
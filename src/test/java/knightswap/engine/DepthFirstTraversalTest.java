@@ -0,0 +1,58 @@
+package knightswap.engine;
+
+import knightswap.utils.PieceType;
+import knightswap.utils.Position;
+import org.junit.jupiter.api.Test;
+import puzzle.TwoPhaseMoveState;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DepthFirstTraversalTest {
+    @Test
+    void testMakeAndUnmakeMoveRestoresState() {
+        BitboardKnightSwapState state = new BitboardKnightSwapState();
+        BitboardKnightSwapState before = state.clone();
+
+        state.makeMove(PuzzleDefinition.classic().getSquare(3, 0), PuzzleDefinition.classic().getSquare(1, 1));
+        assertEquals(PieceType.DARK, state.getCurrentPlayer());
+        assertEquals(1, state.getUndoDepth());
+
+        state.unmakeMove();
+        assertEquals(before, state);
+        assertEquals(0, state.getUndoDepth());
+        assertThrows(IllegalStateException.class, state::unmakeMove);
+    }
+
+    @Test
+    void testCountPaths() {
+        DepthFirstTraversal traversal = new DepthFirstTraversal(new BitboardKnightSwapState());
+        assertEquals(1, traversal.countPaths(0));
+        assertEquals(2, traversal.countPaths(1));
+        assertEquals(new BitboardKnightSwapState().getLegalMoves().size(), traversal.countPaths(1));
+        assertThrows(IllegalArgumentException.class, () -> traversal.countPaths(-1));
+    }
+
+    @Test
+    void testFindShortestSolutionIsReplayable() {
+        BitboardKnightSwapState start = new BitboardKnightSwapState();
+        DepthFirstTraversal traversal = new DepthFirstTraversal(start);
+        Optional<List<TwoPhaseMoveState.TwoPhaseMove<Position>>> solution = traversal.findShortestSolution(30);
+
+        assertTrue(solution.isPresent());
+        assertEquals(22, solution.get().size());
+        for (TwoPhaseMoveState.TwoPhaseMove<Position> move : solution.get()) {
+            start.makeMove(move);
+        }
+        assertTrue(start.isSolved());
+        assertTrue(traversal.getNodesVisited() > 0);
+    }
+
+    @Test
+    void testFindShortestSolutionRespectsMaxDepth() {
+        DepthFirstTraversal traversal = new DepthFirstTraversal(new BitboardKnightSwapState());
+        assertTrue(traversal.findShortestSolution(10).isEmpty());
+    }
+}
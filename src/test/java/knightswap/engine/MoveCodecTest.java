@@ -0,0 +1,37 @@
+package knightswap.engine;
+
+import knightswap.utils.Position;
+import org.junit.jupiter.api.Test;
+import puzzle.TwoPhaseMoveState;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveCodecTest {
+    @Test
+    void testEncodeAndDecode() {
+        int move = MoveCodec.encode(63, 17);
+        assertEquals(63, MoveCodec.from(move));
+        assertEquals(17, MoveCodec.to(move));
+        assertEquals(move, (short) move);
+        assertEquals("63->17", MoveCodec.toString(move));
+    }
+
+    @Test
+    void testConversionToAndFromTwoPhaseMove() {
+        PuzzleDefinition definition = PuzzleDefinition.classic();
+        TwoPhaseMoveState.TwoPhaseMove<Position> move = new TwoPhaseMoveState.TwoPhaseMove<>(new Position(3, 0), new Position(1, 1));
+
+        int packed = MoveCodec.fromMove(definition, move);
+        assertEquals(9, MoveCodec.from(packed));
+        assertEquals(4, MoveCodec.to(packed));
+        assertEquals(move, MoveCodec.toMove(definition, packed));
+    }
+
+    @Test
+    void testFromMoveRejectsInvalidMoves() {
+        PuzzleDefinition definition = PuzzleDefinition.classic();
+        assertThrows(IllegalArgumentException.class, () -> MoveCodec.fromMove(definition, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> MoveCodec.fromMove(definition, new TwoPhaseMoveState.TwoPhaseMove<>(new Position(4, 0), new Position(2, 1))));
+    }
+}
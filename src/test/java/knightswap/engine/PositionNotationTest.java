@@ -0,0 +1,41 @@
+package knightswap.engine;
+
+import knightswap.utils.PieceType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PositionNotationTest {
+    @Test
+    void testFormatAndParseRoundTrip() {
+        BitboardKnightSwapState start = new BitboardKnightSwapState();
+        String notation = PositionNotation.format(start);
+        assertEquals(4, notation.split(" ")[0].split("/").length);
+        BitboardKnightSwapState parsed = PositionNotation.parse(PuzzleDefinition.classic(), notation);
+        assertEquals(start.getLightMask(), parsed.getLightMask());
+        assertEquals(start.getDarkMask(), parsed.getDarkMask());
+        assertEquals(start.getCurrentPlayer(), parsed.getCurrentPlayer());
+    }
+
+    @Test
+    void testPlayerIsOptionalAndCaseInsensitive() {
+        PuzzleDefinition classic = PuzzleDefinition.classic();
+        BitboardKnightSwapState start = new BitboardKnightSwapState();
+        String board = PositionNotation.format(start).split(" ")[0];
+        assertEquals(classic.getFirstPlayer(), PositionNotation.parse(classic, board).getCurrentPlayer());
+        assertEquals(PieceType.DARK, PositionNotation.parse(classic, board + " dark").getCurrentPlayer());
+        assertEquals(PieceType.LIGHT, PositionNotation.parse(classic, "  " + board + "   l ").getCurrentPlayer());
+    }
+
+    @Test
+    void testMalformedNotationIsRejected() {
+        PuzzleDefinition classic = PuzzleDefinition.classic();
+        assertThrows(IllegalArgumentException.class, () -> PositionNotation.parse(classic, ""));
+        assertThrows(IllegalArgumentException.class, () -> PositionNotation.parse(classic, "DDD/.../LLL"));
+        assertThrows(IllegalArgumentException.class, () -> PositionNotation.parse(classic, "DDD/..../.../LLL"));
+        assertThrows(IllegalArgumentException.class, () -> PositionNotation.parse(classic, "DDD/.x./.../LLL"));
+        assertThrows(IllegalArgumentException.class, () -> PositionNotation.parse(classic, "DDD/.../.../LL."));
+        assertThrows(IllegalArgumentException.class, () -> PositionNotation.parse(classic, "DDD/.../.../LLL X"));
+        assertThrows(IllegalArgumentException.class, () -> PositionNotation.parse(classic, "DDD/.../.../LLL L D"));
+    }
+}
@@ -0,0 +1,89 @@
+package knightswap.engine;
+
+import knightswap.utils.PieceType;
+import knightswap.utils.Position;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PuzzleDefinitionTest {
+    @Test
+    void testClassicDefinition() {
+        PuzzleDefinition classic = PuzzleDefinition.classic();
+        assertEquals(4, classic.getRows());
+        assertEquals(3, classic.getCols());
+        assertEquals(0b111_000_000_000L, classic.getStartLightMask());
+        assertEquals(0b000_000_000_111L, classic.getStartDarkMask());
+        assertEquals(classic.getStartDarkMask(), classic.getGoalLightMask());
+        assertEquals(classic.getStartLightMask(), classic.getGoalDarkMask());
+        assertEquals(PieceType.LIGHT, classic.getFirstPlayer());
+        assertEquals(3, classic.getLightCount());
+        assertEquals(3, classic.getDarkCount());
+    }
+
+    @Test
+    void testKnightMasksOnFullBoard() {
+        PuzzleDefinition chessboard = PuzzleDefinition.fromLayouts(
+                List.of("DDDDDDDD", "........", "........", "........", "........", "........", "........", "LLLLLLLL"),
+                List.of("LLLLLLLL", "........", "........", "........", "........", "........", "........", "DDDDDDDD"),
+                PieceType.LIGHT);
+        assertEquals(64, chessboard.getSquareCount());
+        assertEquals(2, Long.bitCount(chessboard.getKnightMask(chessboard.getSquare(0, 0))));
+        assertEquals(8, Long.bitCount(chessboard.getKnightMask(chessboard.getSquare(4, 4))));
+        assertEquals(2, Long.bitCount(chessboard.getKnightMask(chessboard.getSquare(7, 7))));
+        assertTrue((chessboard.getKnightMask(63) & (1L << chessboard.getSquare(5, 6))) != 0);
+    }
+
+    @Test
+    void testKnightMasksAreSymmetric() {
+        PuzzleDefinition classic = PuzzleDefinition.classic();
+        for (int from = 0; from < classic.getSquareCount(); from++) {
+            for (int to = 0; to < classic.getSquareCount(); to++) {
+                boolean forward = (classic.getKnightMask(from) & (1L << to)) != 0;
+                boolean backward = (classic.getKnightMask(to) & (1L << from)) != 0;
+                assertEquals(forward, backward);
+                assertEquals(forward, classic.getPosition(to).isValidKnightMove(classic.getPosition(from)));
+            }
+        }
+    }
+
+    @Test
+    void testParseSpecWithDefaults() {
+        PuzzleDefinition parsed = PuzzleDefinition.parse(new StringReader("{\"start\": [\"DDD\", \"...\", \"...\", \"LLL\"]}"));
+        assertEquals(PuzzleDefinition.classic(), parsed);
+    }
+
+    @Test
+    void testParseSpecWithExplicitGoal() {
+        PuzzleDefinition parsed = PuzzleDefinition.parse(new StringReader("""
+                {
+                  "start": ["D.D", "...", "L.L"],
+                  "goal": ["L.L", "...", "D.D"],
+                  "firstPlayer": "dark"
+                }
+                """));
+        assertEquals(3, parsed.getRows());
+        assertEquals(PieceType.DARK, parsed.getFirstPlayer());
+        assertEquals(PieceType.LIGHT.getSymbol(), parsed.getGoalPieceAt(0, 2));
+        assertEquals('.', parsed.getStartPieceAt(1, 1));
+        assertEquals(new Position(2, 1), parsed.getPosition(parsed.getSquare(2, 1)));
+    }
+
+    @Test
+    void testInvalidSpecs() {
+        assertThrows(IllegalArgumentException.class, () -> PuzzleDefinition.parse(new StringReader("{")));
+        assertThrows(IllegalArgumentException.class, () -> PuzzleDefinition.parse(new StringReader("{}")));
+        assertThrows(IllegalArgumentException.class,
+                () -> PuzzleDefinition.fromLayouts(List.of("DD", "L"), List.of("LL", "D"), PieceType.LIGHT));
+        assertThrows(IllegalArgumentException.class,
+                () -> PuzzleDefinition.fromLayouts(List.of("DX", "LL"), List.of("LL", "DD"), PieceType.LIGHT));
+        assertThrows(IllegalArgumentException.class,
+                () -> PuzzleDefinition.fromLayouts(List.of("DD", "LL"), List.of("LL", "D."), PieceType.LIGHT));
+        assertThrows(IllegalArgumentException.class,
+                () -> PuzzleDefinition.fromLayouts(List.of("D........", "L........", ".........", ".........", ".........", ".........", ".........", "........."),
+                        List.of("L........", "D........", ".........", ".........", ".........", ".........", ".........", "........."), PieceType.LIGHT));
+    }
+}
@@ -0,0 +1,100 @@
+package knightswap.engine;
+
+import knightswap.KnightSwapState;
+import knightswap.utils.PieceType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StateRankerTest {
+    @Test
+    void testClassicStateCount() {
+        StateRanker ranker = new StateRanker(PuzzleDefinition.classic());
+        assertEquals(220L * 84L * 2L, ranker.getStateCount());
+        assertTrue(ranker.isArrayIndexable());
+    }
+
+    @Test
+    void testUnrankIsInverseOfRankForEveryIndex() {
+        StateRanker ranker = new StateRanker(PuzzleDefinition.classic());
+        for (long index = 0; index < ranker.getStateCount(); index++) {
+            BitboardKnightSwapState state = ranker.unrank(index);
+            assertEquals(index, ranker.rank(state));
+        }
+    }
+
+    @Test
+    void testRankIsTheSameForBothEngines() {
+        StateRanker ranker = new StateRanker(PuzzleDefinition.classic());
+        KnightSwapState arrayState = new KnightSwapState();
+        BitboardKnightSwapState bitboardState = new BitboardKnightSwapState();
+        assertEquals(ranker.rank(bitboardState), ranker.rank(arrayState));
+        assertEquals(PieceType.LIGHT, ranker.playerOf(ranker.rank(arrayState)));
+    }
+
+    @Test
+    void testReachableStatesInBitSet() {
+        PuzzleDefinition definition = PuzzleDefinition.classic();
+        StateRanker ranker = new StateRanker(definition);
+        BitSet visited = new BitSet((int) ranker.getStateCount());
+        Deque<Long> queue = new ArrayDeque<>();
+        long start = ranker.rank(new BitboardKnightSwapState());
+        visited.set((int) start);
+        queue.add(start);
+
+        int[] moves = new int[definition.getMaxLegalMoves()];
+        while (!queue.isEmpty()) {
+            BitboardKnightSwapState state = ranker.unrank(queue.poll());
+            int count = state.fillLegalMoves(moves);
+            for (int i = 0; i < count; i++) {
+                state.makeMove(moves[i]);
+                int child = (int) ranker.rank(state);
+                state.unmakeMove();
+                if (!visited.get(child)) {
+                    visited.set(child);
+                    queue.add((long) child);
+                }
+            }
+        }
+        assertEquals(1096, visited.cardinality());
+    }
+
+    @Test
+    void testLargerBoard() {
+        PuzzleDefinition definition = PuzzleDefinition.fromLayouts(
+                List.of("DD....DD", "........", "........", "........", "........", "........", "........", "LL....LL"),
+                List.of("LL....LL", "........", "........", "........", "........", "........", "........", "DD....DD"),
+                PieceType.LIGHT);
+        StateRanker ranker = new StateRanker(definition);
+        assertFalse(ranker.isArrayIndexable());
+
+        BitboardKnightSwapState start = new BitboardKnightSwapState(definition);
+        long index = ranker.rank(start);
+        assertEquals(start, ranker.unrank(index));
+        assertEquals(ranker.getStateCount() - 1, ranker.rank(ranker.lightMaskOf(ranker.getStateCount() - 1),
+                ranker.darkMaskOf(ranker.getStateCount() - 1), PieceType.DARK));
+    }
+
+    @Test
+    void testTooManyStates() {
+        PuzzleDefinition definition = PuzzleDefinition.fromLayouts(
+                List.of("DDDDDDDD", "DDDDDDDD", "........", "........", "........", "........", "LLLLLLLL", "LLLLLLLL"),
+                List.of("LLLLLLLL", "LLLLLLLL", "........", "........", "........", "........", "DDDDDDDD", "DDDDDDDD"),
+                PieceType.LIGHT);
+        assertThrows(IllegalArgumentException.class, () -> new StateRanker(definition));
+    }
+
+    @Test
+    void testInvalidInput() {
+        StateRanker ranker = new StateRanker(PuzzleDefinition.classic());
+        assertThrows(IllegalArgumentException.class, () -> ranker.unrank(-1));
+        assertThrows(IllegalArgumentException.class, () -> ranker.unrank(ranker.getStateCount()));
+        assertThrows(IllegalArgumentException.class, () -> ranker.rank(0b111L, 0b111L, PieceType.LIGHT));
+        assertThrows(IllegalArgumentException.class, () -> ranker.rank(0b111L, 0b111000L << 8, PieceType.LIGHT));
+    }
+}
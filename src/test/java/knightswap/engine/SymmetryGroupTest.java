@@ -0,0 +1,133 @@
+package knightswap.engine;
+
+import knightswap.KnightSwapState;
+import knightswap.utils.PieceType;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SymmetryGroupTest {
+    @Test
+    void testClassicSymmetries() {
+        SymmetryGroup group = new SymmetryGroup(PuzzleDefinition.classic());
+        List<String> names = group.getSymmetries().stream().map(Symmetry::getName).toList();
+
+        assertEquals(List.of("identity", "mirror", "flip + color swap", "half turn + color swap"), names);
+        assertTrue(group.getSymmetries().get(0).isIdentity());
+    }
+
+    @Test
+    void testAsymmetricGoalKeepsOnlyIdentity() {
+        PuzzleDefinition definition = PuzzleDefinition.fromLayouts(
+                List.of("DD.", "...", "...", ".LL"), List.of("LL.", "...", "...", "D.D"), PieceType.LIGHT);
+        assertEquals(1, new SymmetryGroup(definition).size());
+    }
+
+    @Test
+    void testSquareBoardHasQuarterTurns() {
+        PuzzleDefinition definition = PuzzleDefinition.fromLayouts(
+                List.of("D..L", "....", "....", "L..D"), List.of("L..D", "....", "....", "D..L"), PieceType.LIGHT);
+        List<String> names = new SymmetryGroup(definition).getSymmetries().stream().map(Symmetry::getName).toList();
+
+        assertEquals(8, names.size());
+        assertTrue(names.contains("quarter turn + color swap"));
+        assertTrue(names.contains("transpose"));
+    }
+
+    @Test
+    void testOrbitMembersShareRepresentative() {
+        PuzzleDefinition classic = PuzzleDefinition.classic();
+        StateRanker ranker = new StateRanker(classic);
+        SymmetryGroup group = new SymmetryGroup(classic);
+        Set<Long> representatives = new HashSet<>();
+        for (long index = 0; index < ranker.getStateCount(); index++) {
+            long light = ranker.lightMaskOf(index);
+            long dark = ranker.darkMaskOf(index);
+            PieceType player = ranker.playerOf(index);
+            long canonical = group.canonicalRank(ranker, light, dark, player);
+            for (Symmetry symmetry : group.getSymmetries()) {
+                assertEquals(canonical, group.canonicalRank(ranker, symmetry.mapLightMask(light, dark),
+                        symmetry.mapDarkMask(light, dark), symmetry.mapPlayer(player)));
+            }
+            representatives.add(canonical);
+        }
+        assertTrue(representatives.size() * 4L >= ranker.getStateCount());
+        assertTrue(representatives.size() * 3L < ranker.getStateCount());
+    }
+
+    @Test
+    void testSymmetriesMapLegalMovesOntoLegalMoves() {
+        PuzzleDefinition classic = PuzzleDefinition.classic();
+        StateRanker ranker = new StateRanker(classic);
+        SymmetryGroup group = new SymmetryGroup(classic);
+        int[] moves = new int[classic.getMaxLegalMoves()];
+        int[] imageMoves = new int[classic.getMaxLegalMoves()];
+        for (long index = 0; index < ranker.getStateCount(); index += 7) {
+            BitboardKnightSwapState state = ranker.unrank(index);
+            int count = state.fillLegalMoves(moves);
+            for (Symmetry symmetry : group.getSymmetries()) {
+                BitboardKnightSwapState image = state.clone();
+                symmetry.apply(image);
+                Set<Integer> expected = new HashSet<>();
+                for (int i = 0; i < count; i++) {
+                    expected.add(symmetry.mapMove(moves[i]));
+                }
+                int imageCount = image.fillLegalMoves(imageMoves);
+                Set<Integer> actual = new HashSet<>();
+                for (int i = 0; i < imageCount; i++) {
+                    actual.add(imageMoves[i]);
+                }
+                assertEquals(expected, actual);
+            }
+        }
+    }
+
+    @Test
+    void testInverseUndoesSymmetry() {
+        PuzzleDefinition definition = PuzzleDefinition.fromLayouts(
+                List.of("D..L", "....", "....", "L..D"), List.of("L..D", "....", "....", "D..L"), PieceType.LIGHT);
+        BitboardKnightSwapState start = new BitboardKnightSwapState(definition);
+        start.makeMove(start.getLegalMoves().iterator().next());
+        for (Symmetry symmetry : new SymmetryGroup(definition).getSymmetries()) {
+            BitboardKnightSwapState state = start.clone();
+            symmetry.apply(state);
+            symmetry.inverse().apply(state);
+            assertEquals(start, state);
+        }
+    }
+
+    @Test
+    void testCanonicalizeWorksForBothEngines() {
+        SymmetryGroup group = new SymmetryGroup(PuzzleDefinition.classic());
+        KnightSwapState array = new KnightSwapState();
+        BitboardKnightSwapState bitboard = new BitboardKnightSwapState();
+
+        assertEquals(group.canonicalize(bitboard), group.canonicalize(array));
+        assertTrue(group.findMapping(group.canonicalize(array), bitboard).isPresent());
+    }
+
+    @Test
+    void testStabilizerKeepsOnlyPlainSymmetriesOfPosition() {
+        BitboardKnightSwapState start = new BitboardKnightSwapState();
+        List<String> names = SymmetryGroup.stabilizerOf(start).getSymmetries().stream().map(Symmetry::getName).toList();
+        assertEquals(List.of("identity", "mirror"), names);
+
+        int[] moves = new int[start.getDefinition().getMaxLegalMoves()];
+        int count = start.fillLegalMoves(moves);
+        for (int i = 0; i < count; i++) {
+            BitboardKnightSwapState position = start.clone();
+            position.makeMove(moves[i]);
+            SymmetryGroup group = SymmetryGroup.stabilizerOf(position);
+            assertTrue(group.getSymmetries().get(0).isIdentity());
+            for (Symmetry symmetry : group.getSymmetries()) {
+                assertEquals(position.getLightMask(), symmetry.mapLightMask(position.getLightMask(), position.getDarkMask()));
+                assertEquals(position.getDarkMask(), symmetry.mapDarkMask(position.getLightMask(), position.getDarkMask()));
+                assertEquals(position.getCurrentPlayer(), symmetry.mapPlayer(position.getCurrentPlayer()));
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package knightswap.graph;
+
+import knightswap.engine.PuzzleDefinition;
+import knightswap.utils.PieceType;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StateGraphExporterTest {
+    private static final StateGraph GRAPH = StateGraph.build(PuzzleDefinition.fromLayouts(
+            List.of("D..", "...", "..L"), List.of("..D", "...", "L.."), PieceType.LIGHT));
+
+    @Test
+    void testEdgeList() throws IOException {
+        StringWriter out = new StringWriter();
+        StateGraphExporter.write(GRAPH, StateGraphExporter.Format.EDGES, out);
+        String[] lines = out.toString().split("\n");
+        assertEquals(GRAPH.getEdgeCount(), lines.length);
+        String[] first = lines[0].split(" ");
+        assertEquals(3, first.length);
+        assertEquals(String.valueOf(GRAPH.getTarget(0)), first[1]);
+    }
+
+    @Test
+    void testDot() throws IOException {
+        StringWriter out = new StringWriter();
+        StateGraphExporter.write(GRAPH, StateGraphExporter.Format.DOT, out);
+        String text = out.toString();
+        assertTrue(text.startsWith("digraph knightswap {\n"));
+        assertTrue(text.endsWith("}\n"));
+        assertEquals(GRAPH.getEdgeCount(), text.split(" -> ").length - 1);
+        assertTrue(text.contains("  " + GRAPH.getStartVertex() + " [label=\"D../.../..L L\", style=bold"));
+        assertTrue(text.contains("shape=doublecircle"));
+    }
+
+    @Test
+    void testFormatFromName() {
+        assertEquals(StateGraphExporter.Format.DOT, StateGraphExporter.Format.fromName(" Dot "));
+        assertThrows(IllegalArgumentException.class, () -> StateGraphExporter.Format.fromName("svg"));
+    }
+}
@@ -0,0 +1,130 @@
+package knightswap.graph;
+
+import knightswap.engine.BitboardKnightSwapState;
+import knightswap.engine.PuzzleDefinition;
+import knightswap.engine.StateRanker;
+import knightswap.utils.PieceType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StateGraphTest {
+    private static final PuzzleDefinition CLASSIC = PuzzleDefinition.classic();
+    private static final StateGraph GRAPH = StateGraph.build(CLASSIC);
+    private static final PuzzleDefinition SMALL = PuzzleDefinition.fromLayouts(
+            List.of("D..", "...", "..L"), List.of("..D", "...", "L.."), PieceType.LIGHT);
+
+    @Test
+    void testEdgesAreLegalMoves() {
+        StateRanker ranker = GRAPH.getRanker();
+        for (int vertex = 0; vertex < GRAPH.getVertexCount(); vertex += 7) {
+            BitboardKnightSwapState state = ranker.unrank(GRAPH.getKey(vertex));
+            assertEquals(state.getLegalMoves().size(), GRAPH.getDegree(vertex));
+            for (int edge = GRAPH.getFirstEdge(vertex); edge < GRAPH.getFirstEdge(vertex + 1); edge++) {
+                state.makeMove(GRAPH.getMoveCode(edge));
+                assertEquals(GRAPH.getKey(GRAPH.getTarget(edge)), ranker.rank(state));
+                state.unmakeMove();
+            }
+        }
+        assertEquals(GRAPH.getEdgeCount(), GRAPH.getFirstEdge(GRAPH.getVertexCount()));
+    }
+
+    @Test
+    void testShortestPathToGoal() {
+        int start = GRAPH.vertexOf(new BitboardKnightSwapState());
+        assertEquals(start, GRAPH.getStartVertex());
+        int[] path = GRAPH.shortestPathToGoal(start).orElseThrow();
+        assertEquals(22, path.length);
+        BitboardKnightSwapState state = new BitboardKnightSwapState();
+        for (int move : path) {
+            state.makeMove(move);
+        }
+        assertTrue(state.isSolved());
+        assertTrue(GRAPH.isGoal(GRAPH.vertexOf(state)));
+    }
+
+    @Test
+    void testShortestPathMatchesDistances() {
+        int start = GRAPH.getStartVertex();
+        int[] distances = GRAPH.distancesFrom(start);
+        for (int vertex = 0; vertex < GRAPH.getVertexCount(); vertex += 1013) {
+            assertNotEquals(StateGraph.UNREACHABLE, distances[vertex]);
+            assertEquals(distances[vertex], GRAPH.shortestPath(start, vertex).orElseThrow().length);
+            assertTrue(GRAPH.isReachable(start, vertex));
+        }
+        assertEquals(0, GRAPH.shortestPath(start, start).orElseThrow().length);
+    }
+
+    @Test
+    void testUnknownPosition() {
+        assertEquals(StateGraph.NO_VERTEX, GRAPH.vertexOf(-5));
+    }
+
+    @Test
+    void testComponentsAreMutuallyReachable() {
+        StateGraph graph = StateGraph.build(SMALL);
+        int[] components = graph.stronglyConnectedComponents();
+        int[][] distances = new int[graph.getVertexCount()][];
+        for (int vertex = 0; vertex < graph.getVertexCount(); vertex++) {
+            distances[vertex] = graph.distancesFrom(vertex);
+        }
+        for (int u = 0; u < graph.getVertexCount(); u++) {
+            for (int v = 0; v < graph.getVertexCount(); v++) {
+                boolean mutual = distances[u][v] != StateGraph.UNREACHABLE && distances[v][u] != StateGraph.UNREACHABLE;
+                assertEquals(mutual, components[u] == components[v], u + " " + v);
+            }
+        }
+        int[] sizes = graph.componentSizes();
+        assertEquals(graph.getVertexCount(), Arrays.stream(sizes).sum());
+        for (int i = 1; i < sizes.length; i++) {
+            assertTrue(sizes[i - 1] >= sizes[i]);
+        }
+    }
+
+    @Test
+    void testSaveAndOpen(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("classic.kssg");
+        GRAPH.save(file);
+        StateGraph opened = StateGraph.open(file, CLASSIC);
+
+        assertEquals(GRAPH.getVertexCount(), opened.getVertexCount());
+        assertEquals(GRAPH.getEdgeCount(), opened.getEdgeCount());
+        assertEquals(GRAPH.getStartVertex(), opened.getStartVertex());
+        for (int vertex = 0; vertex <= GRAPH.getVertexCount(); vertex++) {
+            assertEquals(GRAPH.getFirstEdge(vertex), opened.getFirstEdge(vertex));
+        }
+        for (int vertex = 0; vertex < GRAPH.getVertexCount(); vertex++) {
+            assertEquals(GRAPH.getKey(vertex), opened.getKey(vertex));
+        }
+        for (int edge = 0; edge < GRAPH.getEdgeCount(); edge++) {
+            assertEquals(GRAPH.getTarget(edge), opened.getTarget(edge));
+            assertEquals(GRAPH.getMoveCode(edge), opened.getMoveCode(edge));
+        }
+        assertEquals(22, opened.shortestPathToGoal(opened.getStartVertex()).orElseThrow().length);
+    }
+
+    @Test
+    void testOpenRejectsOtherFiles(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("small.kssg");
+        StateGraph.build(SMALL).save(file);
+        assertThrows(IOException.class, () -> StateGraph.open(file, CLASSIC));
+        Path garbage = directory.resolve("garbage.kssg");
+        Files.write(garbage, new byte[100]);
+        assertThrows(IOException.class, () -> StateGraph.open(garbage, SMALL));
+    }
+
+    @Test
+    void testOpenOrBuild(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("small.kssg");
+        StateGraph built = StateGraph.openOrBuild(file, SMALL);
+        assertTrue(Files.exists(file));
+        assertEquals(built.getVertexCount(), StateGraph.openOrBuild(file, SMALL).getVertexCount());
+    }
+}
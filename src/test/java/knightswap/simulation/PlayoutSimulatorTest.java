@@ -0,0 +1,78 @@
+package knightswap.simulation;
+
+import knightswap.KnightSwapState;
+import knightswap.engine.BitboardKnightSwapState;
+import knightswap.engine.PuzzleDefinition;
+import knightswap.utils.PieceType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlayoutSimulatorTest {
+    @Test
+    void testEveryPlayoutIsCounted() {
+        PlayoutStatistics statistics = new PlayoutSimulator().run(new KnightSwapState(), 20_000, 200, 1L);
+        assertEquals(20_000, statistics.getGames());
+        assertEquals(200, statistics.getLengthLimit());
+        long total = 0;
+        for (PlayoutStatistics.Outcome outcome : PlayoutStatistics.Outcome.values()) {
+            total += statistics.getCount(outcome);
+            long[] counts = statistics.getLengthCounts(outcome);
+            assertEquals(201, counts.length);
+        }
+        assertEquals(20_000, total);
+        assertTrue(statistics.getSolveRate() + statistics.getDeadEndRate() <= 1.0);
+        if (statistics.getCount(PlayoutStatistics.Outcome.SOLVED) > 0) {
+            assertTrue(statistics.getMinLength(PlayoutStatistics.Outcome.SOLVED) >= 22);
+        }
+        assertEquals(20_000, statistics.getCount(PlayoutStatistics.Outcome.CUT_OFF)
+                + statistics.getCount(PlayoutStatistics.Outcome.SOLVED) + statistics.getCount(PlayoutStatistics.Outcome.DEAD_END));
+    }
+
+    @Test
+    void testSameSeedGivesSameStatisticsOnAnyPool() {
+        BitboardKnightSwapState start = new BitboardKnightSwapState();
+        ForkJoinPool single = new ForkJoinPool(1);
+        try {
+            PlayoutStatistics first = new PlayoutSimulator(single).run(start, 10_000, 100, 7L);
+            PlayoutStatistics second = new PlayoutSimulator().run(start, 10_000, 100, 7L);
+            for (PlayoutStatistics.Outcome outcome : PlayoutStatistics.Outcome.values()) {
+                assertArrayEquals(first.getLengthCounts(outcome), second.getLengthCounts(outcome));
+            }
+        } finally {
+            single.shutdown();
+        }
+    }
+
+    @Test
+    void testSolvedAndDeadEndPositions() {
+        PuzzleDefinition classic = PuzzleDefinition.classic();
+        BitboardKnightSwapState goal = new BitboardKnightSwapState(classic, classic.getGoalLightMask(), classic.getGoalDarkMask(), PieceType.LIGHT);
+        PlayoutStatistics solved = new PlayoutSimulator().run(goal, 10, 50, 0L);
+        assertEquals(1.0, solved.getSolveRate());
+        assertEquals(0, solved.getMaxLength(PlayoutStatistics.Outcome.SOLVED));
+
+        PuzzleDefinition center = PuzzleDefinition.fromLayouts(List.of("D..", ".L.", "..."), List.of("L..", ".D.", "..."), PieceType.LIGHT);
+        PlayoutStatistics stuck = new PlayoutSimulator().run(new BitboardKnightSwapState(center), 10, 50, 0L);
+        assertEquals(1.0, stuck.getDeadEndRate());
+        assertEquals(0, stuck.getMaxLength(PlayoutStatistics.Outcome.DEAD_END));
+    }
+
+    @Test
+    void testCutOffAtTheLengthLimit() {
+        PlayoutStatistics statistics = new PlayoutSimulator().run(new BitboardKnightSwapState(), 1000, 3, 5L);
+        assertEquals(1000, statistics.getCount(PlayoutStatistics.Outcome.CUT_OFF));
+        assertEquals(3, statistics.getMinLength(PlayoutStatistics.Outcome.CUT_OFF));
+        assertEquals(-1, statistics.getMinLength(PlayoutStatistics.Outcome.SOLVED));
+    }
+
+    @Test
+    void testNegativeArgumentsAreRejected() {
+        PlayoutSimulator simulator = new PlayoutSimulator();
+        assertThrows(IllegalArgumentException.class, () -> simulator.run(new BitboardKnightSwapState(), -1, 10, 0L));
+        assertThrows(IllegalArgumentException.class, () -> simulator.run(new BitboardKnightSwapState(), 1, -1, 0L));
+    }
+}
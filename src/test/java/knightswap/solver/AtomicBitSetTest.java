@@ -0,0 +1,35 @@
+package knightswap.solver;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AtomicBitSetTest {
+    @Test
+    void testSetAndGet() {
+        AtomicBitSet bits = new AtomicBitSet(130);
+        assertEquals(130, bits.size());
+        assertTrue(bits.set(129));
+        assertFalse(bits.set(129));
+        assertTrue(bits.get(129));
+        assertFalse(bits.get(128));
+        assertEquals(1, bits.cardinality());
+        assertThrows(IllegalArgumentException.class, () -> new AtomicBitSet(-1));
+    }
+
+    @Test
+    void testConcurrentSetsAreClaimedOnce() {
+        AtomicBitSet bits = new AtomicBitSet(10_000);
+        AtomicLong claimed = new AtomicLong();
+        LongStream.range(0, 80_000).parallel().forEach(i -> {
+            if (bits.set(i % 10_000)) {
+                claimed.incrementAndGet();
+            }
+        });
+        assertEquals(10_000, claimed.get());
+        assertEquals(10_000, bits.cardinality());
+    }
+}
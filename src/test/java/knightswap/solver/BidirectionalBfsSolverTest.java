@@ -0,0 +1,103 @@
+package knightswap.solver;
+
+import knightswap.engine.BitboardKnightSwapState;
+import knightswap.engine.EngineType;
+import knightswap.engine.PuzzleDefinition;
+import knightswap.utils.PieceType;
+import knightswap.utils.Position;
+import org.junit.jupiter.api.Test;
+import puzzle.TwoPhaseMoveState;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+import static knightswap.solver.SolutionAssertions.assertReplaysToGoal;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BidirectionalBfsSolverTest {
+    private final Solver solver = new BidirectionalBfsSolver();
+
+    @Test
+    void testClassicPuzzle() {
+        BitboardKnightSwapState start = new BitboardKnightSwapState();
+        Optional<Solution> solution = solver.solve(start);
+
+        assertTrue(solution.isPresent());
+        assertEquals(22, solution.get().length());
+        assertTrue(solution.get().nodesExpanded() > 0);
+        assertReplaysToGoal(start, solution.get().moves());
+        assertEquals(new BitboardKnightSwapState(), start);
+    }
+
+    @Test
+    void testSameLengthAsForwardSearch() {
+        PuzzleDefinition definition = PuzzleDefinition.fromLayouts(
+                List.of("D.D", "...", "...", "L.L"),
+                List.of("L.L", "...", "...", "D.D"),
+                PieceType.DARK);
+        BitboardKnightSwapState start = new BitboardKnightSwapState(definition);
+        Optional<Solution> solution = solver.solve(start);
+
+        assertTrue(solution.isPresent());
+        assertEquals(forwardDistance(start), solution.get().length());
+        assertReplaysToGoal(start, solution.get().moves());
+    }
+
+    @Test
+    void testSolvedStart() {
+        PuzzleDefinition definition = PuzzleDefinition.classic();
+        BitboardKnightSwapState solved = new BitboardKnightSwapState(definition, definition.getGoalLightMask(), definition.getGoalDarkMask(), PieceType.DARK);
+        assertEquals(0, solver.solve(solved).orElseThrow().length());
+    }
+
+    @Test
+    void testUnsolvablePuzzle() {
+        PuzzleDefinition definition = PuzzleDefinition.fromLayouts(List.of("...", ".L.", "..D"), List.of("...", ".D.", "..L"), PieceType.LIGHT);
+        assertTrue(solver.solve(new BitboardKnightSwapState(definition)).isEmpty());
+    }
+
+    @Test
+    void testSolverTypeFromName() {
+        assertEquals(SolverType.BIDIRECTIONAL, SolverType.fromName(" Bidirectional "));
+        assertInstanceOf(BidirectionalBfsSolver.class, SolverType.BIDIRECTIONAL.newSolver());
+        assertThrows(IllegalArgumentException.class, () -> SolverType.fromName("unknown"));
+    }
+
+    @Test
+    void testSolverTypeFromNameIgnoresDefaultLocale() {
+        Locale saved = Locale.getDefault();
+        try {
+            Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+            assertEquals(SolverType.BIDIRECTIONAL, SolverType.fromName("bidirectional"));
+            assertEquals(EngineType.BITBOARD, EngineType.fromName("bitboard"));
+        } finally {
+            Locale.setDefault(saved);
+        }
+    }
+
+    private static int forwardDistance(BitboardKnightSwapState start) {
+        Map<BitboardKnightSwapState, Integer> distances = new HashMap<>();
+        Deque<BitboardKnightSwapState> queue = new ArrayDeque<>();
+        distances.put(start, 0);
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            BitboardKnightSwapState state = queue.poll();
+            if (state.isSolved()) {
+                return distances.get(state);
+            }
+            for (TwoPhaseMoveState.TwoPhaseMove<Position> move : state.getLegalMoves()) {
+                BitboardKnightSwapState child = state.clone();
+                child.makeMove(move);
+                if (distances.putIfAbsent(child, distances.get(state) + 1) == null) {
+                    queue.add(child);
+                }
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,61 @@
+package knightswap.solver;
+
+import knightswap.engine.BitboardKnightSwapState;
+import knightswap.engine.PuzzleDefinition;
+import knightswap.utils.PieceType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static knightswap.solver.SolutionAssertions.assertReplaysToGoal;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BreadthFirstSolverTest {
+    private final Solver solver = new BreadthFirstSolver();
+
+    @Test
+    void testClassicPuzzle() {
+        BitboardKnightSwapState start = new BitboardKnightSwapState();
+        Optional<Solution> solution = solver.solve(start);
+
+        assertTrue(solution.isPresent());
+        assertEquals(22, solution.get().length());
+        assertTrue(solution.get().nodesExpanded() > 0);
+        assertReplaysToGoal(start, solution.get().moves());
+        assertEquals(new BitboardKnightSwapState(), start);
+    }
+
+    @Test
+    void testSameLengthAsBidirectionalSearch() {
+        PuzzleDefinition definition = PuzzleDefinition.fromLayouts(
+                List.of("D.D", "...", "...", "L.L"),
+                List.of("L.L", "...", "...", "D.D"),
+                PieceType.DARK);
+        BitboardKnightSwapState start = new BitboardKnightSwapState(definition);
+        Optional<Solution> solution = solver.solve(start);
+
+        assertTrue(solution.isPresent());
+        assertEquals(new BidirectionalBfsSolver().solve(start).orElseThrow().length(), solution.get().length());
+        assertReplaysToGoal(start, solution.get().moves());
+    }
+
+    @Test
+    void testSolvedStart() {
+        PuzzleDefinition definition = PuzzleDefinition.classic();
+        BitboardKnightSwapState solved = new BitboardKnightSwapState(definition, definition.getGoalLightMask(), definition.getGoalDarkMask(), PieceType.DARK);
+        assertEquals(0, solver.solve(solved).orElseThrow().length());
+    }
+
+    @Test
+    void testUnsolvablePuzzle() {
+        PuzzleDefinition definition = PuzzleDefinition.fromLayouts(List.of("...", ".L.", "..D"), List.of("...", ".D.", "..L"), PieceType.LIGHT);
+        assertTrue(solver.solve(new BitboardKnightSwapState(definition)).isEmpty());
+    }
+
+    @Test
+    void testSolverTypeFromName() {
+        assertEquals(SolverType.BFS, SolverType.fromName("bfs"));
+        assertInstanceOf(BreadthFirstSolver.class, SolverType.BFS.newSolver());
+    }
+}
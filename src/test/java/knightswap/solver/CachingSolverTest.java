@@ -0,0 +1,40 @@
+package knightswap.solver;
+
+import knightswap.cache.SolutionCache;
+import knightswap.engine.BitboardKnightSwapState;
+import knightswap.engine.PuzzleDefinition;
+import knightswap.utils.PieceType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingSolverTest {
+    @Test
+    void testRepeatedQueriesSkipTheSearch() {
+        BitboardKnightSwapState start = new BitboardKnightSwapState();
+        CachingSolver solver = new CachingSolver(new BidirectionalBfsSolver(), SolutionCache.inMemory(start.getDefinition(), 16));
+        Solution first = solver.solve(start).orElseThrow();
+        Solution second = solver.solve(start).orElseThrow();
+        assertTrue(first.nodesExpanded() > 0);
+        assertEquals(0, second.nodesExpanded());
+        assertEquals(first.moves(), second.moves());
+        assertEquals(1, solver.getCache().getHits());
+        assertEquals(1, solver.getCache().getMisses());
+    }
+
+    @Test
+    void testOnlyProvenUnsolvabilityIsCached() {
+        PuzzleDefinition definition = PuzzleDefinition.fromLayouts(List.of("...", ".L.", "..D"), List.of("...", ".D.", "..L"), PieceType.LIGHT);
+        BitboardKnightSwapState start = new BitboardKnightSwapState(definition);
+        CachingSolver exhaustive = new CachingSolver(new AStarSolver(), SolutionCache.inMemory(definition, 16));
+        assertTrue(exhaustive.solve(start).isEmpty());
+        assertEquals(1, exhaustive.getCache().getMemoryEntries());
+
+        CachingSolver bounded = new CachingSolver(new IdaStarSolver(20), SolutionCache.inMemory(PuzzleDefinition.classic(), 16));
+        assertFalse(bounded.provesUnsolvability());
+        assertTrue(bounded.solve(new BitboardKnightSwapState()).isEmpty());
+        assertEquals(0, bounded.getCache().getMemoryEntries());
+    }
+}
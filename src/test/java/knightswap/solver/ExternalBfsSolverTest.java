@@ -0,0 +1,176 @@
+package knightswap.solver;
+
+import knightswap.engine.BitboardKnightSwapState;
+import knightswap.engine.PuzzleDefinition;
+import knightswap.utils.PieceType;
+import knightswap.utils.Position;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import puzzle.TwoPhaseMoveState;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExternalBfsSolverTest {
+    @Test
+    void testClassicPuzzle(@TempDir Path directory) {
+        BitboardKnightSwapState start = new BitboardKnightSwapState();
+        Solution solution = new ExternalBfsSolver(directory, ExternalBfsSolver.MIN_MEMORY_BUDGET).solve(start).orElseThrow();
+
+        assertEquals(22, solution.length());
+        BitboardKnightSwapState state = start.clone();
+        for (TwoPhaseMoveState.TwoPhaseMove<Position> move : solution.moves()) {
+            state.makeMove(move);
+        }
+        assertTrue(state.isSolved());
+    }
+
+    @Test
+    void testReportsLayerAndVisitedSizes(@TempDir Path directory) {
+        PuzzleDefinition definition = PuzzleDefinition.fromLayouts(
+                List.of("DDD.", "....", "....", "....", ".LLL"),
+                List.of("LLL.", "....", "....", "....", ".DDD"),
+                PieceType.LIGHT);
+        List<SearchProgress> reports = new ArrayList<>();
+        SearchMonitor monitor = new SearchMonitor(SearchLimits.unlimited(), reports::add, Duration.ofNanos(1));
+        new ExternalBfsSolver(directory, ExternalBfsSolver.MIN_MEMORY_BUDGET)
+                .solve(new BitboardKnightSwapState(definition), monitor);
+
+        assertFalse(reports.isEmpty());
+        for (SearchProgress progress : reports) {
+            assertTrue(progress.frontierSize() > 0);
+            assertTrue(progress.visitedSize() >= progress.frontierSize());
+            assertTrue(progress.visitedSize() <= progress.nodesExpanded() + progress.frontierSize());
+        }
+    }
+
+    @Test
+    void testSpillsRunsOnLargerVariant(@TempDir Path directory) {
+        PuzzleDefinition definition = PuzzleDefinition.fromLayouts(
+                List.of("DDD.", "....", "....", "....", ".LLL"),
+                List.of("LLL.", "....", "....", "....", ".DDD"),
+                PieceType.LIGHT);
+        BitboardKnightSwapState start = new BitboardKnightSwapState(definition);
+        Solution solution = new ExternalBfsSolver(directory, ExternalBfsSolver.MIN_MEMORY_BUDGET).solve(start).orElseThrow();
+
+        assertEquals(new AStarSolver().solve(start).orElseThrow().length(), solution.length());
+    }
+
+    @Test
+    void testResumesFromCompletedLayers(@TempDir Path directory) throws IOException {
+        BitboardKnightSwapState start = new BitboardKnightSwapState();
+        Solution expected = new ExternalBfsSolver(directory.resolve("fresh"), ExternalBfsSolver.MIN_MEMORY_BUDGET)
+                .solve(start).orElseThrow();
+        ExternalBfsSolver solver = new ExternalBfsSolver(directory, ExternalBfsSolver.MIN_MEMORY_BUDGET);
+        assertThrows(SearchAbortedException.class,
+                () -> solver.solve(start, new SearchMonitor(SearchLimits.unlimited().withNodeLimit(300))));
+        Path progressFile = solver.getSearchDirectory().resolve("progress.properties");
+        Properties progress = new Properties();
+        try (InputStream in = Files.newInputStream(progressFile)) {
+            progress.load(in);
+        }
+        int layers = Integer.parseInt(progress.getProperty("layers"));
+        assertTrue(layers > 2);
+        progress.setProperty("layers", String.valueOf(layers - 1));
+        try (OutputStream out = Files.newOutputStream(progressFile)) {
+            progress.store(out, null);
+        }
+        Files.delete(solver.getSearchDirectory().resolve("layer-" + (layers - 1) + ".keys"));
+        Files.delete(solver.getSearchDirectory().resolve("visited-" + (layers - 1) + ".keys"));
+        Files.writeString(solver.getSearchDirectory().resolve("run-0.tmp"), "partial");
+
+        Solution resumed = solver.solve(start).orElseThrow();
+
+        assertEquals(expected.moves(), resumed.moves());
+        assertSearchFilesDeleted(solver);
+    }
+
+    @Test
+    void testDeletesItsFilesAfterFinishing(@TempDir Path directory) throws IOException {
+        ExternalBfsSolver solver = new ExternalBfsSolver(directory, ExternalBfsSolver.MIN_MEMORY_BUDGET);
+        PuzzleDefinition unsolvable = PuzzleDefinition.fromLayouts(List.of("...", ".L.", "..D"), List.of("...", ".D.", "..L"), PieceType.LIGHT);
+
+        assertEquals(22, solver.solve(new BitboardKnightSwapState()).orElseThrow().length());
+        assertSearchFilesDeleted(solver);
+        assertTrue(solver.solve(new BitboardKnightSwapState(unsolvable)).isEmpty());
+        assertSearchFilesDeleted(solver);
+    }
+
+    @Test
+    void testRefusesDirectoryInUse(@TempDir Path directory) throws IOException {
+        ExternalBfsSolver solver = new ExternalBfsSolver(directory, ExternalBfsSolver.MIN_MEMORY_BUDGET);
+        Files.createDirectories(solver.getSearchDirectory());
+        Path marker = Files.createFile(solver.getSearchDirectory().resolve(".external-bfs"));
+
+        try (FileChannel channel = FileChannel.open(marker, StandardOpenOption.WRITE);
+             FileLock lock = channel.lock()) {
+            assertTrue(lock.isValid());
+            UncheckedIOException e = assertThrows(UncheckedIOException.class,
+                    () -> solver.solve(new BitboardKnightSwapState()));
+            assertTrue(e.getCause().getMessage().contains("in use"));
+        }
+        assertEquals(22, solver.solve(new BitboardKnightSwapState()).orElseThrow().length());
+    }
+
+    @Test
+    void testDiscardsFilesOfAnotherSearch(@TempDir Path directory) {
+        ExternalBfsSolver solver = new ExternalBfsSolver(directory, ExternalBfsSolver.MIN_MEMORY_BUDGET);
+        PuzzleDefinition larger = PuzzleDefinition.fromLayouts(
+                List.of("DDD.", "....", "....", "....", ".LLL"),
+                List.of("LLL.", "....", "....", "....", ".DDD"),
+                PieceType.LIGHT);
+
+        assertThrows(SearchAbortedException.class, () -> solver.solve(new BitboardKnightSwapState(larger),
+                new SearchMonitor(SearchLimits.unlimited().withNodeLimit(300))));
+        assertTrue(Files.exists(solver.getSearchDirectory().resolve("layer-0.keys")));
+        assertEquals(22, solver.solve(new BitboardKnightSwapState()).orElseThrow().length());
+    }
+
+    @Test
+    void testKeepsFilesOutsideItsDirectory(@TempDir Path directory) throws IOException {
+        Files.writeString(directory.resolve("layer-0.keys"), "foreign");
+        Files.writeString(directory.resolve("notes.tmp"), "foreign");
+        ExternalBfsSolver solver = new ExternalBfsSolver(directory, ExternalBfsSolver.MIN_MEMORY_BUDGET);
+
+        assertEquals(22, solver.solve(new BitboardKnightSwapState()).orElseThrow().length());
+        assertEquals(directory.resolve(ExternalBfsSolver.SEARCH_DIRECTORY), solver.getSearchDirectory());
+        assertEquals("foreign", Files.readString(directory.resolve("layer-0.keys")));
+        assertEquals("foreign", Files.readString(directory.resolve("notes.tmp")));
+    }
+
+    @Test
+    void testRefusesForeignSearchDirectory(@TempDir Path directory) throws IOException {
+        ExternalBfsSolver solver = new ExternalBfsSolver(directory, ExternalBfsSolver.MIN_MEMORY_BUDGET);
+        Files.createDirectories(solver.getSearchDirectory());
+        Path foreign = solver.getSearchDirectory().resolve("layer-0.keys");
+        Files.writeString(foreign, "foreign");
+
+        assertThrows(UncheckedIOException.class, () -> solver.solve(new BitboardKnightSwapState()));
+        assertEquals("foreign", Files.readString(foreign));
+    }
+
+    @Test
+    void testRejectsTinyBudget(@TempDir Path directory) {
+        assertThrows(IllegalArgumentException.class, () -> new ExternalBfsSolver(directory, 1024));
+    }
+
+    private static void assertSearchFilesDeleted(ExternalBfsSolver solver) throws IOException {
+        try (Stream<Path> files = Files.list(solver.getSearchDirectory())) {
+            assertEquals(List.of(".external-bfs"), files.map(file -> file.getFileName().toString()).toList());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package knightswap.solver;
+
+import knightswap.engine.BitboardKnightSwapState;
+import knightswap.engine.PuzzleDefinition;
+import knightswap.utils.PieceType;
+import knightswap.utils.Position;
+import org.junit.jupiter.api.Test;
+import puzzle.TwoPhaseMoveState;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InformedSolverTest {
+    @Test
+    void testAStarOnClassicPuzzle() {
+        assertOptimal(new AStarSolver(), new BitboardKnightSwapState(), 22);
+    }
+
+    @Test
+    void testIdaStarOnClassicPuzzle() {
+        assertOptimal(new IdaStarSolver(), new BitboardKnightSwapState(), 22);
+    }
+
+    @Test
+    void testInformedSolversMatchBidirectionalSearch() {
+        PuzzleDefinition definition = PuzzleDefinition.fromLayouts(
+                List.of("D.D", "...", "...", "L.L"),
+                List.of("L.L", "...", "...", "D.D"),
+                PieceType.DARK);
+        BitboardKnightSwapState start = new BitboardKnightSwapState(definition);
+        int expected = new BidirectionalBfsSolver().solve(start).orElseThrow().length();
+        assertOptimal(new AStarSolver(), start, expected);
+        assertOptimal(new IdaStarSolver(), start, expected);
+    }
+
+    @Test
+    void testUnsolvablePuzzle() {
+        PuzzleDefinition definition = PuzzleDefinition.fromLayouts(List.of("...", ".L.", "..D"), List.of("...", ".D.", "..L"), PieceType.LIGHT);
+        assertTrue(new AStarSolver().solve(new BitboardKnightSwapState(definition)).isEmpty());
+        assertTrue(new IdaStarSolver().solve(new BitboardKnightSwapState(definition)).isEmpty());
+    }
+
+    @Test
+    void testIdaStarRespectsMaxDepth() {
+        assertTrue(new IdaStarSolver(20).solve(new BitboardKnightSwapState()).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> new IdaStarSolver(-1));
+    }
+
+    private static void assertOptimal(Solver solver, BitboardKnightSwapState start, int expectedLength) {
+        Optional<Solution> solution = solver.solve(start);
+        assertTrue(solution.isPresent());
+        assertEquals(expectedLength, solution.get().length());
+        assertTrue(solution.get().nodesExpanded() > 0);
+
+        BitboardKnightSwapState state = start.clone();
+        for (TwoPhaseMoveState.TwoPhaseMove<Position> move : solution.get().moves()) {
+            state.makeMove(move);
+        }
+        assertTrue(state.isSolved());
+    }
+}
@@ -0,0 +1,91 @@
+package knightswap.solver;
+
+import knightswap.engine.BitboardKnightSwapState;
+import knightswap.engine.PuzzleDefinition;
+import knightswap.engine.StateRanker;
+import knightswap.utils.PieceType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KnightDistanceHeuristicTest {
+    @Test
+    void testKnightDistances() {
+        PuzzleDefinition definition = PuzzleDefinition.classic();
+        KnightDistanceHeuristic heuristic = new KnightDistanceHeuristic(definition);
+        assertEquals(0, heuristic.getKnightDistance(0, 0));
+        assertEquals(1, heuristic.getKnightDistance(definition.getSquare(3, 0), definition.getSquare(1, 1)));
+        assertEquals(heuristic.getKnightDistance(2, 9), heuristic.getKnightDistance(9, 2));
+
+        PuzzleDefinition small = PuzzleDefinition.fromLayouts(List.of("...", ".L.", "..D"), List.of("...", ".D.", "..L"), PieceType.LIGHT);
+        KnightDistanceHeuristic smallHeuristic = new KnightDistanceHeuristic(small);
+        assertEquals(KnightDistanceHeuristic.UNREACHABLE, smallHeuristic.getKnightDistance(4, 0));
+        assertEquals(KnightDistanceHeuristic.UNREACHABLE, smallHeuristic.estimate(new BitboardKnightSwapState(small)));
+    }
+
+    @Test
+    void testSolvedStatesEstimateZero() {
+        PuzzleDefinition definition = PuzzleDefinition.classic();
+        KnightDistanceHeuristic heuristic = new KnightDistanceHeuristic(definition);
+        assertEquals(0, heuristic.estimate(definition.getGoalLightMask(), definition.getGoalDarkMask(), PieceType.LIGHT));
+        assertEquals(0, heuristic.estimate(definition.getGoalLightMask(), definition.getGoalDarkMask(), PieceType.DARK));
+    }
+
+    @Test
+    void testAdmissibleAndConsistentOnClassicPuzzle() {
+        PuzzleDefinition definition = PuzzleDefinition.classic();
+        StateRanker ranker = new StateRanker(definition);
+        KnightDistanceHeuristic heuristic = new KnightDistanceHeuristic(definition);
+        int[] distances = goalDistances(ranker);
+        int[] moves = new int[definition.getMaxLegalMoves()];
+
+        for (long index = 0; index < ranker.getStateCount(); index++) {
+            BitboardKnightSwapState state = ranker.unrank(index);
+            int estimate = heuristic.estimate(state);
+            if (distances[(int) index] >= 0) {
+                assertTrue(estimate <= distances[(int) index]);
+            }
+            int count = state.fillLegalMoves(moves);
+            for (int i = 0; i < count; i++) {
+                state.makeMove(moves[i]);
+                assertTrue(estimate <= heuristic.estimate(state) + 1);
+                state.unmakeMove();
+            }
+        }
+        assertEquals(distances[(int) ranker.rank(new BitboardKnightSwapState())], 22);
+        assertTrue(heuristic.estimate(new BitboardKnightSwapState()) > 0);
+    }
+
+    private static int[] goalDistances(StateRanker ranker) {
+        PuzzleDefinition definition = ranker.getDefinition();
+        int[] distances = new int[(int) ranker.getStateCount()];
+        Arrays.fill(distances, -1);
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (PieceType player : PieceType.values()) {
+            int goal = (int) ranker.rank(definition.getGoalLightMask(), definition.getGoalDarkMask(), player);
+            distances[goal] = 0;
+            queue.add(goal);
+        }
+        int[] moves = new int[definition.getMaxLegalMoves()];
+        while (!queue.isEmpty()) {
+            int index = queue.poll();
+            BitboardKnightSwapState state = ranker.unrank(index);
+            int count = state.fillPredecessorMoves(moves);
+            for (int i = 0; i < count; i++) {
+                state.retractMove(moves[i]);
+                int predecessor = (int) ranker.rank(state);
+                state.unmakeMove();
+                if (distances[predecessor] < 0) {
+                    distances[predecessor] = distances[index] + 1;
+                    queue.add(predecessor);
+                }
+            }
+        }
+        return distances;
+    }
+}
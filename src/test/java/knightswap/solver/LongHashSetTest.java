@@ -0,0 +1,99 @@
+package knightswap.solver;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongHashSetTest {
+    @Test
+    void testAddAndContains() {
+        LongHashSet set = new LongHashSet();
+        assertTrue(set.isEmpty());
+        assertTrue(set.add(5));
+        assertFalse(set.add(5));
+        assertTrue(set.contains(5));
+        assertFalse(set.contains(6));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    void testZeroAndNegativeKeys() {
+        LongHashSet set = new LongHashSet();
+        assertFalse(set.contains(0));
+        assertTrue(set.add(0));
+        assertFalse(set.add(0));
+        assertTrue(set.add(-1));
+        assertTrue(set.add(Long.MIN_VALUE));
+        assertTrue(set.contains(0));
+        assertTrue(set.contains(-1));
+        assertTrue(set.contains(Long.MIN_VALUE));
+        assertEquals(3, set.size());
+    }
+
+    @Test
+    void testMatchesHashSetThroughResizes() {
+        assertMatchesHashSet(new LongHashSet());
+    }
+
+    @Test
+    void testOffHeapMatchesHashSet() {
+        LongHashSet set = new LongHashSet(0, true);
+        assertTrue(set.isOffHeap());
+        assertMatchesHashSet(set);
+    }
+
+    @Test
+    void testResizeIsIncremental() {
+        LongHashSet set = new LongHashSet();
+        int capacity = set.capacity();
+        long key = 1;
+        while (set.capacity() == capacity) {
+            set.add(key++);
+        }
+        assertTrue(set.isResizing());
+        for (long old = 1; old < key; old++) {
+            assertTrue(set.contains(old));
+            assertFalse(set.add(old));
+        }
+        while (set.isResizing()) {
+            set.add(key++);
+        }
+        for (long old = 1; old < key; old++) {
+            assertTrue(set.contains(old));
+        }
+        assertEquals(key - 1, set.size());
+    }
+
+    @Test
+    void testForSearchHonoursProperty() {
+        assertFalse(LongHashSet.forSearch().isOffHeap());
+        System.setProperty(LongHashSet.OFF_HEAP_PROPERTY, "true");
+        try {
+            assertTrue(LongHashSet.forSearch().isOffHeap());
+        } finally {
+            System.clearProperty(LongHashSet.OFF_HEAP_PROPERTY);
+        }
+    }
+
+    @Test
+    void testInvalidExpectedSize() {
+        assertThrows(IllegalArgumentException.class, () -> new LongHashSet(-1, false));
+    }
+
+    private static void assertMatchesHashSet(LongHashSet set) {
+        Set<Long> expected = new HashSet<>();
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextLong(100_000) * 0x10000L;
+            assertEquals(expected.add(key), set.add(key));
+        }
+        assertEquals(expected.size(), set.size());
+        for (long key = 0; key < 100_000; key++) {
+            assertEquals(expected.contains(key * 0x10000L), set.contains(key * 0x10000L));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package knightswap.solver;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongIntHashMapTest {
+    @Test
+    void testPutAndGet() {
+        LongIntHashMap map = new LongIntHashMap();
+        assertTrue(map.isEmpty());
+        map.put(5, 3);
+        map.put(5, 1);
+        assertEquals(1, map.get(5, -1));
+        assertEquals(-1, map.get(6, -1));
+        assertTrue(map.containsKey(5));
+        assertFalse(map.containsKey(6));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void testZeroAndNegativeKeys() {
+        LongIntHashMap map = new LongIntHashMap();
+        assertFalse(map.containsKey(0));
+        assertEquals(-1, map.get(0, -1));
+        map.put(0, 7);
+        map.put(0, 8);
+        map.put(-1, 9);
+        map.put(Long.MIN_VALUE, 10);
+        assertEquals(8, map.get(0, -1));
+        assertEquals(9, map.get(-1, -1));
+        assertEquals(10, map.get(Long.MIN_VALUE, -1));
+        assertEquals(3, map.size());
+    }
+
+    @Test
+    void testMatchesHashMapThroughResizes() {
+        LongIntHashMap map = new LongIntHashMap();
+        Map<Long, Integer> expected = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextLong(100_000) * 0x10000L;
+            int value = random.nextInt();
+            expected.put(key, value);
+            map.put(key, value);
+        }
+        assertEquals(expected.size(), map.size());
+        for (long key = 0; key < 100_000; key++) {
+            long scaled = key * 0x10000L;
+            assertEquals(expected.getOrDefault(scaled, Integer.MIN_VALUE), map.get(scaled, Integer.MIN_VALUE));
+        }
+    }
+
+    @Test
+    void testUpdatesDuringIncrementalResize() {
+        LongIntHashMap map = new LongIntHashMap();
+        int capacity = map.capacity();
+        long key = 1;
+        while (map.capacity() == capacity) {
+            map.put(key, (int) key);
+            key++;
+        }
+        assertTrue(map.isResizing());
+        long resized = key;
+        for (long old = 1; old < resized; old++) {
+            map.put(old, (int) -old);
+        }
+        while (map.isResizing()) {
+            map.put(key, (int) key);
+            key++;
+        }
+        for (long old = 1; old < resized; old++) {
+            assertEquals(-old, map.get(old, 0));
+        }
+        assertEquals(key - 1, map.size());
+    }
+
+    @Test
+    void testInvalidExpectedSize() {
+        assertThrows(IllegalArgumentException.class, () -> new LongIntHashMap(-1));
+    }
+}
@@ -0,0 +1,112 @@
+package knightswap.solver;
+
+import knightswap.engine.BitboardKnightSwapState;
+import knightswap.engine.PuzzleDefinition;
+import knightswap.tablebase.Tablebase;
+import knightswap.utils.PieceType;
+import knightswap.utils.Position;
+import org.junit.jupiter.api.Test;
+import puzzle.TwoPhaseMoveState;
+
+import java.math.BigInteger;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimalSolutionsTest {
+    @Test
+    void testClassicCountMatchesTablebase() {
+        BitboardKnightSwapState start = new BitboardKnightSwapState();
+        OptimalSolutions solutions = OptimalSolutions.of(start);
+
+        assertEquals(22, solutions.getLength());
+        assertEquals(countWithTablebase(Tablebase.build(PuzzleDefinition.classic()), start), solutions.getCount());
+        assertTrue(solutions.getCount().compareTo(BigInteger.ONE) > 0);
+    }
+
+    @Test
+    void testStreamYieldsEveryDistinctSolution() {
+        BitboardKnightSwapState start = new BitboardKnightSwapState();
+        OptimalSolutions solutions = OptimalSolutions.of(start);
+        Set<List<TwoPhaseMoveState.TwoPhaseMove<Position>>> seen = new HashSet<>();
+
+        solutions.stream().forEach(path -> {
+            assertEquals(22, path.size());
+            BitboardKnightSwapState state = start.clone();
+            for (int i = 0; i < path.size(); i++) {
+                assertFalse(state.isSolved());
+                assertTrue(state.isLegalMove(path.get(i)));
+                state.makeMove(path.get(i));
+            }
+            assertTrue(state.isSolved());
+            assertTrue(seen.add(path));
+        });
+        assertEquals(solutions.getCount(), BigInteger.valueOf(seen.size()));
+    }
+
+    @Test
+    void testIteratorIsRestartable() {
+        OptimalSolutions solutions = OptimalSolutions.of(new BitboardKnightSwapState());
+        Iterator<List<TwoPhaseMoveState.TwoPhaseMove<Position>>> first = solutions.iterator();
+        Iterator<List<TwoPhaseMoveState.TwoPhaseMove<Position>>> second = solutions.iterator();
+
+        assertEquals(first.next(), second.next());
+        assertEquals(first.next(), second.next());
+    }
+
+    @Test
+    void testSolvedStartHasOneEmptySolution() {
+        PuzzleDefinition classic = PuzzleDefinition.classic();
+        BitboardKnightSwapState goal = new BitboardKnightSwapState(classic);
+        goal.setPosition(classic.getGoalLightMask(), classic.getGoalDarkMask(), PieceType.LIGHT);
+        OptimalSolutions solutions = OptimalSolutions.of(goal);
+        Iterator<List<TwoPhaseMoveState.TwoPhaseMove<Position>>> iterator = solutions.iterator();
+
+        assertEquals(0, solutions.getLength());
+        assertEquals(BigInteger.ONE, solutions.getCount());
+        assertEquals(List.of(), iterator.next());
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    void testUnsolvablePosition() {
+        PuzzleDefinition definition = PuzzleDefinition.fromLayouts(List.of("...", ".L.", "..D"), List.of("...", ".D.", "..L"), PieceType.LIGHT);
+        OptimalSolutions solutions = OptimalSolutions.of(new BitboardKnightSwapState(definition));
+
+        assertFalse(solutions.isSolvable());
+        assertEquals(-1, solutions.getLength());
+        assertEquals(BigInteger.ZERO, solutions.getCount());
+        assertThrows(NoSuchElementException.class, () -> solutions.iterator().next());
+    }
+
+    @Test
+    void testStopsAtNodeLimit() {
+        SearchMonitor monitor = new SearchMonitor(SearchLimits.unlimited().withNodeLimit(100));
+        SearchAbortedException e = assertThrows(SearchAbortedException.class,
+                () -> OptimalSolutions.of(new BitboardKnightSwapState(), monitor));
+
+        assertEquals(SearchAbortedException.Reason.NODE_LIMIT, e.getReason());
+    }
+
+    private static BigInteger countWithTablebase(Tablebase tablebase, BitboardKnightSwapState state) {
+        int distance = tablebase.distance(state);
+        if (distance == 0) {
+            return BigInteger.ONE;
+        }
+        BigInteger total = BigInteger.ZERO;
+        int[] moves = new int[state.getDefinition().getMaxLegalMoves()];
+        int count = state.fillLegalMoves(moves);
+        for (int i = 0; i < count; i++) {
+            state.makeMove(moves[i]);
+            if (tablebase.distance(state) == distance - 1) {
+                total = total.add(countWithTablebase(tablebase, state));
+            }
+            state.unmakeMove();
+        }
+        return total;
+    }
+}
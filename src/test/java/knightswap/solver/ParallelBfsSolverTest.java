@@ -0,0 +1,54 @@
+package knightswap.solver;
+
+import knightswap.engine.BitboardKnightSwapState;
+import knightswap.engine.PuzzleDefinition;
+import knightswap.utils.PieceType;
+import knightswap.utils.Position;
+import org.junit.jupiter.api.Test;
+import puzzle.TwoPhaseMoveState;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelBfsSolverTest {
+    @Test
+    void testClassicPuzzle() {
+        BitboardKnightSwapState start = new BitboardKnightSwapState();
+        Solution solution = new ParallelBfsSolver().solve(start).orElseThrow();
+
+        assertEquals(22, solution.length());
+        BitboardKnightSwapState state = start.clone();
+        for (TwoPhaseMoveState.TwoPhaseMove<Position> move : solution.moves()) {
+            state.makeMove(move);
+        }
+        assertTrue(state.isSolved());
+    }
+
+    @Test
+    void testPathIsIndependentOfParallelism() {
+        PuzzleDefinition definition = PuzzleDefinition.fromLayouts(
+                List.of("DDD.", "....", "....", "....", ".LLL"),
+                List.of("LLL.", "....", "....", "....", ".DDD"),
+                PieceType.LIGHT);
+        BitboardKnightSwapState start = new BitboardKnightSwapState(definition);
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool multiple = new ForkJoinPool(4);
+        try {
+            Solution sequential = new ParallelBfsSolver(single).solve(start).orElseThrow();
+            Solution parallel = new ParallelBfsSolver(multiple).solve(start).orElseThrow();
+            assertEquals(sequential, parallel);
+            assertEquals(new AStarSolver().solve(start).orElseThrow().length(), parallel.length());
+        } finally {
+            single.shutdown();
+            multiple.shutdown();
+        }
+    }
+
+    @Test
+    void testUnsolvablePuzzle() {
+        PuzzleDefinition definition = PuzzleDefinition.fromLayouts(List.of("...", ".L.", "..D"), List.of("...", ".D.", "..L"), PieceType.LIGHT);
+        assertTrue(new ParallelBfsSolver().solve(new BitboardKnightSwapState(definition)).isEmpty());
+    }
+}
@@ -0,0 +1,110 @@
+package knightswap.solver;
+
+import knightswap.KnightSwapState;
+import knightswap.engine.BitboardKnightSwapState;
+import knightswap.engine.PuzzleDefinition;
+import knightswap.engine.StateRanker;
+import knightswap.graph.StateGraph;
+import knightswap.utils.PieceType;
+import knightswap.utils.Position;
+import org.junit.jupiter.api.Test;
+import puzzle.TwoPhaseMoveState;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteFinderTest {
+    private static final PuzzleDefinition CLASSIC = PuzzleDefinition.classic();
+    private static final StateGraph GRAPH = StateGraph.build(CLASSIC);
+
+    @Test
+    void testRouteToGoal() {
+        BitboardKnightSwapState start = new BitboardKnightSwapState();
+        BitboardKnightSwapState goal = new BitboardKnightSwapState(CLASSIC, CLASSIC.getGoalLightMask(), CLASSIC.getGoalDarkMask(), PieceType.LIGHT);
+        Solution route = new RouteFinder().findRoute(start, goal).orElseThrow();
+
+        assertEquals(22, route.length());
+        assertEquals(goal, replay(start, route.moves()));
+        assertEquals(new BitboardKnightSwapState(), start);
+    }
+
+    @Test
+    void testRoutesAreShortestAndReachTheTarget() {
+        RouteFinder finder = new RouteFinder();
+        StateRanker ranker = GRAPH.getRanker();
+        for (int from = 0; from < GRAPH.getVertexCount(); from += 4999) {
+            for (int to = 7; to < GRAPH.getVertexCount(); to += 6007) {
+                BitboardKnightSwapState start = ranker.unrank(GRAPH.getKey(from));
+                BitboardKnightSwapState target = ranker.unrank(GRAPH.getKey(to));
+                Optional<int[]> expected = GRAPH.shortestPath(from, to);
+                Optional<Solution> route = finder.findRoute(start, target);
+
+                assertEquals(expected.isPresent(), route.isPresent());
+                if (route.isPresent()) {
+                    assertEquals(expected.get().length, route.get().length());
+                    assertEquals(target, replay(start, route.get().moves()));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testCacheAnswersRepeatedAndLaterQueries() {
+        RouteFinder finder = new RouteFinder();
+        BitboardKnightSwapState start = new BitboardKnightSwapState();
+        BitboardKnightSwapState target = GRAPH.getRanker().unrank(GRAPH.getKey(GRAPH.getVertexCount() / 2));
+        Solution first = finder.findRoute(start, target).orElseThrow();
+        assertEquals(0, finder.getCacheHits());
+        assertEquals(1, finder.getCacheMisses());
+
+        Solution again = finder.findRoute(start, target).orElseThrow();
+        assertEquals(first.moves(), again.moves());
+        assertEquals(0, again.nodesExpanded());
+
+        BitboardKnightSwapState halfway = replay(start, first.moves().subList(0, first.length() / 2));
+        Solution rest = finder.findRoute(halfway, target).orElseThrow();
+        assertEquals(first.length() - first.length() / 2, rest.length());
+        assertEquals(target, replay(halfway, rest.moves()));
+        assertEquals(2, finder.getCacheHits());
+        assertEquals(1, finder.getCacheMisses());
+    }
+
+    @Test
+    void testSamePosition() {
+        BitboardKnightSwapState start = new BitboardKnightSwapState();
+        assertEquals(0, new RouteFinder().findRoute(start, new KnightSwapState()).orElseThrow().length());
+    }
+
+    @Test
+    void testUnreachableTarget() {
+        int stuck = 0;
+        while (GRAPH.getDegree(stuck) > 0) {
+            stuck++;
+        }
+        RouteFinder finder = new RouteFinder();
+        BitboardKnightSwapState from = GRAPH.getRanker().unrank(GRAPH.getKey(stuck));
+        BitboardKnightSwapState to = new BitboardKnightSwapState();
+
+        assertTrue(finder.findRoute(from, to).isEmpty());
+        assertTrue(finder.findRoute(from, to).isEmpty());
+        assertEquals(1, finder.getCacheHits());
+        assertEquals(1, finder.getCacheMisses());
+    }
+
+    @Test
+    void testDifferentVariantsRejected() {
+        PuzzleDefinition small = PuzzleDefinition.fromLayouts(List.of("D..", "...", "..L"), List.of("..D", "...", "L.."), PieceType.LIGHT);
+        assertThrows(IllegalArgumentException.class,
+                () -> new RouteFinder().findRoute(new BitboardKnightSwapState(), new BitboardKnightSwapState(small)));
+    }
+
+    private static BitboardKnightSwapState replay(BitboardKnightSwapState start, List<TwoPhaseMoveState.TwoPhaseMove<Position>> moves) {
+        BitboardKnightSwapState state = start.clone();
+        for (TwoPhaseMoveState.TwoPhaseMove<Position> move : moves) {
+            state.makeMove(move);
+        }
+        return state;
+    }
+}
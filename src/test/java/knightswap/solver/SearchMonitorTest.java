@@ -0,0 +1,84 @@
+package knightswap.solver;
+
+import knightswap.engine.BitboardKnightSwapState;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchMonitorTest {
+    @Test
+    void testNodeLimitStopsEverySolver() {
+        for (Solver solver : List.of(new BidirectionalBfsSolver(), new AStarSolver(), new IdaStarSolver(), new ParallelBfsSolver())) {
+            SearchMonitor monitor = new SearchMonitor(SearchLimits.unlimited().withNodeLimit(50));
+            SearchAbortedException e = assertThrows(SearchAbortedException.class,
+                    () -> solver.solve(new BitboardKnightSwapState(), monitor));
+            assertEquals(SearchAbortedException.Reason.NODE_LIMIT, e.getReason());
+            assertTrue(e.getProgress().nodesExpanded() >= 50);
+        }
+    }
+
+    @Test
+    void testCancelledSearchStops() {
+        SearchMonitor monitor = SearchMonitor.unlimited();
+        monitor.cancel();
+        assertTrue(monitor.isCancelled());
+        SearchAbortedException e = assertThrows(SearchAbortedException.class,
+                () -> new AStarSolver().solve(new BitboardKnightSwapState(), monitor));
+        assertEquals(SearchAbortedException.Reason.CANCELLED, e.getReason());
+        assertEquals(1, e.getProgress().nodesExpanded());
+    }
+
+    @Test
+    void testIdaStarCanBeReusedAfterAbort() {
+        IdaStarSolver solver = new IdaStarSolver();
+        BitboardKnightSwapState start = new BitboardKnightSwapState();
+        assertThrows(SearchAbortedException.class,
+                () -> solver.solve(start, new SearchMonitor(SearchLimits.unlimited().withNodeLimit(100))));
+        assertEquals(22, solver.solve(start).orElseThrow().length());
+    }
+
+    @Test
+    void testObserverReceivesProgress() {
+        List<SearchProgress> reports = new ArrayList<>();
+        SearchMonitor monitor = new SearchMonitor(SearchLimits.unlimited(), reports::add, Duration.ofNanos(1));
+        Solution solution = new ParallelBfsSolver().solve(new BitboardKnightSwapState(), monitor).orElseThrow();
+        assertEquals(22, solution.length());
+        assertFalse(reports.isEmpty());
+        SearchProgress last = reports.get(reports.size() - 1);
+        assertTrue(last.nodesExpanded() <= solution.nodesExpanded());
+        assertTrue(last.visitedSize() > 0);
+        assertTrue(last.usedHeapBytes() > 0);
+    }
+
+    @Test
+    void testTimeAndMemoryLimits() throws InterruptedException {
+        SearchMonitor timed = new SearchMonitor(SearchLimits.unlimited().withTimeLimit(Duration.ofMillis(1)));
+        Thread.sleep(5);
+        assertEquals(SearchAbortedException.Reason.TIME_LIMIT,
+                assertThrows(SearchAbortedException.class, () -> timed.check(0, 0, 0, 0)).getReason());
+        SearchMonitor bounded = new SearchMonitor(SearchLimits.unlimited().withMemoryLimit(1));
+        assertEquals(SearchAbortedException.Reason.MEMORY_LIMIT,
+                assertThrows(SearchAbortedException.class, () -> bounded.check(0, 0, 0, 0)).getReason());
+    }
+
+    @Test
+    void testCheckpointSamplesChecks() {
+        SearchMonitor monitor = new SearchMonitor(SearchLimits.unlimited().withMemoryLimit(1));
+        for (int i = 1; i < SearchMonitor.CHECK_INTERVAL; i++) {
+            monitor.checkpoint(i, 0, 0, 0);
+        }
+        assertThrows(SearchAbortedException.class, () -> monitor.checkpoint(SearchMonitor.CHECK_INTERVAL, 0, 0, 0));
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new SearchLimits(0, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> SearchLimits.unlimited().withNodeLimit(-1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new SearchMonitor(SearchLimits.unlimited(), progress -> {}, Duration.ZERO));
+    }
+}
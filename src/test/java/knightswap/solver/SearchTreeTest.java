@@ -0,0 +1,56 @@
+package knightswap.solver;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchTreeTest {
+    @Test
+    void testEmptyTree() {
+        SearchTree tree = new SearchTree();
+        assertEquals(0, tree.size());
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.getKey(0));
+    }
+
+    @Test
+    void testNodesKeepTheirFields() {
+        SearchTree tree = new SearchTree();
+        int root = tree.addRoot(42L);
+        int child = tree.add(7L, root, 0xABC);
+        assertEquals(0, root);
+        assertEquals(1, child);
+        assertEquals(42L, tree.getKey(root));
+        assertEquals(SearchTree.NO_PARENT, tree.getParent(root));
+        assertEquals(7L, tree.getKey(child));
+        assertEquals(root, tree.getParent(child));
+        assertEquals(0xABC, tree.getMove(child));
+    }
+
+    @Test
+    void testPathFollowsParents() {
+        SearchTree tree = new SearchTree();
+        int node = tree.addRoot(0);
+        tree.addRoot(100);
+        for (int i = 1; i <= 3000; i++) {
+            node = tree.add(i, node, i % 4096);
+        }
+        assertEquals(3002, tree.size());
+        assertEquals(3000, tree.getDepth(node));
+        assertEquals(0, tree.getDepth(1));
+        int[] path = tree.getPath(node);
+        assertEquals(3000, path.length);
+        for (int i = 0; i < path.length; i++) {
+            assertEquals((i + 1) % 4096, path[i]);
+        }
+        assertEquals(0, tree.getPath(0).length);
+    }
+
+    @Test
+    void testUnknownParentIsRejected() {
+        SearchTree tree = new SearchTree();
+        assertThrows(IllegalArgumentException.class, () -> tree.add(1, 0, 0));
+        tree.addRoot(0);
+        assertThrows(IllegalArgumentException.class, () -> tree.add(1, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> tree.add(1, -2, 0));
+    }
+}
@@ -0,0 +1,22 @@
+package knightswap.solver;
+
+import knightswap.engine.BitboardKnightSwapState;
+import knightswap.utils.Position;
+import puzzle.TwoPhaseMoveState;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class SolutionAssertions {
+    private SolutionAssertions() {}
+
+    static void assertReplaysToGoal(BitboardKnightSwapState start, List<TwoPhaseMoveState.TwoPhaseMove<Position>> moves) {
+        BitboardKnightSwapState state = start.clone();
+        for (TwoPhaseMoveState.TwoPhaseMove<Position> move : moves) {
+            assertTrue(state.isLegalMove(move), "Illegal move " + move.from() + " -> " + move.to());
+            state.makeMove(move);
+        }
+        assertTrue(state.isSolved());
+    }
+}
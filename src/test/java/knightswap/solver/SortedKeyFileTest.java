@@ -0,0 +1,81 @@
+package knightswap.solver;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SortedKeyFileTest {
+    @Test
+    void testRoundTrip(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("keys");
+        long[] keys = new long[100_000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i * 3L + (i % 7 == 0 ? 1L << 40 : 0);
+        }
+        Arrays.sort(keys);
+        try (SortedKeyFile.Writer writer = new SortedKeyFile.Writer(file)) {
+            for (long key : keys) {
+                writer.write(key);
+            }
+            assertEquals(keys.length, writer.getCount());
+        }
+        try (SortedKeyFile.Reader reader = new SortedKeyFile.Reader(file)) {
+            for (long key : keys) {
+                assertTrue(reader.hasNext());
+                assertEquals(key, reader.next());
+            }
+            assertFalse(reader.hasNext());
+        }
+    }
+
+    @Test
+    void testDeltasAreCompact(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("keys");
+        try (SortedKeyFile.Writer writer = new SortedKeyFile.Writer(file)) {
+            for (long key = 1_000_000; key < 1_010_000; key += 2) {
+                writer.write(key);
+            }
+        }
+        assertTrue(Files.size(file) < 5_010);
+    }
+
+    @Test
+    void testSkipTo(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("keys");
+        try (SortedKeyFile.Writer writer = new SortedKeyFile.Writer(file)) {
+            writer.write(0);
+            writer.write(5);
+            writer.write(9);
+        }
+        try (SortedKeyFile.Reader reader = new SortedKeyFile.Reader(file)) {
+            reader.skipTo(6);
+            assertEquals(9, reader.peek());
+            reader.skipTo(10);
+            assertFalse(reader.hasNext());
+        }
+    }
+
+    @Test
+    void testRejectsUnorderedKeys(@TempDir Path directory) throws IOException {
+        try (SortedKeyFile.Writer writer = new SortedKeyFile.Writer(directory.resolve("keys"))) {
+            writer.write(4);
+            assertThrows(IllegalArgumentException.class, () -> writer.write(4));
+            assertThrows(IllegalArgumentException.class, () -> writer.write(3));
+        }
+    }
+
+    @Test
+    void testEmptyFile(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("keys");
+        new SortedKeyFile.Writer(file).close();
+        try (SortedKeyFile.Reader reader = new SortedKeyFile.Reader(file)) {
+            assertFalse(reader.hasNext());
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package knightswap.tablebase;
+
+import knightswap.engine.BitboardKnightSwapState;
+import knightswap.engine.PuzzleDefinition;
+import knightswap.engine.StateRanker;
+import knightswap.solver.ExternalBfsSolver;
+import knightswap.solver.Solution;
+import knightswap.solver.SolverType;
+import knightswap.utils.PieceType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeadPositionIndexTest {
+    private static final PuzzleDefinition CLASSIC = PuzzleDefinition.classic();
+    private static final Tablebase TABLEBASE = Tablebase.build(CLASSIC);
+    private static final DeadPositionIndex INDEX = DeadPositionIndex.build(CLASSIC);
+
+    @Test
+    void testBuildMatchesTablebase() {
+        DeadPositionIndex derived = DeadPositionIndex.fromTablebase(TABLEBASE);
+        StateRanker ranker = TABLEBASE.getRanker();
+        for (long index = 0; index < ranker.getStateCount(); index++) {
+            assertEquals(TABLEBASE.distance(index) == Tablebase.UNSOLVABLE, INDEX.isDead(index), "index " + index);
+        }
+        assertEquals(derived.getDeadCount(), INDEX.getDeadCount());
+        assertTrue(INDEX.getDeadCount() > 0);
+    }
+
+    @Test
+    void testStartAndGoalAreLive() {
+        assertFalse(INDEX.isDead(new BitboardKnightSwapState()));
+        BitboardKnightSwapState goal = new BitboardKnightSwapState(CLASSIC);
+        goal.setPosition(CLASSIC.getGoalLightMask(), CLASSIC.getGoalDarkMask(), PieceType.DARK);
+        assertFalse(INDEX.isDead(goal));
+    }
+
+    @Test
+    void testStuckPositionIsDead() {
+        PuzzleDefinition definition = PuzzleDefinition.fromLayouts(List.of("D..", ".L.", "..."), List.of("L..", ".D.", "..."), PieceType.LIGHT);
+        DeadPositionIndex index = DeadPositionIndex.build(definition);
+        assertTrue(index.isDead(new BitboardKnightSwapState(definition)));
+    }
+
+    @Test
+    void testCheckDefinition() {
+        INDEX.checkDefinition(PuzzleDefinition.classic());
+        PuzzleDefinition other = PuzzleDefinition.fromLayouts(List.of("D.D", "...", "...", "L.L"), List.of("L.L", "...", "...", "D.D"), PieceType.DARK);
+        assertThrows(IllegalArgumentException.class, () -> INDEX.checkDefinition(other));
+        assertThrows(IllegalArgumentException.class, () -> SolverType.ASTAR.newSolver(INDEX).solve(new BitboardKnightSwapState(other)));
+    }
+
+    @Test
+    void testPrunedSolversFindOptimalSolution() {
+        for (SolverType type : List.of(SolverType.BIDIRECTIONAL, SolverType.ASTAR, SolverType.IDASTAR, SolverType.PARALLEL)) {
+            Optional<Solution> solution = type.newSolver(INDEX).solve(new BitboardKnightSwapState());
+            assertTrue(solution.isPresent(), type.name());
+            assertEquals(22, solution.get().length(), type.name());
+        }
+    }
+
+    @Test
+    void testPrunedSolversRejectDeadStart() {
+        for (SolverType type : List.of(SolverType.BIDIRECTIONAL, SolverType.ASTAR, SolverType.IDASTAR, SolverType.PARALLEL)) {
+            assertTrue(type.newSolver(INDEX).solve(firstDeadPosition()).isEmpty(), type.name());
+        }
+    }
+
+    @Test
+    void testPrunedExternalSolver(@TempDir Path directory) {
+        ExternalBfsSolver solver = new ExternalBfsSolver(directory, 1 << 20, INDEX);
+        assertEquals(22, solver.solve(new BitboardKnightSwapState()).orElseThrow().length());
+        assertTrue(solver.solve(firstDeadPosition()).isEmpty());
+    }
+
+    private static BitboardKnightSwapState firstDeadPosition() {
+        StateRanker ranker = TABLEBASE.getRanker();
+        for (long index = 0; index < ranker.getStateCount(); index++) {
+            if (INDEX.isDead(index)) {
+                return ranker.unrank(index);
+            }
+        }
+        throw new AssertionError("No dead position");
+    }
+}
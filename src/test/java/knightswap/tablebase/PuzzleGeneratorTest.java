@@ -0,0 +1,67 @@
+package knightswap.tablebase;
+
+import knightswap.KnightSwapState;
+import knightswap.engine.PuzzleDefinition;
+import knightswap.utils.PieceType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PuzzleGeneratorTest {
+    private static final Tablebase CLASSIC = Tablebase.build(PuzzleDefinition.classic());
+
+    @Test
+    void testGeneratedPuzzlesHaveTheRequestedDistance() {
+        PuzzleGenerator generator = new PuzzleGenerator(CLASSIC);
+        for (int distance = 0; distance <= generator.getMaxDistance(); distance++) {
+            if (generator.getLayerSize(distance) == 0) {
+                continue;
+            }
+            for (KnightSwapState puzzle : generator.generate(distance, 20, distance)) {
+                assertEquals(distance, CLASSIC.distance(puzzle));
+                assertEquals(PieceType.LIGHT, puzzle.getCurrentPlayer());
+            }
+        }
+        assertTrue(generator.getMaxDistance() >= 22);
+    }
+
+    @Test
+    void testSameSeedGivesSamePuzzles() {
+        PuzzleGenerator generator = new PuzzleGenerator(CLASSIC);
+        List<KnightSwapState> first = generator.generate(10, 50, 42L);
+        assertEquals(first, generator.generate(10, 50, 42L));
+        assertNotEquals(first, generator.generate(10, 50, 43L));
+    }
+
+    @Test
+    void testPlayerToMoveIsRespected() {
+        PuzzleGenerator generator = new PuzzleGenerator(CLASSIC, PieceType.DARK);
+        KnightSwapState puzzle = generator.generate(15, new SplittableRandom(7));
+        assertEquals(PieceType.DARK, puzzle.getCurrentPlayer());
+        assertEquals(15, CLASSIC.distance(puzzle));
+    }
+
+    @Test
+    void testGeneralizedBoard() {
+        PuzzleDefinition definition = PuzzleDefinition.fromLayouts(
+                List.of("DD..", "....", "....", "..LL"), List.of("LL..", "....", "....", "..DD"), PieceType.LIGHT);
+        Tablebase tablebase = Tablebase.build(definition);
+        PuzzleGenerator generator = new PuzzleGenerator(tablebase);
+        int distance = generator.getMaxDistance();
+        KnightSwapState puzzle = generator.generate(distance, new SplittableRandom(1));
+        assertEquals(4, puzzle.getCols());
+        assertEquals(distance, tablebase.distance(puzzle));
+    }
+
+    @Test
+    void testUnavailableDistancesAreRejected() {
+        PuzzleGenerator generator = new PuzzleGenerator(CLASSIC);
+        assertEquals(0, generator.getLayerSize(-1));
+        assertEquals(0, generator.getLayerSize(generator.getMaxDistance() + 1));
+        assertThrows(IllegalArgumentException.class, () -> generator.generate(generator.getMaxDistance() + 1, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> generator.generate(5, -1, 0));
+    }
+}
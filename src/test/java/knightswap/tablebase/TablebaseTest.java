@@ -0,0 +1,149 @@
+package knightswap.tablebase;
+
+import knightswap.KnightSwapState;
+import knightswap.engine.BitboardKnightSwapState;
+import knightswap.engine.PuzzleDefinition;
+import knightswap.engine.StateRanker;
+import knightswap.engine.SymmetryGroup;
+import knightswap.solver.BidirectionalBfsSolver;
+import knightswap.solver.Solution;
+import knightswap.solver.TablebaseSolver;
+import knightswap.utils.PieceType;
+import knightswap.utils.Position;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import puzzle.TwoPhaseMoveState;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TablebaseTest {
+    private static final PuzzleDefinition SMALL = PuzzleDefinition.fromLayouts(
+            List.of("D.D", "...", "...", "L.L"), List.of("L.L", "...", "...", "D.D"), PieceType.DARK);
+
+    @Test
+    void testClassicDistances() {
+        Tablebase tablebase = Tablebase.build(PuzzleDefinition.classic());
+        PuzzleDefinition classic = PuzzleDefinition.classic();
+
+        assertEquals(22, tablebase.distance(new BitboardKnightSwapState()));
+        assertEquals(0, tablebase.distance(tablebase.getRanker().rank(classic.getGoalLightMask(), classic.getGoalDarkMask(), PieceType.LIGHT)));
+        assertEquals(0, tablebase.distance(tablebase.getRanker().rank(classic.getGoalLightMask(), classic.getGoalDarkMask(), PieceType.DARK)));
+    }
+
+    @Test
+    void testDistancesMatchSearch() {
+        Tablebase tablebase = Tablebase.build(SMALL);
+        StateRanker ranker = tablebase.getRanker();
+        BidirectionalBfsSolver solver = new BidirectionalBfsSolver();
+        for (long index = 0; index < ranker.getStateCount(); index += 37) {
+            Optional<Solution> solution = solver.solve(ranker.unrank(index));
+            int expected = solution.map(Solution::length).orElse(Tablebase.UNSOLVABLE);
+            assertEquals(expected, tablebase.distance(index), "index " + index);
+        }
+    }
+
+    @Test
+    void testStoresOneEntryPerOrbit() {
+        Tablebase tablebase = Tablebase.build(PuzzleDefinition.classic());
+        StateRanker ranker = tablebase.getRanker();
+        SymmetryGroup symmetries = new SymmetryGroup(PuzzleDefinition.classic());
+        int orbits = 0;
+        for (long index = 0; index < ranker.getStateCount(); index++) {
+            if (symmetries.canonicalRank(ranker, ranker.lightMaskOf(index), ranker.darkMaskOf(index), ranker.playerOf(index)) == index) {
+                orbits++;
+            }
+        }
+        assertEquals(orbits, tablebase.getEntryCount());
+        assertTrue(tablebase.getEntryCount() < ranker.getStateCount());
+    }
+
+    @Test
+    void testSaveAndOpen(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("small.kstb");
+        Tablebase built = Tablebase.build(SMALL);
+        built.save(file);
+        Tablebase opened = Tablebase.open(file, SMALL);
+
+        for (long index = 0; index < built.getRanker().getStateCount(); index++) {
+            assertEquals(built.distance(index), opened.distance(index));
+        }
+    }
+
+    @Test
+    void testOpenOrBuildCreatesFile(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("classic.kstb");
+        Tablebase tablebase = Tablebase.openOrBuild(file, PuzzleDefinition.classic());
+
+        assertTrue(Files.exists(file));
+        assertEquals(22, tablebase.distance(new BitboardKnightSwapState()));
+        assertEquals(22, Tablebase.openOrBuild(file, PuzzleDefinition.classic()).distance(new BitboardKnightSwapState()));
+    }
+
+    @Test
+    void testOpenRejectsOtherVariant(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("small.kstb");
+        Tablebase.build(SMALL).save(file);
+        PuzzleDefinition other = PuzzleDefinition.fromLayouts(
+                List.of("D.D", "...", "...", "L.L"), List.of("L.D", "...", "...", "L.D"), PieceType.DARK);
+
+        assertThrows(IOException.class, () -> Tablebase.open(file, other));
+        assertThrows(IOException.class, () -> Tablebase.open(file, PuzzleDefinition.classic()));
+    }
+
+    @Test
+    void testSolverFollowsTable() {
+        BitboardKnightSwapState start = new BitboardKnightSwapState();
+        Solution solution = new TablebaseSolver(Tablebase.build(PuzzleDefinition.classic())).solve(start).orElseThrow();
+
+        assertEquals(22, solution.length());
+        BitboardKnightSwapState state = start.clone();
+        for (TwoPhaseMoveState.TwoPhaseMove<Position> move : solution.moves()) {
+            state.makeMove(move);
+        }
+        assertTrue(state.isSolved());
+    }
+
+    @Test
+    void testSolverReportsUnsolvable() {
+        PuzzleDefinition definition = PuzzleDefinition.fromLayouts(List.of("...", ".L.", "..D"), List.of("...", ".D.", "..L"), PieceType.LIGHT);
+        assertTrue(new TablebaseSolver(Tablebase.build(definition)).solve(new BitboardKnightSwapState(definition)).isEmpty());
+    }
+
+    @Test
+    void testHintLeadsCloserToGoal() {
+        Tablebase tablebase = Tablebase.build(PuzzleDefinition.classic());
+        KnightSwapState state = new KnightSwapState();
+        for (int distance = 22; distance > 0; distance--) {
+            TwoPhaseMoveState.TwoPhaseMove<Position> hint = tablebase.hint(state).orElseThrow();
+            assertTrue(state.isLegalMove(hint));
+            state.makeMove(hint);
+            assertEquals(distance - 1, tablebase.distance(state));
+        }
+        assertTrue(state.isSolved());
+        assertTrue(tablebase.hint(state).isEmpty());
+    }
+
+    @Test
+    void testBestMoveLeavesStateUnchanged() {
+        Tablebase tablebase = Tablebase.build(PuzzleDefinition.classic());
+        BitboardKnightSwapState state = new BitboardKnightSwapState();
+        long key = state.zobristKey();
+
+        assertNotEquals(Tablebase.NO_MOVE, tablebase.bestMove(state));
+        assertEquals(key, state.zobristKey());
+        assertEquals(0, state.getUndoDepth());
+    }
+
+    @Test
+    void testNoHintFromUnsolvablePosition() {
+        PuzzleDefinition definition = PuzzleDefinition.fromLayouts(List.of("...", ".L.", "..D"), List.of("...", ".D.", "..L"), PieceType.LIGHT);
+        Tablebase tablebase = Tablebase.build(definition);
+        assertEquals(Tablebase.NO_MOVE, tablebase.bestMove(new BitboardKnightSwapState(definition)));
+    }
+}
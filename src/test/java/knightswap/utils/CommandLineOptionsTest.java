@@ -0,0 +1,27 @@
+package knightswap.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandLineOptionsTest {
+    private static final Set<String> KNOWN = Set.of("time-limit", "solver", "prune");
+
+    @Test
+    void testParsesValuesAndFlags() {
+        CommandLineOptions options = CommandLineOptions.parse(new String[]{"--time-limit", "60", "--solver=astar", "--prune"}, KNOWN);
+        assertEquals(60, options.getLong("time-limit", 0));
+        assertEquals(Optional.of("astar"), options.get("solver"));
+        assertTrue(options.has("prune"));
+    }
+
+    @Test
+    void testRejectsUnknownOptions() {
+        assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse(new String[]{"--time-limt", "60"}, KNOWN));
+        assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse(new String[]{"--tablebse=x"}, KNOWN));
+        assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse(new String[]{"60"}, KNOWN));
+    }
+}